@@ -0,0 +1,89 @@
+package com.auger.apartments.benchmarks;
+
+import com.auger.apartments.ApartmentsApplication;
+import com.auger.apartments.apartments.Apartment;
+import com.auger.apartments.apartments.ApartmentRepository;
+import com.auger.apartments.applications.Application;
+import com.auger.apartments.applications.ApplicationRepository;
+import com.auger.apartments.users.User;
+import com.auger.apartments.users.UserRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application without a web server against a local PostgreSQL database and fills it with
+ * {@value #ROWS} users, apartments and applications.
+ * <p>
+ * The database is given by the benchmark.jdbc-url, benchmark.username and benchmark.password system
+ * properties. Like the application, the schema is dropped and recreated on startup.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    static final int ROWS = 10_000;
+
+    private ConfigurableApplicationContext context;
+
+    List<User> users;
+    List<Apartment> apartments;
+    List<Application> applications;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(ApartmentsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.jdbc-url=" + System.getProperty("benchmark.jdbc-url"),
+                        "--spring.datasource.username=" + System.getProperty("benchmark.username"),
+                        "--spring.datasource.password=" + System.getProperty("benchmark.password"),
+                        "--spring.docker.compose.enabled=false",
+                        "--logging.level.root=warn"
+                );
+
+        List<User> newUsers = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            newUsers.add(new User(null, "User", "Number " + i, "user" + i + "@gmail.com",
+                    String.format("%010d", i), LocalDate.of(1990, 1, 1), null));
+        }
+        users = bean(UserRepository.class).createAll(newUsers);
+
+        List<Apartment> newApartments = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            newApartments.add(new Apartment(null, "Apartment " + i, "Close to the park", 1 + i % 3, 1 + i % 2,
+                    i % 2 == 0 ? "NY" : "NJ", i % 4 < 2 ? "New York" : "Newark", 500 + i % 1000,
+                    100000 + i % 200 * 1000, null, i % 3 != 0, users.get(i).id(), null));
+        }
+        apartments = bean(ApartmentRepository.class).createAll(newApartments);
+
+        List<Application> newApplications = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            newApplications.add(new Application(null, null, true, false, users.get(i).id(),
+                    apartments.get((i + 1) % ROWS).id()));
+        }
+        applications = bean(ApplicationRepository.class).createAll(newApplications);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    DataSource dataSource() {
+        return context.getBean(DataSource.class);
+    }
+}
@@ -0,0 +1,59 @@
+package com.auger.apartments.benchmarks;
+
+import com.auger.apartments.apartments.Apartment;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization of apartment lists of several sizes to JSON bytes, as the controllers respond to
+ * Get Apartments and Search Apartments. The object mapper is built with the same defaults as Spring Boot's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "100", "1000", "10000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ObjectWriter writer;
+    private List<Apartment> apartments;
+
+    @Setup
+    public void setUp() {
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Apartment.class));
+        apartments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            apartments.add(new Apartment(i + 1, "Apartment " + i, "Two blocks from the subway", 2, 1, "NY",
+                    "New York", 850, 250000, LocalDate.of(2024, 1, 1), true, i + 1, i % 2 == 0 ? null : i + 2));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeApartments() throws JsonProcessingException {
+        return writer.writeValueAsBytes(apartments);
+    }
+}
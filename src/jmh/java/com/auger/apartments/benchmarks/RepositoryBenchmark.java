@@ -0,0 +1,87 @@
+package com.auger.apartments.benchmarks;
+
+import com.auger.apartments.apartments.Apartment;
+import com.auger.apartments.apartments.ApartmentRepository;
+import com.auger.apartments.apartments.ApartmentSearchCriteria;
+import com.auger.apartments.applications.Application;
+import com.auger.apartments.applications.ApplicationRepository;
+import com.auger.apartments.users.User;
+import com.auger.apartments.users.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures repository calls end to end against the database filled by {@link BenchmarkDatabase}, including
+ * taking a connection from the pool, the round trip to PostgreSQL and mapping the rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private UserRepository userRepository;
+    private ApartmentRepository apartmentRepository;
+    private ApplicationRepository applicationRepository;
+    private List<User> users;
+    private List<Apartment> apartments;
+    private List<Application> applications;
+
+    @Setup
+    public void setUp(BenchmarkDatabase database) {
+        userRepository = database.bean(UserRepository.class);
+        apartmentRepository = database.bean(ApartmentRepository.class);
+        applicationRepository = database.bean(ApplicationRepository.class);
+        users = database.users;
+        apartments = database.apartments;
+        applications = database.applications;
+    }
+
+    @Benchmark
+    public Optional<User> findUser() {
+        return userRepository.findOne(random(users).id());
+    }
+
+    @Benchmark
+    public Optional<Apartment> findApartment() {
+        return apartmentRepository.findOne(random(apartments).id());
+    }
+
+    @Benchmark
+    public Optional<Application> findApplication() {
+        return applicationRepository.findOne(random(applications).id());
+    }
+
+    @Benchmark
+    public List<Apartment> findApartmentPage() {
+        return apartmentRepository.findPage(random(apartments).id(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Apartment> searchApartments() {
+        ApartmentSearchCriteria criteria = new ApartmentSearchCriteria("NY", "New York",
+                100000 + ThreadLocalRandom.current().nextInt(200) * 1000, null, 2, null, null, true);
+        return apartmentRepository.search(criteria, 0, PAGE_SIZE);
+    }
+
+    private static <T> T random(List<T> items) {
+        return items.get(ThreadLocalRandom.current().nextInt(items.size()));
+    }
+}
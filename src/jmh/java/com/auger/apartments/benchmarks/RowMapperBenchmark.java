@@ -0,0 +1,85 @@
+package com.auger.apartments.benchmarks;
+
+import com.auger.apartments.apartments.Apartment;
+import com.auger.apartments.apartments.ApartmentRowMapper;
+import com.auger.apartments.applications.Application;
+import com.auger.apartments.applications.ApplicationRowMapper;
+import com.auger.apartments.users.User;
+import com.auger.apartments.users.UserRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the row mappers on rows read by the PostgreSQL driver, so column lookup by name and the decoding of
+ * each value by the driver are included. Each result set stays on one row and is mapped repeatedly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private final ApartmentRowMapper apartmentRowMapper = new ApartmentRowMapper();
+    private final UserRowMapper userRowMapper = new UserRowMapper();
+    private final ApplicationRowMapper applicationRowMapper = new ApplicationRowMapper();
+
+    private Connection connection;
+    private ResultSet apartmentRow;
+    private ResultSet userRow;
+    private ResultSet applicationRow;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) throws SQLException {
+        connection = database.dataSource().getConnection();
+        apartmentRow = firstRow("SELECT * FROM apartments LIMIT 1");
+        userRow = firstRow("SELECT * FROM users LIMIT 1");
+        applicationRow = firstRow("SELECT * FROM applications LIMIT 1");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public Apartment mapApartment() throws SQLException {
+        return apartmentRowMapper.mapRow(apartmentRow, 0);
+    }
+
+    @Benchmark
+    public User mapUser() throws SQLException {
+        return userRowMapper.mapRow(userRow, 0);
+    }
+
+    @Benchmark
+    public Application mapApplication() throws SQLException {
+        return applicationRowMapper.mapRow(applicationRow, 0);
+    }
+
+    private ResultSet firstRow(String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery(sql);
+        if (!rs.next()) {
+            throw new IllegalStateException(String.format("%s returned no rows", sql));
+        }
+        return rs;
+    }
+}
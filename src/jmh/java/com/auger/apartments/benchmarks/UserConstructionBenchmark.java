@@ -0,0 +1,48 @@
+package com.auger.apartments.benchmarks;
+
+import com.auger.apartments.users.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of a {@link User}, whose compact constructor checks the phone number digit by digit
+ * and compares the birth date with the current date.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserConstructionBenchmark {
+
+    private String firstName = "John";
+    private String lastName = "Doe";
+    private String email = "john.doe@gmail.com";
+    private String phoneNumber = "1234567890";
+    private LocalDate birthDate = LocalDate.of(1990, 1, 1);
+
+    @Benchmark
+    public User constructUser() {
+        return new User(1, firstName, lastName, email, phoneNumber, birthDate, birthDate);
+    }
+
+    @Benchmark
+    public Object constructInvalidUser() {
+        try {
+            return new User(1, firstName, lastName, email, "123456789x", birthDate, birthDate);
+        } catch (IllegalArgumentException ex) {
+            return ex;
+        }
+    }
+}
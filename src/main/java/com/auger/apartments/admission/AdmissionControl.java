@@ -0,0 +1,100 @@
+package com.auger.apartments.admission;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides whether the database has room for another request.
+ * <p>
+ * Load is the larger of two fractions: the requests in flight out of maxInFlight, and the average time taken to get
+ * a database connection out of the wait budget. A request is admitted while the load, counting the request itself,
+ * does not exceed {@link Priority#maxLoad()} for its priority. The wait time is averaged over the last complete
+ * window, or over the current window if that is already higher, so load rises within one window of the pools
+ * saturating and falls back to the in-flight fraction once a window passes without slow acquisitions.
+ */
+public class AdmissionControl {
+
+    private final int maxInFlight;
+    private final long waitBudgetNanos;
+    private final long windowMillis;
+    private final Clock clock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // connection waits of the current window, and the average of the previous one, guarded by this
+    private long windowStart;
+    private long windowWaitNanos;
+    private long windowAcquisitions;
+    private long previousAverageWaitNanos;
+
+    /**
+     * @param maxInFlight number of requests in flight at which even single resource reads are rejected
+     * @param waitBudget average connection wait at which even single resource reads are rejected
+     * @param window period over which connection waits are averaged
+     */
+    public AdmissionControl(int maxInFlight, Duration waitBudget, Duration window, Clock clock) {
+        this.maxInFlight = maxInFlight;
+        this.waitBudgetNanos = waitBudget.toNanos();
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+        this.windowStart = clock.millis();
+    }
+
+    /**
+     * Admits the request if the load allows its priority. An admitted request must be released with
+     * {@link #release()} once it completes.
+     *
+     * @return whether the request was admitted
+     */
+    public boolean tryAdmit(Priority priority) {
+        int admitted = inFlight.incrementAndGet();
+        double load = Math.max(admitted / (double) maxInFlight, recentWaitNanos() / (double) waitBudgetNanos);
+        if (load > priority.maxLoad()) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * @return the number of admitted requests that have not completed
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Records how long a request waited for a database connection
+     */
+    public synchronized void recordConnectionWait(long waitNanos) {
+        roll(clock.millis());
+        windowWaitNanos += waitNanos;
+        windowAcquisitions++;
+    }
+
+    /**
+     * @return the average time recently taken to get a database connection
+     */
+    public synchronized long recentWaitNanos() {
+        roll(clock.millis());
+        long currentAverage = windowAcquisitions == 0 ? 0 : windowWaitNanos / windowAcquisitions;
+        return Math.max(previousAverageWaitNanos, currentAverage);
+    }
+
+    private void roll(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed < windowMillis) {
+            return;
+        }
+        // a window without acquisitions, such as one in which every request was rejected, counts as no waiting
+        previousAverageWaitNanos = elapsed >= 2 * windowMillis || windowAcquisitions == 0
+                ? 0 : windowWaitNanos / windowAcquisitions;
+        windowStart = now;
+        windowWaitNanos = 0;
+        windowAcquisitions = 0;
+    }
+}
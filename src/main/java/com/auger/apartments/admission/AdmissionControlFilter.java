@@ -0,0 +1,154 @@
+package com.auger.apartments.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rejects requests with 503 Service Unavailable and a Retry-After header before they reach a controller when
+ * {@link AdmissionControl} has no room for their {@link Priority}, rather than letting them queue for a database
+ * connection until the connection timeout.
+ * <p>
+ * Requests admitted by priority must also get a place within the {@link GradientLimit} of their endpoint group, the
+ * first segment of their path, such as apartments. Bulk operations are not limited by group, since their latency
+ * depends on how much they read or write rather than on how loaded the database is.
+ * <p>
+ * A request that continues asynchronously, such as a streamed export, stays in flight until its response is
+ * complete. Actuator endpoints are never rejected, so health checks and metrics stay available under load.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    public static final String REJECTED_METRIC = "apartments.admission.rejected";
+    public static final String CONCURRENCY_REJECTED_METRIC = "apartments.concurrency.rejected";
+
+    private final AdmissionControl admissionControl;
+    private final Map<String, GradientLimit> concurrencyLimits;
+    private final String retryAfterSeconds;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param concurrencyLimits concurrency limit of each endpoint group, keyed by the first segment of the path.
+     * Requests to other paths are not limited by group.
+     * @param retryAfter how long a rejected client is asked to wait before retrying
+     */
+    public AdmissionControlFilter(AdmissionControl admissionControl, Map<String, GradientLimit> concurrencyLimits,
+                                  Duration retryAfter, MeterRegistry meterRegistry) {
+        this.admissionControl = admissionControl;
+        this.concurrencyLimits = concurrencyLimits;
+        this.retryAfterSeconds = Long.toString(Math.max(1, retryAfter.toSeconds()));
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return the endpoint group of the request, the first segment of its path
+     */
+    public static String group(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Priority priority = Priority.of(request);
+        if (!admissionControl.tryAdmit(priority)) {
+            meterRegistry.counter(REJECTED_METRIC, "priority", priority.name().toLowerCase(Locale.ROOT)).increment();
+            reject(response);
+            return;
+        }
+        String group = group(request);
+        GradientLimit concurrencyLimit = priority == Priority.BULK ? null : concurrencyLimits.get(group);
+        if (concurrencyLimit != null && !concurrencyLimit.tryAcquire()) {
+            admissionControl.release();
+            meterRegistry.counter(CONCURRENCY_REJECTED_METRIC, "group", group).increment();
+            reject(response);
+            return;
+        }
+        Completion completion = new Completion(concurrencyLimit, response, System.nanoTime());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(completion);
+            } else {
+                completion.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("The service is busy, please try again later");
+    }
+
+    /**
+     * Releases an admitted request once, whether it completes on the thread that admitted it or asynchronously
+     */
+    private class Completion implements AsyncListener {
+
+        private final GradientLimit concurrencyLimit;
+        private final HttpServletResponse response;
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Completion(GradientLimit concurrencyLimit, HttpServletResponse response, long start) {
+            this.concurrencyLimit = concurrencyLimit;
+            this.response = response;
+            this.start = start;
+        }
+
+        void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            admissionControl.release();
+            if (concurrencyLimit != null) {
+                concurrencyLimit.release(System.nanoTime() - start,
+                        response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value());
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // still in flight
+        }
+    }
+}
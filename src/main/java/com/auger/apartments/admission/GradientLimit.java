@@ -0,0 +1,102 @@
+package com.auger.apartments.admission;
+
+/**
+ * Concurrency limit of a group of endpoints that adapts to the latency of its requests, following the gradient
+ * algorithm.
+ * <p>
+ * Each completed request compares a long-term average of latency with the latency of the request. While they are
+ * equal the database keeps up, and the limit grows by roughly its square root, so it probes for more concurrency.
+ * Once requests queue in the database, latency rises above the long-term average and the limit shrinks in proportion,
+ * down to half per request. The change is smoothed, so a single slow request does not halve the limit. The limit only
+ * grows while at least half of it is in use, so an idle group does not build up a limit it has never been tested at,
+ * but it shrinks whenever latency rises, however little of it is in use.
+ * <p>
+ * When the long-term average has risen to more than twice the latency of current requests, as after a period of
+ * overload, it is decayed towards it so the limit can recover.
+ */
+public class GradientLimit {
+
+    private static final int WARMUP_SAMPLES = 10;
+    private static final int LONG_WINDOW_SAMPLES = 600;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DROP_BACKOFF = 0.9;
+    private static final double LONG_RTT_DECAY = 0.95;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double limit;
+    private int inFlight;
+    private long samples;
+    private double longRttNanos;
+
+    /**
+     * @param initialLimit limit before any request has completed
+     * @param minLimit lowest the limit may fall, so a group is never shut off completely
+     * @param maxLimit highest the limit may grow
+     */
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Takes a place for a request if the group is below its limit. A request that got a place must give it back with
+     * {@link #release(long, boolean)} once it completes.
+     *
+     * @return whether the request got a place
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Gives back the place of a completed request and adjusts the limit to its latency
+     *
+     * @param rttNanos time from acquiring the place to completing the request
+     * @param dropped whether the request failed because the service was overloaded, such as when it could not get a
+     * database connection. Its latency says nothing about the database, so the limit is cut instead.
+     */
+    public synchronized void release(long rttNanos, boolean dropped) {
+        int inFlightAtCompletion = inFlight;
+        inFlight--;
+        if (dropped) {
+            limit = Math.max(minLimit, limit * DROP_BACKOFF);
+            return;
+        }
+        rttNanos = Math.max(1, rttNanos);
+        samples++;
+        if (samples <= WARMUP_SAMPLES) {
+            longRttNanos += (rttNanos - longRttNanos) / samples;
+            return;
+        }
+        longRttNanos += (rttNanos - longRttNanos) * 2 / (LONG_WINDOW_SAMPLES + 1);
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= LONG_RTT_DECAY;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, longRttNanos / rttNanos));
+        double growth = inFlightAtCompletion < limit / 2 ? 0 : Math.sqrt(limit);
+        double newLimit = limit * gradient + growth;
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+    }
+
+    /**
+     * @return the number of requests that may be in flight at the same time
+     */
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return the number of requests that hold a place
+     */
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+}
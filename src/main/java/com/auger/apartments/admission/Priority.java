@@ -0,0 +1,63 @@
+package com.auger.apartments.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.util.regex.Pattern;
+
+/**
+ * How important a request is to keep serving while the database is overloaded. Requests of a lower priority are
+ * rejected at a lower load, so that when the database slows down bulk operations are shed first, then scans, then
+ * writes, and reads of single resources last.
+ */
+public enum Priority {
+    /**
+     * Get a single user, apartment, application or import
+     */
+    SINGLE_READ(1.0),
+    /**
+     * Create, update, patch or delete a single resource
+     */
+    WRITE(0.9),
+    /**
+     * List, search, get by ids, or list the applications of a resource
+     */
+    SCAN(0.75),
+    /**
+     * Exports, imports and batch creates
+     */
+    BULK(0.5);
+
+    private static final Pattern SINGLE_RESOURCE = Pattern.compile("^/[a-z]+/(\\d+|imports/[0-9a-fA-F-]+)/?$");
+    private static final String TEXT_CSV = "text/csv";
+    private static final Pattern BULK_WRITE = Pattern.compile("^/[a-z]+/(batch|imports)/?$");
+
+    private final double maxLoad;
+
+    Priority(double maxLoad) {
+        this.maxLoad = maxLoad;
+    }
+
+    /**
+     * @return the highest load, as a fraction of the admission limits, at which requests of this priority are admitted
+     */
+    public double maxLoad() {
+        return maxLoad;
+    }
+
+    /**
+     * @return the priority of the request, judged from its method, path and Accept header
+     */
+    public static Priority of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (request.getMethod().equals("GET")) {
+            String accept = request.getHeader(HttpHeaders.ACCEPT);
+            if (accept != null && (accept.contains(MediaType.APPLICATION_NDJSON_VALUE) || accept.contains(TEXT_CSV))) {
+                return BULK;
+            }
+            return SINGLE_RESOURCE.matcher(path).matches() ? SINGLE_READ : SCAN;
+        }
+        return BULK_WRITE.matcher(path).matches() ? BULK : WRITE;
+    }
+}
@@ -0,0 +1,49 @@
+package com.auger.apartments.admission;
+
+import com.auger.apartments.pools.Pool;
+import com.auger.apartments.pools.PoolRouting;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Records how long each request waits for a connection of an interactive pool in {@link AdmissionControl}.
+ * Connections of the batch pool are not recorded, since a long wait for one is expected and says nothing about
+ * whether the database can serve interactive requests.
+ */
+public class WaitRecordingDataSource extends DelegatingDataSource implements Closeable {
+
+    private final AdmissionControl admissionControl;
+
+    public WaitRecordingDataSource(DataSource targetDataSource, AdmissionControl admissionControl) {
+        super(targetDataSource);
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PoolRouting.currentPool() == Pool.BATCH) {
+            return super.getConnection();
+        }
+        long start = System.nanoTime();
+        try {
+            return super.getConnection();
+        } finally {
+            admissionControl.recordConnectionWait(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Closes the target data source if it owns pools, so they are still closed with the application context
+     */
+    @Override
+    public void close() throws IOException {
+        if (obtainTargetDataSource() instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -18,6 +18,7 @@ import java.time.LocalDate;
  * @param available
  * @param ownerId must reference an existing user
  * @param renterId must reference an existing user or be null to represent an unoccupied apartment
+ * @param version incremented by every update, used to detect conflicting updates
  */
 public record Apartment(Integer id,
                         String title,
@@ -31,7 +32,8 @@ public record Apartment(Integer id,
                         LocalDate dateListed,
                         boolean available,
                         int ownerId,
-                        Integer renterId) {
+                        Integer renterId,
+                        Integer version) {
 
     public Apartment {
         if (numberOfBedrooms < 0) {
@@ -48,4 +50,22 @@ public record Apartment(Integer id,
             throw new IllegalArgumentException("Monthly rent must be greater than zero");
         }
     }
+
+    /**
+     * Creates an apartment without a version, for a new apartment or an update that does not check the version
+     */
+    public Apartment(Integer id, String title, String description, int numberOfBedrooms, int numberOfBathrooms,
+                     String state, String city, int squareFeet, int monthlyRent, LocalDate dateListed,
+                     boolean available, int ownerId, Integer renterId) {
+        this(id, title, description, numberOfBedrooms, numberOfBathrooms, state, city, squareFeet, monthlyRent,
+                dateListed, available, ownerId, renterId, null);
+    }
+
+    /**
+     * @return a copy of this apartment with the given version
+     */
+    public Apartment withVersion(Integer version) {
+        return new Apartment(id, title, description, numberOfBedrooms, numberOfBathrooms, state, city,
+                squareFeet, monthlyRent, dateListed, available, ownerId, renterId, version);
+    }
 }
@@ -1,14 +1,38 @@
 package com.auger.apartments.apartments;
 
+import com.auger.apartments.applications.Application;
+import com.auger.apartments.applications.ApplicationService;
+import com.auger.apartments.applications.ApplicationWithUser;
+import com.auger.apartments.batch.BatchLookup;
+import com.auger.apartments.batch.BatchResult;
+import com.auger.apartments.etags.ETags;
 import com.auger.apartments.exceptions.ApartmentNotFoundException;
+import com.auger.apartments.exceptions.ImportNotFoundException;
+import com.auger.apartments.exceptions.InvalidRequestException;
+import com.auger.apartments.export.CsvExport;
+import com.auger.apartments.export.NdjsonResponses;
+import com.auger.apartments.imports.ImportFormat;
+import com.auger.apartments.imports.ImportReport;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.auger.apartments.patch.MergePatch;
+import com.auger.apartments.projection.Projection;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/apartments")
@@ -16,9 +40,14 @@ public class ApartmentController {
 
     private static final Logger logger = LoggerFactory.getLogger(ApartmentController.class);
     private final ApartmentService apartmentService;
+    private final ApplicationService applicationService;
+    private final ObjectMapper objectMapper;
 
-    public ApartmentController(ApartmentService apartmentService) {
+    public ApartmentController(ApartmentService apartmentService, ApplicationService applicationService,
+                               ObjectMapper objectMapper) {
         this.apartmentService = apartmentService;
+        this.applicationService = applicationService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -29,34 +58,201 @@ public class ApartmentController {
         return new ResponseEntity<>(createdApartment, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult<Apartment>> createApartments(@RequestBody List<Apartment> apartments) {
+        logger.info("Creating a batch of apartments");
+        BatchResult<Apartment> result = apartmentService.createApartments(apartments);
+        logger.info("Batch processed: {} created, {} rejected", result.created(), result.rejected());
+        HttpStatus status = result.rejected() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return new ResponseEntity<>(result, status);
+    }
+
+    @PostMapping(value = "/imports", consumes = "text/csv")
+    public ResponseEntity<ImportReport> importApartmentsFromCsv(InputStream body) {
+        return importApartments(body, ImportFormat.CSV);
+    }
+
+    @PostMapping(value = "/imports", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReport> importApartmentsFromNdjson(InputStream body) {
+        return importApartments(body, ImportFormat.NDJSON);
+    }
+
+    private ResponseEntity<ImportReport> importApartments(InputStream body, ImportFormat format) {
+        logger.info("Importing apartments from {}", format);
+        ImportReport report = apartmentService.importApartments(body, format);
+        logger.info("Import processed: {} imported, {} rejected", report.rowsImported(), report.rowsRejected());
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+
+    @GetMapping("/imports")
+    public ResponseEntity<List<ImportReport>> getApartmentImports() {
+        logger.info("Retrieving apartment imports");
+        List<ImportReport> imports = apartmentService.getApartmentImports();
+        logger.info("Apartment imports retrieved successfully");
+        return new ResponseEntity<>(imports, HttpStatus.OK);
+    }
+
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<ImportReport> getApartmentImport(@PathVariable UUID id) {
+        logger.info("Retrieving an apartment import");
+        Optional<ImportReport> report = apartmentService.getApartmentImport(id);
+        if (report.isPresent()) {
+            logger.info("Apartment import retrieved successfully");
+            return new ResponseEntity<>(report.get(), HttpStatus.OK);
+        } else {
+            throw new ImportNotFoundException(String.format("Import with id %s does not exist", id));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Apartment> getApartment(@PathVariable int id) {
         logger.info("Retrieving an apartment");
         Optional<Apartment> apartment = apartmentService.getApartment(id);
         if (apartment.isPresent()) {
             logger.info("Apartment retrieved successfully");
-            return new ResponseEntity<>(apartment.get(), HttpStatus.OK);
+            return new ResponseEntity<>(apartment.get(), ETags.versionHeaders(apartment.get().version()),
+                    HttpStatus.OK);
+        } else {
+            throw new ApartmentNotFoundException(String.format("Apartment with id %s does not exist", id));
+        }
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getApartmentFields(
+            @PathVariable int id,
+            @RequestParam List<String> fields) {
+        logger.info("Retrieving fields of an apartment");
+        Optional<Apartment> apartment = apartmentService.getApartment(id);
+        if (apartment.isPresent()) {
+            Map<String, Object> selectedApartment = Projection.select(apartment.get(), fields);
+            logger.info("Apartment retrieved successfully");
+            return new ResponseEntity<>(selectedApartment, ETags.headers(selectedApartment), HttpStatus.OK);
         } else {
             throw new ApartmentNotFoundException(String.format("Apartment with id %s does not exist", id));
         }
     }
 
     @GetMapping
-    public ResponseEntity<List<Apartment>> getAllApartments() {
-        logger.info("Retrieving all apartments");
-        List<Apartment> allApartments = apartmentService.getAllApartments();
+    public ResponseEntity<Page<Apartment>> getApartments(
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after) {
+        logger.info("Retrieving a page of apartments");
+        Page<Apartment> apartments = apartmentService.getApartments(PageRequest.of(after, limit));
         logger.info("Apartments retrieved successfully");
-        return new ResponseEntity<>(allApartments, HttpStatus.OK);
+        return new ResponseEntity<>(apartments, ETags.headers(apartments), HttpStatus.OK);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchLookup<Apartment>> getApartmentsById(@RequestParam List<Integer> ids) {
+        logger.info("Retrieving apartments by id");
+        BatchLookup<Apartment> apartments = apartmentService.getApartments(ids);
+        logger.info("Apartments retrieved successfully: {} found, {} missing", apartments.items().size(),
+                apartments.missingIds().size());
+        return new ResponseEntity<>(apartments, ETags.headers(apartments), HttpStatus.OK);
+    }
+
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<Page<Map<String, Object>>> getApartmentsFields(
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam List<String> fields) {
+        logger.info("Retrieving fields of a page of apartments");
+        Page<Map<String, Object>> apartments = apartmentService.getApartments(PageRequest.of(after, limit), fields);
+        logger.info("Apartments retrieved successfully");
+        return new ResponseEntity<>(apartments, ETags.headers(apartments), HttpStatus.OK);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Page<Apartment>> searchApartments(
+            ApartmentSearchCriteria criteria,
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after) {
+        logger.info("Searching apartments");
+        Page<Apartment> apartments = apartmentService.searchApartments(criteria, PageRequest.of(after, limit));
+        logger.info("Apartments retrieved successfully");
+        return new ResponseEntity<>(apartments, ETags.headers(apartments), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/search", params = "fields")
+    public ResponseEntity<Page<Map<String, Object>>> searchApartmentsFields(
+            ApartmentSearchCriteria criteria,
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam List<String> fields) {
+        logger.info("Searching fields of apartments");
+        Page<Map<String, Object>> apartments = apartmentService.searchApartments(criteria,
+                PageRequest.of(after, limit), fields);
+        logger.info("Apartments retrieved successfully");
+        return new ResponseEntity<>(apartments, ETags.headers(apartments), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/applications")
+    public ResponseEntity<Page<Application>> getApartmentApplications(
+            @PathVariable int id,
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String embed) {
+        if (embed != null) {
+            throw new InvalidRequestException(String.format(
+                    "Unable to embed %s. The applications of an apartment can embed user", embed));
+        }
+        logger.info("Retrieving a page of applications for an apartment");
+        Page<Application> applications = applicationService.getApartmentApplications(id, PageRequest.of(after, limit));
+        logger.info("Applications retrieved successfully");
+        return new ResponseEntity<>(applications, ETags.headers(applications), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/{id}/applications", params = "embed=user")
+    public ResponseEntity<Page<ApplicationWithUser>> getApartmentApplicationsWithUsers(
+            @PathVariable int id,
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after) {
+        logger.info("Retrieving a page of applications with users for an apartment");
+        Page<ApplicationWithUser> applications = applicationService.getApartmentApplicationsWithUsers(id,
+                PageRequest.of(after, limit));
+        logger.info("Applications retrieved successfully");
+        return new ResponseEntity<>(applications, ETags.headers(applications), HttpStatus.OK);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportApartments() {
+        logger.info("Exporting all apartments");
+        StreamingResponseBody body = NdjsonResponses.stream(objectMapper, apartmentService::exportApartments);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    @GetMapping(produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportApartmentsCsv(
+            ApartmentExportCriteria criteria,
+            @RequestParam(required = false) List<String> columns) {
+        logger.info("Exporting apartments as CSV");
+        CsvExport export = apartmentService.exportApartmentsCsv(criteria, columns);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        return new ResponseEntity<>(export::writeTo, headers, HttpStatus.OK);
     }
 
     @PutMapping
-    public ResponseEntity<Void> updateApartment(@RequestBody Apartment apartment) {
+    public ResponseEntity<Void> updateApartment(@RequestBody Apartment apartment,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Updating an apartment");
-        apartmentService.updateApartment(apartment);
+        apartmentService.updateApartment(apartment.withVersion(ETags.expectedVersion(ifMatch, apartment.version())));
         logger.info("Apartment updated successfully");
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchApartment(@PathVariable int id, @RequestBody JsonNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.info("Patching an apartment");
+        MergePatch mergePatch = MergePatch.of(objectMapper, patch);
+        apartmentService.patchApartment(id, mergePatch, ETags.expectedVersion(ifMatch, mergePatch.version()));
+        logger.info("Apartment patched successfully");
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteApartment(@PathVariable int id) {
         logger.info("Deleting an apartment");
@@ -0,0 +1,10 @@
+package com.auger.apartments.apartments;
+
+/**
+ * Outcome of deleting an apartment only if it has no renter
+ */
+public enum ApartmentDeleteResult {
+    DELETED,
+    NOT_FOUND,
+    OCCUPIED
+}
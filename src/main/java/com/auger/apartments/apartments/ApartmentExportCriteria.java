@@ -0,0 +1,20 @@
+package com.auger.apartments.apartments;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the filters of a CSV apartment export. A null filter is not applied.
+ *
+ * @param state
+ * @param city
+ * @param available
+ * @param listedFrom earliest date listed, inclusive
+ * @param listedTo latest date listed, inclusive
+ */
+public record ApartmentExportCriteria(String state,
+                                      String city,
+                                      Boolean available,
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate listedFrom,
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate listedTo) {}
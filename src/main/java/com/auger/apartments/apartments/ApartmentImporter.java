@@ -0,0 +1,263 @@
+package com.auger.apartments.apartments;
+
+import com.auger.apartments.exceptions.DatabaseException;
+import com.auger.apartments.exceptions.InvalidRequestException;
+import com.auger.apartments.imports.ImportProgress;
+import com.auger.apartments.imports.ImportRecords;
+import com.auger.apartments.pools.Pool;
+import com.auger.apartments.pools.UsePool;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Loads large numbers of apartments with COPY instead of INSERT statements.
+ * <p>
+ * Each record is parsed from the request body as it arrives and streamed to a temporary staging table
+ * with COPY FROM STDIN. Records that fail the checks of {@link Apartment} are rejected while parsing.
+ * Once the body has been read, the staging table is checked against users and apartments with one query,
+ * following the same rules as {@link ApartmentValidator#validateNewApartments}, and the remaining rows are
+ * merged into apartments with a single INSERT ... SELECT.
+ * <p>
+ * The whole import runs in one transaction on one connection, so a failure, including a conflicting write
+ * by another request during the merge, leaves the apartments table unchanged. The connection comes from the
+ * batch pool, so a long import does not hold one of the connections interactive requests use.
+ */
+@Component
+public class ApartmentImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApartmentImporter.class);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_LOG_INTERVAL = 100_000;
+    private static final String OWNER_NOT_FOUND = "owner_not_found";
+    private static final String RENTER_NOT_FOUND = "renter_not_found";
+    private static final String RENTER_TAKEN = "renter_taken";
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+
+    public ApartmentImporter(DataSource dataSource, ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Imports every apartment in the input and records the outcome in progress
+     *
+     * @param input request body in the format of the import
+     * @param progress updated as rows are read, rejected and imported
+     */
+    @UsePool(Pool.BATCH)
+    public void importApartments(InputStream input, ImportProgress progress) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                createStagingTable(connection);
+                copyToStagingTable(connection, input, progress);
+                rejectInvalidRows(connection, progress);
+                long rowsImported = mergeStagingTable(connection);
+                connection.commit();
+                progress.complete(rowsImported);
+            } catch (SQLException | IOException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            }
+        } catch (IOException ex) {
+            throw new InvalidRequestException(String.format("Unable to read the import: %s", ex.getMessage()));
+        } catch (SQLException ex) {
+            logger.error("Apartment import {} failed", progress.id(), ex);
+            throw new DatabaseException("An error occurred when importing apartments into the database", ex);
+        }
+    }
+
+    private void createStagingTable(Connection connection) throws SQLException {
+        String sql = """
+                CREATE TEMPORARY TABLE apartments_import (
+                    row_number bigint NOT NULL,
+                    title text,
+                    description text,
+                    number_of_bedrooms integer NOT NULL,
+                    number_of_bathrooms integer NOT NULL,
+                    state text NOT NULL,
+                    city text NOT NULL,
+                    square_feet integer NOT NULL,
+                    monthly_rent integer NOT NULL,
+                    available boolean NOT NULL,
+                    owner_id integer NOT NULL,
+                    renter_id integer
+                ) ON COMMIT DROP;
+                """;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private void copyToStagingTable(Connection connection, InputStream input, ImportProgress progress)
+            throws SQLException, IOException {
+        String sql = """
+                COPY apartments_import (row_number, title, description, number_of_bedrooms, number_of_bathrooms,
+                state, city, square_feet, monthly_rent, available, owner_id, renter_id)
+                FROM STDIN (FORMAT csv)
+                """;
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE);
+        try {
+            ImportRecords.read(input, progress.format(), objectMapper, Apartment.class, new ImportRecords.Handler<>() {
+                @Override
+                public void accept(long row, Apartment apartment) throws SQLException {
+                    logProgress(progress, progress.rowRead());
+                    appendRow(buffer, row, apartment);
+                    if (buffer.length() >= COPY_BUFFER_SIZE) {
+                        writeToCopy(copyIn, buffer);
+                    }
+                }
+
+                @Override
+                public void reject(long row, String error) {
+                    logProgress(progress, progress.rowRead());
+                    progress.reject(row, error);
+                }
+            });
+            writeToCopy(copyIn, buffer);
+            long rowsCopied = copyIn.endCopy();
+            logger.info("Copied {} rows of apartment import {} to the staging table", rowsCopied, progress.id());
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX ON apartments_import (renter_id, row_number)");
+            statement.execute("ANALYZE apartments_import");
+        }
+    }
+
+    private void logProgress(ImportProgress progress, long rowsRead) {
+        if (rowsRead % PROGRESS_LOG_INTERVAL == 0) {
+            logger.info("Read {} rows of apartment import {}", rowsRead, progress.id());
+        }
+    }
+
+    private static void appendRow(StringBuilder buffer, long row, Apartment apartment) {
+        buffer.append(row).append(',');
+        appendText(buffer, apartment.title());
+        buffer.append(',');
+        appendText(buffer, apartment.description());
+        buffer.append(',').append(apartment.numberOfBedrooms())
+                .append(',').append(apartment.numberOfBathrooms())
+                .append(',');
+        appendText(buffer, apartment.state());
+        buffer.append(',');
+        appendText(buffer, apartment.city());
+        buffer.append(',').append(apartment.squareFeet())
+                .append(',').append(apartment.monthlyRent())
+                .append(',').append(apartment.available())
+                .append(',').append(apartment.ownerId())
+                .append(',');
+        if (apartment.renterId() != null) {
+            buffer.append(apartment.renterId());
+        }
+        buffer.append('\n');
+    }
+
+    /**
+     * Quotes a value so that COPY reads an empty string as an empty string. An unquoted empty field is null.
+     */
+    private static void appendText(StringBuilder buffer, String value) {
+        if (value != null) {
+            buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Rejects rows whose owner or renter does not exist, and rows whose renter already rents an apartment or
+     * is the renter of an earlier row with an existing owner.
+     */
+    private void rejectInvalidRows(Connection connection, ImportProgress progress) throws SQLException {
+        String sql = """
+                CREATE TEMPORARY TABLE apartments_import_rejections ON COMMIT DROP AS
+                SELECT row_number, owner_id, renter_id, rejection
+                FROM (
+                    SELECT s.row_number, s.owner_id, s.renter_id,
+                        CASE
+                            WHEN NOT EXISTS (SELECT 1 FROM users u WHERE u.id = s.owner_id) THEN 'owner_not_found'
+                            WHEN s.renter_id IS NULL THEN NULL
+                            WHEN NOT EXISTS (SELECT 1 FROM users u WHERE u.id = s.renter_id) THEN 'renter_not_found'
+                            WHEN EXISTS (SELECT 1 FROM apartments a WHERE a.renter_id = s.renter_id)
+                                OR EXISTS (
+                                    SELECT 1
+                                    FROM apartments_import d
+                                    JOIN users u ON u.id = d.owner_id
+                                    WHERE d.renter_id = s.renter_id AND d.row_number < s.row_number
+                                ) THEN 'renter_taken'
+                        END AS rejection
+                    FROM apartments_import s
+                ) checked
+                WHERE rejection IS NOT NULL;
+                """;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            statement.setFetchSize(ImportProgress.MAX_REPORTED_REJECTIONS);
+            String rejectionsSql = """
+                    SELECT row_number, owner_id, renter_id, rejection
+                    FROM apartments_import_rejections
+                    ORDER BY row_number;
+                    """;
+            try (ResultSet rs = statement.executeQuery(rejectionsSql)) {
+                while (rs.next()) {
+                    progress.reject(rs.getLong("row_number"), describeRejection(
+                            rs.getString("rejection"), rs.getInt("owner_id"), rs.getInt("renter_id")
+                    ));
+                }
+            }
+        }
+    }
+
+    private static String describeRejection(String rejection, int ownerId, int renterId) {
+        return switch (rejection) {
+            case OWNER_NOT_FOUND -> String.format("User with id %s does not exist", ownerId);
+            case RENTER_NOT_FOUND -> String.format("User with id %s does not exist", renterId);
+            case RENTER_TAKEN -> String.format("""
+                    A user with id %s is renting a different apartment.
+                    A user can only rent one apartment at a time.
+                    """, renterId);
+            default -> throw new IllegalStateException(String.format("Unknown rejection %s", rejection));
+        };
+    }
+
+    private long mergeStagingTable(Connection connection) throws SQLException {
+        String sql = """
+                INSERT INTO apartments (title, description, number_of_bedrooms, number_of_bathrooms, state, city,
+                square_feet, monthly_rent, date_listed, available, owner_id, renter_id)
+                SELECT title, description, number_of_bedrooms, number_of_bathrooms, state, city,
+                square_feet, monthly_rent, CURRENT_DATE, available, owner_id, renter_id
+                FROM apartments_import s
+                WHERE NOT EXISTS (SELECT 1 FROM apartments_import_rejections r WHERE r.row_number = s.row_number)
+                ORDER BY row_number;
+                """;
+        try (Statement statement = connection.createStatement()) {
+            return statement.executeLargeUpdate(sql);
+        }
+    }
+}
@@ -1,18 +1,53 @@
 package com.auger.apartments.apartments;
 
+import com.auger.apartments.export.CsvExport;
+
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ApartmentRepository {
+
+    /**
+     * Attributes written by {@link #patch}
+     */
+    List<String> PATCHABLE_ATTRIBUTES = List.of("title", "description", "numberOfBedrooms",
+            "numberOfBathrooms", "state", "city", "squareFeet", "monthlyRent", "available", "ownerId", "renterId");
+
     Apartment create(Apartment apartment);
 
+    List<Apartment> createAll(List<Apartment> apartments);
+
     Optional<Apartment> findOne(Integer id);
 
-    List<Apartment> findAll();
+    List<Apartment> findAll(List<Integer> ids);
+
+    void streamAll(Consumer<Apartment> consumer);
+
+    CsvExport exportCsv(ApartmentExportCriteria criteria, List<String> columns);
+
+    List<Apartment> findPage(int afterId, int limit);
 
-    void update(Apartment apartment);
+    List<Map<String, Object>> findPage(int afterId, int limit, List<String> fields);
 
-    void delete(int id);
+    List<Apartment> search(ApartmentSearchCriteria criteria, int afterId, int limit);
+
+    List<Map<String, Object>> search(ApartmentSearchCriteria criteria, int afterId, int limit, List<String> fields);
+
+    int update(Apartment apartment);
+
+    int patch(Apartment apartment, Apartment patchedApartment);
+
+    int delete(int id);
+
+    ApartmentDeleteResult deleteIfVacant(int id);
 
     boolean exists(int id);
+
+    /**
+     * Like {@link #exists} but always asks the database, for callers that cannot accept an answer the existence
+     * index has not caught up with yet
+     */
+    boolean existsInDatabase(int id);
 }
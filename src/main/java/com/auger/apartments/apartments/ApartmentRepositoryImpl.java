@@ -1,27 +1,55 @@
 package com.auger.apartments.apartments;
 
+import com.auger.apartments.batch.BatchInserts;
+import com.auger.apartments.batch.BatchInserts.SqlArray;
 import com.auger.apartments.exceptions.DatabaseException;
+import com.auger.apartments.existence.ExistenceIndexes;
+import com.auger.apartments.export.CsvCopy;
+import com.auger.apartments.export.CsvExport;
+import com.auger.apartments.export.StreamingQueries;
+import com.auger.apartments.existence.IdIndex;
+import com.auger.apartments.patch.ColumnUpdate;
+import com.auger.apartments.pools.Pool;
+import com.auger.apartments.pools.PoolRouting;
+import com.auger.apartments.pools.UsePool;
+import com.auger.apartments.projection.Projection;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class ApartmentRepositoryImpl implements ApartmentRepository {
 
+    private static final Map<String, String> COLUMNS = columns();
+    // columns that can be selected with fields, which unlike the exported columns include the version
+    private static final Map<String, String> FIELDS = fields();
     private final JdbcTemplate jdbcTemplate;
     private final ApartmentRowMapper apartmentRowMapper;
     private final SimpleJdbcInsert simpleJdbcInsert;
+    private final StreamingQueries streamingQueries;
+    private final DataSource exportDataSource;
+    private final IdIndex idIndex;
 
-    public ApartmentRepositoryImpl(JdbcTemplate jdbcTemplate, ApartmentRowMapper apartmentRowMapper) {
+    public ApartmentRepositoryImpl(JdbcTemplate jdbcTemplate, ApartmentRowMapper apartmentRowMapper,
+                                   StreamingQueries streamingQueries,
+                                   ExistenceIndexes existenceIndexes) {
         this.jdbcTemplate = jdbcTemplate;
         this.apartmentRowMapper = apartmentRowMapper;
+        this.streamingQueries = streamingQueries;
+        this.exportDataSource = PoolRouting.using(Pool.BATCH, jdbcTemplate.getDataSource());
+        this.idIndex = existenceIndexes.forTable("apartments");
         this.simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName("apartments")
                 .usingGeneratedKeyColumns("id");
     }
@@ -43,18 +71,69 @@ public class ApartmentRepositoryImpl implements ApartmentRepository {
             parameters.put("available", apartment.available());
             parameters.put("owner_id", apartment.ownerId());
             parameters.put("renter_id", apartment.renterId());
+            parameters.put("version", 0);
+
+            long removals = idIndex.removals();
 
             int id = simpleJdbcInsert.executeAndReturnKey(parameters).intValue();
+            idIndex.addIfUnchanged(id, removals);
             return new Apartment(id, apartment.title(), apartment.description(), apartment.numberOfBedrooms(),
                     apartment.numberOfBathrooms(), apartment.state(), apartment.city(), apartment.squareFeet(),
                     apartment.monthlyRent(), dateListed, apartment.available(), apartment.ownerId(),
-                    apartment.renterId());
+                    apartment.renterId(), 0);
+        } catch (DataAccessException ex) {
+            throw new DatabaseException("An error occurred when inserting an apartment in the database", ex);
+        }
+    }
+
+    @Override
+    public List<Apartment> createAll(List<Apartment> apartments) {
+        try {
+            String sql = """
+                INSERT INTO apartments (title, description, number_of_bedrooms, number_of_bathrooms, state, city,
+                square_feet, monthly_rent, date_listed, available, owner_id, renter_id)
+                SELECT title, description, number_of_bedrooms, number_of_bathrooms, state, city,
+                square_feet, monthly_rent, ?, available, owner_id, renter_id
+                FROM unnest(?::text[], ?::text[], ?::integer[], ?::integer[], ?::text[], ?::text[],
+                    ?::integer[], ?::integer[], ?::boolean[], ?::integer[], ?::integer[])
+                    WITH ORDINALITY AS batch (title, description, number_of_bedrooms, number_of_bathrooms, state,
+                    city, square_feet, monthly_rent, available, owner_id, renter_id, position)
+                ORDER BY position
+                RETURNING id;
+                """;
+            LocalDate dateListed = LocalDate.now();
+            long removals = idIndex.removals();
+            List<Integer> ids = BatchInserts.insertReturningIds(jdbcTemplate, sql, dateListed,
+                    new SqlArray("text", apartments.stream().map(Apartment::title).toArray()),
+                    new SqlArray("text", apartments.stream().map(Apartment::description).toArray()),
+                    new SqlArray("integer", apartments.stream().map(Apartment::numberOfBedrooms).toArray()),
+                    new SqlArray("integer", apartments.stream().map(Apartment::numberOfBathrooms).toArray()),
+                    new SqlArray("text", apartments.stream().map(Apartment::state).toArray()),
+                    new SqlArray("text", apartments.stream().map(Apartment::city).toArray()),
+                    new SqlArray("integer", apartments.stream().map(Apartment::squareFeet).toArray()),
+                    new SqlArray("integer", apartments.stream().map(Apartment::monthlyRent).toArray()),
+                    new SqlArray("boolean", apartments.stream().map(Apartment::available).toArray()),
+                    new SqlArray("integer", apartments.stream().map(Apartment::ownerId).toArray()),
+                    new SqlArray("integer", apartments.stream().map(Apartment::renterId).toArray())
+            );
+            List<Apartment> createdApartments = new ArrayList<>(apartments.size());
+            for (int i = 0; i < apartments.size(); i++) {
+                Apartment apartment = apartments.get(i);
+                int id = ids.get(i);
+                idIndex.addIfUnchanged(id, removals);
+                createdApartments.add(new Apartment(id, apartment.title(), apartment.description(),
+                        apartment.numberOfBedrooms(), apartment.numberOfBathrooms(), apartment.state(),
+                        apartment.city(), apartment.squareFeet(), apartment.monthlyRent(), dateListed,
+                        apartment.available(), apartment.ownerId(), apartment.renterId(), 0));
+            }
+            return createdApartments;
         } catch (DataAccessException ex) {
-            throw new DatabaseException("An error occurred when inserting an apartment in the database");
+            throw new DatabaseException("An error occurred when inserting apartments in the database", ex);
         }
     }
 
     @Override
+    @UsePool(Pool.INTERACTIVE_READ)
     public Optional<Apartment> findOne(Integer id) {
         String sql = """
                 SELECT *
@@ -68,56 +147,256 @@ public class ApartmentRepositoryImpl implements ApartmentRepository {
     }
 
     @Override
-    public List<Apartment> findAll() {
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<Apartment> findAll(List<Integer> ids) {
+        // one query for every id, in no particular order
+        String sql = """
+                SELECT *
+                FROM apartments
+                WHERE id = ANY(?);
+                """;
+        return jdbcTemplate.query(sql, apartmentRowMapper, (Object) ids.toArray(Integer[]::new));
+    }
+
+    @Override
+    @UsePool(Pool.BATCH)
+    public void streamAll(Consumer<Apartment> consumer) {
         String sql = """
                 SELECT *
                 FROM apartments;
                 """;
-        return jdbcTemplate.query(sql, apartmentRowMapper);
+        streamingQueries.stream(sql, apartmentRowMapper, consumer);
+    }
+
+    @Override
+    public CsvExport exportCsv(ApartmentExportCriteria criteria, List<String> columns) {
+        return CsvCopy.of(exportDataSource, "apartments", COLUMNS, columns)
+                .where("state = ?", criteria.state())
+                .where("city = ?", criteria.city())
+                .where("available = ?", criteria.available())
+                .where("date_listed >= ?::date", criteria.listedFrom())
+                .where("date_listed <= ?::date", criteria.listedTo());
+    }
+
+    /**
+     * @return the columns that may be exported or selected, keyed by attribute name
+     */
+    private static Map<String, String> columns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("id", "id");
+        columns.put("title", "title");
+        columns.put("description", "description");
+        columns.put("numberOfBedrooms", "number_of_bedrooms");
+        columns.put("numberOfBathrooms", "number_of_bathrooms");
+        columns.put("state", "state");
+        columns.put("city", "city");
+        columns.put("squareFeet", "square_feet");
+        columns.put("monthlyRent", "monthly_rent");
+        columns.put("dateListed", "date_listed");
+        columns.put("available", "available");
+        columns.put("ownerId", "owner_id");
+        columns.put("renterId", "renter_id");
+        return Collections.unmodifiableMap(columns);
+    }
+
+    private static Map<String, String> fields() {
+        Map<String, String> fields = new LinkedHashMap<>(COLUMNS);
+        fields.put("version", "version");
+        return Collections.unmodifiableMap(fields);
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<Apartment> findPage(int afterId, int limit) {
+        String sql = """
+                SELECT *
+                FROM apartments
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?;
+                """;
+        return jdbcTemplate.query(sql, apartmentRowMapper, afterId, limit);
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<Map<String, Object>> findPage(int afterId, int limit, List<String> fields) {
+        Projection projection = Projection.of(FIELDS, fields);
+        String sql = String.format("""
+                SELECT %s
+                FROM apartments
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?;
+                """, projection.selectList());
+        return jdbcTemplate.query(sql, projection, afterId, limit);
     }
 
     @Override
-    public void update(Apartment apartment) {
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<Apartment> search(ApartmentSearchCriteria criteria, int afterId, int limit) {
+        SearchQuery searchQuery = buildSearchQuery(criteria, "*", afterId, limit);
+        return jdbcTemplate.query(searchQuery.sql(), apartmentRowMapper, searchQuery.args().toArray());
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<Map<String, Object>> search(ApartmentSearchCriteria criteria, int afterId, int limit,
+                                            List<String> fields) {
+        Projection projection = Projection.of(FIELDS, fields);
+        SearchQuery searchQuery = buildSearchQuery(criteria, projection.selectList(), afterId, limit);
+        return jdbcTemplate.query(searchQuery.sql(), projection, searchQuery.args().toArray());
+    }
+
+    /**
+     * Builds a parameterised query containing only the filters that were supplied, so the planner can
+     * use the location and rent indexes declared in schema.sql.
+     */
+    SearchQuery buildSearchQuery(ApartmentSearchCriteria criteria, String selectList, int afterId, int limit) {
+        StringBuilder sql = new StringBuilder(String.format("""
+                SELECT %s
+                FROM apartments
+                WHERE id > ?
+                """, selectList));
+        List<Object> args = new ArrayList<>();
+        args.add(afterId);
+        appendFilter(sql, args, "state = ?", criteria.state());
+        appendFilter(sql, args, "city = ?", criteria.city());
+        appendFilter(sql, args, "monthly_rent >= ?", criteria.minRent());
+        appendFilter(sql, args, "monthly_rent <= ?", criteria.maxRent());
+        appendFilter(sql, args, "number_of_bedrooms >= ?", criteria.minBedrooms());
+        appendFilter(sql, args, "number_of_bathrooms >= ?", criteria.minBathrooms());
+        appendFilter(sql, args, "square_feet >= ?", criteria.minSquareFeet());
+        appendFilter(sql, args, "available = ?", criteria.available());
+        sql.append("""
+                ORDER BY id
+                LIMIT ?;
+                """);
+        args.add(limit);
+        return new SearchQuery(sql.toString(), args);
+    }
+
+    private void appendFilter(StringBuilder sql, List<Object> args, String condition, Object value) {
+        if (value != null) {
+            sql.append("AND ").append(condition).append('\n');
+            args.add(value);
+        }
+    }
+
+    record SearchQuery(String sql, List<Object> args) {}
+
+    @Override
+    public int update(Apartment apartment) {
         try {
             String sql = """
                 UPDATE apartments
                 SET title = ?, description = ?, number_of_bedrooms = ?, number_of_bathrooms = ?,
                 state = ?, city = ?, square_feet = ?, monthly_rent = ?, available = ?,
-                owner_id = ?, renter_id = ?
-                WHERE id = ?;
+                owner_id = ?, renter_id = ?, version = version + 1
+                WHERE id = ? AND (?::integer IS NULL OR version = ?);
                 """;
-            jdbcTemplate.update(
+            return jdbcTemplate.update(
                     sql,
                     apartment.title(), apartment.description(), apartment.numberOfBedrooms(),
                     apartment.numberOfBathrooms(), apartment.state(), apartment.city(),
                     apartment.squareFeet(), apartment.monthlyRent(), apartment.available(),
-                    apartment.ownerId(), apartment.renterId(), apartment.id()
+                    apartment.ownerId(), apartment.renterId(), apartment.id(),
+                    apartment.version(), apartment.version()
             );
         } catch (DataAccessException ex) {
-            throw new DatabaseException("An error occurred when updating an apartment in the database");
+            throw new DatabaseException("An error occurred when updating an apartment in the database", ex);
         }
     }
 
     @Override
-    public void delete(int id) {
+    public int patch(Apartment apartment, Apartment patchedApartment) {
+        try {
+            return ColumnUpdate.of("apartments")
+                    .set("title", apartment.title(), patchedApartment.title())
+                    .set("description", apartment.description(), patchedApartment.description())
+                    .set("number_of_bedrooms", apartment.numberOfBedrooms(), patchedApartment.numberOfBedrooms())
+                    .set("number_of_bathrooms", apartment.numberOfBathrooms(), patchedApartment.numberOfBathrooms())
+                    .set("state", apartment.state(), patchedApartment.state())
+                    .set("city", apartment.city(), patchedApartment.city())
+                    .set("square_feet", apartment.squareFeet(), patchedApartment.squareFeet())
+                    .set("monthly_rent", apartment.monthlyRent(), patchedApartment.monthlyRent())
+                    .set("available", apartment.available(), patchedApartment.available())
+                    .set("owner_id", apartment.ownerId(), patchedApartment.ownerId())
+                    .set("renter_id", apartment.renterId(), patchedApartment.renterId())
+                    .execute(jdbcTemplate, apartment.id(), patchedApartment.version());
+        } catch (DataAccessException ex) {
+            throw new DatabaseException("An error occurred when patching an apartment in the database", ex);
+        }
+    }
+
+    @Override
+    public int delete(int id) {
         try {
             String sql = """
                 DELETE FROM apartments
                 WHERE id = ?;
                 """;
-            jdbcTemplate.update(sql, id);
+            int deleted = jdbcTemplate.update(sql, id);
+            idIndex.remove(id);
+            return deleted;
         } catch (DataAccessException ex) {
-            throw new DatabaseException("An error occurred when deleting an apartment in the database");
+            throw new DatabaseException("An error occurred when deleting an apartment in the database", ex);
         }
     }
 
     @Override
+    public ApartmentDeleteResult deleteIfVacant(int id) {
+        try {
+            // the outer SELECT reads the table as it was before the DELETE, so it still sees an occupied apartment
+            String sql = """
+                WITH deleted AS (
+                    DELETE FROM apartments
+                    WHERE id = ?
+                    AND renter_id IS NULL
+                    RETURNING id
+                )
+                SELECT EXISTS (SELECT 1 FROM deleted) AS deleted,
+                       EXISTS (SELECT 1 FROM apartments WHERE id = ?) AS found;
+                """;
+            ApartmentDeleteResult result = jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
+                if (rs.getBoolean("deleted")) {
+                    return ApartmentDeleteResult.DELETED;
+                }
+                return rs.getBoolean("found") ? ApartmentDeleteResult.OCCUPIED : ApartmentDeleteResult.NOT_FOUND;
+            }, id, id);
+            if (result != ApartmentDeleteResult.OCCUPIED) {
+                idIndex.remove(id);
+            }
+            return result;
+        } catch (DataAccessException ex) {
+            throw new DatabaseException("An error occurred when deleting an apartment in the database", ex);
+        }
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
     public boolean exists(int id) {
+        if (idIndex.contains(id)) {
+            return true;
+        }
+        // a miss may be a row created by another node, so only the database can confirm it is absent
+        long removals = idIndex.removals();
+        boolean exists = existsInDatabase(id);
+        if (exists) {
+            idIndex.addIfUnchanged(id, removals);
+        }
+        return exists;
+    }
+
+    @Override
+    public boolean existsInDatabase(int id) {
         String sql = """
-                SELECT COUNT(*)
-                FROM apartments
-                WHERE id = ?;
+                SELECT EXISTS (
+                    SELECT 1
+                    FROM apartments
+                    WHERE id = ?
+                );
                 """;
-        return jdbcTemplate.queryForObject(sql, Integer.class, id) > 0;
+        return jdbcTemplate.queryForObject(sql, Boolean.class, id);
     }
 }
@@ -23,6 +23,7 @@ public class ApartmentRowMapper implements RowMapper<Apartment> {
                              rs.getDate("date_listed").toLocalDate(),
                              rs.getBoolean("available"),
                              rs.getInt("owner_id"),
-                             rs.getObject("renter_id", Integer.class));
+                             rs.getObject("renter_id", Integer.class),
+                             rs.getInt("version"));
     }
 }
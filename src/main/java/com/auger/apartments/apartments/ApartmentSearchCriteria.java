@@ -0,0 +1,22 @@
+package com.auger.apartments.apartments;
+
+/**
+ * Represents the filters of an apartment search. A null filter is not applied.
+ *
+ * @param state
+ * @param city
+ * @param minRent in cents
+ * @param maxRent in cents
+ * @param minBedrooms
+ * @param minBathrooms
+ * @param minSquareFeet
+ * @param available
+ */
+public record ApartmentSearchCriteria(String state,
+                                      String city,
+                                      Integer minRent,
+                                      Integer maxRent,
+                                      Integer minBedrooms,
+                                      Integer minBathrooms,
+                                      Integer minSquareFeet,
+                                      Boolean available) {}
@@ -1,17 +1,53 @@
 package com.auger.apartments.apartments;
 
+import com.auger.apartments.batch.BatchLookup;
+import com.auger.apartments.batch.BatchResult;
+import com.auger.apartments.export.CsvExport;
+import com.auger.apartments.imports.ImportFormat;
+import com.auger.apartments.imports.ImportReport;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.auger.apartments.patch.MergePatch;
+
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface ApartmentService {
     Apartment createApartment(Apartment apartment);
 
+    BatchResult<Apartment> createApartments(List<Apartment> apartments);
+
+    ImportReport importApartments(InputStream input, ImportFormat format);
+
+    List<ImportReport> getApartmentImports();
+
+    Optional<ImportReport> getApartmentImport(UUID id);
+
     Optional<Apartment> getApartment(int id);
 
-    List<Apartment> getAllApartments();
+    BatchLookup<Apartment> getApartments(List<Integer> ids);
+
+    Page<Apartment> getApartments(PageRequest pageRequest);
+
+    Page<Map<String, Object>> getApartments(PageRequest pageRequest, List<String> fields);
+
+    Page<Apartment> searchApartments(ApartmentSearchCriteria criteria, PageRequest pageRequest);
+
+    Page<Map<String, Object>> searchApartments(ApartmentSearchCriteria criteria, PageRequest pageRequest,
+                                               List<String> fields);
+
+    void exportApartments(Consumer<Apartment> consumer);
+
+    CsvExport exportApartmentsCsv(ApartmentExportCriteria criteria, List<String> columns);
 
     void updateApartment(Apartment apartment);
 
+    void patchApartment(int id, MergePatch patch, Integer version);
+
     void deleteApartment(int id);
 
     boolean doesExist(Integer id);
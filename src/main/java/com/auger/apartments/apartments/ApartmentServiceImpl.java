@@ -1,20 +1,50 @@
 package com.auger.apartments.apartments;
 
+import com.auger.apartments.batch.BatchItemResult;
+import com.auger.apartments.batch.BatchLookup;
+import com.auger.apartments.batch.BatchResult;
+import com.auger.apartments.config.CacheConfig;
 import com.auger.apartments.exceptions.ApartmentNotFoundException;
+import com.auger.apartments.exceptions.DeleteApartmentException;
+import com.auger.apartments.exceptions.VersionConflictException;
+import com.auger.apartments.export.CsvExport;
+import com.auger.apartments.imports.ImportFormat;
+import com.auger.apartments.imports.ImportProgress;
+import com.auger.apartments.imports.ImportReport;
+import com.auger.apartments.imports.ImportTracker;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.auger.apartments.patch.MergePatch;
+import com.auger.apartments.projection.Projection;
+import com.auger.apartments.replica.ReplicaRead;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class ApartmentServiceImpl implements ApartmentService {
 
+    private static final String IMPORT_TARGET = "apartments";
+
     private final ApartmentRepository apartmentRepository;
     private final ApartmentValidator apartmentValidator;
+    private final ApartmentImporter apartmentImporter;
+    private final ImportTracker importTracker;
 
-    public ApartmentServiceImpl(ApartmentRepository apartmentRepository, ApartmentValidator apartmentValidator) {
+    public ApartmentServiceImpl(ApartmentRepository apartmentRepository, ApartmentValidator apartmentValidator,
+                                ApartmentImporter apartmentImporter, ImportTracker importTracker) {
         this.apartmentRepository = apartmentRepository;
         this.apartmentValidator = apartmentValidator;
+        this.apartmentImporter = apartmentImporter;
+        this.importTracker = importTracker;
     }
 
     @Override
@@ -24,35 +54,153 @@ public class ApartmentServiceImpl implements ApartmentService {
     }
 
     @Override
+    public BatchResult<Apartment> createApartments(List<Apartment> apartments) {
+        BatchResult.verifySize(apartments);
+        Map<Integer, BatchItemResult<Apartment>> rejections = apartmentValidator.validateNewApartments(apartments);
+        return BatchResult.create(apartments, rejections, apartmentRepository::createAll);
+    }
+
+    @Override
+    public ImportReport importApartments(InputStream input, ImportFormat format) {
+        ImportProgress progress = importTracker.start(IMPORT_TARGET, format);
+        try {
+            apartmentImporter.importApartments(input, progress);
+        } catch (RuntimeException ex) {
+            progress.fail(ex.getMessage());
+            throw ex;
+        }
+        return progress.report();
+    }
+
+    @Override
+    public List<ImportReport> getApartmentImports() {
+        return importTracker.findAll(IMPORT_TARGET);
+    }
+
+    @Override
+    public Optional<ImportReport> getApartmentImport(UUID id) {
+        return importTracker.find(IMPORT_TARGET, id);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.APARTMENTS_CACHE, key = "#id", unless = "#result == null")
     public Optional<Apartment> getApartment(int id) {
         return apartmentRepository.findOne(id);
     }
 
     @Override
-    public List<Apartment> getAllApartments() {
-        return apartmentRepository.findAll();
+    @ReplicaRead
+    public BatchLookup<Apartment> getApartments(List<Integer> ids) {
+        List<Integer> distinctIds = BatchLookup.distinctIds(ids);
+        return BatchLookup.of(distinctIds, apartmentRepository.findAll(distinctIds), Apartment::id);
+    }
+
+    @Override
+    @ReplicaRead
+    public Page<Apartment> getApartments(PageRequest pageRequest) {
+        List<Apartment> apartments = apartmentRepository.findPage(pageRequest.afterId(), pageRequest.limit() + 1);
+        return Page.of(apartments, pageRequest.limit(), Apartment::id);
     }
 
     @Override
+    @ReplicaRead
+    public Page<Map<String, Object>> getApartments(PageRequest pageRequest, List<String> fields) {
+        List<Map<String, Object>> apartments = apartmentRepository.findPage(pageRequest.afterId(),
+                pageRequest.limit() + 1, fields);
+        return Page.of(apartments, pageRequest.limit(), Projection::id);
+    }
+
+    @Override
+    @ReplicaRead
+    public Page<Apartment> searchApartments(ApartmentSearchCriteria criteria, PageRequest pageRequest) {
+        List<Apartment> apartments = apartmentRepository.search(criteria, pageRequest.afterId(),
+                pageRequest.limit() + 1);
+        return Page.of(apartments, pageRequest.limit(), Apartment::id);
+    }
+
+    @Override
+    @ReplicaRead
+    public Page<Map<String, Object>> searchApartments(ApartmentSearchCriteria criteria, PageRequest pageRequest,
+                                                      List<String> fields) {
+        List<Map<String, Object>> apartments = apartmentRepository.search(criteria, pageRequest.afterId(),
+                pageRequest.limit() + 1, fields);
+        return Page.of(apartments, pageRequest.limit(), Projection::id);
+    }
+
+    @Override
+    public void exportApartments(Consumer<Apartment> consumer) {
+        apartmentRepository.streamAll(consumer);
+    }
+
+    @Override
+    public CsvExport exportApartmentsCsv(ApartmentExportCriteria criteria, List<String> columns) {
+        return apartmentRepository.exportCsv(criteria, columns);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.APARTMENTS_CACHE, key = "#apartment.id")
     public void updateApartment(Apartment apartment) {
-        if (doesExist(apartment.id())) {
-            apartmentValidator.validateExistingApartment(apartment);
-            apartmentRepository.update(apartment);
-        } else {
+        if (apartment.id() == null) {
             throw new ApartmentNotFoundException(String.format("Apartment with id %s does not exist", apartment.id()));
         }
+        // the validator also confirms that the apartment exists
+        apartmentValidator.validateExistingApartment(apartment);
+        if (apartmentRepository.update(apartment) == 0) {
+            throw updateFailure(apartment.id(), apartment.version());
+        }
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.APARTMENTS_CACHE, key = "#id")
+    public void patchApartment(int id, MergePatch patch, Integer version) {
+        Apartment apartment = apartmentRepository.findOne(id).orElseThrow(() ->
+                new ApartmentNotFoundException(String.format("Apartment with id %s does not exist", id)));
+        if (version != null && !version.equals(apartment.version())) {
+            throw versionConflict(id, version);
+        }
+        Apartment patchedApartment = patch.applyTo(apartment, ApartmentRepository.PATCHABLE_ATTRIBUTES)
+                .withVersion(version);
+        apartmentValidator.validateApartmentChanges(apartment, patchedApartment);
+        if (apartmentRepository.patch(apartment, patchedApartment) == 0) {
+            throw updateFailure(id, version);
+        }
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.APARTMENTS_CACHE, key = "#id"),
+            // applications for the apartment are removed by ON DELETE CASCADE
+            @CacheEvict(cacheNames = CacheConfig.APPLICATIONS_CACHE, allEntries = true)
+    })
     public void deleteApartment(int id) {
-        if (doesExist(id)) {
-            apartmentValidator.validateApartmentDeletion(id);
-            apartmentRepository.delete(id);
-        } else {
-            throw new ApartmentNotFoundException(String.format("Apartment with id %s does not exist", id));
+        switch (apartmentRepository.deleteIfVacant(id)) {
+            case DELETED -> {
+            }
+            case NOT_FOUND -> throw new ApartmentNotFoundException(
+                    String.format("Apartment with id %s does not exist", id)
+            );
+            case OCCUPIED -> throw new DeleteApartmentException(
+                    String.format("Unable to delete apartment with id %s because it is occupied", id)
+            );
         }
     }
 
+    /**
+     * @return the reason an update with the expected version changed no row
+     */
+    private RuntimeException updateFailure(int id, Integer version) {
+        if (version != null && apartmentRepository.existsInDatabase(id)) {
+            return versionConflict(id, version);
+        }
+        return new ApartmentNotFoundException(String.format("Apartment with id %s does not exist", id));
+    }
+
+    private static VersionConflictException versionConflict(int id, int version) {
+        return new VersionConflictException(String.format(
+                "Apartment with id %s has been updated since version %s", id, version
+        ));
+    }
+
     @Override
     public boolean doesExist(Integer id) {
         if (id == null) {
@@ -1,17 +1,29 @@
 package com.auger.apartments.apartments;
 
-import com.auger.apartments.exceptions.DeleteApartmentException;
+import com.auger.apartments.batch.BatchItemResult;
+import com.auger.apartments.exceptions.ApartmentNotFoundException;
 import com.auger.apartments.exceptions.DuplicateDataException;
 import com.auger.apartments.exceptions.UserNotFoundException;
 import com.auger.apartments.users.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
 /**
  * Provides methods to validate that an apartment meets database and business constraints before
- * executing database operations such as creating, updating, and deleting apartments.
+ * executing database operations such as creating and updating apartments. Deleting an apartment
+ * checks that it is vacant in the DELETE statement itself.
  */
 @Component
 public class ApartmentValidator {
@@ -25,20 +37,141 @@ public class ApartmentValidator {
         this.userService = userService;
     }
 
+    /**
+     * Checks that the owner and renter exist and that the renter is not renting another apartment,
+     * using a single query.
+     */
     public void validateNewApartment(Apartment apartment) {
         logger.info("Validating new apartment");
-        verifyOwnerExists(apartment.ownerId());
-        verifyRenterExists(apartment.renterId());
-        verifyUniqueRenterForNewApartment(apartment.renterId());
+        String sql = """
+                WITH candidate AS (
+                    SELECT ?::integer AS owner_id, ?::integer AS renter_id
+                )
+                SELECT EXISTS (SELECT 1 FROM users WHERE id = c.owner_id) AS owner_exists,
+                       c.renter_id IS NULL
+                           OR EXISTS (SELECT 1 FROM users WHERE id = c.renter_id) AS renter_exists,
+                       EXISTS (SELECT 1 FROM apartments WHERE renter_id = c.renter_id) AS renter_taken
+                FROM candidate c;
+                """;
+        ValidationFlags flags = jdbcTemplate.queryForObject(sql, ValidationFlags.ROW_MAPPER,
+                apartment.ownerId(), apartment.renterId());
+        throwIfInvalid(apartment, flags);
         logger.info("Validation complete");
     }
 
+    /**
+     * Checks that the apartment, owner and renter exist and that the renter is not renting a different
+     * apartment, using a single query.
+     */
     public void validateExistingApartment(Apartment apartment) {
         logger.info("Validating existing apartment");
-        verifyOwnerExists(apartment.ownerId());
-        verifyRenterExists(apartment.renterId());
-        verifyUniqueRenterForExistingApartment(apartment.id(), apartment.renterId());
+        String sql = """
+                WITH candidate AS (
+                    SELECT ?::integer AS id, ?::integer AS owner_id, ?::integer AS renter_id
+                )
+                SELECT EXISTS (SELECT 1 FROM users WHERE id = c.owner_id) AS owner_exists,
+                       c.renter_id IS NULL
+                           OR EXISTS (SELECT 1 FROM users WHERE id = c.renter_id) AS renter_exists,
+                       EXISTS (SELECT 1 FROM apartments WHERE id != c.id AND renter_id = c.renter_id) AS renter_taken
+                FROM candidate c
+                JOIN apartments a ON a.id = c.id;
+                """;
+        // the join returns no row when the apartment itself does not exist
+        ValidationFlags flags = jdbcTemplate.query(sql, ValidationFlags.ROW_MAPPER,
+                        apartment.id(), apartment.ownerId(), apartment.renterId())
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new ApartmentNotFoundException(
+                        String.format("Apartment with id %s does not exist", apartment.id())
+                ));
+        throwIfInvalid(apartment, flags);
+        logger.info("Validation complete");
+    }
+
+    /**
+     * Checks only the constraints that changes to an existing apartment can break: that a new owner exists, and that
+     * a new renter exists and is not renting a different apartment. Makes no query when neither changes.
+     */
+    public void validateApartmentChanges(Apartment apartment, Apartment changedApartment) {
+        if (changedApartment.ownerId() != apartment.ownerId()) {
+            verifyOwnerExists(changedApartment.ownerId());
+        }
+        if (!Objects.equals(changedApartment.renterId(), apartment.renterId())) {
+            verifyRenterExists(changedApartment.renterId());
+            if (changedApartment.renterId() != null) {
+                verifyUniqueRenterForExistingApartment(apartment.id(), changedApartment.renterId());
+            }
+        }
+    }
+
+    /**
+     * Checks a batch of new apartments for owners and renters that do not exist and for renters that
+     * already rent an apartment, either an existing one or an earlier one in the same batch, using one
+     * query per constraint for the whole batch.
+     *
+     * @return rejected apartments keyed by their index in the batch
+     */
+    public Map<Integer, BatchItemResult<Apartment>> validateNewApartments(List<Apartment> apartments) {
+        logger.info("Validating {} new apartments", apartments.size());
+        Integer[] userIds = apartments.stream()
+                .flatMap(apartment -> Stream.of(apartment.ownerId(), apartment.renterId()))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toArray(Integer[]::new);
+        Integer[] renterIds = apartments.stream()
+                .map(Apartment::renterId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toArray(Integer[]::new);
+        String existingUsersSql = """
+                SELECT id
+                FROM users
+                WHERE id = ANY(?);
+                """;
+        String takenRentersSql = """
+                SELECT renter_id
+                FROM apartments
+                WHERE renter_id = ANY(?);
+                """;
+        Set<Integer> existingUserIds = new HashSet<>(
+                jdbcTemplate.queryForList(existingUsersSql, Integer.class, (Object) userIds)
+        );
+        Set<Integer> takenRenterIds = new HashSet<>(
+                jdbcTemplate.queryForList(takenRentersSql, Integer.class, (Object) renterIds)
+        );
+
+        Map<Integer, BatchItemResult<Apartment>> rejections = new HashMap<>();
+        for (int i = 0; i < apartments.size(); i++) {
+            Apartment apartment = apartments.get(i);
+            Integer renterId = apartment.renterId();
+            if (!existingUserIds.contains(apartment.ownerId())) {
+                rejections.put(i, BatchItemResult.rejected(i, HttpStatus.NOT_FOUND,
+                        String.format("User with id %s does not exist", apartment.ownerId())));
+            } else if (renterId != null && !existingUserIds.contains(renterId)) {
+                rejections.put(i, BatchItemResult.rejected(i, HttpStatus.NOT_FOUND,
+                        String.format("User with id %s does not exist", renterId)));
+            } else if (renterId != null && !takenRenterIds.add(renterId)) {
+                rejections.put(i, BatchItemResult.rejected(i, HttpStatus.CONFLICT, String.format("""
+                        A user with id %s is renting a different apartment.
+                        A user can only rent one apartment at a time.
+                        """, renterId)));
+            }
+        }
         logger.info("Validation complete");
+        return rejections;
+    }
+
+    private void throwIfInvalid(Apartment apartment, ValidationFlags flags) {
+        if (!flags.ownerExists()) {
+            throw new UserNotFoundException(String.format("User with id %s does not exist", apartment.ownerId()));
+        } else if (!flags.renterExists()) {
+            throw new UserNotFoundException(String.format("User with id %s does not exist", apartment.renterId()));
+        } else if (flags.renterTaken()) {
+            throw new DuplicateDataException(String.format("""
+                    A user with id %s is renting a different apartment.
+                    A user can only rent one apartment at a time.
+                    """, apartment.renterId()));
+        }
     }
 
     public void verifyUniqueRenterForNewApartment(Integer renterId) {
@@ -84,24 +217,12 @@ public class ApartmentValidator {
         }
     }
 
-    public void validateApartmentDeletion(int apartmentId) {
-        logger.info("Validating apartment can be deleted");
-        verifyApartmentIsVacant(apartmentId);
-        logger.info("Validation complete");
-    }
+    private record ValidationFlags(boolean ownerExists, boolean renterExists, boolean renterTaken) {
 
-    private void verifyApartmentIsVacant(int apartmentId) {
-        String sql = """
-                SELECT COUNT(*)
-                FROM apartments
-                WHERE id = ?
-                AND renter_id IS NOT NULL;
-                """;
-        int occupiedApartments = jdbcTemplate.queryForObject(sql, Integer.class, apartmentId);
-        if (occupiedApartments > 0) {
-            throw new DeleteApartmentException(
-                    String.format("Unable to delete apartment with id %s because it is occupied", apartmentId)
-            );
-        }
+        static final RowMapper<ValidationFlags> ROW_MAPPER = (rs, rowNum) -> new ValidationFlags(
+                rs.getBoolean("owner_exists"),
+                rs.getBoolean("renter_exists"),
+                rs.getBoolean("renter_taken")
+        );
     }
 }
@@ -11,10 +11,28 @@ import java.time.LocalDate;
  * @param successful
  * @param userId must reference an existing user
  * @param apartmentId must reference an existing apartment
+ * @param version incremented by every update, used to detect conflicting updates
  */
 public record Application(Integer id,
                           LocalDate dateSubmitted,
                           boolean active,
                           boolean successful,
                           int userId,
-                          int apartmentId) {}
+                          int apartmentId,
+                          Integer version) {
+
+    /**
+     * Creates an application without a version, for a new application or an update that does not check the version
+     */
+    public Application(Integer id, LocalDate dateSubmitted, boolean active, boolean successful, int userId,
+                       int apartmentId) {
+        this(id, dateSubmitted, active, successful, userId, apartmentId, null);
+    }
+
+    /**
+     * @return a copy of this application with the given version
+     */
+    public Application withVersion(Integer version) {
+        return new Application(id, dateSubmitted, active, successful, userId, apartmentId, version);
+    }
+}
@@ -1,13 +1,28 @@
 package com.auger.apartments.applications;
 
+import com.auger.apartments.batch.BatchLookup;
+import com.auger.apartments.batch.BatchResult;
+import com.auger.apartments.etags.ETags;
 import com.auger.apartments.exceptions.ApplicationNotFoundException;
+import com.auger.apartments.export.CsvExport;
+import com.auger.apartments.export.NdjsonResponses;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.auger.apartments.patch.MergePatch;
+import com.auger.apartments.projection.Projection;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -16,9 +31,11 @@ public class ApplicationController {
 
     private static final Logger logger = LoggerFactory.getLogger(ApplicationController.class);
     private final ApplicationService applicationService;
+    private final ObjectMapper objectMapper;
 
-    public ApplicationController(ApplicationService applicationService) {
+    public ApplicationController(ApplicationService applicationService, ObjectMapper objectMapper) {
         this.applicationService = applicationService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -29,34 +46,114 @@ public class ApplicationController {
         return new ResponseEntity<>(createdApplication, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult<Application>> createApplications(@RequestBody List<Application> applications) {
+        logger.info("Creating a batch of applications");
+        BatchResult<Application> result = applicationService.createApplications(applications);
+        logger.info("Batch processed: {} created, {} rejected", result.created(), result.rejected());
+        HttpStatus status = result.rejected() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return new ResponseEntity<>(result, status);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Application> getApplication(@PathVariable int id) {
         logger.info("Retrieving an application");
         Optional<Application> application = applicationService.getApplication(id);
         if (application.isPresent()) {
             logger.info("Application retrieved successfully");
-            return new ResponseEntity<>(application.get(), HttpStatus.OK);
+            return new ResponseEntity<>(application.get(), ETags.versionHeaders(application.get().version()),
+                    HttpStatus.OK);
+        } else {
+            throw new ApplicationNotFoundException(String.format("Application with id %s does not exist", id));
+        }
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getApplicationFields(
+            @PathVariable int id,
+            @RequestParam List<String> fields) {
+        logger.info("Retrieving fields of an application");
+        Optional<Application> application = applicationService.getApplication(id);
+        if (application.isPresent()) {
+            Map<String, Object> selectedApplication = Projection.select(application.get(), fields);
+            logger.info("Application retrieved successfully");
+            return new ResponseEntity<>(selectedApplication, ETags.headers(selectedApplication), HttpStatus.OK);
         } else {
             throw new ApplicationNotFoundException(String.format("Application with id %s does not exist", id));
         }
     }
 
     @GetMapping
-    public ResponseEntity<List<Application>> getAllApplications() {
-        logger.info("Retrieving all applications");
-        List<Application> allApplications = applicationService.getAllApplications();
+    public ResponseEntity<Page<Application>> getApplications(
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after) {
+        logger.info("Retrieving a page of applications");
+        Page<Application> applications = applicationService.getApplications(PageRequest.of(after, limit));
+        logger.info("Applications retrieved successfully");
+        return new ResponseEntity<>(applications, ETags.headers(applications), HttpStatus.OK);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchLookup<Application>> getApplicationsById(@RequestParam List<Integer> ids) {
+        logger.info("Retrieving applications by id");
+        BatchLookup<Application> applications = applicationService.getApplications(ids);
+        logger.info("Applications retrieved successfully: {} found, {} missing", applications.items().size(),
+                applications.missingIds().size());
+        return new ResponseEntity<>(applications, ETags.headers(applications), HttpStatus.OK);
+    }
+
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<Page<Map<String, Object>>> getApplicationsFields(
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam List<String> fields) {
+        logger.info("Retrieving fields of a page of applications");
+        Page<Map<String, Object>> applications = applicationService.getApplications(PageRequest.of(after, limit),
+                fields);
         logger.info("Applications retrieved successfully");
-        return new ResponseEntity<>(allApplications, HttpStatus.OK);
+        return new ResponseEntity<>(applications, ETags.headers(applications), HttpStatus.OK);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportApplications() {
+        logger.info("Exporting all applications");
+        StreamingResponseBody body = NdjsonResponses.stream(objectMapper, applicationService::exportApplications);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    @GetMapping(produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportApplicationsCsv(
+            ApplicationExportCriteria criteria,
+            @RequestParam(required = false) List<String> columns) {
+        logger.info("Exporting applications as CSV");
+        CsvExport export = applicationService.exportApplicationsCsv(criteria, columns);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        return new ResponseEntity<>(export::writeTo, headers, HttpStatus.OK);
     }
 
     @PutMapping
-    public ResponseEntity<Void> updateApplication(@RequestBody Application application) {
+    public ResponseEntity<Void> updateApplication(@RequestBody Application application,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Updating an application");
-        applicationService.updateApplication(application);
+        applicationService.updateApplication(
+                application.withVersion(ETags.expectedVersion(ifMatch, application.version())));
         logger.info("Application updated successfully");
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchApplication(@PathVariable int id, @RequestBody JsonNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.info("Patching an application");
+        MergePatch mergePatch = MergePatch.of(objectMapper, patch);
+        applicationService.patchApplication(id, mergePatch, ETags.expectedVersion(ifMatch, mergePatch.version()));
+        logger.info("Application patched successfully");
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteApplication(@PathVariable int id) {
         logger.info("Deleting an application");
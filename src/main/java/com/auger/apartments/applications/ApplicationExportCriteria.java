@@ -0,0 +1,18 @@
+package com.auger.apartments.applications;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the filters of a CSV application export. A null filter is not applied.
+ *
+ * @param active
+ * @param successful
+ * @param submittedFrom earliest date submitted, inclusive
+ * @param submittedTo latest date submitted, inclusive
+ */
+public record ApplicationExportCriteria(Boolean active,
+                                        Boolean successful,
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate submittedFrom,
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate submittedTo) {}
@@ -1,18 +1,54 @@
 package com.auger.apartments.applications;
 
+import com.auger.apartments.export.CsvExport;
+
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ApplicationRepository {
+
+    /**
+     * Attributes written by {@link #patch}
+     */
+    List<String> PATCHABLE_ATTRIBUTES = List.of("active", "successful");
+
     Application create(Application application);
 
+    List<Application> createAll(List<Application> applications);
+
     Optional<Application> findOne(int id);
 
-    List<Application> findAll();
+    List<Application> findAll(List<Integer> ids);
+
+    void streamAll(Consumer<Application> consumer);
+
+    CsvExport exportCsv(ApplicationExportCriteria criteria, List<String> columns);
+
+    List<Application> findPage(int afterId, int limit);
 
-    void update(Application application);
+    List<Map<String, Object>> findPage(int afterId, int limit, List<String> fields);
 
-    void delete(int id);
+    List<Application> findPageByApartment(int apartmentId, int afterId, int limit);
+
+    List<ApplicationWithUser> findPageByApartmentWithUsers(int apartmentId, int afterId, int limit);
+
+    List<Application> findPageByUser(int userId, int afterId, int limit);
+
+    List<ApplicationWithApartment> findPageByUserWithApartments(int userId, int afterId, int limit);
+
+    int update(Application application);
+
+    int patch(Application application, Application patchedApplication);
+
+    int delete(int id);
 
     boolean exists(int id);
+
+    /**
+     * Like {@link #exists} but always asks the database, for callers that cannot accept an answer the existence
+     * index has not caught up with yet
+     */
+    boolean existsInDatabase(int id);
 }
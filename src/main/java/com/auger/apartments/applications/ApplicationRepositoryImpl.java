@@ -1,27 +1,64 @@
 package com.auger.apartments.applications;
 
+import com.auger.apartments.batch.BatchInserts;
+import com.auger.apartments.batch.BatchInserts.SqlArray;
 import com.auger.apartments.exceptions.DatabaseException;
+import com.auger.apartments.existence.ExistenceIndexes;
+import com.auger.apartments.export.CsvCopy;
+import com.auger.apartments.export.CsvExport;
+import com.auger.apartments.export.StreamingQueries;
+import com.auger.apartments.existence.IdIndex;
+import com.auger.apartments.patch.ColumnUpdate;
+import com.auger.apartments.pools.Pool;
+import com.auger.apartments.pools.PoolRouting;
+import com.auger.apartments.pools.UsePool;
+import com.auger.apartments.projection.Projection;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class ApplicationRepositoryImpl implements ApplicationRepository {
 
+    // every new application is active and not yet successful, whatever the request says
+    private static final boolean NEW_ACTIVE = true;
+    private static final boolean NEW_SUCCESSFUL = false;
+    private static final Map<String, String> COLUMNS = columns();
+    // columns that can be selected with fields, which unlike the exported columns include the version
+    private static final Map<String, String> FIELDS = fields();
     private final JdbcTemplate jdbcTemplate;
     private final ApplicationRowMapper applicationRowMapper;
+    private final ApplicationWithUserRowMapper applicationWithUserRowMapper;
+    private final ApplicationWithApartmentRowMapper applicationWithApartmentRowMapper;
     private final SimpleJdbcInsert simpleJdbcInsert;
+    private final StreamingQueries streamingQueries;
+    private final DataSource exportDataSource;
+    private final IdIndex idIndex;
 
-    public ApplicationRepositoryImpl(JdbcTemplate jdbcTemplate, ApplicationRowMapper applicationRowMapper) {
+    public ApplicationRepositoryImpl(JdbcTemplate jdbcTemplate, ApplicationRowMapper applicationRowMapper,
+                                     ApplicationWithUserRowMapper applicationWithUserRowMapper,
+                                     ApplicationWithApartmentRowMapper applicationWithApartmentRowMapper,
+                                     StreamingQueries streamingQueries,
+                                     ExistenceIndexes existenceIndexes) {
         this.jdbcTemplate = jdbcTemplate;
         this.applicationRowMapper = applicationRowMapper;
+        this.applicationWithUserRowMapper = applicationWithUserRowMapper;
+        this.applicationWithApartmentRowMapper = applicationWithApartmentRowMapper;
+        this.streamingQueries = streamingQueries;
+        this.exportDataSource = PoolRouting.using(Pool.BATCH, jdbcTemplate.getDataSource());
+        this.idIndex = existenceIndexes.forTable("applications");
         this.simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName("applications")
                 .usingGeneratedKeyColumns("id");
     }
@@ -32,20 +69,57 @@ public class ApplicationRepositoryImpl implements ApplicationRepository {
             Map<String, Object> parameters = new HashMap<>();
             LocalDate dateSubmitted = LocalDate.now();
             parameters.put("date_submitted", dateSubmitted);
-            parameters.put("active", true);
-            parameters.put("successful", false);
+            parameters.put("active", NEW_ACTIVE);
+            parameters.put("successful", NEW_SUCCESSFUL);
             parameters.put("user_id", application.userId());
             parameters.put("apartment_id", application.apartmentId());
+            parameters.put("version", 0);
+
+            long removals = idIndex.removals();
 
             int id = simpleJdbcInsert.executeAndReturnKey(parameters).intValue();
-            return new Application(id, dateSubmitted, application.active(), application.successful(),
-                    application.userId(), application.apartmentId());
+            idIndex.addIfUnchanged(id, removals);
+            return new Application(id, dateSubmitted, NEW_ACTIVE, NEW_SUCCESSFUL, application.userId(),
+                    application.apartmentId(), 0);
         } catch (DataAccessException ex) {
-            throw new DatabaseException("An error occurred when inserting an apartment in the database");
+            throw new DatabaseException("An error occurred when inserting an apartment in the database", ex);
         }
     }
 
     @Override
+    public List<Application> createAll(List<Application> applications) {
+        try {
+            String sql = """
+                    INSERT INTO applications (date_submitted, active, successful, user_id, apartment_id)
+                    SELECT ?, ?, ?, user_id, apartment_id
+                    FROM unnest(?::integer[], ?::integer[])
+                        WITH ORDINALITY AS batch (user_id, apartment_id, position)
+                    ORDER BY position
+                    RETURNING id;
+                    """;
+            LocalDate dateSubmitted = LocalDate.now();
+            long removals = idIndex.removals();
+            List<Integer> ids = BatchInserts.insertReturningIds(jdbcTemplate, sql, dateSubmitted, NEW_ACTIVE,
+                    NEW_SUCCESSFUL,
+                    new SqlArray("integer", applications.stream().map(Application::userId).toArray()),
+                    new SqlArray("integer", applications.stream().map(Application::apartmentId).toArray())
+            );
+            List<Application> createdApplications = new ArrayList<>(applications.size());
+            for (int i = 0; i < applications.size(); i++) {
+                Application application = applications.get(i);
+                int id = ids.get(i);
+                idIndex.addIfUnchanged(id, removals);
+                createdApplications.add(new Application(id, dateSubmitted, NEW_ACTIVE, NEW_SUCCESSFUL,
+                        application.userId(), application.apartmentId(), 0));
+            }
+            return createdApplications;
+        } catch (DataAccessException ex) {
+            throw new DatabaseException("An error occurred when inserting applications in the database", ex);
+        }
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
     public Optional<Application> findOne(int id) {
         String sql = """
                 SELECT *
@@ -59,52 +133,212 @@ public class ApplicationRepositoryImpl implements ApplicationRepository {
     }
 
     @Override
-    public List<Application> findAll() {
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<Application> findAll(List<Integer> ids) {
+        // one query for every id, in no particular order
+        String sql = """
+                SELECT *
+                FROM applications
+                WHERE id = ANY(?);
+                """;
+        return jdbcTemplate.query(sql, applicationRowMapper, (Object) ids.toArray(Integer[]::new));
+    }
+
+    @Override
+    @UsePool(Pool.BATCH)
+    public void streamAll(Consumer<Application> consumer) {
         String sql = """
                 SELECT *
                 FROM applications;
                 """;
-        return jdbcTemplate.query(sql, applicationRowMapper);
+        streamingQueries.stream(sql, applicationRowMapper, consumer);
+    }
+
+    @Override
+    public CsvExport exportCsv(ApplicationExportCriteria criteria, List<String> columns) {
+        return CsvCopy.of(exportDataSource, "applications", COLUMNS, columns)
+                .where("active = ?", criteria.active())
+                .where("successful = ?", criteria.successful())
+                .where("date_submitted >= ?::date", criteria.submittedFrom())
+                .where("date_submitted <= ?::date", criteria.submittedTo());
+    }
+
+    /**
+     * @return the columns that may be exported or selected, keyed by attribute name
+     */
+    private static Map<String, String> columns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("id", "id");
+        columns.put("dateSubmitted", "date_submitted");
+        columns.put("active", "active");
+        columns.put("successful", "successful");
+        columns.put("userId", "user_id");
+        columns.put("apartmentId", "apartment_id");
+        return Collections.unmodifiableMap(columns);
+    }
+
+    private static Map<String, String> fields() {
+        Map<String, String> fields = new LinkedHashMap<>(COLUMNS);
+        fields.put("version", "version");
+        return Collections.unmodifiableMap(fields);
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<Application> findPage(int afterId, int limit) {
+        String sql = """
+                SELECT *
+                FROM applications
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?;
+                """;
+        return jdbcTemplate.query(sql, applicationRowMapper, afterId, limit);
     }
 
     @Override
-    public void update(Application application) {
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<Map<String, Object>> findPage(int afterId, int limit, List<String> fields) {
+        Projection projection = Projection.of(FIELDS, fields);
+        String sql = String.format("""
+                SELECT %s
+                FROM applications
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?;
+                """, projection.selectList());
+        return jdbcTemplate.query(sql, projection, afterId, limit);
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<Application> findPageByApartment(int apartmentId, int afterId, int limit) {
+        String sql = """
+                SELECT *
+                FROM applications
+                WHERE apartment_id = ? AND id > ?
+                ORDER BY id
+                LIMIT ?;
+                """;
+        return jdbcTemplate.query(sql, applicationRowMapper, apartmentId, afterId, limit);
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<ApplicationWithUser> findPageByApartmentWithUsers(int apartmentId, int afterId, int limit) {
+        String sql = """
+                SELECT applications.*,
+                       users.first_name, users.last_name, users.email, users.phone_number, users.birth_date,
+                       users.date_joined, users.version AS user_version
+                FROM applications
+                JOIN users ON users.id = applications.user_id
+                WHERE applications.apartment_id = ? AND applications.id > ?
+                ORDER BY applications.id
+                LIMIT ?;
+                """;
+        return jdbcTemplate.query(sql, applicationWithUserRowMapper, apartmentId, afterId, limit);
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<Application> findPageByUser(int userId, int afterId, int limit) {
+        String sql = """
+                SELECT *
+                FROM applications
+                WHERE user_id = ? AND id > ?
+                ORDER BY id
+                LIMIT ?;
+                """;
+        return jdbcTemplate.query(sql, applicationRowMapper, userId, afterId, limit);
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<ApplicationWithApartment> findPageByUserWithApartments(int userId, int afterId, int limit) {
+        String sql = """
+                SELECT applications.*,
+                       apartments.title, apartments.description, apartments.number_of_bedrooms,
+                       apartments.number_of_bathrooms, apartments.state, apartments.city, apartments.square_feet,
+                       apartments.monthly_rent, apartments.date_listed, apartments.available, apartments.owner_id,
+                       apartments.renter_id, apartments.version AS apartment_version
+                FROM applications
+                JOIN apartments ON apartments.id = applications.apartment_id
+                WHERE applications.user_id = ? AND applications.id > ?
+                ORDER BY applications.id
+                LIMIT ?;
+                """;
+        return jdbcTemplate.query(sql, applicationWithApartmentRowMapper, userId, afterId, limit);
+    }
+
+    @Override
+    public int update(Application application) {
         try {
             String sql = """
                     UPDATE applications
-                    SET active = ?, successful = ?, user_id = ?, apartment_id = ?
-                    WHERE id = ?;
+                    SET active = ?, successful = ?, user_id = ?, apartment_id = ?, version = version + 1
+                    WHERE id = ? AND (?::integer IS NULL OR version = ?);
                     """;
-            jdbcTemplate.update(
+            return jdbcTemplate.update(
                     sql,
                     application.active(), application.successful(), application.userId(), application.apartmentId(),
-                    application.id()
+                    application.id(), application.version(), application.version()
             );
         } catch (DataAccessException ex) {
-            throw new DatabaseException("An error occurred when updating an apartment in the database");
+            throw new DatabaseException("An error occurred when updating an apartment in the database", ex);
+        }
+    }
+
+    @Override
+    public int patch(Application application, Application patchedApplication) {
+        try {
+            return ColumnUpdate.of("applications")
+                    .set("active", application.active(), patchedApplication.active())
+                    .set("successful", application.successful(), patchedApplication.successful())
+                    .execute(jdbcTemplate, application.id(), patchedApplication.version());
+        } catch (DataAccessException ex) {
+            throw new DatabaseException("An error occurred when patching an application in the database", ex);
         }
     }
 
     @Override
-    public void delete(int id) {
+    public int delete(int id) {
         try {
             String sql = """
                 DELETE FROM applications
                 WHERE id = ?;
                 """;
-            jdbcTemplate.update(sql, id);
+            int deleted = jdbcTemplate.update(sql, id);
+            idIndex.remove(id);
+            return deleted;
         } catch (DataAccessException ex) {
-            throw new DatabaseException("An error occurred when deleting an application in the database");
+            throw new DatabaseException("An error occurred when deleting an application in the database", ex);
         }
     }
 
     @Override
+    @UsePool(Pool.INTERACTIVE_READ)
     public boolean exists(int id) {
+        if (idIndex.contains(id)) {
+            return true;
+        }
+        // a miss may be a row created by another node, so only the database can confirm it is absent
+        long removals = idIndex.removals();
+        boolean exists = existsInDatabase(id);
+        if (exists) {
+            idIndex.addIfUnchanged(id, removals);
+        }
+        return exists;
+    }
+
+    @Override
+    public boolean existsInDatabase(int id) {
         String sql = """
-                SELECT COUNT(*)
-                FROM applications
-                WHERE id = ?;
+                SELECT EXISTS (
+                    SELECT 1
+                    FROM applications
+                    WHERE id = ?
+                );
                 """;
-        return jdbcTemplate.queryForObject(sql, Integer.class, id) > 0;
+        return jdbcTemplate.queryForObject(sql, Boolean.class, id);
     }
 }
@@ -16,6 +16,7 @@ public class ApplicationRowMapper implements RowMapper<Application> {
                                rs.getBoolean("active"),
                                rs.getBoolean("successful"),
                                rs.getInt("user_id"),
-                               rs.getInt("apartment_id"));
+                               rs.getInt("apartment_id"),
+                               rs.getInt("version"));
     }
 }
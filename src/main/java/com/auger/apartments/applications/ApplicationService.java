@@ -1,17 +1,46 @@
 package com.auger.apartments.applications;
 
+import com.auger.apartments.batch.BatchLookup;
+import com.auger.apartments.batch.BatchResult;
+import com.auger.apartments.export.CsvExport;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.auger.apartments.patch.MergePatch;
+
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ApplicationService {
     Application createApplication(Application application);
 
+    BatchResult<Application> createApplications(List<Application> applications);
+
     Optional<Application> getApplication(int id);
 
-    List<Application> getAllApplications();
+    BatchLookup<Application> getApplications(List<Integer> ids);
+
+    Page<Application> getApplications(PageRequest pageRequest);
+
+    Page<Map<String, Object>> getApplications(PageRequest pageRequest, List<String> fields);
+
+    Page<Application> getApartmentApplications(int apartmentId, PageRequest pageRequest);
+
+    Page<ApplicationWithUser> getApartmentApplicationsWithUsers(int apartmentId, PageRequest pageRequest);
+
+    Page<Application> getUserApplications(int userId, PageRequest pageRequest);
+
+    Page<ApplicationWithApartment> getUserApplicationsWithApartments(int userId, PageRequest pageRequest);
+
+    void exportApplications(Consumer<Application> consumer);
+
+    CsvExport exportApplicationsCsv(ApplicationExportCriteria criteria, List<String> columns);
 
     void updateApplication(Application application);
 
+    void patchApplication(int id, MergePatch patch, Integer version);
+
     void deleteApplication(int id);
 
     boolean doesExist(Integer id);
@@ -1,10 +1,25 @@
 package com.auger.apartments.applications;
 
+import com.auger.apartments.batch.BatchItemResult;
+import com.auger.apartments.batch.BatchLookup;
+import com.auger.apartments.batch.BatchResult;
+import com.auger.apartments.config.CacheConfig;
 import com.auger.apartments.exceptions.ApplicationNotFoundException;
+import com.auger.apartments.exceptions.VersionConflictException;
+import com.auger.apartments.export.CsvExport;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.auger.apartments.patch.MergePatch;
+import com.auger.apartments.projection.Projection;
+import com.auger.apartments.replica.ReplicaRead;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class ApplicationServiceImpl implements ApplicationService {
@@ -25,37 +40,144 @@ public class ApplicationServiceImpl implements ApplicationService {
     }
 
     @Override
+    public BatchResult<Application> createApplications(List<Application> applications) {
+        BatchResult.verifySize(applications);
+        Map<Integer, BatchItemResult<Application>> rejections =
+                applicationValidator.validateNewApplications(applications);
+        return BatchResult.create(applications, rejections, applicationRepository::createAll);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.APPLICATIONS_CACHE, key = "#id", unless = "#result == null")
     public Optional<Application> getApplication(int id) {
         return applicationRepository.findOne(id);
     }
 
     @Override
-    public List<Application> getAllApplications() {
-        return applicationRepository.findAll();
+    @ReplicaRead
+    public BatchLookup<Application> getApplications(List<Integer> ids) {
+        List<Integer> distinctIds = BatchLookup.distinctIds(ids);
+        return BatchLookup.of(distinctIds, applicationRepository.findAll(distinctIds), Application::id);
+    }
+
+    @Override
+    @ReplicaRead
+    public Page<Application> getApplications(PageRequest pageRequest) {
+        List<Application> applications = applicationRepository.findPage(pageRequest.afterId(), pageRequest.limit() + 1);
+        return Page.of(applications, pageRequest.limit(), Application::id);
+    }
+
+    @Override
+    @ReplicaRead
+    public Page<Map<String, Object>> getApplications(PageRequest pageRequest, List<String> fields) {
+        List<Map<String, Object>> applications = applicationRepository.findPage(pageRequest.afterId(),
+                pageRequest.limit() + 1, fields);
+        return Page.of(applications, pageRequest.limit(), Projection::id);
+    }
+
+    @Override
+    @ReplicaRead
+    public Page<Application> getApartmentApplications(int apartmentId, PageRequest pageRequest) {
+        List<Application> applications = applicationRepository.findPageByApartment(apartmentId,
+                pageRequest.afterId(), pageRequest.limit() + 1);
+        if (applications.isEmpty()) {
+            applicationValidator.verifyApartmentExists(apartmentId);
+        }
+        return Page.of(applications, pageRequest.limit(), Application::id);
+    }
+
+    @Override
+    @ReplicaRead
+    public Page<ApplicationWithUser> getApartmentApplicationsWithUsers(int apartmentId, PageRequest pageRequest) {
+        List<ApplicationWithUser> applications = applicationRepository.findPageByApartmentWithUsers(apartmentId,
+                pageRequest.afterId(), pageRequest.limit() + 1);
+        if (applications.isEmpty()) {
+            applicationValidator.verifyApartmentExists(apartmentId);
+        }
+        return Page.of(applications, pageRequest.limit(), application -> application.application().id());
     }
 
     @Override
+    @ReplicaRead
+    public Page<Application> getUserApplications(int userId, PageRequest pageRequest) {
+        List<Application> applications = applicationRepository.findPageByUser(userId, pageRequest.afterId(),
+                pageRequest.limit() + 1);
+        if (applications.isEmpty()) {
+            applicationValidator.verifyUserExists(userId);
+        }
+        return Page.of(applications, pageRequest.limit(), Application::id);
+    }
+
+    @Override
+    @ReplicaRead
+    public Page<ApplicationWithApartment> getUserApplicationsWithApartments(int userId, PageRequest pageRequest) {
+        List<ApplicationWithApartment> applications = applicationRepository.findPageByUserWithApartments(userId,
+                pageRequest.afterId(), pageRequest.limit() + 1);
+        if (applications.isEmpty()) {
+            applicationValidator.verifyUserExists(userId);
+        }
+        return Page.of(applications, pageRequest.limit(), application -> application.application().id());
+    }
+
+    @Override
+    public void exportApplications(Consumer<Application> consumer) {
+        applicationRepository.streamAll(consumer);
+    }
+
+    @Override
+    public CsvExport exportApplicationsCsv(ApplicationExportCriteria criteria, List<String> columns) {
+        return applicationRepository.exportCsv(criteria, columns);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.APPLICATIONS_CACHE, key = "#application.id")
     public void updateApplication(Application application) {
-        if (doesExist(application.id())) {
-            applicationRepository.update(application);
-        } else {
-            throw new ApplicationNotFoundException(
-                    String.format("Application with id %s does not exist", application.id())
-            );
+        if (application.id() == null || applicationRepository.update(application) == 0) {
+            throw updateFailure(application.id(), application.version());
         }
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.APPLICATIONS_CACHE, key = "#id")
+    public void patchApplication(int id, MergePatch patch, Integer version) {
+        Application application = applicationRepository.findOne(id).orElseThrow(() ->
+                new ApplicationNotFoundException(String.format("Application with id %s does not exist", id)));
+        if (version != null && !version.equals(application.version())) {
+            throw versionConflict(id, version);
+        }
+        Application patchedApplication = patch.applyTo(application, ApplicationRepository.PATCHABLE_ATTRIBUTES)
+                .withVersion(version);
+        if (applicationRepository.patch(application, patchedApplication) == 0) {
+            throw updateFailure(id, version);
+        }
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.APPLICATIONS_CACHE, key = "#id")
     public void deleteApplication(int id) {
-        if (doesExist(id)) {
-            applicationRepository.delete(id);
-        } else {
+        if (applicationRepository.delete(id) == 0) {
             throw new ApplicationNotFoundException(
                     String.format("Application with id %s does not exist", id)
             );
         }
     }
 
+    /**
+     * @return the reason an update with the expected version changed no row
+     */
+    private RuntimeException updateFailure(Integer id, Integer version) {
+        if (id != null && version != null && applicationRepository.existsInDatabase(id)) {
+            return versionConflict(id, version);
+        }
+        return new ApplicationNotFoundException(String.format("Application with id %s does not exist", id));
+    }
+
+    private static VersionConflictException versionConflict(int id, int version) {
+        return new VersionConflictException(String.format(
+                "Application with id %s has been updated since version %s", id, version
+        ));
+    }
+
     @Override
     public boolean doesExist(Integer id) {
         if (id == null) {
@@ -1,13 +1,22 @@
 package com.auger.apartments.applications;
 
 import com.auger.apartments.apartments.ApartmentService;
+import com.auger.apartments.batch.BatchItemResult;
 import com.auger.apartments.exceptions.ApartmentNotFoundException;
 import com.auger.apartments.exceptions.UserNotFoundException;
 import com.auger.apartments.users.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Provides methods to validate that an application meets database and business constraints before
  * executing database operations such as creating, updating, and deleting applications.
@@ -16,10 +25,13 @@ import org.springframework.stereotype.Component;
 public class ApplicationValidator {
 
     private static final Logger logger = LoggerFactory.getLogger(ApplicationValidator.class);
+    private final JdbcTemplate jdbcTemplate;
     private final UserService userService;
     private final ApartmentService apartmentService;
 
-    public ApplicationValidator(UserService userService, ApartmentService apartmentService) {
+    public ApplicationValidator(JdbcTemplate jdbcTemplate, UserService userService,
+                                ApartmentService apartmentService) {
+        this.jdbcTemplate = jdbcTemplate;
         this.userService = userService;
         this.apartmentService = apartmentService;
     }
@@ -31,6 +43,43 @@ public class ApplicationValidator {
         logger.info("Validation complete");
     }
 
+    /**
+     * Checks a batch of new applications for users and apartments that do not exist, using one query
+     * per referenced table for the whole batch.
+     *
+     * @return rejected applications keyed by their index in the batch
+     */
+    public Map<Integer, BatchItemResult<Application>> validateNewApplications(List<Application> applications) {
+        logger.info("Validating {} new applications", applications.size());
+        Set<Integer> existingUserIds = findExistingIds("users",
+                applications.stream().map(Application::userId).distinct().toArray(Integer[]::new));
+        Set<Integer> existingApartmentIds = findExistingIds("apartments",
+                applications.stream().map(Application::apartmentId).distinct().toArray(Integer[]::new));
+
+        Map<Integer, BatchItemResult<Application>> rejections = new HashMap<>();
+        for (int i = 0; i < applications.size(); i++) {
+            Application application = applications.get(i);
+            if (!existingUserIds.contains(application.userId())) {
+                rejections.put(i, BatchItemResult.rejected(i, HttpStatus.NOT_FOUND,
+                        String.format("User with id %s does not exist", application.userId())));
+            } else if (!existingApartmentIds.contains(application.apartmentId())) {
+                rejections.put(i, BatchItemResult.rejected(i, HttpStatus.NOT_FOUND,
+                        String.format("Apartment with id %s does not exist", application.apartmentId())));
+            }
+        }
+        logger.info("Validation complete");
+        return rejections;
+    }
+
+    private Set<Integer> findExistingIds(String table, Integer[] ids) {
+        String sql = String.format("""
+                SELECT id
+                FROM %s
+                WHERE id = ANY(?);
+                """, table);
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Integer.class, (Object) ids));
+    }
+
     public void verifyUserExists(int userId) {
         if (!userService.doesExist(userId)) {
             throw new UserNotFoundException(String.format("User with id %s does not exist", userId));
@@ -0,0 +1,13 @@
+package com.auger.apartments.applications;
+
+import com.auger.apartments.apartments.Apartment;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * An application together with the apartment it was submitted for, read with a single join
+ *
+ * @param application written with its attributes at the top level of the JSON object
+ * @param apartment
+ */
+public record ApplicationWithApartment(@JsonUnwrapped Application application, Apartment apartment) {
+}
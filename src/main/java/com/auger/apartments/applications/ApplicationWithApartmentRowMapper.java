@@ -0,0 +1,41 @@
+package com.auger.apartments.applications;
+
+import com.auger.apartments.apartments.Apartment;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a row of applications joined with apartments. The columns of the application keep their names, the columns
+ * of the apartment that clash with them are selected as apartment_id and apartment_version.
+ */
+@Component
+public class ApplicationWithApartmentRowMapper implements RowMapper<ApplicationWithApartment> {
+
+    private final ApplicationRowMapper applicationRowMapper;
+
+    public ApplicationWithApartmentRowMapper(ApplicationRowMapper applicationRowMapper) {
+        this.applicationRowMapper = applicationRowMapper;
+    }
+
+    @Override
+    public ApplicationWithApartment mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Apartment apartment = new Apartment(rs.getInt("apartment_id"),
+                                            rs.getString("title"),
+                                            rs.getString("description"),
+                                            rs.getInt("number_of_bedrooms"),
+                                            rs.getInt("number_of_bathrooms"),
+                                            rs.getString("state"),
+                                            rs.getString("city"),
+                                            rs.getInt("square_feet"),
+                                            rs.getInt("monthly_rent"),
+                                            rs.getDate("date_listed").toLocalDate(),
+                                            rs.getBoolean("available"),
+                                            rs.getInt("owner_id"),
+                                            rs.getObject("renter_id", Integer.class),
+                                            rs.getInt("apartment_version"));
+        return new ApplicationWithApartment(applicationRowMapper.mapRow(rs, rowNum), apartment);
+    }
+}
@@ -0,0 +1,13 @@
+package com.auger.apartments.applications;
+
+import com.auger.apartments.users.User;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * An application together with the user who submitted it, read with a single join
+ *
+ * @param application written with its attributes at the top level of the JSON object
+ * @param user
+ */
+public record ApplicationWithUser(@JsonUnwrapped Application application, User user) {
+}
@@ -0,0 +1,35 @@
+package com.auger.apartments.applications;
+
+import com.auger.apartments.users.User;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a row of applications joined with users. The columns of the application keep their names, the columns of the
+ * user that clash with them are selected as user_id and user_version.
+ */
+@Component
+public class ApplicationWithUserRowMapper implements RowMapper<ApplicationWithUser> {
+
+    private final ApplicationRowMapper applicationRowMapper;
+
+    public ApplicationWithUserRowMapper(ApplicationRowMapper applicationRowMapper) {
+        this.applicationRowMapper = applicationRowMapper;
+    }
+
+    @Override
+    public ApplicationWithUser mapRow(ResultSet rs, int rowNum) throws SQLException {
+        User user = new User(rs.getInt("user_id"),
+                             rs.getString("first_name"),
+                             rs.getString("last_name"),
+                             rs.getString("email"),
+                             rs.getString("phone_number"),
+                             rs.getDate("birth_date").toLocalDate(),
+                             rs.getDate("date_joined").toLocalDate(),
+                             rs.getInt("user_version"));
+        return new ApplicationWithUser(applicationRowMapper.mapRow(rs, rowNum), user);
+    }
+}
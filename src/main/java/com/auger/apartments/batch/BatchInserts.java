@@ -0,0 +1,47 @@
+package com.auger.apartments.batch;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Runs multi-row inserts that receive each column as an array parameter, so a whole batch is
+ * written by one INSERT ... SELECT ... FROM unnest(...) statement in a single round trip.
+ */
+public final class BatchInserts {
+
+    private BatchInserts() {
+    }
+
+    /**
+     * An array parameter
+     *
+     * @param elementType Postgres name of the element type, such as text or integer
+     * @param elements array elements, one per row
+     */
+    public record SqlArray(String elementType, Object[] elements) {}
+
+    /**
+     * Executes an INSERT ... RETURNING id and returns the generated ids in insert order.
+     * The rows of one statement draw their ids from the sequence in the order they are inserted,
+     * so when the SELECT orders the rows by their position in the batch, sorting the returned ids
+     * lines them up with the batch.
+     *
+     * @param parameters {@link SqlArray} values are bound as arrays, anything else with setObject
+     */
+    public static List<Integer> insertReturningIds(JdbcTemplate jdbcTemplate, String sql, Object... parameters) {
+        List<Integer> ids = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                if (parameters[i] instanceof SqlArray array) {
+                    statement.setArray(i + 1, connection.createArrayOf(array.elementType(), array.elements()));
+                } else {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+            }
+            return statement;
+        }, (rs, rowNum) -> rs.getInt("id"));
+        return ids.stream().sorted().toList();
+    }
+}
@@ -0,0 +1,22 @@
+package com.auger.apartments.batch;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Outcome of a single item in a batch create request
+ *
+ * @param index position of the item in the request
+ * @param status HTTP status the item would have received if it was created on its own
+ * @param item the created object, or null if the item was rejected
+ * @param error reason the item was rejected, or null if it was created
+ */
+public record BatchItemResult<T>(int index, int status, T item, String error) {
+
+    public static <T> BatchItemResult<T> created(int index, T item) {
+        return new BatchItemResult<>(index, HttpStatus.CREATED.value(), item, null);
+    }
+
+    public static <T> BatchItemResult<T> rejected(int index, HttpStatus status, String error) {
+        return new BatchItemResult<>(index, status.value(), null, error);
+    }
+}
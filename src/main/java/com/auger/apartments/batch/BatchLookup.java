@@ -0,0 +1,64 @@
+package com.auger.apartments.batch;
+
+import com.auger.apartments.exceptions.InvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * Response to a request for several resources by id
+ *
+ * @param items the resources that exist, in the order their ids were requested. An id requested more than once is
+ * only returned once.
+ * @param missingIds requested ids that do not exist, in request order
+ */
+public record BatchLookup<T>(List<T> items, List<Integer> missingIds) {
+
+    public static final int MAX_IDS = 1000;
+
+    /**
+     * Removes repeated ids and checks that between 1 and {@link #MAX_IDS} ids remain.
+     *
+     * @return the distinct ids in request order
+     * @throws InvalidRequestException if an id is missing, as in ids=1,,2
+     */
+    public static List<Integer> distinctIds(List<Integer> ids) {
+        if (ids != null && ids.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidRequestException("Every id must be an integer");
+        }
+        List<Integer> distinctIds = ids == null ? List.of() : List.copyOf(new LinkedHashSet<>(ids));
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_IDS) {
+            throw new InvalidRequestException(String.format("Between 1 and %s ids must be requested", MAX_IDS));
+        }
+        return distinctIds;
+    }
+
+    /**
+     * Puts resources read in any order, such as by a single WHERE id = ANY(?) query, back in request order.
+     *
+     * @param ids distinct ids in request order
+     * @param found the resources with one of the ids that exist
+     */
+    public static <T> BatchLookup<T> of(List<Integer> ids, List<T> found, ToIntFunction<T> idExtractor) {
+        Map<Integer, T> foundById = new HashMap<>();
+        for (T item : found) {
+            foundById.put(idExtractor.applyAsInt(item), item);
+        }
+        List<T> items = new ArrayList<>(found.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : ids) {
+            T item = foundById.get(id);
+            if (item != null) {
+                items.add(item);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new BatchLookup<>(items, missingIds);
+    }
+}
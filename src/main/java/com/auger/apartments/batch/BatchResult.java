@@ -0,0 +1,63 @@
+package com.auger.apartments.batch;
+
+import com.auger.apartments.exceptions.InvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Response to a batch create request, with one result per item in request order
+ *
+ * @param created number of items that were created
+ * @param rejected number of items that were rejected
+ * @param items per item results
+ */
+public record BatchResult<T>(int created, int rejected, List<BatchItemResult<T>> items) {
+
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    /**
+     * Checks that a batch is not empty, not larger than {@link #MAX_BATCH_SIZE}, and has no null items.
+     */
+    public static void verifySize(List<?> batch) {
+        if (batch == null || batch.isEmpty() || batch.size() > MAX_BATCH_SIZE) {
+            throw new InvalidRequestException(
+                    String.format("A batch must contain between 1 and %s items", MAX_BATCH_SIZE)
+            );
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i) == null) {
+                throw new InvalidRequestException(String.format("Item %s of the batch is null", i));
+            }
+        }
+    }
+
+    /**
+     * Inserts the items that passed validation and combines them with the rejected items.
+     *
+     * @param batch items in request order
+     * @param rejections rejected items keyed by their index in the request
+     * @param insert inserts a list of items with one statement and returns them in the same order
+     */
+    public static <T> BatchResult<T> create(List<T> batch, Map<Integer, BatchItemResult<T>> rejections,
+                                            UnaryOperator<List<T>> insert) {
+        List<Integer> acceptedIndexes = IntStream.range(0, batch.size())
+                .filter(index -> !rejections.containsKey(index))
+                .boxed()
+                .toList();
+        List<T> createdItems = acceptedIndexes.isEmpty()
+                ? List.of()
+                : insert.apply(acceptedIndexes.stream().map(batch::get).toList());
+
+        List<BatchItemResult<T>> items = new ArrayList<>(rejections.values());
+        for (int i = 0; i < acceptedIndexes.size(); i++) {
+            items.add(BatchItemResult.created(acceptedIndexes.get(i), createdItems.get(i)));
+        }
+        items.sort(Comparator.comparingInt(BatchItemResult::index));
+        return new BatchResult<>(createdItems.size(), rejections.size(), items);
+    }
+}
@@ -0,0 +1,71 @@
+package com.auger.apartments.config;
+
+import com.auger.apartments.admission.AdmissionControl;
+import com.auger.apartments.admission.AdmissionControlFilter;
+import com.auger.apartments.admission.GradientLimit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sheds load before it reaches the database. The number of requests in flight and the time taken to get a connection
+ * are published as apartments.admission.in-flight and apartments.admission.connection-wait, and rejected requests are
+ * counted by priority as apartments.admission.rejected.
+ * <p>
+ * The adaptive concurrency limit and requests in flight of each endpoint group are published as
+ * apartments.concurrency.limit and apartments.concurrency.in-flight, and the requests it rejects are counted as
+ * apartments.concurrency.rejected, each tagged with the group.
+ */
+@Configuration
+public class AdmissionConfig {
+
+    private static final List<String> ENDPOINT_GROUPS = List.of("apartments", "users", "applications");
+
+    @Bean
+    public AdmissionControl admissionControl(@Value("${apartments.admission.max-in-flight}") int maxInFlight,
+                                             @Value("${apartments.admission.wait-budget}") Duration waitBudget,
+                                             @Value("${apartments.admission.wait-window}") Duration waitWindow,
+                                             MeterRegistry meterRegistry) {
+        AdmissionControl admissionControl = new AdmissionControl(maxInFlight, waitBudget, waitWindow,
+                Clock.systemUTC());
+        Gauge.builder("apartments.admission.in-flight", admissionControl, AdmissionControl::inFlight)
+                .register(meterRegistry);
+        Gauge.builder("apartments.admission.connection-wait", admissionControl,
+                        control -> control.recentWaitNanos() / 1_000_000.0)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        return admissionControl;
+    }
+
+    @Bean
+    public AdmissionControlFilter admissionControlFilter(AdmissionControl admissionControl,
+                                                         @Value("${apartments.admission.retry-after}")
+                                                         Duration retryAfter,
+                                                         @Value("${apartments.concurrency.initial-limit}")
+                                                         int initialLimit,
+                                                         @Value("${apartments.concurrency.min-limit}") int minLimit,
+                                                         @Value("${apartments.concurrency.max-limit}") int maxLimit,
+                                                         MeterRegistry meterRegistry) {
+        Map<String, GradientLimit> concurrencyLimits = new HashMap<>();
+        for (String group : ENDPOINT_GROUPS) {
+            GradientLimit limit = new GradientLimit(initialLimit, minLimit, maxLimit);
+            Gauge.builder("apartments.concurrency.limit", limit, GradientLimit::limit)
+                    .tag("group", group)
+                    .register(meterRegistry);
+            Gauge.builder("apartments.concurrency.in-flight", limit, GradientLimit::inFlight)
+                    .tag("group", group)
+                    .register(meterRegistry);
+            concurrencyLimits.put(group, limit);
+        }
+        return new AdmissionControlFilter(admissionControl, Map.copyOf(concurrencyLimits), retryAfter,
+                meterRegistry);
+    }
+}
@@ -0,0 +1,18 @@
+package com.auger.apartments.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the in-process entity caches used by the services for single resource lookups.
+ * The caches are Caffeine caches, bounded in size and expiry by spring.cache.caffeine.spec, and their
+ * hit, miss and eviction counters are published through the actuator metrics endpoint.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String APARTMENTS_CACHE = "apartments";
+    public static final String USERS_CACHE = "users";
+    public static final String APPLICATIONS_CACHE = "applications";
+}
@@ -1,23 +1,128 @@
 package com.auger.apartments.config;
 
+import com.auger.apartments.admission.AdmissionControl;
+import com.auger.apartments.admission.WaitRecordingDataSource;
+import com.auger.apartments.pools.Pool;
+import com.auger.apartments.pools.PoolRoutingDataSource;
+import com.auger.apartments.replica.ReadYourWritesFilter;
+import com.auger.apartments.replica.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+
 @Configuration
 public class DatasourceConfig {
 
+    private static final String REPLICA_CONFIGURED = "!'${apartments.datasource.replica.jdbc-url:}'.isBlank()";
+
     @Bean
     @ConfigurationProperties("spring.datasource")
     public HikariDataSource hikariDataSource() {
         return DataSourceBuilder.create().type(HikariDataSource.class).build();
     }
 
+    /**
+     * Settings of the interactive read pool. The database and credentials are those of the interactive write pool,
+     * which is configured with spring.datasource.
+     */
+    @Bean
+    @ConfigurationProperties("apartments.datasource.pools.interactive-read")
+    public HikariConfig readHikariConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(Pool.INTERACTIVE_READ.poolName());
+        return config;
+    }
+
+    /**
+     * Settings of the batch pool, which is kept small so imports and exports cannot load the database as much as
+     * interactive requests
+     */
     @Bean
-    public JdbcTemplate jdbcTemplate(HikariDataSource hikariDataSource) {
-        return new JdbcTemplate(hikariDataSource);
+    @ConfigurationProperties("apartments.datasource.pools.batch")
+    public HikariConfig batchHikariConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(Pool.BATCH.poolName());
+        return config;
+    }
+
+    /**
+     * Settings of the optional read replica pool. The pool is only created when a jdbc-url is set.
+     */
+    @Bean
+    @ConfigurationProperties("apartments.datasource.replica")
+    public HikariConfig replicaHikariConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("replica");
+        return config;
+    }
+
+    /**
+     * The data source used by repositories, validators and transactions. Each query gets its connection from the
+     * pool that {@link com.auger.apartments.pools.UsePool} selects for the repository method making it, so that
+     * interactive reads, interactive writes and batch jobs cannot exhaust each other's connections.
+     * <p>
+     * When a read replica is configured, queries made by service methods marked with
+     * {@link com.auger.apartments.replica.ReplicaRead} are routed to the replica pool and everything else to the
+     * primary pool.
+     * <p>
+     * The time every request waits for a connection of an interactive pool is recorded for admission control.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource hikariDataSource,
+                                 @Qualifier("readHikariConfig") HikariConfig readHikariConfig,
+                                 @Qualifier("batchHikariConfig") HikariConfig batchHikariConfig,
+                                 @Qualifier("replicaHikariConfig") HikariConfig replicaHikariConfig,
+                                 @Value("${apartments.datasource.max-waiting}") int maxWaiting,
+                                 AdmissionControl admissionControl,
+                                 MeterRegistry meterRegistry) {
+        DataSource interactiveWrite = new WaitLimitingDataSource(hikariDataSource,
+                hikariDataSource.getMaximumPoolSize(), maxWaiting);
+        DataSource primary = new PoolRoutingDataSource(interactiveWrite,
+                primaryPool(hikariDataSource, readHikariConfig, meterRegistry),
+                primaryPool(hikariDataSource, batchHikariConfig, meterRegistry), maxWaiting);
+        String replicaUrl = replicaHikariConfig.getJdbcUrl();
+        if (replicaUrl == null || replicaUrl.isBlank()) {
+            return new WaitRecordingDataSource(primary, admissionControl);
+        }
+        replicaHikariConfig.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new WaitRecordingDataSource(new ReplicaRoutingDataSource(primary,
+                new HikariDataSource(replicaHikariConfig), maxWaiting), admissionControl);
+    }
+
+    @Bean
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${apartments.datasource.read-your-writes}") Duration readYourWrites) {
+        return new ReadYourWritesFilter(readYourWrites, Clock.systemUTC());
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    private static HikariDataSource primaryPool(HikariDataSource hikariDataSource, HikariConfig config,
+                                                MeterRegistry meterRegistry) {
+        config.setDriverClassName(hikariDataSource.getDriverClassName());
+        config.setJdbcUrl(hikariDataSource.getJdbcUrl());
+        config.setUsername(hikariDataSource.getUsername());
+        config.setPassword(hikariDataSource.getPassword());
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new HikariDataSource(config);
     }
 }
@@ -0,0 +1,105 @@
+package com.auger.apartments.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits how many threads may wait for a connection from the pool at the same time.
+ * <p>
+ * With platform threads the Tomcat thread pool bounds the number of requests waiting for a connection.
+ * With virtual threads there is no such bound, so thousands of requests could queue inside the pool and
+ * each hold its client until the connection timeout. Once every connection is in use and maxWaiting
+ * threads are already waiting, further requests fail at once with a {@link SQLTransientConnectionException},
+ * which Spring translates to a CannotGetJdbcConnectionException.
+ */
+public class WaitLimitingDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxWaiting;
+
+    /**
+     * @param poolSize maximum number of connections in the target pool
+     * @param maxWaiting maximum number of threads waiting for a connection once all of them are in use
+     */
+    public WaitLimitingDataSource(DataSource targetDataSource, int poolSize, int maxWaiting) {
+        super(targetDataSource);
+        this.permits = new Semaphore(poolSize + maxWaiting);
+        this.maxWaiting = maxWaiting;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquirePermit();
+        try {
+            return releasingPermitOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquirePermit();
+        try {
+            return releasingPermitOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return the number of threads that can still hold or wait for a connection
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void acquirePermit() throws SQLException {
+        if (!permits.tryAcquire()) {
+            throw new SQLTransientConnectionException(String.format(
+                    "Every database connection is in use and %s requests are already waiting for one", maxWaiting
+            ));
+        }
+    }
+
+    private Connection releasingPermitOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "close" -> {
+                try {
+                    yield invoke(connection, method, args);
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        permits.release();
+                    }
+                }
+            }
+            default -> invoke(connection, method, args);
+        };
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler
+        );
+    }
+
+    private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
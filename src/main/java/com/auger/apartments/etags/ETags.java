@@ -0,0 +1,167 @@
+package com.auger.apartments.etags;
+
+import com.auger.apartments.exceptions.InvalidRequestException;
+import com.auger.apartments.exceptions.VersionConflictException;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds strong entity tags without serializing the response body.
+ * <p>
+ * A single user, apartment or application is tagged with its version, which every update increments, so the tag of
+ * a cached resource is known without reading the database and can be sent back in If-Match to update it only if it
+ * is unchanged. Other bodies, such as pages, are tagged with a hash of every component of the records in the body,
+ * walked recursively through nested records, collections and maps, so a change to any field of the body changes its
+ * tag.
+ * <p>
+ * A GET handler that returns a 200 response with an ETag header gets conditional requests for free: Spring answers
+ * a matching If-None-Match with 304 Not Modified and does not write the body.
+ */
+public final class ETags {
+
+    private static final int TAG_BYTES = 16;
+
+    private static final ClassValue<Method[]> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            RecordComponent[] components = type.getRecordComponents();
+            Method[] accessors = new Method[components.length];
+            for (int i = 0; i < components.length; i++) {
+                accessors[i] = components[i].getAccessor();
+            }
+            return accessors;
+        }
+    };
+
+    private ETags() {}
+
+    /**
+     * @return a quoted strong entity tag for the value
+     */
+    public static String of(Object value) {
+        MessageDigest digest = sha256();
+        update(digest, value);
+        byte[] hash = digest.digest();
+        return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, TAG_BYTES))
+                + '"';
+    }
+
+    /**
+     * @return a quoted strong entity tag for a version of a resource
+     */
+    public static String ofVersion(int version) {
+        return '"' + Integer.toString(version) + '"';
+    }
+
+    /**
+     * @return headers with the entity tag of a version of a resource, or no headers if the version is not known
+     */
+    public static HttpHeaders versionHeaders(Integer version) {
+        HttpHeaders headers = new HttpHeaders();
+        if (version != null) {
+            headers.setETag(ofVersion(version));
+        }
+        return headers;
+    }
+
+    /**
+     * Finds the version an update must apply to
+     *
+     * @param ifMatch If-Match header of the request, or null
+     * @param version version in the request body, or null
+     * @return the version in If-Match, or the version in the body when there is no If-Match header. Null when the
+     * update applies to any version.
+     * @throws VersionConflictException if If-Match does not hold a tag built by {@link #ofVersion}, so that no
+     * version can match it
+     */
+    public static Integer expectedVersion(String ifMatch, Integer version) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return version;
+        } else if (ifMatch.trim().equals("*")) {
+            return null;
+        }
+        List<ETag> tags = ETag.parse(ifMatch);
+        if (tags.size() > 1) {
+            throw new InvalidRequestException("If-Match must hold a single entity tag");
+        } else if (tags.size() == 1 && !tags.get(0).weak()) {
+            try {
+                return Integer.parseInt(tags.get(0).tag());
+            } catch (NumberFormatException ignored) {
+                // not a version tag, so it cannot match
+            }
+        }
+        throw new VersionConflictException(String.format("%s does not match the current version", ifMatch));
+    }
+
+    /**
+     * @return headers with the entity tag of the value
+     */
+    public static HttpHeaders headers(Object value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(of(value));
+        return headers;
+    }
+
+    private static void update(MessageDigest digest, Object value) {
+        if (value == null) {
+            digest.update((byte) 0);
+        } else if (value instanceof Record record) {
+            digest.update((byte) 1);
+            for (Method accessor : ACCESSORS.get(record.getClass())) {
+                update(digest, invoke(accessor, record));
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            // selected fields, whose names are hashed as well since different selections may hold the same values
+            digest.update((byte) 4);
+            updateInt(digest, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                update(digest, entry.getKey());
+                update(digest, entry.getValue());
+            }
+        } else if (value instanceof Collection<?> collection) {
+            digest.update((byte) 2);
+            updateInt(digest, collection.size());
+            for (Object item : collection) {
+                update(digest, item);
+            }
+        } else {
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            digest.update((byte) 3);
+            updateInt(digest, bytes.length);
+            digest.update(bytes);
+        }
+    }
+
+    private static void updateInt(MessageDigest digest, int value) {
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value).array());
+    }
+
+    private static Object invoke(Method accessor, Record record) {
+        try {
+            return accessor.invoke(record);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(String.format("Unable to read %s of %s", accessor.getName(),
+                    record.getClass().getSimpleName()), ex);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.auger.apartments.exceptions;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
@@ -12,6 +14,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 public class GlobalControllerExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalControllerExceptionHandler.class);
+    private static final String RETRY_AFTER_SECONDS = "1";
 
     @ExceptionHandler(DuplicateDataException.class)
     public ResponseEntity<String> handleDuplicateDataException(DuplicateDataException ex) {
@@ -21,12 +24,32 @@ public class GlobalControllerExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<String> handleVersionConflictException(VersionConflictException ex) {
+        String line1 = "VersionConflictException occurred while attempting to update an object.";
+        String line2 = "The object was updated by another request after the version the client based its update on.";
+        logger.error("{} {}", line1, line2, ex);
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.PRECONDITION_FAILED);
+    }
+
     @ExceptionHandler(DatabaseException.class)
     public ResponseEntity<String> handleDatabaseException(DatabaseException ex) {
+        if (ex.getCause() instanceof CannotGetJdbcConnectionException cause) {
+            return handleCannotGetJdbcConnectionException(cause);
+        }
         logger.error("DatabaseException occurred while attempting to complete a database operation.", ex);
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(CannotGetJdbcConnectionException.class)
+    public ResponseEntity<String> handleCannotGetJdbcConnectionException(CannotGetJdbcConnectionException ex) {
+        logger.warn("CannotGetJdbcConnectionException occurred. Every database connection is in use.", ex);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return new ResponseEntity<>("The service is busy, please try again later", headers,
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<String> handleUserNotFoundException(UserNotFoundException ex) {
         logger.error("UserNotFoundException occurred. An invalid user id was provided.", ex);
@@ -45,6 +68,12 @@ public class GlobalControllerExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(ImportNotFoundException.class)
+    public ResponseEntity<String> handleImportNotFoundException(ImportNotFoundException ex) {
+        logger.error("ImportNotFoundException occurred. An invalid import id was provided.", ex);
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
     @ExceptionHandler(DeleteApartmentException.class)
     public ResponseEntity<String> handleDeleteApartmentException(DeleteApartmentException ex) {
         String line1 = "DeleteApartmentException occurred while attempting to delete an apartment.";
@@ -61,6 +90,12 @@ public class GlobalControllerExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<String> handleInvalidRequestException(InvalidRequestException ex) {
+        logger.error("InvalidRequestException occurred. An invalid request parameter was provided.", ex);
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<String> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
         String[] messageParts = ex.getMessage().split(":");
@@ -0,0 +1,8 @@
+package com.auger.apartments.exceptions;
+
+public class ImportNotFoundException extends RuntimeException {
+
+    public ImportNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.auger.apartments.exceptions;
+
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
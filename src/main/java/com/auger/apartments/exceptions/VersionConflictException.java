@@ -0,0 +1,8 @@
+package com.auger.apartments.exceptions;
+
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
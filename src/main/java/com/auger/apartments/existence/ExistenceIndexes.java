@@ -0,0 +1,145 @@
+package com.auger.apartments.existence;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns the {@link IdIndex} of every table and keeps them in step with the database.
+ * <p>
+ * Repositories update their index when they create or delete a row. Rows deleted anywhere else, by
+ * another node or by an ON DELETE CASCADE, are reported by the row_deleted trigger in schema.sql
+ * through LISTEN/NOTIFY on a dedicated connection outside the pool. Whenever that connection is
+ * (re)established the indexes are cleared and reloaded, so notifications missed while it was down
+ * cannot leave deleted ids behind.
+ */
+@Component
+public class ExistenceIndexes implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExistenceIndexes.class);
+    static final String CHANNEL = "row_deleted";
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, IdIndex> indexes = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread listenerThread;
+    private Connection listenConnection;
+
+    public ExistenceIndexes(HikariDataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns the index for a table, creating it on first use.
+     *
+     * @param table table name, which must have an integer id column and the row_deleted trigger
+     */
+    public IdIndex forTable(String table) {
+        return indexes.computeIfAbsent(table, IdIndex::new);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "existence-index-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try {
+                if (listenConnection == null) {
+                    connectAndLoad();
+                }
+                PGNotification[] notifications = listenConnection.unwrap(PGConnection.class)
+                        .getNotifications(POLL_TIMEOUT_MS);
+                if (notifications != null) {
+                    for (PGNotification notification : notifications) {
+                        handleDeletion(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | DataAccessException ex) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Lost the row deletion listener connection. Existence checks will use the database.", ex);
+                closeListenConnection();
+                indexes.values().forEach(IdIndex::clear);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+        closeListenConnection();
+    }
+
+    private void connectAndLoad() throws SQLException {
+        listenConnection = DriverManager.getConnection(
+                dataSource.getJdbcUrl(), dataSource.getUsername(), dataSource.getPassword()
+        );
+        try (Statement statement = listenConnection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+        // LISTEN comes first so that a row deleted while an index is loading is still reported afterwards
+        for (IdIndex index : indexes.values()) {
+            index.clear();
+            jdbcTemplate.query(String.format("SELECT id FROM %s", index.table()),
+                    (RowCallbackHandler) rs -> index.add(rs.getInt(1)));
+            logger.info("Loaded {} ids into the {} existence index", index.size(), index.table());
+        }
+    }
+
+    void handleDeletion(String payload) {
+        int separator = payload.lastIndexOf(':');
+        IdIndex index = indexes.get(payload.substring(0, separator));
+        if (index != null) {
+            index.remove(Integer.parseInt(payload.substring(separator + 1)));
+        }
+    }
+
+    private void closeListenConnection() {
+        if (listenConnection == null) {
+            return;
+        }
+        try {
+            listenConnection.close();
+        } catch (SQLException ex) {
+            logger.debug("Failed to close the row deletion listener connection", ex);
+        }
+        listenConnection = null;
+    }
+}
@@ -0,0 +1,123 @@
+package com.auger.apartments.existence;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread safe set of the SERIAL ids present in a single table, stored as a bitset that grows with the
+ * highest id seen. One bit per id keeps a million row table under 128 KB.
+ * <p>
+ * The index may lag behind the database, so callers should treat a missing id as unknown rather than
+ * absent and confirm it against the database.
+ * <p>
+ * A present id must never be stale, because SERIAL ids are not reused and nothing would ever remove it.
+ * An id read from the database is therefore added with {@link #addIfUnchanged}, which drops it if any id
+ * was removed while the query ran, since that removal may have been the row just read.
+ */
+public final class IdIndex {
+
+    private final String table;
+    private final BitSet ids = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // incremented by every remove and clear, guarded by lock
+    private long removals;
+
+    IdIndex(String table) {
+        this.table = table;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return ids.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(int id) {
+        if (id < 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ids.set(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a token to pass to {@link #addIfUnchanged} once a query that found an id has run.
+     */
+    public long removals() {
+        lock.readLock().lock();
+        try {
+            return removals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an id only if nothing was removed since {@link #removals} returned the given token.
+     *
+     * @return whether the id was added
+     */
+    public boolean addIfUnchanged(int id, long removalsBefore) {
+        if (id < 0) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (removals != removalsBefore) {
+                return false;
+            }
+            ids.set(id);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        if (id < 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // counted even when the id is not present, as its row may have been read but not added yet
+            removals++;
+            ids.clear(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            removals++;
+            ids.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.auger.apartments.export;
+
+import com.auger.apartments.exceptions.DatabaseException;
+import com.auger.apartments.exceptions.InvalidRequestException;
+import org.postgresql.PGConnection;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports a table as CSV with COPY (SELECT ...) TO STDOUT. The bytes produced by Postgres are written
+ * straight to the response, so no object is created per row.
+ * <p>
+ * COPY does not accept bind parameters, so selected columns are limited to a fixed set and filter values
+ * are written into the statement as escaped literals.
+ */
+public final class CsvCopy implements CsvExport {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvCopy.class);
+
+    private final DataSource dataSource;
+    private final String table;
+    private final Map<String, String> selectedColumns;
+    private final List<Filter> filters = new ArrayList<>();
+
+    private record Filter(String condition, Object value) {}
+
+    private CsvCopy(DataSource dataSource, String table, Map<String, String> selectedColumns) {
+        this.dataSource = dataSource;
+        this.table = table;
+        this.selectedColumns = selectedColumns;
+    }
+
+    /**
+     * @param columns every column that may be exported, keyed by the attribute name used in the CSV header,
+     *                in the order they are exported by default
+     * @param selected attribute names of the columns to export, or null or empty to export every column
+     * @throws InvalidRequestException if a selected column is not one of columns
+     */
+    public static CsvCopy of(DataSource dataSource, String table, Map<String, String> columns, List<String> selected) {
+        if (selected == null || selected.isEmpty()) {
+            return new CsvCopy(dataSource, table, columns);
+        }
+        Map<String, String> selectedColumns = new LinkedHashMap<>();
+        for (String attribute : selected) {
+            String column = columns.get(attribute);
+            if (column == null) {
+                throw new InvalidRequestException(String.format(
+                        "Unable to export column %s. Columns that can be exported are %s",
+                        attribute, String.join(", ", columns.keySet())
+                ));
+            }
+            selectedColumns.put(attribute, column);
+        }
+        return new CsvCopy(dataSource, table, selectedColumns);
+    }
+
+    /**
+     * Adds a condition that every exported row must meet, unless value is null
+     *
+     * @param condition condition with a single ? standing for the value, such as "state = ?"
+     * @param value a string, number, boolean or date
+     */
+    public CsvCopy where(String condition, Object value) {
+        if (value != null) {
+            filters.add(new Filter(condition, value));
+        }
+        return this;
+    }
+
+    String sql(boolean standardConformingStrings) throws SQLException {
+        StringBuilder sql = new StringBuilder("COPY (SELECT ");
+        String separator = "";
+        for (Map.Entry<String, String> column : selectedColumns.entrySet()) {
+            sql.append(separator).append(column.getValue()).append(" AS \"").append(column.getKey()).append('"');
+            separator = ", ";
+        }
+        sql.append(" FROM ").append(table);
+        separator = " WHERE ";
+        for (Filter filter : filters) {
+            StringBuilder literal = new StringBuilder("'");
+            Utils.escapeLiteral(literal, filter.value().toString(), standardConformingStrings);
+            literal.append('\'');
+            sql.append(separator).append(filter.condition().replace("?", literal));
+            separator = " AND ";
+        }
+        return sql.append(") TO STDOUT (FORMAT csv, HEADER)").toString();
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            String sql = sql(connection.unwrap(BaseConnection.class).getStandardConformingStrings());
+            long rows = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, outputStream);
+            logger.info("Exported {} rows of {} as CSV", rows, table);
+        } catch (SQLException ex) {
+            logger.error("Failed to export {} as CSV", table, ex);
+            throw new DatabaseException(
+                    String.format("An error occurred when exporting %s from the database", table), ex
+            );
+        }
+    }
+}
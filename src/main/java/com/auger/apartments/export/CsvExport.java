@@ -0,0 +1,13 @@
+package com.auger.apartments.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A CSV export that has been validated and is ready to be written to a response
+ */
+@FunctionalInterface
+public interface CsvExport {
+
+    void writeTo(OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,36 @@
+package com.auger.apartments.export;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+
+/**
+ * Runs queries whose rows are handed to a consumer one at a time, fetched from a server side cursor
+ * {@link #FETCH_SIZE} rows at a time, so a whole table can be exported without holding it in memory.
+ */
+@Component
+public class StreamingQueries {
+
+    static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public StreamingQueries(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public <T> void stream(String sql, RowMapper<T> rowMapper, Consumer<T> consumer) {
+        // pgjdbc only honours the fetch size, and so only uses a server side cursor, inside a transaction
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.query(sql, (RowCallbackHandler) rs -> consumer.accept(rowMapper.mapRow(rs, rs.getRow()))));
+    }
+}
@@ -0,0 +1,15 @@
+package com.auger.apartments.imports;
+
+/**
+ * Formats accepted by the bulk import endpoints
+ */
+public enum ImportFormat {
+    /**
+     * Comma separated values with a header row naming the JSON attributes of each column
+     */
+    CSV,
+    /**
+     * Newline delimited JSON with one object per line
+     */
+    NDJSON
+}
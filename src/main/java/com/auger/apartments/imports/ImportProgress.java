@@ -0,0 +1,82 @@
+package com.auger.apartments.imports;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mutable progress of a running import. The importing thread updates it while other requests read
+ * {@link #report()} snapshots. Only the first {@link #MAX_REPORTED_REJECTIONS} rejections are kept so
+ * that a file full of bad rows cannot exhaust memory; every rejection is still counted.
+ */
+public final class ImportProgress {
+
+    public static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    private final UUID id = UUID.randomUUID();
+    private final String target;
+    private final ImportFormat format;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final List<ImportRejection> rejections = new ArrayList<>();
+    private volatile long rowsImported;
+    private volatile ImportState state = ImportState.RUNNING;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    ImportProgress(String target, ImportFormat format) {
+        this.target = target;
+        this.format = format;
+    }
+
+    public UUID id() {
+        return id;
+    }
+
+    public ImportFormat format() {
+        return format;
+    }
+
+    public boolean isRunning() {
+        return state == ImportState.RUNNING;
+    }
+
+    public long rowRead() {
+        return rowsRead.incrementAndGet();
+    }
+
+    public void reject(long row, String error) {
+        rowsRejected.incrementAndGet();
+        synchronized (rejections) {
+            if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                rejections.add(new ImportRejection(row, error));
+            }
+        }
+    }
+
+    public void complete(long rowsImported) {
+        this.rowsImported = rowsImported;
+        finishedAt = Instant.now();
+        state = ImportState.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        state = ImportState.FAILED;
+    }
+
+    public ImportReport report() {
+        List<ImportRejection> reportedRejections;
+        synchronized (rejections) {
+            reportedRejections = new ArrayList<>(rejections);
+        }
+        reportedRejections.sort(Comparator.comparingLong(ImportRejection::row));
+        return new ImportReport(id, target, format, state, rowsRead.get(), rowsImported, rowsRejected.get(),
+                reportedRejections, error, startedAt, finishedAt);
+    }
+}
@@ -0,0 +1,97 @@
+package com.auger.apartments.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Reads the records of an import one at a time, so that the input is never held in memory.
+ * A record that cannot be bound to the target type, including one rejected by its compact constructor,
+ * is passed to {@link Handler#reject} and reading carries on with the next record.
+ */
+public final class ImportRecords {
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private ImportRecords() {
+    }
+
+    public interface Handler<T> {
+        void accept(long row, T record) throws SQLException;
+
+        void reject(long row, String error);
+    }
+
+    /**
+     * @throws IOException if the input cannot be read or is not valid CSV
+     */
+    public static <T> void read(InputStream input, ImportFormat format, ObjectMapper objectMapper, Class<T> type,
+                                Handler<T> handler) throws IOException, SQLException {
+        switch (format) {
+            case CSV -> readCsv(input, objectMapper, type, handler);
+            case NDJSON -> readNdjson(input, objectMapper, type, handler);
+        }
+    }
+
+    private static <T> void readCsv(InputStream input, ObjectMapper objectMapper, Class<T> type,
+                                    Handler<T> handler) throws IOException, SQLException {
+        long row = 0;
+        try (MappingIterator<Map<String, String>> records = CSV_MAPPER.readerFor(Map.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(input)) {
+            while (records.hasNextValue()) {
+                Map<String, String> values = records.nextValue();
+                row++;
+                T record;
+                try {
+                    record = objectMapper.convertValue(values, type);
+                } catch (IllegalArgumentException ex) {
+                    handler.reject(row, describe(ex.getCause() != null ? ex.getCause() : ex));
+                    continue;
+                }
+                handler.accept(row, record);
+            }
+        }
+    }
+
+    private static <T> void readNdjson(InputStream input, ObjectMapper objectMapper, Class<T> type,
+                                       Handler<T> handler) throws IOException, SQLException {
+        long row = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            T record;
+            try {
+                record = objectMapper.readValue(line, type);
+            } catch (JsonProcessingException ex) {
+                handler.reject(row, describe(ex));
+                continue;
+            }
+            handler.accept(row, record);
+        }
+    }
+
+    private static String describe(Throwable ex) {
+        if (ex instanceof ValueInstantiationException && ex.getCause() != null) {
+            return ex.getCause().getMessage();
+        } else if (ex instanceof JsonProcessingException jsonProcessingException) {
+            return jsonProcessingException.getOriginalMessage();
+        }
+        return ex.getMessage();
+    }
+}
@@ -0,0 +1,9 @@
+package com.auger.apartments.imports;
+
+/**
+ * A row of an import that was not loaded
+ *
+ * @param row position of the row in the input, starting at 1 and not counting a CSV header
+ * @param error reason the row was rejected
+ */
+public record ImportRejection(long row, String error) {}
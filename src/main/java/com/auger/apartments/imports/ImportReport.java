@@ -0,0 +1,32 @@
+package com.auger.apartments.imports;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Snapshot of the progress of an import
+ *
+ * @param id
+ * @param target name of the table being loaded
+ * @param format
+ * @param state
+ * @param rowsRead rows parsed from the input so far
+ * @param rowsImported rows written to the target table, known once the import has completed
+ * @param rowsRejected rows rejected so far
+ * @param rejections the first {@link ImportProgress#MAX_REPORTED_REJECTIONS} rejections, ordered by row
+ * @param error reason the import failed, or null
+ * @param startedAt
+ * @param finishedAt null while the import is running
+ */
+public record ImportReport(UUID id,
+                           String target,
+                           ImportFormat format,
+                           ImportState state,
+                           long rowsRead,
+                           long rowsImported,
+                           long rowsRejected,
+                           List<ImportRejection> rejections,
+                           String error,
+                           Instant startedAt,
+                           Instant finishedAt) {}
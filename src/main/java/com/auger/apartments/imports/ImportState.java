@@ -0,0 +1,7 @@
+package com.auger.apartments.imports;
+
+public enum ImportState {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,61 @@
+package com.auger.apartments.imports;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the progress of running imports and of the most recent finished ones on this node, so that
+ * clients can follow a long import from another request.
+ */
+@Component
+public class ImportTracker {
+
+    static final int MAX_RETAINED_IMPORTS = 100;
+
+    private final Map<UUID, ImportProgress> imports = new LinkedHashMap<>();
+
+    /**
+     * Registers a new import, forgetting the oldest finished import once {@link #MAX_RETAINED_IMPORTS}
+     * are retained.
+     *
+     * @param target name of the table being loaded
+     */
+    public synchronized ImportProgress start(String target, ImportFormat format) {
+        if (imports.size() >= MAX_RETAINED_IMPORTS) {
+            imports.values().stream()
+                    .filter(progress -> !progress.isRunning())
+                    .findFirst()
+                    .ifPresent(progress -> imports.remove(progress.id()));
+        }
+        ImportProgress progress = new ImportProgress(target, format);
+        imports.put(progress.id(), progress);
+        return progress;
+    }
+
+    public synchronized Optional<ImportReport> find(String target, UUID id) {
+        return Optional.ofNullable(imports.get(id))
+                .map(ImportProgress::report)
+                .filter(report -> report.target().equals(target));
+    }
+
+    /**
+     * @param target name of a table
+     * @return imports into the table, oldest first
+     */
+    public synchronized List<ImportReport> findAll(String target) {
+        List<ImportReport> reports = new ArrayList<>();
+        for (ImportProgress progress : imports.values()) {
+            ImportReport report = progress.report();
+            if (report.target().equals(target)) {
+                reports.add(report);
+            }
+        }
+        return reports;
+    }
+}
@@ -0,0 +1,70 @@
+package com.auger.apartments.metrics;
+
+import com.auger.apartments.exceptions.DatabaseException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public repository and validator method as the apartments.queries timer.
+ * <p>
+ * Each timing is tagged with the component (for example UserRepository or ApartmentValidator), the operation
+ * (the method name) and the outcome: success, rejected when the method threw one of the application's own
+ * exceptions such as a not found or duplicate data exception, or error when the database failed.
+ * The percentile histograms of the timer are configured in application.yaml and published at /actuator/prometheus.
+ * <p>
+ * Calls a component makes to its own methods are not timed separately, and methods that return a lazily
+ * executed export only time the preparation of the export.
+ */
+@Aspect
+@Component
+public class QueryTimingAspect {
+
+    public static final String TIMER_NAME = "apartments.queries";
+
+    private static final String EXCEPTIONS_PACKAGE = DatabaseException.class.getPackageName();
+
+    private final MeterRegistry meterRegistry;
+
+    public QueryTimingAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.auger.apartments..*RepositoryImpl.*(..))"
+            + " || execution(public * com.auger.apartments..*Validator.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            outcome = outcomeOf(ex);
+            exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(TIMER_NAME)
+                    .description("Time taken by repository and validator methods")
+                    .tag("component", componentOf(joinPoint))
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String componentOf(ProceedingJoinPoint joinPoint) {
+        String name = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        return name.endsWith("Impl") ? name.substring(0, name.length() - "Impl".length()) : name;
+    }
+
+    private static String outcomeOf(Throwable ex) {
+        if (ex instanceof DatabaseException || !ex.getClass().getPackageName().equals(EXCEPTIONS_PACKAGE)) {
+            return "error";
+        }
+        return "rejected";
+    }
+}
@@ -0,0 +1,26 @@
+package com.auger.apartments.pagination;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Represents a single page of a keyset paginated result
+ *
+ * @param items
+ * @param nextCursor opaque cursor used to request the following page or null if this is the last page
+ */
+public record Page<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Builds a page from rows returned by a query that fetched one row more than the requested limit.
+     * The extra row is only used to detect whether a following page exists and is not returned.
+     */
+    public static <T> Page<T> of(List<T> rows, int limit, ToIntFunction<T> idExtractor) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = List.copyOf(rows.subList(0, limit));
+        int lastId = idExtractor.applyAsInt(items.get(limit - 1));
+        return new Page<>(items, PageRequest.encodeCursor(lastId));
+    }
+}
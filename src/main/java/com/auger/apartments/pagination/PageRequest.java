@@ -0,0 +1,55 @@
+package com.auger.apartments.pagination;
+
+import com.auger.apartments.exceptions.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Represents a request for a page of results ordered by id
+ *
+ * @param afterId only rows with an id greater than this value are returned
+ * @param limit maximum number of rows in the page
+ */
+public record PageRequest(int afterId, int limit) {
+
+    public static final String DEFAULT_LIMIT = "50";
+    public static final int MAX_LIMIT = 1000;
+    private static final String CURSOR_PREFIX = "id:";
+
+    public PageRequest {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new InvalidRequestException(String.format("Limit must be between 1 and %s", MAX_LIMIT));
+        }
+    }
+
+    /**
+     * Creates a page request from the values supplied by a client.
+     *
+     * @param after cursor returned with the previous page or null to start from the beginning
+     * @param limit maximum number of rows in the page
+     */
+    public static PageRequest of(String after, int limit) {
+        return new PageRequest(decodeCursor(after), limit);
+    }
+
+    static String encodeCursor(int id) {
+        byte[] cursor = (CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor);
+    }
+
+    static int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new InvalidRequestException("Invalid cursor");
+            }
+            return Integer.parseInt(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.auger.apartments.patch;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Builds an UPDATE of a single row that only sets the columns whose value changes, so patching one attribute writes
+ * one column instead of rewriting the whole row. Like a full update, it increments the version of the row and is only
+ * applied to the expected version, if there is one.
+ */
+public final class ColumnUpdate {
+
+    private final String table;
+    private final List<String> columns = new ArrayList<>();
+    private final List<Object> values = new ArrayList<>();
+
+    private ColumnUpdate(String table) {
+        this.table = table;
+    }
+
+    public static ColumnUpdate of(String table) {
+        return new ColumnUpdate(table);
+    }
+
+    /**
+     * Sets a column to a new value, unless the value is equal to the current one
+     */
+    public ColumnUpdate set(String column, Object current, Object value) {
+        if (!Objects.equals(current, value)) {
+            columns.add(column);
+            values.add(value);
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return columns.isEmpty();
+    }
+
+    /**
+     * @param version the version the row must be at, or null to update any version
+     * @return 1 if the row was updated, or 0 if it does not exist or is not at the expected version. Returns 1 without
+     * executing a statement when no column changes.
+     */
+    public int execute(JdbcTemplate jdbcTemplate, int id, Integer version) {
+        if (isEmpty()) {
+            return 1;
+        }
+        String sql = String.format("""
+                UPDATE %s
+                SET %s = ?, version = version + 1
+                WHERE id = ? AND (?::integer IS NULL OR version = ?);
+                """, table, String.join(" = ?, ", columns));
+        List<Object> args = new ArrayList<>(values);
+        args.add(id);
+        args.add(version);
+        args.add(version);
+        return jdbcTemplate.update(sql, args.toArray());
+    }
+}
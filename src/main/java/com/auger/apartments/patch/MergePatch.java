@@ -0,0 +1,106 @@
+package com.auger.apartments.patch;
+
+import com.auger.apartments.exceptions.InvalidRequestException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A JSON Merge Patch (RFC 7386) for a user, apartment or application. Members of the patch replace the attributes of
+ * the resource, null members clear them, and attributes the patch leaves out keep their current value.
+ * <p>
+ * Every attribute of a resource is a single value, so a member replaces the attribute as a whole instead of being
+ * merged recursively.
+ */
+public final class MergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private static final String VERSION = "version";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectNode patch;
+
+    private MergePatch(ObjectMapper objectMapper, ObjectNode patch) {
+        this.objectMapper = objectMapper;
+        this.patch = patch;
+    }
+
+    /**
+     * @throws InvalidRequestException if the patch is not a JSON object
+     */
+    public static MergePatch of(ObjectMapper objectMapper, JsonNode patch) {
+        if (!(patch instanceof ObjectNode objectNode)) {
+            throw new InvalidRequestException("A merge patch must be a JSON object");
+        }
+        return new MergePatch(objectMapper, objectNode);
+    }
+
+    /**
+     * @return the version in the patch, or null if the patch does not have one
+     * @throws InvalidRequestException if the version is not an integer
+     */
+    public Integer version() {
+        JsonNode version = patch.get(VERSION);
+        if (version == null || version.isNull()) {
+            return null;
+        } else if (!version.isInt()) {
+            throw new InvalidRequestException("Version must be an integer");
+        }
+        return version.intValue();
+    }
+
+    /**
+     * Applies the patch to a copy of the resource. The copy is built with the canonical constructor of the record, so
+     * it is checked exactly as a resource in a POST or PUT body is.
+     *
+     * @param patchableAttributes the attributes a patch of the resource writes. The version may be in any patch,
+     * since it is the version the patch applies to rather than an attribute it changes.
+     * @return the patched copy
+     * @throws InvalidRequestException if the patch has a member that is not an attribute of the resource, changes an
+     * attribute that is not patchable, clears an attribute that cannot be null, or makes the resource invalid
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Record> T applyTo(T resource, List<String> patchableAttributes) {
+        Class<T> type = (Class<T>) resource.getClass();
+        ObjectNode patched = objectMapper.valueToTree(resource);
+        Iterator<Map.Entry<String, JsonNode>> members = patch.fields();
+        while (members.hasNext()) {
+            Map.Entry<String, JsonNode> member = members.next();
+            RecordComponent component = component(type, member.getKey()).orElseThrow(() ->
+                    new InvalidRequestException(String.format("%s is not an attribute of %s", member.getKey(),
+                            type.getSimpleName().toLowerCase())));
+            if (!member.getKey().equals(VERSION) && !patchableAttributes.contains(member.getKey())) {
+                throw new InvalidRequestException(String.format(
+                        "%s cannot be patched. Attributes that can be patched are %s", member.getKey(),
+                        String.join(", ", patchableAttributes)
+                ));
+            }
+            if (member.getValue().isNull() && component.getType().isPrimitive()) {
+                throw new InvalidRequestException(String.format("%s cannot be null", member.getKey()));
+            }
+            patched.set(member.getKey(), member.getValue());
+        }
+        try {
+            return objectMapper.treeToValue(patched, type);
+        } catch (JsonProcessingException ex) {
+            // the constructor of the record rejects invalid values with an IllegalArgumentException
+            throw new InvalidRequestException(ex.getCause() instanceof IllegalArgumentException cause
+                    ? cause.getMessage() : ex.getOriginalMessage());
+        }
+    }
+
+    private static Optional<RecordComponent> component(Class<?> type, String name) {
+        return Arrays.stream(type.getRecordComponents())
+                .filter(component -> component.getName().equals(name))
+                .findFirst();
+    }
+}
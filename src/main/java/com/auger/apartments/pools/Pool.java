@@ -0,0 +1,34 @@
+package com.auger.apartments.pools;
+
+/**
+ * The connection pools of the primary database. Each pool has its own size and acquire timeout, so a burst of one
+ * kind of work can only exhaust its own pool: a slow export or import cannot take the connections that interactive
+ * reads and writes need.
+ */
+public enum Pool {
+    /**
+     * Short queries made while a client waits for a response, such as reading a page or a single resource
+     */
+    INTERACTIVE_READ("interactive-read"),
+    /**
+     * Creates, updates and deletes, the validation queries they make, and any query not assigned to another pool
+     */
+    INTERACTIVE_WRITE("interactive-write"),
+    /**
+     * Imports and exports, which may hold a connection for as long as it takes to stream a whole table
+     */
+    BATCH("batch");
+
+    private final String poolName;
+
+    Pool(String poolName) {
+        this.poolName = poolName;
+    }
+
+    /**
+     * @return the name of the pool, used in its configuration and as the pool tag of its metrics
+     */
+    public String poolName() {
+        return poolName;
+    }
+}
@@ -0,0 +1,60 @@
+package com.auger.apartments.pools;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Keeps track of the connection pool selected for the current thread by {@link UsePool}.
+ */
+@Aspect
+@Component
+public class PoolRouting {
+
+    private static final ThreadLocal<Pool> CURRENT_POOL = ThreadLocal.withInitial(() -> Pool.INTERACTIVE_WRITE);
+
+    /**
+     * @return the pool that a connection requested now by the current thread comes from
+     */
+    public static Pool currentPool() {
+        return CURRENT_POOL.get();
+    }
+
+    /**
+     * For work that gets its connections after the method that prepared it has returned, such as a CSV export that
+     * is written to the response later
+     *
+     * @return a data source that hands out connections of the pool, whichever thread asks for them
+     */
+    public static DataSource using(Pool pool, DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Pool previous = CURRENT_POOL.get();
+                CURRENT_POOL.set(pool);
+                try {
+                    return super.getConnection();
+                } finally {
+                    CURRENT_POOL.set(previous);
+                }
+            }
+        };
+    }
+
+    @Around("@annotation(usePool)")
+    public Object route(ProceedingJoinPoint joinPoint, UsePool usePool) throws Throwable {
+        Pool previous = CURRENT_POOL.get();
+        CURRENT_POOL.set(usePool.value());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            CURRENT_POOL.set(previous);
+        }
+    }
+}
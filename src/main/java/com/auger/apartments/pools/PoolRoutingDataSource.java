@@ -0,0 +1,52 @@
+package com.auger.apartments.pools;
+
+import com.auger.apartments.config.WaitLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.Map;
+
+/**
+ * Hands out connections from the pool selected by {@link PoolRouting#currentPool()}. The interactive read and batch
+ * pools are owned by this data source and closed with it.
+ */
+public class PoolRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final HikariDataSource interactiveReadPool;
+    private final HikariDataSource batchPool;
+
+    /**
+     * @param interactiveWrite data source of the interactive write pool, which is also used by default
+     * @param maxWaiting maximum number of threads waiting for a connection of the read or batch pool once all of its
+     * connections are in use
+     */
+    public PoolRoutingDataSource(DataSource interactiveWrite, HikariDataSource interactiveReadPool,
+                                 HikariDataSource batchPool, int maxWaiting) {
+        this.interactiveReadPool = interactiveReadPool;
+        this.batchPool = batchPool;
+        setTargetDataSources(Map.of(
+                Pool.INTERACTIVE_WRITE, interactiveWrite,
+                Pool.INTERACTIVE_READ, waitLimiting(interactiveReadPool, maxWaiting),
+                Pool.BATCH, waitLimiting(batchPool, maxWaiting)
+        ));
+        setDefaultTargetDataSource(interactiveWrite);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return PoolRouting.currentPool();
+    }
+
+    @Override
+    public void close() {
+        interactiveReadPool.close();
+        batchPool.close();
+    }
+
+    private static DataSource waitLimiting(HikariDataSource pool, int maxWaiting) {
+        return new WaitLimitingDataSource(pool, pool.getMaximumPoolSize(), maxWaiting);
+    }
+}
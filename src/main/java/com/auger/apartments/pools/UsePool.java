@@ -0,0 +1,16 @@
+package com.auger.apartments.pools;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Selects the connection pool for the queries and transactions of a repository method. Queries outside a method
+ * marked with this annotation use {@link Pool#INTERACTIVE_WRITE}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface UsePool {
+    Pool value();
+}
@@ -0,0 +1,121 @@
+package com.auger.apartments.projection;
+
+import com.auger.apartments.exceptions.InvalidRequestException;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.reflect.RecordComponent;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reads only the attributes selected with the fields query parameter, so columns a client does not use, such as the
+ * description of an apartment, are neither read from the database nor written to the response.
+ * <p>
+ * A row is mapped to a map of attribute names to values rather than to a record, because a record cannot be built
+ * without its required attributes. The id is always selected, since pages are paginated by id.
+ */
+public final class Projection implements RowMapper<Map<String, Object>> {
+
+    public static final String ID = "id";
+
+    private final Map<String, String> attributes;
+
+    private Projection(Map<String, String> attributes) {
+        this.attributes = attributes;
+    }
+
+    /**
+     * @param columns every column that may be selected, keyed by attribute name
+     * @param fields attribute names of the columns to select
+     * @throws InvalidRequestException if a field is not one of columns
+     */
+    public static Projection of(Map<String, String> columns, List<String> fields) {
+        // keyed by column, in the order the attributes are written to the response
+        Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put(columns.get(ID), ID);
+        for (String field : fields) {
+            String column = columns.get(field);
+            if (column == null) {
+                throw unknownField(field, columns.keySet().stream().toList());
+            }
+            attributes.put(column, field);
+        }
+        return new Projection(attributes);
+    }
+
+    /**
+     * Selects attributes of a resource that has already been read, such as one served from a cache
+     *
+     * @throws InvalidRequestException if a field is not an attribute of the resource
+     */
+    public static Map<String, Object> select(Record resource, List<String> fields) {
+        Map<String, RecordComponent> components = Arrays.stream(resource.getClass().getRecordComponents())
+                .collect(Collectors.toMap(RecordComponent::getName, component -> component));
+        Map<String, Object> selected = new LinkedHashMap<>();
+        selected.put(ID, read(resource, components.get(ID)));
+        for (String field : fields) {
+            RecordComponent component = components.get(field);
+            if (component == null) {
+                throw unknownField(field, Arrays.stream(resource.getClass().getRecordComponents())
+                        .map(RecordComponent::getName)
+                        .toList());
+            }
+            selected.put(field, read(resource, component));
+        }
+        return selected;
+    }
+
+    /**
+     * @return the id of a row mapped by a projection
+     */
+    public static int id(Map<String, Object> row) {
+        return (Integer) row.get(ID);
+    }
+
+    /**
+     * @return the selected columns, separated by commas, for the select list of a query
+     */
+    public String selectList() {
+        return String.join(", ", attributes.keySet());
+    }
+
+    /**
+     * Maps the columns of the row that are selected by this projection and ignores any others, so the same mapper
+     * works whichever of the selected columns a query returns
+     */
+    @Override
+    public Map<String, Object> mapRow(ResultSet rs, int rowNum) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String attribute = attributes.get(metaData.getColumnLabel(i));
+            if (attribute != null) {
+                Object value = rs.getObject(i);
+                row.put(attribute, value instanceof Date date ? date.toLocalDate() : value);
+            }
+        }
+        return row;
+    }
+
+    private static Object read(Record resource, RecordComponent component) {
+        try {
+            return component.getAccessor().invoke(resource);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(String.format("Unable to read %s of %s", component.getName(),
+                    resource.getClass().getSimpleName()), ex);
+        }
+    }
+
+    private static InvalidRequestException unknownField(String field, List<String> fields) {
+        return new InvalidRequestException(String.format(
+                "Unable to select field %s. Fields that can be selected are %s", field, String.join(", ", fields)
+        ));
+    }
+}
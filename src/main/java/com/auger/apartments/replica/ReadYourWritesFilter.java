@@ -0,0 +1,81 @@
+package com.auger.apartments.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Gives a client read-your-writes consistency while reads go to a replica that may lag the primary.
+ * <p>
+ * Every POST, PUT, PATCH or DELETE sets a cookie with the time of the write. Requests that carry a cookie younger
+ * than the window are pinned to the primary, so a client that has just written reads its change back even if the
+ * replica has not applied it yet, while every other request keeps reading from the replica. The time is kept by the
+ * client rather than by this instance, so the pin holds whichever instance serves the next request.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE_NAME = "apartments-last-write";
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final Duration window;
+    private final Clock clock;
+
+    /**
+     * @param window how long after a write the requests of the same client are pinned to the primary
+     */
+    public ReadYourWritesFilter(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = clock.millis();
+        if (WRITE_METHODS.contains(request.getMethod())) {
+            // set before the write runs, since the response may be committed by the time the write returns
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(now));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) window.toSeconds() + 1);
+            response.addCookie(cookie);
+        }
+        boolean pinned = wroteRecently(request, now);
+        if (pinned) {
+            ReplicaRouting.pinToPrimary();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (pinned) {
+                ReplicaRouting.unpin();
+            }
+        }
+    }
+
+    private boolean wroteRecently(HttpServletRequest request, long now) {
+        if (request.getCookies() == null) {
+            return false;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (cookie.getName().equals(COOKIE_NAME)) {
+                try {
+                    long lastWrite = Long.parseLong(cookie.getValue());
+                    return now - lastWrite < window.toMillis();
+                } catch (NumberFormatException ex) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package com.auger.apartments.replica;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method that only reads and may be answered from the read replica, if one is configured. Queries
+ * the method makes through the shared JdbcTemplate use the replica pool unless the client wrote recently, see
+ * {@link ReadYourWritesFilter}.
+ * <p>
+ * Rows on the replica may lag the primary by a moment, so methods whose results are cached must not be marked:
+ * a lagging row read just after an update would stay in the cache until it expires.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+}
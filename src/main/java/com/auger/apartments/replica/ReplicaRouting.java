@@ -0,0 +1,59 @@
+package com.auger.apartments.replica;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides whether the queries of the current thread go to the read replica.
+ * <p>
+ * Queries go to the replica while a {@link ReplicaRead} method runs, except during a request that is pinned to the
+ * primary by {@link ReadYourWritesFilter} and inside validators, which check ids and unique values that a write
+ * depends on and so must see every committed row.
+ */
+@Aspect
+@Component
+public class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * @return true if a query made now by the current thread may use the replica
+     */
+    public static boolean isReplicaRead() {
+        return REPLICA_READ.get() && !PINNED_TO_PRIMARY.get();
+    }
+
+    /**
+     * Sends every query of the current thread to the primary until {@link #unpin()} is called
+     */
+    static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(true);
+    }
+
+    static void unpin() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    @Around("@annotation(com.auger.apartments.replica.ReplicaRead)")
+    public Object readFromReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        return proceedWith(true, joinPoint);
+    }
+
+    @Around("execution(public * com.auger.apartments..*Validator.*(..))")
+    public Object readFromPrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+        return proceedWith(false, joinPoint);
+    }
+
+    private static Object proceedWith(boolean replicaRead, ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean previous = REPLICA_READ.get();
+        REPLICA_READ.set(replicaRead);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            REPLICA_READ.set(previous);
+        }
+    }
+}
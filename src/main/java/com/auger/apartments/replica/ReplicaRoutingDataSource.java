@@ -0,0 +1,43 @@
+package com.auger.apartments.replica;
+
+import com.auger.apartments.config.WaitLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.Map;
+
+/**
+ * Hands out connections to the read replica while {@link ReplicaRouting#isReplicaRead()} holds, and to the primary
+ * otherwise. The replica pool is owned by this data source and closed with it.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final HikariDataSource replicaPool;
+
+    /**
+     * @param primary data source of the primary, used for writes and every query outside a replica read
+     * @param replicaPool connection pool of the replica
+     * @param maxWaiting maximum number of threads waiting for a replica connection once all of them are in use
+     */
+    public ReplicaRoutingDataSource(DataSource primary, HikariDataSource replicaPool, int maxWaiting) {
+        this.replicaPool = replicaPool;
+        DataSource replica = new WaitLimitingDataSource(replicaPool, replicaPool.getMaximumPoolSize(), maxWaiting);
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ReplicaRouting.isReplicaRead() ? Target.REPLICA : Target.PRIMARY;
+    }
+
+    @Override
+    public void close() {
+        replicaPool.close();
+    }
+}
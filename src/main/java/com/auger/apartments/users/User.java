@@ -12,6 +12,7 @@ import java.time.LocalDate;
  * @param phoneNumber must be unique
  * @param birthDate
  * @param dateJoined
+ * @param version incremented by every update, used to detect conflicting updates
  */
 public record User(Integer id,
                    String firstName,
@@ -19,7 +20,8 @@ public record User(Integer id,
                    String email,
                    String phoneNumber,
                    LocalDate birthDate,
-                   LocalDate dateJoined) {
+                   LocalDate dateJoined,
+                   Integer version) {
 
     public User {
         if (firstName == null) {
@@ -50,4 +52,19 @@ public record User(Integer id,
             throw new IllegalArgumentException("Must be at least 18 years of age");
         }
     }
+
+    /**
+     * Creates a user without a version, for a new user or an update that does not check the version
+     */
+    public User(Integer id, String firstName, String lastName, String email, String phoneNumber, LocalDate birthDate,
+                LocalDate dateJoined) {
+        this(id, firstName, lastName, email, phoneNumber, birthDate, dateJoined, null);
+    }
+
+    /**
+     * @return a copy of this user with the given version
+     */
+    public User withVersion(Integer version) {
+        return new User(id, firstName, lastName, email, phoneNumber, birthDate, dateJoined, version);
+    }
 }
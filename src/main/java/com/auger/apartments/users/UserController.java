@@ -1,13 +1,31 @@
 package com.auger.apartments.users;
 
+import com.auger.apartments.applications.Application;
+import com.auger.apartments.applications.ApplicationService;
+import com.auger.apartments.applications.ApplicationWithApartment;
+import com.auger.apartments.batch.BatchLookup;
+import com.auger.apartments.batch.BatchResult;
+import com.auger.apartments.etags.ETags;
+import com.auger.apartments.exceptions.InvalidRequestException;
 import com.auger.apartments.exceptions.UserNotFoundException;
+import com.auger.apartments.export.NdjsonResponses;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.auger.apartments.patch.MergePatch;
+import com.auger.apartments.projection.Projection;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -16,9 +34,13 @@ public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
     private final UserService userService;
+    private final ApplicationService applicationService;
+    private final ObjectMapper objectMapper;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ApplicationService applicationService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.applicationService = applicationService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -29,34 +51,128 @@ public class UserController {
         return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult<User>> createUsers(@RequestBody List<User> users) {
+        logger.info("Creating a batch of users");
+        BatchResult<User> result = userService.createUsers(users);
+        logger.info("Batch processed: {} created, {} rejected", result.created(), result.rejected());
+        HttpStatus status = result.rejected() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return new ResponseEntity<>(result, status);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<User> getUser(@PathVariable int id) {
         logger.info("Retrieving a user");
         Optional<User> user = userService.getUser(id);
         if (user.isPresent()) {
             logger.info("User retrieved successfully");
-            return new ResponseEntity<>(user.get(), HttpStatus.OK);
+            return new ResponseEntity<>(user.get(), ETags.versionHeaders(user.get().version()), HttpStatus.OK);
+        } else {
+            throw new UserNotFoundException(String.format("User with id %s does not exist", id));
+        }
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getUserFields(
+            @PathVariable int id,
+            @RequestParam List<String> fields) {
+        logger.info("Retrieving fields of a user");
+        Optional<User> user = userService.getUser(id);
+        if (user.isPresent()) {
+            Map<String, Object> selectedUser = Projection.select(user.get(), fields);
+            logger.info("User retrieved successfully");
+            return new ResponseEntity<>(selectedUser, ETags.headers(selectedUser), HttpStatus.OK);
         } else {
             throw new UserNotFoundException(String.format("User with id %s does not exist", id));
         }
     }
 
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        logger.info("Retrieving all users");
-        List<User> allUsers = userService.getAllUsers();
+    public ResponseEntity<Page<User>> getUsers(
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after) {
+        logger.info("Retrieving a page of users");
+        Page<User> users = userService.getUsers(PageRequest.of(after, limit));
         logger.info("Users retrieved successfully");
-        return new ResponseEntity<>(allUsers, HttpStatus.OK);
+        return new ResponseEntity<>(users, ETags.headers(users), HttpStatus.OK);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchLookup<User>> getUsersById(@RequestParam List<Integer> ids) {
+        logger.info("Retrieving users by id");
+        BatchLookup<User> users = userService.getUsers(ids);
+        logger.info("Users retrieved successfully: {} found, {} missing", users.items().size(),
+                users.missingIds().size());
+        return new ResponseEntity<>(users, ETags.headers(users), HttpStatus.OK);
+    }
+
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<Page<Map<String, Object>>> getUsersFields(
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam List<String> fields) {
+        logger.info("Retrieving fields of a page of users");
+        Page<Map<String, Object>> users = userService.getUsers(PageRequest.of(after, limit), fields);
+        logger.info("Users retrieved successfully");
+        return new ResponseEntity<>(users, ETags.headers(users), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/applications")
+    public ResponseEntity<Page<Application>> getUserApplications(
+            @PathVariable int id,
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String embed) {
+        if (embed != null) {
+            throw new InvalidRequestException(String.format(
+                    "Unable to embed %s. The applications of a user can embed apartment", embed));
+        }
+        logger.info("Retrieving a page of applications for a user");
+        Page<Application> applications = applicationService.getUserApplications(id, PageRequest.of(after, limit));
+        logger.info("Applications retrieved successfully");
+        return new ResponseEntity<>(applications, ETags.headers(applications), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/{id}/applications", params = "embed=apartment")
+    public ResponseEntity<Page<ApplicationWithApartment>> getUserApplicationsWithApartments(
+            @PathVariable int id,
+            @RequestParam(defaultValue = PageRequest.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) String after) {
+        logger.info("Retrieving a page of applications with apartments for a user");
+        Page<ApplicationWithApartment> applications = applicationService.getUserApplicationsWithApartments(id,
+                PageRequest.of(after, limit));
+        logger.info("Applications retrieved successfully");
+        return new ResponseEntity<>(applications, ETags.headers(applications), HttpStatus.OK);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        logger.info("Exporting all users");
+        StreamingResponseBody body = NdjsonResponses.stream(objectMapper, userService::exportUsers);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     @PutMapping
-    public ResponseEntity<Void> updateUser(@RequestBody User user) {
+    public ResponseEntity<Void> updateUser(@RequestBody User user,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Updating a user");
-        userService.updateUser(user);
+        userService.updateUser(user.withVersion(ETags.expectedVersion(ifMatch, user.version())));
         logger.info("User updated successfully");
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchUser(@PathVariable int id, @RequestBody JsonNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.info("Patching a user");
+        MergePatch mergePatch = MergePatch.of(objectMapper, patch);
+        userService.patchUser(id, mergePatch, ETags.expectedVersion(ifMatch, mergePatch.version()));
+        logger.info("User patched successfully");
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable int id) {
         logger.info("Deleting a user");
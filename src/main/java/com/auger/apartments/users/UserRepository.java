@@ -1,18 +1,42 @@
 package com.auger.apartments.users;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserRepository {
+
+    /**
+     * Attributes written by {@link #patch}
+     */
+    List<String> PATCHABLE_ATTRIBUTES = List.of("firstName", "lastName", "email", "phoneNumber", "birthDate");
+
     User create(User user);
 
+    List<User> createAll(List<User> users);
+
     Optional<User> findOne(int id);
 
-    List<User> findAll();
+    List<User> findAll(List<Integer> ids);
+
+    void streamAll(Consumer<User> consumer);
 
-    void update(User user);
+    List<User> findPage(int afterId, int limit);
 
-    void delete(int id);
+    List<Map<String, Object>> findPage(int afterId, int limit, List<String> fields);
+
+    int update(User user);
+
+    int patch(User user, User patchedUser);
+
+    int delete(int id);
 
     boolean exists(int id);
+
+    /**
+     * Like {@link #exists} but always asks the database, for callers that cannot accept an answer the existence
+     * index has not caught up with yet
+     */
+    boolean existsInDatabase(int id);
 }
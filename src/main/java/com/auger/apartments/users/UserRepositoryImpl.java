@@ -1,27 +1,55 @@
 package com.auger.apartments.users;
 
+import com.auger.apartments.batch.BatchInserts;
+import com.auger.apartments.batch.BatchInserts.SqlArray;
 import com.auger.apartments.exceptions.DatabaseException;
+import com.auger.apartments.exceptions.DuplicateDataException;
+import com.auger.apartments.existence.ExistenceIndexes;
+import com.auger.apartments.existence.IdIndex;
+import com.auger.apartments.export.StreamingQueries;
+import com.auger.apartments.patch.ColumnUpdate;
+import com.auger.apartments.pools.Pool;
+import com.auger.apartments.pools.UsePool;
+import com.auger.apartments.projection.Projection;
+import org.postgresql.util.PSQLException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class UserRepositoryImpl implements UserRepository {
 
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String EMAIL_CONSTRAINT = "users_email_key";
+    private static final String PHONE_NUMBER_CONSTRAINT = "users_phone_number_key";
+    private static final Map<String, String> COLUMNS = columns();
+    // columns that can be selected with fields, which unlike the exported columns include the version
+    private static final Map<String, String> FIELDS = fields();
     private final JdbcTemplate jdbcTemplate;
     private final UserRowMapper userRowMapper;
     private final SimpleJdbcInsert simpleJdbcInsert;
+    private final StreamingQueries streamingQueries;
+    private final IdIndex idIndex;
 
-    public UserRepositoryImpl(JdbcTemplate jdbcTemplate, UserRowMapper userRowMapper) {
+    public UserRepositoryImpl(JdbcTemplate jdbcTemplate, UserRowMapper userRowMapper,
+                              StreamingQueries streamingQueries,
+                              ExistenceIndexes existenceIndexes) {
         this.jdbcTemplate = jdbcTemplate;
         this.userRowMapper = userRowMapper;
+        this.streamingQueries = streamingQueries;
+        this.idIndex = existenceIndexes.forTable("users");
         this.simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName("users")
                 .usingGeneratedKeyColumns("id");
     }
@@ -37,16 +65,59 @@ public class UserRepositoryImpl implements UserRepository {
             parameters.put("birth_date", user.birthDate());
             LocalDate dateJoined = LocalDate.now();
             parameters.put("date_joined", dateJoined);
+            parameters.put("version", 0);
+
+            long removals = idIndex.removals();
 
             int id = simpleJdbcInsert.executeAndReturnKey(parameters).intValue();
+            idIndex.addIfUnchanged(id, removals);
             return new User(id, user.firstName(), user.lastName(), user.email(), user.phoneNumber(),
-                    user.birthDate(), dateJoined);
+                    user.birthDate(), dateJoined, 0);
+        } catch (DuplicateKeyException ex) {
+            throw translateDuplicateKey(ex);
         } catch (DataAccessException ex) {
-            throw new DatabaseException("An error occurred when inserting a user in the database");
+            throw new DatabaseException("An error occurred when inserting a user in the database", ex);
         }
     }
 
     @Override
+    public List<User> createAll(List<User> users) {
+        try {
+            String sql = """
+                INSERT INTO users (first_name, last_name, email, phone_number, birth_date, date_joined)
+                SELECT first_name, last_name, email, phone_number, birth_date, ?
+                FROM unnest(?::text[], ?::text[], ?::text[], ?::text[], ?::date[])
+                    WITH ORDINALITY AS batch (first_name, last_name, email, phone_number, birth_date, position)
+                ORDER BY position
+                RETURNING id;
+                """;
+            LocalDate dateJoined = LocalDate.now();
+            long removals = idIndex.removals();
+            List<Integer> ids = BatchInserts.insertReturningIds(jdbcTemplate, sql, dateJoined,
+                    new SqlArray("text", users.stream().map(User::firstName).toArray()),
+                    new SqlArray("text", users.stream().map(User::lastName).toArray()),
+                    new SqlArray("text", users.stream().map(User::email).toArray()),
+                    new SqlArray("text", users.stream().map(User::phoneNumber).toArray()),
+                    new SqlArray("date", users.stream().map(user -> user.birthDate().toString()).toArray())
+            );
+            List<User> createdUsers = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                int id = ids.get(i);
+                idIndex.addIfUnchanged(id, removals);
+                createdUsers.add(new User(id, user.firstName(), user.lastName(), user.email(), user.phoneNumber(),
+                        user.birthDate(), dateJoined, 0));
+            }
+            return createdUsers;
+        } catch (DuplicateKeyException ex) {
+            throw translateDuplicateKey(ex);
+        } catch (DataAccessException ex) {
+            throw new DatabaseException("An error occurred when inserting users in the database", ex);
+        }
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
     public Optional<User> findOne(int id) {
         String sql = """
                 SELECT *
@@ -60,51 +131,170 @@ public class UserRepositoryImpl implements UserRepository {
     }
 
     @Override
-    public List<User> findAll() {
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<User> findAll(List<Integer> ids) {
+        // one query for every id, in no particular order
+        String sql = """
+                SELECT *
+                FROM users
+                WHERE id = ANY(?);
+                """;
+        return jdbcTemplate.query(sql, userRowMapper, (Object) ids.toArray(Integer[]::new));
+    }
+
+    @Override
+    @UsePool(Pool.BATCH)
+    public void streamAll(Consumer<User> consumer) {
         String sql = """
                 SELECT *
                 FROM users;
                 """;
-        return jdbcTemplate.query(sql, userRowMapper);
+        streamingQueries.stream(sql, userRowMapper, consumer);
+    }
+
+    @Override
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<User> findPage(int afterId, int limit) {
+        String sql = """
+                SELECT *
+                FROM users
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?;
+                """;
+        return jdbcTemplate.query(sql, userRowMapper, afterId, limit);
     }
 
     @Override
-    public void update(User user) {
+    @UsePool(Pool.INTERACTIVE_READ)
+    public List<Map<String, Object>> findPage(int afterId, int limit, List<String> fields) {
+        Projection projection = Projection.of(FIELDS, fields);
+        String sql = String.format("""
+                SELECT %s
+                FROM users
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?;
+                """, projection.selectList());
+        return jdbcTemplate.query(sql, projection, afterId, limit);
+    }
+
+    /**
+     * @return the columns that may be selected, keyed by attribute name
+     */
+    private static Map<String, String> columns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("id", "id");
+        columns.put("firstName", "first_name");
+        columns.put("lastName", "last_name");
+        columns.put("email", "email");
+        columns.put("phoneNumber", "phone_number");
+        columns.put("birthDate", "birth_date");
+        columns.put("dateJoined", "date_joined");
+        return Collections.unmodifiableMap(columns);
+    }
+
+    private static Map<String, String> fields() {
+        Map<String, String> fields = new LinkedHashMap<>(COLUMNS);
+        fields.put("version", "version");
+        return Collections.unmodifiableMap(fields);
+    }
+
+    @Override
+    public int update(User user) {
         try {
             String sql = """
                 UPDATE users
-                SET first_name = ?, last_name = ?, email = ?, phone_number = ?, birth_date = ?
-                WHERE id = ?;
+                SET first_name = ?, last_name = ?, email = ?, phone_number = ?, birth_date = ?,
+                version = version + 1
+                WHERE id = ? AND (?::integer IS NULL OR version = ?);
                 """;
-            jdbcTemplate.update(
+            return jdbcTemplate.update(
                     sql,
-                    user.firstName(), user.lastName(), user.email(), user.phoneNumber(), user.birthDate(), user.id()
+                    user.firstName(), user.lastName(), user.email(), user.phoneNumber(), user.birthDate(), user.id(),
+                    user.version(), user.version()
             );
+        } catch (DuplicateKeyException ex) {
+            throw translateDuplicateKey(ex);
         } catch (DataAccessException ex) {
-            throw new DatabaseException("An error occurred when updating a user in the database");
+            throw new DatabaseException("An error occurred when updating a user in the database", ex);
         }
     }
 
     @Override
-    public void delete(int id) {
+    public int patch(User user, User patchedUser) {
+        try {
+            return ColumnUpdate.of("users")
+                    .set("first_name", user.firstName(), patchedUser.firstName())
+                    .set("last_name", user.lastName(), patchedUser.lastName())
+                    .set("email", user.email(), patchedUser.email())
+                    .set("phone_number", user.phoneNumber(), patchedUser.phoneNumber())
+                    .set("birth_date", user.birthDate(), patchedUser.birthDate())
+                    .execute(jdbcTemplate, user.id(), patchedUser.version());
+        } catch (DuplicateKeyException ex) {
+            throw translateDuplicateKey(ex);
+        } catch (DataAccessException ex) {
+            throw new DatabaseException("An error occurred when patching a user in the database", ex);
+        }
+    }
+
+    @Override
+    public int delete(int id) {
         try {
             String sql = """
                 DELETE FROM users
                 WHERE id = ?;
                 """;
-            jdbcTemplate.update(sql, id);
+            int deleted = jdbcTemplate.update(sql, id);
+            idIndex.remove(id);
+            return deleted;
         } catch (DataAccessException ex) {
-            throw new DatabaseException("An error occurred when deleting a user in the database");
+            throw new DatabaseException("An error occurred when deleting a user in the database", ex);
         }
     }
 
     @Override
+    @UsePool(Pool.INTERACTIVE_READ)
     public boolean exists(int id) {
+        if (idIndex.contains(id)) {
+            return true;
+        }
+        // a miss may be a row created by another node, so only the database can confirm it is absent
+        long removals = idIndex.removals();
+        boolean exists = existsInDatabase(id);
+        if (exists) {
+            idIndex.addIfUnchanged(id, removals);
+        }
+        return exists;
+    }
+
+    @Override
+    public boolean existsInDatabase(int id) {
         String sql = """
-                SELECT COUNT(*)
-                FROM users
-                WHERE id = ?;
+                SELECT EXISTS (
+                    SELECT 1
+                    FROM users
+                    WHERE id = ?
+                );
                 """;
-        return jdbcTemplate.queryForObject(sql, Integer.class, id) > 0;
+        return jdbcTemplate.queryForObject(sql, Boolean.class, id);
+    }
+
+    /**
+     * Maps a unique constraint violation on the email or phone number column to the message clients
+     * received when uniqueness was checked before writing.
+     */
+    private RuntimeException translateDuplicateKey(DuplicateKeyException ex) {
+        if (ex.getMostSpecificCause() instanceof PSQLException psqlException
+                && UNIQUE_VIOLATION.equals(psqlException.getSQLState())
+                && psqlException.getServerErrorMessage() != null) {
+            String constraint = psqlException.getServerErrorMessage().getConstraint();
+            if (EMAIL_CONSTRAINT.equals(constraint)) {
+                return new DuplicateDataException("A user with that email already exists");
+            } else if (PHONE_NUMBER_CONSTRAINT.equals(constraint)) {
+                return new DuplicateDataException("A user with that phone number already exists");
+            }
+        }
+        return new DatabaseException("An error occurred when writing a user to the database", ex);
     }
 }
@@ -17,6 +17,7 @@ public class UserRowMapper implements RowMapper<User> {
                         rs.getString("email"),
                         rs.getString("phone_number"),
                         rs.getDate("birth_date").toLocalDate(),
-                        rs.getDate("date_joined").toLocalDate());
+                        rs.getDate("date_joined").toLocalDate(),
+                        rs.getInt("version"));
     }
 }
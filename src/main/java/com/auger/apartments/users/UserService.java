@@ -1,17 +1,35 @@
 package com.auger.apartments.users;
 
+import com.auger.apartments.batch.BatchLookup;
+import com.auger.apartments.batch.BatchResult;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.auger.apartments.patch.MergePatch;
+
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserService {
     User createUser(User user);
 
+    BatchResult<User> createUsers(List<User> users);
+
     Optional<User> getUser(int id);
 
-    List<User> getAllUsers();
+    BatchLookup<User> getUsers(List<Integer> ids);
+
+    Page<User> getUsers(PageRequest pageRequest);
+
+    Page<Map<String, Object>> getUsers(PageRequest pageRequest, List<String> fields);
+
+    void exportUsers(Consumer<User> consumer);
 
     void updateUser(User user);
 
+    void patchUser(int id, MergePatch patch, Integer version);
+
     void deleteUser(int id);
 
     boolean doesExist(Integer id);
@@ -1,10 +1,24 @@
 package com.auger.apartments.users;
 
+import com.auger.apartments.batch.BatchLookup;
+import com.auger.apartments.batch.BatchResult;
+import com.auger.apartments.config.CacheConfig;
 import com.auger.apartments.exceptions.UserNotFoundException;
+import com.auger.apartments.exceptions.VersionConflictException;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.auger.apartments.patch.MergePatch;
+import com.auger.apartments.projection.Projection;
+import com.auger.apartments.replica.ReplicaRead;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class UserServiceImpl implements UserService {
@@ -19,40 +33,102 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User createUser(User user) {
-        userValidator.validateNewUser(user);
+        // email and phone number uniqueness is enforced by the users table's unique constraints
         return userRepository.create(user);
     }
 
     @Override
+    public BatchResult<User> createUsers(List<User> users) {
+        BatchResult.verifySize(users);
+        return BatchResult.create(users, userValidator.validateNewUsers(users), userRepository::createAll);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#id", unless = "#result == null")
     public Optional<User> getUser(int id) {
         return userRepository.findOne(id);
     }
 
     @Override
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @ReplicaRead
+    public BatchLookup<User> getUsers(List<Integer> ids) {
+        List<Integer> distinctIds = BatchLookup.distinctIds(ids);
+        return BatchLookup.of(distinctIds, userRepository.findAll(distinctIds), User::id);
+    }
+
+    @Override
+    @ReplicaRead
+    public Page<User> getUsers(PageRequest pageRequest) {
+        List<User> users = userRepository.findPage(pageRequest.afterId(), pageRequest.limit() + 1);
+        return Page.of(users, pageRequest.limit(), User::id);
+    }
+
+    @Override
+    @ReplicaRead
+    public Page<Map<String, Object>> getUsers(PageRequest pageRequest, List<String> fields) {
+        List<Map<String, Object>> users = userRepository.findPage(pageRequest.afterId(), pageRequest.limit() + 1,
+                fields);
+        return Page.of(users, pageRequest.limit(), Projection::id);
+    }
+
+    @Override
+    public void exportUsers(Consumer<User> consumer) {
+        userRepository.streamAll(consumer);
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#user.id")
     public void updateUser(User user) {
-        if (doesExist(user.id())) {
-            userValidator.validateExistingUser(user);
-            userRepository.update(user);
-        } else {
-            throw new UserNotFoundException(String.format("User with id %s does not exist", user.id()));
+        if (user.id() == null || userRepository.update(user) == 0) {
+            throw updateFailure(user.id(), user.version());
+        }
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
+    public void patchUser(int id, MergePatch patch, Integer version) {
+        User user = userRepository.findOne(id).orElseThrow(() ->
+                new UserNotFoundException(String.format("User with id %s does not exist", id)));
+        if (version != null && !version.equals(user.version())) {
+            throw versionConflict(id, version);
+        }
+        // email and phone number uniqueness is only checked by the unique constraints when they change
+        User patchedUser = patch.applyTo(user, UserRepository.PATCHABLE_ATTRIBUTES).withVersion(version);
+        if (userRepository.patch(user, patchedUser) == 0) {
+            throw updateFailure(id, version);
         }
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id"),
+            // owned apartments and applications are removed by ON DELETE CASCADE
+            @CacheEvict(cacheNames = CacheConfig.APARTMENTS_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.APPLICATIONS_CACHE, allEntries = true)
+    })
     public void deleteUser(int id) {
-        if (doesExist(id)) {
-            userValidator.validateUserDeletion(id);
-            userRepository.delete(id);
-        } else {
+        userValidator.validateUserDeletion(id);
+        if (userRepository.delete(id) == 0) {
             throw new UserNotFoundException(String.format("User with id %s does not exist", id));
         }
     }
 
+    /**
+     * @return the reason an update with the expected version changed no row
+     */
+    private RuntimeException updateFailure(Integer id, Integer version) {
+        if (id != null && version != null && userRepository.existsInDatabase(id)) {
+            return versionConflict(id, version);
+        }
+        return new UserNotFoundException(String.format("User with id %s does not exist", id));
+    }
+
+    private static VersionConflictException versionConflict(int id, int version) {
+        return new VersionConflictException(String.format(
+                "User with id %s has been updated since version %s", id, version
+        ));
+    }
+
     @Override
     public boolean doesExist(Integer id) {
         if (id == null) {
@@ -1,15 +1,23 @@
 package com.auger.apartments.users;
 
+import com.auger.apartments.batch.BatchItemResult;
 import com.auger.apartments.exceptions.DeleteUserException;
-import com.auger.apartments.exceptions.DuplicateDataException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
- * Provides methods to validate that a user meets database and business constraints before
- * executing database operations such as creating, updating, and deleting users.
+ * Provides methods to validate that a user meets business constraints before executing database
+ * operations such as deleting users. Email and phone number uniqueness is not checked here because
+ * the unique constraints on the users table enforce it when the row is written.
  */
 @Component
 public class UserValidator {
@@ -21,68 +29,42 @@ public class UserValidator {
         this.jdbcTemplate = jdbcTemplate;
     }
 
-    public void validateNewUser(User user) {
-        logger.info("Validating new user");
-        verifyUniqueEmailForNewUser(user.email());
-        verifyUniquePhoneNumberForNewUser(user.phoneNumber());
-        logger.info("Validation complete");
-    }
-
-    public void validateExistingUser(User user) {
-        logger.info("Validating existing user");
-        verifyUniqueEmailForExistingUser(user.id(), user.email());
-        verifyUniquePhoneNumberForExistingUser(user.id(), user.phoneNumber());
-        logger.info("Validation complete");
-    }
+    /**
+     * Checks a batch of new users for emails and phone numbers that are already taken, either by an
+     * existing user or by an earlier user in the same batch, using one query per unique column.
+     * Unlike a single create, the batch is checked up front so each user can be rejected individually.
+     *
+     * @return rejected users keyed by their index in the batch
+     */
+    public Map<Integer, BatchItemResult<User>> validateNewUsers(List<User> users) {
+        logger.info("Validating {} new users", users.size());
+        Set<String> takenEmails = findTaken("email", users.stream().map(User::email).toArray(String[]::new));
+        Set<String> takenPhoneNumbers = findTaken("phone_number",
+                users.stream().map(User::phoneNumber).toArray(String[]::new));
 
-    public void verifyUniqueEmailForNewUser(String email) {
-        String sql = """
-                SELECT COUNT(*)
-                FROM users
-                WHERE email = ?;
-                """;
-        int duplicateEmailCount = jdbcTemplate.queryForObject(sql, Integer.class, email);
-        if (duplicateEmailCount > 0) {
-            throw new DuplicateDataException("A user with that email already exists");
-        }
-    }
-
-    public void verifyUniqueEmailForExistingUser(int id, String email) {
-        String sql = """
-                SELECT COUNT(*)
-                FROM users
-                WHERE id != ?
-                AND email = ?;
-                """;
-        int duplicateEmailCount = jdbcTemplate.queryForObject(sql, Integer.class, id, email);
-        if (duplicateEmailCount > 0) {
-            throw new DuplicateDataException("A user with that email already exists");
-        }
-    }
-
-    public void verifyUniquePhoneNumberForNewUser(String phoneNumber) {
-        String sql = """
-                SELECT COUNT(*)
-                FROM users
-                WHERE phone_number = ?;
-                """;
-        int duplicatePhoneNumberCount = jdbcTemplate.queryForObject(sql, Integer.class, phoneNumber);
-        if (duplicatePhoneNumberCount > 0) {
-            throw new DuplicateDataException("A user with that phone number already exists");
+        Map<Integer, BatchItemResult<User>> rejections = new HashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (!takenEmails.add(user.email())) {
+                rejections.put(i, BatchItemResult.rejected(i, HttpStatus.CONFLICT,
+                        "A user with that email already exists"));
+            } else if (!takenPhoneNumbers.add(user.phoneNumber())) {
+                takenEmails.remove(user.email());
+                rejections.put(i, BatchItemResult.rejected(i, HttpStatus.CONFLICT,
+                        "A user with that phone number already exists"));
+            }
         }
+        logger.info("Validation complete");
+        return rejections;
     }
 
-    public void verifyUniquePhoneNumberForExistingUser(int id, String phoneNumber) {
-        String sql = """
-                SELECT COUNT(*)
+    private Set<String> findTaken(String column, String[] values) {
+        String sql = String.format("""
+                SELECT %1$s
                 FROM users
-                WHERE id != ?
-                AND phone_number = ?;
-                """;
-        int duplicatePhoneNumberCount = jdbcTemplate.queryForObject(sql, Integer.class, id, phoneNumber);
-        if (duplicatePhoneNumberCount > 0) {
-            throw new DuplicateDataException("A user with that phone number already exists");
-        }
+                WHERE %1$s = ANY(?);
+                """, column);
+        return new HashSet<>(jdbcTemplate.queryForList(sql, String.class, (Object) values));
     }
 
     public void validateUserDeletion(int id) {
@@ -9,7 +9,8 @@ CREATE TABLE users (
     email text NOT NULL UNIQUE,
     phone_number text NOT NULL UNIQUE,
     birth_date date NOT NULL,
-    date_joined date NOT NULL
+    date_joined date NOT NULL,
+    version integer NOT NULL DEFAULT 0
 );
 
 CREATE TABLE apartments (
@@ -25,7 +26,8 @@ CREATE TABLE apartments (
     date_listed date NOT NULL,
     available boolean NOT NULL,
     owner_id integer REFERENCES users ON DELETE CASCADE NOT NULL,
-    renter_id integer REFERENCES users UNIQUE
+    renter_id integer REFERENCES users UNIQUE,
+    version integer NOT NULL DEFAULT 0
 );
 
 CREATE TABLE applications (
@@ -34,5 +36,31 @@ CREATE TABLE applications (
     active boolean NOT NULL,
     successful boolean NOT NULL,
     user_id int REFERENCES users ON DELETE CASCADE NOT NULL,
-    apartment_id int REFERENCES apartments ON DELETE CASCADE NOT NULL
-);
\ No newline at end of file
+    apartment_id int REFERENCES apartments ON DELETE CASCADE NOT NULL,
+    version integer NOT NULL DEFAULT 0
+);
+
+-- Supports GET /apartments/search, which almost always filters on location and a rent range
+CREATE INDEX apartments_available_location_rent_idx ON apartments (state, city, monthly_rent) WHERE available;
+CREATE INDEX apartments_location_rent_idx ON apartments (state, city, monthly_rent);
+CREATE INDEX apartments_available_rent_idx ON apartments (monthly_rent) WHERE available;
+
+-- Supports GET /apartments/{id}/applications and GET /users/{id}/applications, which page through the applications
+-- of one apartment or user in id order, and lets ON DELETE CASCADE find the applications of a deleted row
+CREATE INDEX applications_apartment_id_idx ON applications (apartment_id, id);
+CREATE INDEX applications_user_id_idx ON applications (user_id, id);
+
+-- Reports every deleted row, including rows removed by ON DELETE CASCADE, to the existence indexes of all nodes
+CREATE OR REPLACE FUNCTION notify_row_deleted() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM pg_notify(''row_deleted'', TG_TABLE_NAME || '':'' || OLD.id);
+    RETURN OLD;
+END;
+';
+
+CREATE TRIGGER users_row_deleted AFTER DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION notify_row_deleted();
+CREATE TRIGGER apartments_row_deleted AFTER DELETE ON apartments
+    FOR EACH ROW EXECUTE FUNCTION notify_row_deleted();
+CREATE TRIGGER applications_row_deleted AFTER DELETE ON applications
+    FOR EACH ROW EXECUTE FUNCTION notify_row_deleted();
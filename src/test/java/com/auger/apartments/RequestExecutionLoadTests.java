@@ -0,0 +1,231 @@
+package com.auger.apartments;
+
+import com.auger.apartments.apartments.Apartment;
+import com.auger.apartments.users.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares request handling on platform threads with virtual threads under the same load.
+ * <p>
+ * The application is started twice against the test database, once in each mode, and a fixed number of
+ * concurrent clients send a mix of apartment searches, application submissions and cached user lookups
+ * for a fixed duration. Throughput and latency percentiles of each mode are logged.
+ * <p>
+ * Excluded from the default build. Run it with {@code ./mvnw test -Ploadtest}, optionally setting
+ * -Dloadtest.clients, -Dloadtest.seconds and -Dloadtest.warmupSeconds.
+ */
+@Tag("load")
+public class RequestExecutionLoadTests extends IntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestExecutionLoadTests.class);
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 1000);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.seconds", 20));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadtest.warmupSeconds", 5));
+    private static final int USERS = 200;
+
+    @Value("${spring.datasource.jdbc-url}")
+    private String jdbcUrl;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    private List<User> users;
+    private List<Apartment> apartments;
+
+    private record LoadResult(String mode, long requests, long unavailable, long failed, double throughput,
+                              long p50Micros, long p99Micros, long maxMicros) {}
+
+    @BeforeEach
+    public void addData() {
+        users = new ArrayList<>();
+        apartments = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userRepository.create(new User(null, "User", "Number " + i, "user" + i + "@gmail.com",
+                    String.format("%010d", i), LocalDate.of(1990, 1, 1), null)));
+        }
+        for (int i = 0; i < USERS; i++) {
+            apartments.add(apartmentRepository.create(new Apartment(null, "Apartment " + i, "For the load test",
+                    1 + i % 3, 1, "NY", "New York", 500 + i, 150000 + i * 100, null, true,
+                    users.get(i).id(), null)));
+        }
+    }
+
+    @AfterEach
+    public void clearTables() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "applications", "apartments", "users");
+    }
+
+    @Test
+    public void testComparePlatformAndVirtualThreads() throws Exception {
+        LoadResult platform = run(false);
+        LoadResult virtual = run(true);
+
+        logger.info(String.format("%n%-10s %10s %10s %8s %12s %10s %10s %10s", "mode", "requests", "503s",
+                "errors", "requests/s", "p50 ms", "p99 ms", "max ms"));
+        for (LoadResult result : List.of(platform, virtual)) {
+            logger.info(String.format("%-10s %10d %10d %8d %12.1f %10.1f %10.1f %10.1f", result.mode(),
+                    result.requests(), result.unavailable(), result.failed(), result.throughput(),
+                    result.p50Micros() / 1000.0, result.p99Micros() / 1000.0, result.maxMicros() / 1000.0));
+        }
+        assertThat(platform.requests()).isPositive();
+        assertThat(virtual.requests()).isPositive();
+        assertThat(platform.failed()).isZero();
+        assertThat(virtual.failed()).isZero();
+    }
+
+    private LoadResult run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ApartmentsApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.sql.init.mode=never",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.jdbc-url=" + jdbcUrl,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--logging.level.com.auger.apartments.users=warn",
+                        "--logging.level.com.auger.apartments.apartments=warn",
+                        "--logging.level.com.auger.apartments.applications=warn"
+                )) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI baseUri = URI.create("http://localhost:" + port);
+            drive(baseUri, WARMUP);
+            long[] latencies = drive(baseUri, DURATION);
+
+            long unavailable = latencies[latencies.length - 2];
+            long failed = latencies[latencies.length - 1];
+            long[] sorted = Arrays.copyOf(latencies, latencies.length - 2);
+            Arrays.sort(sorted);
+            return new LoadResult(mode, sorted.length, unavailable, failed,
+                    sorted.length / (double) DURATION.toSeconds(), percentile(sorted, 0.50),
+                    percentile(sorted, 0.99), sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        }
+    }
+
+    /**
+     * @return the latency of every completed request in microseconds, followed by the number of 503
+     * responses and the number of other failures
+     */
+    private long[] drive(URI baseUri, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(executor)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .build()) {
+            List<Future<long[]>> clients = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.add(executor.submit(() -> runClient(client, baseUri, deadline)));
+            }
+            List<Long> latencies = new ArrayList<>();
+            long unavailable = 0;
+            long failed = 0;
+            for (Future<long[]> future : clients) {
+                long[] clientResult = future.get();
+                for (int i = 0; i < clientResult.length - 2; i++) {
+                    latencies.add(clientResult[i]);
+                }
+                unavailable += clientResult[clientResult.length - 2];
+                failed += clientResult[clientResult.length - 1];
+            }
+            long[] result = new long[latencies.size() + 2];
+            for (int i = 0; i < latencies.size(); i++) {
+                result[i] = latencies.get(i);
+            }
+            result[result.length - 2] = unavailable;
+            result[result.length - 1] = failed;
+            return result;
+        }
+    }
+
+    private long[] runClient(HttpClient client, URI baseUri, long deadline) {
+        List<Long> latencies = new ArrayList<>();
+        long unavailable = 0;
+        long failed = 0;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = nextRequest(baseUri);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 503) {
+                    unavailable++;
+                } else if (response.statusCode() >= 400) {
+                    failed++;
+                } else {
+                    latencies.add((System.nanoTime() - start) / 1000);
+                }
+            } catch (Exception ex) {
+                failed++;
+            }
+        }
+        long[] result = new long[latencies.size() + 2];
+        for (int i = 0; i < latencies.size(); i++) {
+            result[i] = latencies.get(i);
+        }
+        result[result.length - 2] = unavailable;
+        result[result.length - 1] = failed;
+        return result;
+    }
+
+    /**
+     * 70% searches, 20% application submissions, which validate and insert with several round trips,
+     * and 10% user lookups, which are mostly served from the cache
+     */
+    private HttpRequest nextRequest(URI baseUri) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(10);
+        if (roll < 7) {
+            int minRent = 150000 + random.nextInt(USERS) * 100;
+            return HttpRequest.newBuilder(baseUri.resolve(
+                    "/apartments/search?state=NY&city=New%20York&minRent=" + minRent + "&limit=20")).GET().build();
+        } else if (roll < 9) {
+            User user = users.get(random.nextInt(users.size()));
+            Apartment apartment = apartments.get(random.nextInt(apartments.size()));
+            String body = String.format("{\"active\":true,\"successful\":false,\"userId\":%s,\"apartmentId\":%s}",
+                    user.id(), apartment.id());
+            return HttpRequest.newBuilder(baseUri.resolve("/applications"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        User user = users.get(random.nextInt(users.size()));
+        return HttpRequest.newBuilder(baseUri.resolve("/users/" + user.id())).GET().build();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,132 @@
+package com.auger.apartments.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdmissionControlFilterUnitTests {
+
+    private final AdmissionControl admissionControl = new AdmissionControl(2, Duration.ofMillis(100),
+            Duration.ofSeconds(1), Clock.systemUTC());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GradientLimit apartmentsLimit = new GradientLimit(1, 1, 10);
+    private final AdmissionControlFilter underTest = new AdmissionControlFilter(admissionControl,
+            Map.of("apartments", apartmentsLimit), Duration.ofSeconds(2), meterRegistry);
+
+    private static MockHttpServletRequest request(String method, String path, String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        return request;
+    }
+
+    @Test
+    public void testPriority() {
+        assertThat(Priority.of(request("GET", "/apartments/1", null))).isEqualTo(Priority.SINGLE_READ);
+        assertThat(Priority.of(request("GET", "/apartments/imports/3fa85f64-5717-4562-b3fc-2c963f66afa6", null)))
+                .isEqualTo(Priority.SINGLE_READ);
+        assertThat(Priority.of(request("GET", "/apartments", null))).isEqualTo(Priority.SCAN);
+        assertThat(Priority.of(request("GET", "/apartments/search", null))).isEqualTo(Priority.SCAN);
+        assertThat(Priority.of(request("GET", "/users/1/applications", null))).isEqualTo(Priority.SCAN);
+        assertThat(Priority.of(request("GET", "/apartments", "text/csv"))).isEqualTo(Priority.BULK);
+        assertThat(Priority.of(request("GET", "/users", "application/x-ndjson"))).isEqualTo(Priority.BULK);
+        assertThat(Priority.of(request("POST", "/apartments", null))).isEqualTo(Priority.WRITE);
+        assertThat(Priority.of(request("PATCH", "/users/1", null))).isEqualTo(Priority.WRITE);
+        assertThat(Priority.of(request("DELETE", "/applications/1", null))).isEqualTo(Priority.WRITE);
+        assertThat(Priority.of(request("POST", "/users/batch", null))).isEqualTo(Priority.BULK);
+        assertThat(Priority.of(request("POST", "/apartments/imports", null))).isEqualTo(Priority.BULK);
+    }
+
+    @Test
+    public void testGroup() {
+        assertThat(AdmissionControlFilter.group(request("GET", "/apartments/1/applications", null)))
+                .isEqualTo("apartments");
+        assertThat(AdmissionControlFilter.group(request("GET", "/users", null))).isEqualTo("users");
+        assertThat(AdmissionControlFilter.group(request("GET", "/", null))).isEqualTo("");
+    }
+
+    @Test
+    public void testAdmittedRequestIsReleased() throws Exception {
+        AtomicBoolean handled = new AtomicBoolean();
+        FilterChain chain = (req, res) -> {
+            assertThat(admissionControl.inFlight()).isEqualTo(1);
+            assertThat(apartmentsLimit.inFlight()).isEqualTo(1);
+            handled.set(true);
+        };
+
+        underTest.doFilter(request("GET", "/apartments", null), new MockHttpServletResponse(), chain);
+
+        assertThat(handled.get()).isTrue();
+        assertThat(admissionControl.inFlight()).isZero();
+        assertThat(apartmentsLimit.inFlight()).isZero();
+    }
+
+    @Test
+    public void testRejectedAboveConcurrencyLimit() throws Exception {
+        assertThat(apartmentsLimit.tryAcquire()).isTrue();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicBoolean handled = new AtomicBoolean();
+
+        underTest.doFilter(request("GET", "/apartments/1", null), response, (req, res) -> handled.set(true));
+
+        assertThat(handled.get()).isFalse();
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(meterRegistry.counter(AdmissionControlFilter.CONCURRENCY_REJECTED_METRIC, "group", "apartments")
+                .count()).isEqualTo(1.0);
+        assertThat(admissionControl.inFlight()).isZero();
+
+        // other groups, and bulk operations, are not limited by the apartments group
+        underTest.doFilter(request("GET", "/users/1", null), new MockHttpServletResponse(),
+                (req, res) -> handled.set(true));
+
+        assertThat(handled.get()).isTrue();
+        handled.set(false);
+
+        underTest.doFilter(request("POST", "/apartments/batch", null), new MockHttpServletResponse(),
+                (req, res) -> handled.set(true));
+
+        assertThat(handled.get()).isTrue();
+    }
+
+    @Test
+    public void testRejectedRequest() throws Exception {
+        // one request in flight is half the limit, which leaves no room for bulk operations
+        assertThat(admissionControl.tryAdmit(Priority.SINGLE_READ)).isTrue();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicBoolean handled = new AtomicBoolean();
+
+        underTest.doFilter(request("GET", "/apartments", "text/csv"), response, (req, res) -> handled.set(true));
+
+        assertThat(handled.get()).isFalse();
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getContentAsString()).isEqualTo("The service is busy, please try again later");
+        assertThat(meterRegistry.counter(AdmissionControlFilter.REJECTED_METRIC, "priority", "bulk").count())
+                .isEqualTo(1.0);
+        assertThat(admissionControl.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void testActuatorIsNeverRejected() throws Exception {
+        assertThat(admissionControl.tryAdmit(Priority.SINGLE_READ)).isTrue();
+        assertThat(admissionControl.tryAdmit(Priority.SINGLE_READ)).isTrue();
+        AtomicBoolean handled = new AtomicBoolean();
+
+        underTest.doFilter(request("GET", "/actuator/health", null), new MockHttpServletResponse(),
+                (req, res) -> handled.set(true));
+
+        assertThat(handled.get()).isTrue();
+    }
+}
@@ -0,0 +1,87 @@
+package com.auger.apartments.admission;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AdmissionControlUnitTests {
+
+    private static final long NOW = 1_760_000_000_000L;
+    private static final long MILLIS = 1_000_000L;
+
+    private final Clock clock = mock(Clock.class);
+
+    private AdmissionControl underTest;
+
+    @BeforeEach
+    public void setUp() {
+        when(clock.millis()).thenReturn(NOW);
+        underTest = new AdmissionControl(20, Duration.ofMillis(100), Duration.ofSeconds(1), clock);
+    }
+
+    @Test
+    public void testLowerPrioritiesAreShedFirstAsRequestsPileUp() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(underTest.tryAdmit(Priority.BULK)).isTrue();
+        }
+        assertThat(underTest.tryAdmit(Priority.BULK)).isFalse();
+        for (int i = 0; i < 5; i++) {
+            assertThat(underTest.tryAdmit(Priority.SCAN)).isTrue();
+        }
+        assertThat(underTest.tryAdmit(Priority.SCAN)).isFalse();
+        for (int i = 0; i < 3; i++) {
+            assertThat(underTest.tryAdmit(Priority.WRITE)).isTrue();
+        }
+        assertThat(underTest.tryAdmit(Priority.WRITE)).isFalse();
+        assertThat(underTest.tryAdmit(Priority.SINGLE_READ)).isTrue();
+        assertThat(underTest.tryAdmit(Priority.SINGLE_READ)).isTrue();
+        assertThat(underTest.tryAdmit(Priority.SINGLE_READ)).isFalse();
+        assertThat(underTest.inFlight()).isEqualTo(20);
+
+        underTest.release();
+
+        assertThat(underTest.inFlight()).isEqualTo(19);
+        assertThat(underTest.tryAdmit(Priority.SINGLE_READ)).isTrue();
+    }
+
+    @Test
+    public void testSlowConnectionsShedLoad() {
+        underTest.recordConnectionWait(60 * MILLIS);
+        underTest.recordConnectionWait(100 * MILLIS);
+
+        assertThat(underTest.recentWaitNanos()).isEqualTo(80 * MILLIS);
+        assertThat(underTest.tryAdmit(Priority.BULK)).isFalse();
+        assertThat(underTest.tryAdmit(Priority.SCAN)).isFalse();
+        assertThat(underTest.tryAdmit(Priority.WRITE)).isTrue();
+        assertThat(underTest.tryAdmit(Priority.SINGLE_READ)).isTrue();
+
+        underTest.recordConnectionWait(200 * MILLIS);
+
+        assertThat(underTest.tryAdmit(Priority.SINGLE_READ)).isFalse();
+    }
+
+    @Test
+    public void testConnectionWaitIsAveragedOverTheLastWindow() {
+        underTest.recordConnectionWait(200 * MILLIS);
+        when(clock.millis()).thenReturn(NOW + 1_000);
+        underTest.recordConnectionWait(10 * MILLIS);
+
+        // the previous window is higher than the current one
+        assertThat(underTest.recentWaitNanos()).isEqualTo(200 * MILLIS);
+
+        when(clock.millis()).thenReturn(NOW + 2_000);
+
+        assertThat(underTest.recentWaitNanos()).isEqualTo(10 * MILLIS);
+
+        when(clock.millis()).thenReturn(NOW + 4_000);
+
+        assertThat(underTest.recentWaitNanos()).isZero();
+        assertThat(underTest.tryAdmit(Priority.BULK)).isTrue();
+    }
+}
@@ -0,0 +1,120 @@
+package com.auger.apartments.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GradientLimitUnitTests {
+
+    private static final long MILLIS = 1_000_000L;
+
+    /**
+     * Fills the limit with requests, then completes them all with the same latency
+     */
+    private static void runAtLimit(GradientLimit underTest, long rttMillis) {
+        int acquired = 0;
+        while (underTest.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            underTest.release(rttMillis * MILLIS, false);
+        }
+    }
+
+    @Test
+    public void testRejectsAtLimit() {
+        GradientLimit underTest = new GradientLimit(2, 1, 10);
+
+        assertThat(underTest.tryAcquire()).isTrue();
+        assertThat(underTest.tryAcquire()).isTrue();
+        assertThat(underTest.tryAcquire()).isFalse();
+        assertThat(underTest.inFlight()).isEqualTo(2);
+
+        underTest.release(10 * MILLIS, false);
+
+        assertThat(underTest.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void testGrowsWhileLatencyIsSteady() {
+        GradientLimit underTest = new GradientLimit(10, 1, 100);
+
+        for (int i = 0; i < 10; i++) {
+            runAtLimit(underTest, 10);
+        }
+
+        assertThat(underTest.limit()).isGreaterThan(20);
+        assertThat(underTest.inFlight()).isZero();
+    }
+
+    @Test
+    public void testShrinksOnceLatencyRises() {
+        GradientLimit underTest = new GradientLimit(10, 1, 100);
+        for (int i = 0; i < 10; i++) {
+            runAtLimit(underTest, 10);
+        }
+        int discovered = underTest.limit();
+
+        for (int i = 0; i < 3; i++) {
+            runAtLimit(underTest, 40);
+        }
+
+        assertThat(underTest.limit()).isLessThan(discovered / 2);
+    }
+
+    @Test
+    public void testDoesNotGrowWhileMostlyIdle() {
+        GradientLimit underTest = new GradientLimit(10, 1, 100);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(underTest.tryAcquire()).isTrue();
+            underTest.release(10 * MILLIS, false);
+        }
+
+        assertThat(underTest.limit()).isEqualTo(10);
+    }
+
+    @Test
+    public void testShrinksWhileMostlyIdle() {
+        GradientLimit underTest = new GradientLimit(10, 1, 100);
+        for (int i = 0; i < 10; i++) {
+            underTest.tryAcquire();
+            underTest.release(10 * MILLIS, false);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(underTest.tryAcquire()).isTrue();
+            underTest.release(40 * MILLIS, false);
+        }
+
+        assertThat(underTest.limit()).isLessThan(5);
+    }
+
+    @Test
+    public void testDroppedRequestsCutLimitDownToMinimum() {
+        GradientLimit underTest = new GradientLimit(10, 4, 100);
+
+        underTest.tryAcquire();
+        underTest.release(10 * MILLIS, true);
+
+        assertThat(underTest.limit()).isEqualTo(9);
+
+        for (int i = 0; i < 20; i++) {
+            underTest.tryAcquire();
+            underTest.release(10 * MILLIS, true);
+        }
+
+        assertThat(underTest.limit()).isEqualTo(4);
+    }
+
+    @Test
+    public void testNeverExceedsMaximum() {
+        GradientLimit underTest = new GradientLimit(10, 1, 15);
+
+        for (int i = 0; i < 20; i++) {
+            runAtLimit(underTest, 10);
+        }
+
+        assertThat(underTest.limit()).isEqualTo(15);
+    }
+}
@@ -2,14 +2,21 @@ package com.auger.apartments.apartments;
 
 import com.auger.apartments.ControllerIntegrationTest;
 import com.auger.apartments.applications.Application;
+import com.auger.apartments.batch.BatchLookup;
+import com.auger.apartments.etags.ETags;
 import com.auger.apartments.users.User;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.patch.MergePatch;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.jdbc.JdbcTestUtils;
 
@@ -146,20 +153,20 @@ public class ApartmentControllerIntegrationTests extends ControllerIntegrationTe
     }
 
     @Test
-    public void testGetAllApartments() {
+    public void testGetApartments() {
         Map<Integer, Apartment> apartmentMap = new HashMap<>();
         apartmentMap.put(apartment1.id(), apartment1);
         apartmentMap.put(apartment2.id(), apartment2);
         apartmentMap.put(apartment3.id(), apartment3);
 
-        ResponseEntity<List<Apartment>> getAllResponse = testRestTemplate
+        ResponseEntity<Page<Apartment>> getAllResponse = testRestTemplate
                 .exchange("/apartments", HttpMethod.GET, null,
-                        new ParameterizedTypeReference<List<Apartment>>() {});
+                        new ParameterizedTypeReference<Page<Apartment>>() {});
 
         assertThat(getAllResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(getAllResponse.getBody().size()).isEqualTo(apartmentMap.size());
+        assertThat(getAllResponse.getBody().items().size()).isEqualTo(apartmentMap.size());
 
-        for (Apartment apt : getAllResponse.getBody()) {
+        for (Apartment apt : getAllResponse.getBody().items()) {
             Apartment createdApartment = apartmentMap.get(apt.id());
             assertApartmentsAreEqual(apt, createdApartment);
             apartmentMap.remove(apt.id());
@@ -167,6 +174,79 @@ public class ApartmentControllerIntegrationTests extends ControllerIntegrationTe
         assertThat(apartmentMap.size()).isZero();
     }
 
+    @Test
+    public void testGetApartmentsById() {
+        int missingApartmentId = apartment3.id() + 1;
+
+        ResponseEntity<BatchLookup<Apartment>> getResponse = testRestTemplate
+                .exchange("/apartments?ids={ids}", HttpMethod.GET, null,
+                        new ParameterizedTypeReference<BatchLookup<Apartment>>() {},
+                        String.format("%s,%s,%s", apartment3.id(), missingApartmentId, apartment1.id()));
+
+        assertThat(getResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(getResponse.getBody().items().size()).isEqualTo(2);
+        assertApartmentsAreEqual(getResponse.getBody().items().get(0), apartment3);
+        assertApartmentsAreEqual(getResponse.getBody().items().get(1), apartment1);
+        assertThat(getResponse.getBody().missingIds()).isEqualTo(List.of(missingApartmentId));
+    }
+
+    @Test
+    public void testSearchApartmentsFields() {
+        ResponseEntity<Page<Map<String, Object>>> searchResponse = testRestTemplate
+                .exchange("/apartments/search?state=HI&fields=title,city,monthlyRent,version", HttpMethod.GET, null,
+                        new ParameterizedTypeReference<Page<Map<String, Object>>>() {});
+
+        assertThat(searchResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(searchResponse.getHeaders().getETag()).isNotNull();
+        assertThat(searchResponse.getBody().items().size()).isEqualTo(1);
+        assertThat(searchResponse.getBody().items().get(0)).isEqualTo(Map.of("id", apartment3.id(),
+                "title", apartment3.title(), "city", apartment3.city(), "monthlyRent", apartment3.monthlyRent(),
+                "version", apartment3.version()));
+    }
+
+    @Test
+    public void testGetApartmentFields() {
+        ResponseEntity<Map<String, Object>> getResponse = testRestTemplate
+                .exchange("/apartments/{id}?fields=title,version", HttpMethod.GET, null,
+                        new ParameterizedTypeReference<Map<String, Object>>() {}, apartment1.id());
+
+        assertThat(getResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(getResponse.getBody()).isEqualTo(Map.of("id", apartment1.id(), "title", apartment1.title(),
+                "version", apartment1.version()));
+
+        ResponseEntity<String> unknownFieldResponse = testRestTemplate
+                .getForEntity("/apartments?fields=title,ownerEmail", String.class);
+
+        assertThat(unknownFieldResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(unknownFieldResponse.getBody()).startsWith("Unable to select field ownerEmail");
+    }
+
+    @Test
+    public void testExportApartmentsCsv() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.parseMediaType("text/csv")));
+
+        ResponseEntity<String> exportResponse = testRestTemplate.exchange(
+                "/apartments?state=HI&columns=id,title", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertThat(exportResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exportResponse.getHeaders().getContentType().isCompatibleWith(MediaType.parseMediaType("text/csv")))
+                .isTrue();
+        assertThat(exportResponse.getBody()).isEqualTo(String.format("id,title\n%s,Beach Stay\n", apartment3.id()));
+    }
+
+    @Test
+    public void testExportApartmentsCsvUnknownColumn() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.parseMediaType("text/csv"), MediaType.TEXT_PLAIN));
+
+        ResponseEntity<String> exportResponse = testRestTemplate.exchange(
+                "/apartments?columns=id,ownerEmail", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertThat(exportResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(exportResponse.getBody()).startsWith("Unable to export column ownerEmail");
+    }
+
     @Test
     public void testUpdateApartment() {
         Apartment updatedApartment = new Apartment(apartment1.id(), "Condo #4",
@@ -190,6 +270,75 @@ public class ApartmentControllerIntegrationTests extends ControllerIntegrationTe
         assertApartmentsAreEqual(expectedApartment, retrievedApartment);
     }
 
+    @Test
+    public void testConditionalGetApartment() {
+        ResponseEntity<Apartment> response = testRestTemplate
+                .getForEntity("/apartments/{id}", Apartment.class, apartment1.id());
+        String eTag = response.getHeaders().getETag();
+        assertThat(eTag).isNotNull();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<String> notModifiedResponse = testRestTemplate.exchange("/apartments/{id}", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class, apartment1.id());
+        assertThat(notModifiedResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModifiedResponse.getBody()).isNull();
+
+        Apartment updatedApartment = new Apartment(apartment1.id(), apartment1.title(), apartment1.description(),
+                apartment1.numberOfBedrooms(), apartment1.numberOfBathrooms(), apartment1.state(), apartment1.city(),
+                apartment1.squareFeet(), apartment1.monthlyRent(), null, false, apartment1.ownerId(),
+                apartment1.renterId());
+        testRestTemplate.exchange("/apartments", HttpMethod.PUT, new HttpEntity<>(updatedApartment), Void.class);
+
+        ResponseEntity<Apartment> modifiedResponse = testRestTemplate.exchange("/apartments/{id}", HttpMethod.GET,
+                new HttpEntity<>(headers), Apartment.class, apartment1.id());
+        assertThat(modifiedResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(modifiedResponse.getHeaders().getETag()).isNotEqualTo(eTag);
+        assertThat(modifiedResponse.getBody().available()).isFalse();
+    }
+
+    @Test
+    public void testUpdateApartmentIfMatch() {
+        ResponseEntity<Apartment> response = testRestTemplate
+                .getForEntity("/apartments/{id}", Apartment.class, apartment1.id());
+        String eTag = response.getHeaders().getETag();
+        assertThat(eTag).isEqualTo(ETags.ofVersion(response.getBody().version()));
+
+        Apartment updatedApartment = new Apartment(apartment1.id(), apartment1.title(), apartment1.description(),
+                apartment1.numberOfBedrooms(), apartment1.numberOfBathrooms(), apartment1.state(), apartment1.city(),
+                apartment1.squareFeet(), apartment1.monthlyRent(), null, false, apartment1.ownerId(),
+                apartment1.renterId());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(eTag);
+        ResponseEntity<Void> updateResponse = testRestTemplate.exchange("/apartments", HttpMethod.PUT,
+                new HttpEntity<>(updatedApartment, headers), Void.class);
+        assertThat(updateResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        // the first update moved the apartment to a new version, so the same If-Match now fails
+        ResponseEntity<String> conflictResponse = testRestTemplate.exchange("/apartments", HttpMethod.PUT,
+                new HttpEntity<>(updatedApartment, headers), String.class);
+        assertThat(conflictResponse.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(conflictResponse.getBody()).isEqualTo(String.format(
+                "Apartment with id %s has been updated since version %s", apartment1.id(),
+                response.getBody().version()));
+
+        Apartment apartment = testRestTemplate.getForObject("/apartments/{id}", Apartment.class, apartment1.id());
+        assertThat(apartment.available()).isFalse();
+        assertThat(apartment.version()).isEqualTo(response.getBody().version() + 1);
+    }
+
+    @Test
+    public void testPatchApartmentInvalidAttribute() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf(MergePatch.MEDIA_TYPE));
+        HttpEntity<String> requestEntity = new HttpEntity<>("{\"squareFeet\": 0}", headers);
+        ResponseEntity<String> patchResponse = testRestTemplate
+                .exchange("/apartments/{id}", HttpMethod.PATCH, requestEntity, String.class, apartment1.id());
+
+        assertThat(patchResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(patchResponse.getBody()).isEqualTo("Square footage must be greater than zero");
+    }
+
     @Test
     public void testUpdateApartmentInvalidId() {
         Apartment apartment = new Apartment(0, "Main Street Condo",
@@ -311,6 +460,56 @@ public class ApartmentControllerIntegrationTests extends ControllerIntegrationTe
                         "Unable to delete apartment with id %s because it is occupied", apartment1.id()));
     }
 
+    @Test
+    public void testGetApartmentApplicationsWithUsers() {
+        Application application1 = testRestTemplate.postForEntity("/applications",
+                new Application(null, null, true, false, user2.id(), apartment3.id()), Application.class).getBody();
+        Application application2 = testRestTemplate.postForEntity("/applications",
+                new Application(null, null, true, false, user3.id(), apartment3.id()), Application.class).getBody();
+        testRestTemplate.postForEntity("/applications",
+                new Application(null, null, true, false, user3.id(), apartment2.id()), Application.class);
+
+        ResponseEntity<JsonNode> firstPage = testRestTemplate.getForEntity(
+                "/apartments/{id}/applications?embed=user&limit=1", JsonNode.class, apartment3.id());
+
+        assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode items = firstPage.getBody().get("items");
+        assertThat(items.size()).isEqualTo(1);
+        assertThat(items.get(0).get("id").asInt()).isEqualTo(application1.id());
+        assertThat(items.get(0).get("apartmentId").asInt()).isEqualTo(apartment3.id());
+        assertThat(items.get(0).get("user").get("id").asInt()).isEqualTo(user2.id());
+        assertThat(items.get(0).get("user").get("email").asText()).isEqualTo(user2.email());
+
+        ResponseEntity<JsonNode> secondPage = testRestTemplate.getForEntity(
+                "/apartments/{id}/applications?embed=user&limit=1&after={after}", JsonNode.class, apartment3.id(),
+                firstPage.getBody().get("nextCursor").asText());
+
+        items = secondPage.getBody().get("items");
+        assertThat(items.size()).isEqualTo(1);
+        assertThat(items.get(0).get("id").asInt()).isEqualTo(application2.id());
+        assertThat(items.get(0).get("user").get("id").asInt()).isEqualTo(user3.id());
+        assertThat(secondPage.getBody().get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    public void testGetApartmentApplicationsInvalid() {
+        int invalidApartmentId = apartment3.id() + 1;
+
+        ResponseEntity<String> missingApartmentResponse = testRestTemplate.getForEntity(
+                "/apartments/{id}/applications?embed=user", String.class, invalidApartmentId);
+
+        assertThat(missingApartmentResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(missingApartmentResponse.getBody())
+                .isEqualTo(String.format("Apartment with id %s does not exist", invalidApartmentId));
+
+        ResponseEntity<String> unknownEmbedResponse = testRestTemplate.getForEntity(
+                "/apartments/{id}/applications?embed=owner", String.class, apartment1.id());
+
+        assertThat(unknownEmbedResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(unknownEmbedResponse.getBody())
+                .isEqualTo("Unable to embed owner. The applications of an apartment can embed user");
+    }
+
     @Test
     public void testDeleteApartmentWithApplications() {
         Application app1 = new Application(null, null, true, false,
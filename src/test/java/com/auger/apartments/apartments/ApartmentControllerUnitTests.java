@@ -1,27 +1,46 @@
 package com.auger.apartments.apartments;
 
+import com.auger.apartments.applications.ApplicationService;
 import com.auger.apartments.exceptions.ApartmentNotFoundException;
 import com.auger.apartments.exceptions.DeleteApartmentException;
 import com.auger.apartments.exceptions.DuplicateDataException;
 import com.auger.apartments.exceptions.UserNotFoundException;
+import com.auger.apartments.exceptions.VersionConflictException;
+import com.auger.apartments.imports.ImportFormat;
+import com.auger.apartments.imports.ImportRejection;
+import com.auger.apartments.imports.ImportReport;
+import com.auger.apartments.imports.ImportState;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.auger.apartments.patch.MergePatch;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 import static com.auger.apartments.TestUtils.assertApartmentsAreEqual;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ApartmentController.class)
@@ -36,6 +55,9 @@ public class ApartmentControllerUnitTests {
     @MockitoBean
     ApartmentService apartmentService;
 
+    @MockitoBean
+    ApplicationService applicationService;
+
     @Test
     public void testCreateApartment() throws Exception {
         Apartment apartment = new Apartment(1, "Main Street Condo",
@@ -129,6 +151,49 @@ public class ApartmentControllerUnitTests {
         verify(apartmentService, times(1)).createApartment(apartment);
     }
 
+    @Test
+    public void testImportApartmentsFromCsv() throws Exception {
+        ImportReport report = new ImportReport(UUID.randomUUID(), "apartments", ImportFormat.CSV,
+                ImportState.COMPLETED, 2, 1, 1, List.of(new ImportRejection(2, "User with id 0 does not exist")),
+                null, Instant.now(), Instant.now());
+
+        when(apartmentService.importApartments(any(InputStream.class), eq(ImportFormat.CSV))).thenReturn(report);
+
+        mockMvc.perform(post("/apartments/imports")
+                .content("title,ownerId\n")
+                .contentType("text/csv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsImported").value(1))
+                .andExpect(jsonPath("$.rejections[0].row").value(2))
+                .andExpect(jsonPath("$.rejections[0].error").value("User with id 0 does not exist"));
+
+        verify(apartmentService, times(1)).importApartments(any(InputStream.class), eq(ImportFormat.CSV));
+    }
+
+    @Test
+    public void testImportApartmentsFromNdjson() throws Exception {
+        ImportReport report = new ImportReport(UUID.randomUUID(), "apartments", ImportFormat.NDJSON,
+                ImportState.COMPLETED, 1, 1, 0, List.of(), null, Instant.now(), Instant.now());
+
+        when(apartmentService.importApartments(any(InputStream.class), eq(ImportFormat.NDJSON))).thenReturn(report);
+
+        mockMvc.perform(post("/apartments/imports")
+                .content("{}\n")
+                .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.format").value("NDJSON"));
+    }
+
+    @Test
+    public void testGetApartmentImportInvalidId() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(apartmentService.getApartmentImport(id)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/apartments/imports/{id}", id))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(String.format("Import with id %s does not exist", id)));
+    }
+
     @Test
     public void testGetApartment() throws Exception {
         Apartment apartment = new Apartment(1, "Main Street Condo",
@@ -149,6 +214,28 @@ public class ApartmentControllerUnitTests {
         verify(apartmentService, times(1)).getApartment(apartment.id());
     }
 
+    @Test
+    public void testGetApartmentNotModified() throws Exception {
+        Apartment apartment = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, 2).withVersion(3);
+
+        when(apartmentService.getApartment(apartment.id())).thenReturn(Optional.of(apartment));
+
+        String eTag = mockMvc.perform(get("/apartments/{id}", apartment.id()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/apartments/{id}", apartment.id()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+    }
+
     @Test
     public void testGetApartmentInvalidId() throws Exception {
         int apartmentId = 1;
@@ -163,7 +250,7 @@ public class ApartmentControllerUnitTests {
     }
 
     @Test
-    public void testGetAllApartments() throws Exception {
+    public void testGetApartments() throws Exception {
         Apartment apartment1 = new Apartment(null, "Main Street Condo",
                 "A spacious condo with brand new appliances and great views!", 2,
                 1, "NY", "New York", 800, 608900,
@@ -178,37 +265,187 @@ public class ApartmentControllerUnitTests {
                 null, true, 3, null);
 
         List<Apartment> apartmentList = List.of(apartment1, apartment2, apartment3);
-        when(apartmentService.getAllApartments()).thenReturn(apartmentList);
+        when(apartmentService.getApartments(new PageRequest(0, 50))).thenReturn(new Page<>(apartmentList, null));
 
         MvcResult result = mockMvc.perform(get("/apartments"))
                 .andExpect(status().isOk())
                 .andReturn();
 
         String responseString = result.getResponse().getContentAsString();
-        CollectionType collectionType = objectMapper.getTypeFactory()
-                .constructCollectionType(List.class, Apartment.class);
-        List<Apartment> allApartments = objectMapper.readValue(responseString, collectionType);
+        JavaType pageType = objectMapper.getTypeFactory()
+                .constructParametricType(Page.class, Apartment.class);
+        Page<Apartment> allApartments = objectMapper.readValue(responseString, pageType);
 
-        assertThat(allApartments).isEqualTo(apartmentList);
-        verify(apartmentService, times(1)).getAllApartments();
+        assertThat(allApartments.items()).isEqualTo(apartmentList);
+        assertThat(allApartments.nextCursor()).isNull();
+        verify(apartmentService, times(1)).getApartments(new PageRequest(0, 50));
     }
 
     @Test
-    public void testGetAllApartmentsEmptyResponse() throws Exception {
+    public void testGetApartmentsEmptyResponse() throws Exception {
         List<Apartment> emptyList = List.of();
-        when(apartmentService.getAllApartments()).thenReturn(emptyList);
+        when(apartmentService.getApartments(new PageRequest(0, 50))).thenReturn(new Page<>(emptyList, null));
 
         MvcResult result = mockMvc.perform(get("/apartments"))
                 .andExpect(status().isOk())
                 .andReturn();
 
         String responseString = result.getResponse().getContentAsString();
-        CollectionType collectionType = objectMapper.getTypeFactory()
-                .constructCollectionType(List.class, Apartment.class);
-        List<Apartment> emptyListResponse = objectMapper.readValue(responseString, collectionType);
+        JavaType pageType = objectMapper.getTypeFactory()
+                .constructParametricType(Page.class, Apartment.class);
+        Page<Apartment> emptyListResponse = objectMapper.readValue(responseString, pageType);
+
+        assertThat(emptyListResponse.items()).isEqualTo(emptyList);
+        assertThat(emptyListResponse.nextCursor()).isNull();
+        verify(apartmentService, times(1)).getApartments(new PageRequest(0, 50));
+    }
+
+    @Test
+    public void testExportApartments() throws Exception {
+        Apartment apartment1 = new Apartment(null, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null);
+        Apartment apartment2 = new Apartment(null, "Comfy Studio",
+                "Studio space in downtown Manhattan. Great location", 0,
+                1, "NY", "New York", 400, 280000,
+                null, true, 2, null);
+        Apartment apartment3 = new Apartment(null, "Beach Stay",
+                "Secluded home, perfect for a quiet and relaxing getaway.", 2,
+                2, "HI", "Honolulu", 400, 280000,
+                null, true, 3, null);
+
+        doAnswer(invocation -> {
+            Consumer<Apartment> consumer = invocation.getArgument(0);
+            consumer.accept(apartment1);
+            consumer.accept(apartment2);
+            consumer.accept(apartment3);
+            return null;
+        }).when(apartmentService).exportApartments(any());
+
+        MvcResult result = mockMvc.perform(get("/apartments").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String expectedResponse = objectMapper.writeValueAsString(apartment1) + "\n"
+                + objectMapper.writeValueAsString(apartment2) + "\n"
+                + objectMapper.writeValueAsString(apartment3) + "\n";
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(expectedResponse));
+        verify(apartmentService, times(1)).exportApartments(any());
+    }
+
+    @Test
+    public void testExportApartmentsCsv() throws Exception {
+        ApartmentExportCriteria criteria = new ApartmentExportCriteria("NY", null, true,
+                LocalDate.of(2025, 1, 1), null);
+        when(apartmentService.exportApartmentsCsv(criteria, List.of("id", "title"))).thenReturn(outputStream ->
+                outputStream.write("id,title\n1,Main Street Condo\n".getBytes(StandardCharsets.UTF_8)));
+
+        MvcResult result = mockMvc.perform(get("/apartments")
+                        .param("state", "NY")
+                        .param("available", "true")
+                        .param("listedFrom", "2025-01-01")
+                        .param("columns", "id,title")
+                        .accept("text/csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("id,title\n1,Main Street Condo\n"));
+        verify(apartmentService, times(1)).exportApartmentsCsv(criteria, List.of("id", "title"));
+    }
+
+    @Test
+    public void testGetApartmentsWithCursor() throws Exception {
+        Apartment apartment1 = new Apartment(3, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null);
+        Apartment apartment2 = new Apartment(4, "Comfy Studio",
+                "Studio space in downtown Manhattan. Great location", 0,
+                1, "NY", "New York", 400, 280000,
+                null, true, 2, null);
+        Apartment apartment3 = new Apartment(5, "Beach Stay",
+                "Secluded home, perfect for a quiet and relaxing getaway.", 2,
+                2, "HI", "Honolulu", 400, 280000,
+                null, true, 3, null);
+
+        Page<Apartment> firstPage = Page.of(List.of(apartment1, apartment2, apartment3), 2, Apartment::id);
+        PageRequest secondPageRequest = PageRequest.of(firstPage.nextCursor(), 2);
+        when(apartmentService.getApartments(secondPageRequest)).thenReturn(new Page<>(List.of(apartment3), null));
+
+        MvcResult result = mockMvc.perform(get("/apartments")
+                        .param("limit", "2")
+                        .param("after", firstPage.nextCursor()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String responseString = result.getResponse().getContentAsString();
+        JavaType pageType = objectMapper.getTypeFactory()
+                .constructParametricType(Page.class, Apartment.class);
+        Page<Apartment> secondPage = objectMapper.readValue(responseString, pageType);
+
+        assertThat(secondPageRequest.afterId()).isEqualTo(apartment2.id());
+        assertThat(secondPage.items()).isEqualTo(List.of(apartment3));
+        assertThat(secondPage.nextCursor()).isNull();
+        verify(apartmentService, times(1)).getApartments(secondPageRequest);
+    }
+
+    @Test
+    public void testGetApartmentsInvalidLimit() throws Exception {
+        mockMvc.perform(get("/apartments").param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(String.format("Limit must be between 1 and %s", PageRequest.MAX_LIMIT)));
+
+        verifyNoInteractions(apartmentService);
+    }
+
+    @Test
+    public void testGetApartmentsInvalidCursor() throws Exception {
+        mockMvc.perform(get("/apartments").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid cursor"));
+
+        verifyNoInteractions(apartmentService);
+    }
+
+    @Test
+    public void testSearchApartments() throws Exception {
+        Apartment apartment = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null);
+        ApartmentSearchCriteria criteria = new ApartmentSearchCriteria("NY", "New York", 500000, 700000,
+                2, null, null, true);
+
+        when(apartmentService.searchApartments(criteria, new PageRequest(0, 10)))
+                .thenReturn(new Page<>(List.of(apartment), null));
+
+        MvcResult result = mockMvc.perform(get("/apartments/search")
+                        .param("state", "NY")
+                        .param("city", "New York")
+                        .param("minRent", "500000")
+                        .param("maxRent", "700000")
+                        .param("minBedrooms", "2")
+                        .param("available", "true")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String responseString = result.getResponse().getContentAsString();
+        JavaType pageType = objectMapper.getTypeFactory()
+                .constructParametricType(Page.class, Apartment.class);
+        Page<Apartment> apartments = objectMapper.readValue(responseString, pageType);
 
-        assertThat(emptyListResponse).isEqualTo(emptyList);
-        verify(apartmentService, times(1)).getAllApartments();
+        assertThat(apartments.items()).isEqualTo(List.of(apartment));
+        assertThat(apartments.nextCursor()).isNull();
+        verify(apartmentService, times(1)).searchApartments(criteria, new PageRequest(0, 10));
     }
 
     @Test
@@ -341,6 +578,93 @@ public class ApartmentControllerUnitTests {
         verify(apartmentService, times(1)).updateApartment(apartment);
     }
 
+    @Test
+    public void testUpdateApartmentIfMatch() throws Exception {
+        Apartment apartment = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null);
+
+        doNothing().when(apartmentService).updateApartment(apartment.withVersion(3));
+
+        String apartmentJson = objectMapper.writeValueAsString(apartment);
+
+        mockMvc.perform(put("/apartments")
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .content(apartmentJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+
+        verify(apartmentService, times(1)).updateApartment(apartment.withVersion(3));
+    }
+
+    @Test
+    public void testUpdateApartmentVersionConflict() throws Exception {
+        Apartment apartment = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null).withVersion(3);
+
+        doThrow(new VersionConflictException(String.format("Apartment with id %s has been updated since version %s",
+                apartment.id(), apartment.version())))
+                .when(apartmentService).updateApartment(apartment);
+
+        String apartmentJson = objectMapper.writeValueAsString(apartment);
+
+        mockMvc.perform(put("/apartments")
+                        .content(apartmentJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(content().string(String.format("Apartment with id %s has been updated since version %s",
+                        apartment.id(), apartment.version())));
+
+        verify(apartmentService, times(1)).updateApartment(apartment);
+    }
+
+    @Test
+    public void testUpdateApartmentIfMatchNotAVersion() throws Exception {
+        Apartment apartment = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null);
+
+        String apartmentJson = objectMapper.writeValueAsString(apartment);
+
+        mockMvc.perform(put("/apartments")
+                        .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                        .content(apartmentJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(apartmentService, never()).updateApartment(any());
+    }
+
+    @Test
+    public void testPatchApartment() throws Exception {
+        int apartmentId = 1;
+
+        doNothing().when(apartmentService).patchApartment(eq(apartmentId), any(MergePatch.class), eq(3));
+
+        mockMvc.perform(patch("/apartments/{id}", apartmentId)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .content("{\"monthlyRent\": 645000, \"renterId\": null}")
+                        .contentType(MergePatch.MEDIA_TYPE))
+                .andExpect(status().isNoContent());
+
+        verify(apartmentService, times(1)).patchApartment(eq(apartmentId), any(MergePatch.class), eq(3));
+    }
+
+    @Test
+    public void testPatchApartmentNotAnObject() throws Exception {
+        mockMvc.perform(patch("/apartments/{id}", 1)
+                        .content("[{\"monthlyRent\": 645000}]")
+                        .contentType(MergePatch.MEDIA_TYPE))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("A merge patch must be a JSON object"));
+
+        verifyNoInteractions(apartmentService);
+    }
+
     @Test
     public void testDeleteApartment() throws Exception {
         int apartmentId = 1;
@@ -0,0 +1,142 @@
+package com.auger.apartments.apartments;
+
+import com.auger.apartments.IntegrationTest;
+import com.auger.apartments.imports.ImportFormat;
+import com.auger.apartments.imports.ImportProgress;
+import com.auger.apartments.imports.ImportRejection;
+import com.auger.apartments.imports.ImportReport;
+import com.auger.apartments.imports.ImportState;
+import com.auger.apartments.imports.ImportTracker;
+import com.auger.apartments.users.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ApartmentImporterIntegrationTests extends IntegrationTest {
+
+    private static final String CSV_HEADER =
+            "title,description,numberOfBedrooms,numberOfBathrooms,state,city,squareFeet,monthlyRent,available,ownerId,renterId\n";
+
+    @Autowired
+    ApartmentImporter underTest;
+
+    @Autowired
+    ImportTracker importTracker;
+
+    private User user1;
+    private User user2;
+    private User user3;
+
+    @BeforeEach
+    public void addData() {
+        User u1 = new User(null, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), null);
+        User u2 = new User(null, "Bob", "Daly", "bob@gmail.com",
+                "7564839402", LocalDate.of(1985, 2, 7), null);
+        User u3 = new User(null, "Jennifer", "Lilly", "jennifer@gmail.com",
+                "1275643908", LocalDate.of(2001, 8, 15), null);
+        user1 = userService.createUser(u1);
+        user2 = userService.createUser(u2);
+        user3 = userService.createUser(u3);
+
+        apartmentRepository.create(new Apartment(null, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, user1.id(), user2.id()));
+    }
+
+    @AfterEach
+    public void clearTables() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "apartments");
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "users");
+    }
+
+    @Test
+    public void testImportCsv() {
+        String csv = CSV_HEADER
+                + "Beach Apartment,\"Near the beach, with a \"\"view\"\"\",1,1,FL,Miami,800,185000,true," + user1.id() + ",\n"
+                + "Downtown Studio,Affordable,0,1,IL,Chicago,450,95000,true,0,\n"
+                + "Free Loft,Too good to be true,1,1,IL,Chicago,450,0,true," + user1.id() + ",\n"
+                + "Rented Twice,Already renting,1,1,IL,Chicago,450,95000,false," + user1.id() + "," + user2.id() + "\n"
+                + "Suburban Getaway,Quiet,3,2,VA,Norfolk,1400,310000,false," + user1.id() + "," + user3.id() + "\n"
+                + "Second Lease,Same renter,1,1,VA,Norfolk,600,120000,false," + user1.id() + "," + user3.id() + "\n"
+                + "Bad Number,Bedrooms,many,1,VA,Norfolk,600,120000,true," + user1.id() + ",\n";
+
+        ImportReport report = importApartments(csv, ImportFormat.CSV);
+
+        assertThat(report.state()).isEqualTo(ImportState.COMPLETED);
+        assertThat(report.rowsRead()).isEqualTo(7);
+        assertThat(report.rowsImported()).isEqualTo(2);
+        assertThat(report.rowsRejected()).isEqualTo(5);
+        assertThat(report.rejections()).extracting(ImportRejection::row).containsExactly(2L, 3L, 4L, 6L, 7L);
+        assertThat(report.rejections().get(0).error()).isEqualTo("User with id 0 does not exist");
+        assertThat(report.rejections().get(1).error()).isEqualTo("Monthly rent must be greater than zero");
+        assertThat(report.rejections().get(2).error()).isEqualTo(String.format("""
+                A user with id %s is renting a different apartment.
+                A user can only rent one apartment at a time.
+                """, user2.id()));
+        assertThat(report.rejections().get(3).error()).contains(String.format("A user with id %s", user3.id()));
+
+        List<String> titles = jdbcTemplate.queryForList(
+                "SELECT title FROM apartments WHERE date_listed = CURRENT_DATE AND title <> 'Main Street Condo' ORDER BY id",
+                String.class);
+        assertThat(titles).containsExactly("Beach Apartment", "Suburban Getaway");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT description FROM apartments WHERE title = 'Beach Apartment'", String.class))
+                .isEqualTo("Near the beach, with a \"view\"");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT renter_id FROM apartments WHERE title = 'Beach Apartment'", Integer.class)).isNull();
+    }
+
+    @Test
+    public void testImportNdjson() {
+        String ndjson = """
+                {"title":"Beach Apartment","description":null,"numberOfBedrooms":1,"numberOfBathrooms":1,"state":"FL","city":"Miami","squareFeet":800,"monthlyRent":185000,"available":true,"ownerId":%s}
+
+                {"title":"Broken",
+                {"title":"Downtown Studio","description":"Affordable","numberOfBedrooms":0,"numberOfBathrooms":1,"state":"IL","city":"Chicago","squareFeet":450,"monthlyRent":95000,"available":true,"ownerId":%s,"renterId":%s}
+                """.formatted(user1.id(), user2.id(), user3.id());
+
+        ImportReport report = importApartments(ndjson, ImportFormat.NDJSON);
+
+        assertThat(report.state()).isEqualTo(ImportState.COMPLETED);
+        assertThat(report.rowsRead()).isEqualTo(3);
+        assertThat(report.rowsImported()).isEqualTo(2);
+        assertThat(report.rejections()).extracting(ImportRejection::row).containsExactly(2L);
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "apartments")).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT description FROM apartments WHERE title = 'Beach Apartment'", String.class)).isNull();
+    }
+
+    @Test
+    public void testImportLargeCsv() {
+        int rows = 200_000;
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (int i = 0; i < rows; i++) {
+            csv.append("Apartment ").append(i).append(",Description,2,1,NY,New York,800,")
+                    .append(100000 + i).append(",true,").append(i % 2 == 0 ? user1.id() : user3.id()).append(",\n");
+        }
+
+        ImportReport report = importApartments(csv.toString(), ImportFormat.CSV);
+
+        assertThat(report.rowsImported()).isEqualTo(rows);
+        assertThat(report.rowsRejected()).isZero();
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "apartments", "owner_id = " + user3.id()))
+                .isEqualTo(rows / 2);
+    }
+
+    private ImportReport importApartments(String body, ImportFormat format) {
+        ImportProgress progress = importTracker.start("apartments", format);
+        underTest.importApartments(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), progress);
+        return progress.report();
+    }
+}
@@ -9,7 +9,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.jdbc.JdbcTestUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -84,6 +88,30 @@ public class ApartmentRepositoryImplIntegrationTests extends IntegrationTest {
         assertApartmentsAreEqual(createdApartment, retrievedApartment);
     }
 
+    @Test
+    public void testCreateAll() {
+        List<Apartment> apartments = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            apartments.add(new Apartment(null, "Apartment " + i, "Description " + i, i % 4,
+                    1 + i % 3, "NY", "New York", 400 + i, 100000 + i,
+                    null, true, i % 2 == 0 ? user1.id() : user2.id(), null));
+        }
+
+        List<Apartment> createdApartments = underTest.createAll(apartments);
+
+        assertThat(createdApartments.size()).isEqualTo(10_000);
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "apartments")).isEqualTo(10_003);
+        Map<Integer, String> titles = new HashMap<>();
+        jdbcTemplate.query("SELECT id, title FROM apartments",
+                rs -> { titles.put(rs.getInt("id"), rs.getString("title")); });
+        for (int i = 0; i < createdApartments.size(); i++) {
+            Apartment createdApartment = createdApartments.get(i);
+            assertThat(createdApartment.title()).isEqualTo("Apartment " + i);
+            assertThat(titles.get(createdApartment.id())).isEqualTo("Apartment " + i);
+            assertThat(underTest.exists(createdApartment.id())).isTrue();
+        }
+    }
+
     @Test
     public void testFindOneInvalidId() {
         Optional<Apartment> optionalApartment = underTest.findOne(0);
@@ -91,13 +119,14 @@ public class ApartmentRepositoryImplIntegrationTests extends IntegrationTest {
     }
 
     @Test
-    public void testFindAll() {
+    public void testStreamAll() {
         Map<Integer, Apartment> apartmentMap = new HashMap<>();
         apartmentMap.put(apartment1.id(), apartment1);
         apartmentMap.put(apartment2.id(), apartment2);
         apartmentMap.put(apartment3.id(), apartment3);
 
-        List<Apartment> apartments = underTest.findAll();
+        List<Apartment> apartments = new ArrayList<>();
+        underTest.streamAll(apartments::add);
 
         assertThat(getRowCount()).isEqualTo(apartmentMap.size());
         assertThat(apartments.size()).isEqualTo(apartmentMap.size());
@@ -110,6 +139,146 @@ public class ApartmentRepositoryImplIntegrationTests extends IntegrationTest {
         assertThat(apartmentMap.size()).isZero();
     }
 
+    @Test
+    public void testExportCsv() throws Exception {
+        jdbcTemplate.update("UPDATE apartments SET city = 'Norfolk, \"The Mermaid City\"', date_listed = ? WHERE id = ?",
+                LocalDate.of(2024, 1, 1), apartment2.id());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        underTest.exportCsv(new ApartmentExportCriteria(null, null, null, null, null), null).writeTo(outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines.length).isEqualTo(4);
+        assertThat(lines[0]).isEqualTo("id,title,description,numberOfBedrooms,numberOfBathrooms,state,city,"
+                + "squareFeet,monthlyRent,dateListed,available,ownerId,renterId");
+        assertThat(String.join("\n", lines)).contains(String.format(
+                "%s,Suburban Getaway,Entire unit in a quiet neighborhood,3,2,VA,\"Norfolk, \"\"The Mermaid City\"\"\","
+                        + "1400,310000,2024-01-01,t,%s,", apartment2.id(), user1.id()));
+    }
+
+    @Test
+    public void testExportCsvWithColumnsAndFilters() throws Exception {
+        jdbcTemplate.update("UPDATE apartments SET date_listed = ? WHERE id = ?",
+                LocalDate.of(2024, 1, 1), apartment2.id());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        underTest.exportCsv(new ApartmentExportCriteria(null, null, true, LocalDate.of(2023, 12, 1),
+                LocalDate.of(2024, 1, 1)), List.of("id", "monthlyRent")).writeTo(outputStream);
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8))
+                .isEqualTo(String.format("id,monthlyRent\n%s,310000\n", apartment2.id()));
+
+        outputStream.reset();
+        underTest.exportCsv(new ApartmentExportCriteria("FL", "Miami", null, null, null), List.of("title"))
+                .writeTo(outputStream);
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("title\nBeach Apartment\n");
+    }
+
+    @Test
+    public void testFindPage() {
+        List<Apartment> firstPage = underTest.findPage(0, 2);
+        assertThat(firstPage.size()).isEqualTo(2);
+        assertApartmentsAreEqual(firstPage.get(0), apartment1);
+        assertApartmentsAreEqual(firstPage.get(1), apartment2);
+
+        List<Apartment> secondPage = underTest.findPage(firstPage.get(1).id(), 2);
+        assertThat(secondPage.size()).isEqualTo(1);
+        assertApartmentsAreEqual(secondPage.get(0), apartment3);
+
+        List<Apartment> emptyPage = underTest.findPage(apartment3.id(), 2);
+        assertThat(emptyPage.size()).isZero();
+    }
+
+    @Test
+    public void testSearch() {
+        ApartmentSearchCriteria noFilters = new ApartmentSearchCriteria(null, null, null, null,
+                null, null, null, null);
+        List<Apartment> allApartments = underTest.search(noFilters, 0, 10);
+        assertThat(allApartments.size()).isEqualTo(3);
+
+        ApartmentSearchCriteria location = new ApartmentSearchCriteria("NY", "New York", null, null,
+                null, null, null, true);
+        List<Apartment> newYorkApartments = underTest.search(location, 0, 10);
+        assertThat(newYorkApartments.size()).isEqualTo(1);
+        assertApartmentsAreEqual(newYorkApartments.get(0), apartment1);
+
+        ApartmentSearchCriteria rentAndSize = new ApartmentSearchCriteria(null, null, 200000, 400000,
+                2, 2, 1000, null);
+        List<Apartment> largeApartments = underTest.search(rentAndSize, 0, 10);
+        assertThat(largeApartments.size()).isEqualTo(1);
+        assertApartmentsAreEqual(largeApartments.get(0), apartment2);
+
+        ApartmentSearchCriteria noMatches = new ApartmentSearchCriteria(null, null, 400000, 200000,
+                null, null, null, null);
+        assertThat(underTest.search(noMatches, 0, 10).size()).isZero();
+
+        List<Apartment> afterFirstApartment = underTest.search(noFilters, apartment1.id(), 1);
+        assertThat(afterFirstApartment.size()).isEqualTo(1);
+        assertApartmentsAreEqual(afterFirstApartment.get(0), apartment2);
+    }
+
+    @Test
+    public void testFindAll() {
+        List<Apartment> apartments = new ArrayList<>(underTest.findAll(List.of(apartment3.id(), apartment1.id(),
+                apartment3.id() + 1)));
+        apartments.sort(Comparator.comparingInt(Apartment::id));
+
+        assertThat(apartments.size()).isEqualTo(2);
+        assertApartmentsAreEqual(apartments.get(0), apartment1);
+        assertApartmentsAreEqual(apartments.get(1), apartment3);
+    }
+
+    @Test
+    public void testFindPageAndSearchFields() {
+        List<Map<String, Object>> page = underTest.findPage(apartment1.id(), 10, List.of("title", "monthlyRent"));
+        assertThat(page.size()).isEqualTo(2);
+        assertThat(new ArrayList<>(page.get(0).keySet())).isEqualTo(List.of("id", "title", "monthlyRent"));
+        assertThat(page.get(0).get("id")).isEqualTo(apartment2.id());
+        assertThat(page.get(0).get("title")).isEqualTo(apartment2.title());
+        assertThat(page.get(0).get("monthlyRent")).isEqualTo(apartment2.monthlyRent());
+        assertThat(page.get(1).get("id")).isEqualTo(apartment3.id());
+
+        ApartmentSearchCriteria location = new ApartmentSearchCriteria("NY", "New York", null, null,
+                null, null, null, true);
+        List<Map<String, Object>> newYorkApartments = underTest.search(location, 0, 10,
+                List.of("city", "dateListed"));
+        assertThat(newYorkApartments.size()).isEqualTo(1);
+        assertThat(new ArrayList<>(newYorkApartments.get(0).keySet())).isEqualTo(List.of("id", "city", "dateListed"));
+        assertThat(newYorkApartments.get(0).get("city")).isEqualTo("New York");
+        assertThat(newYorkApartments.get(0).get("dateListed")).isEqualTo(apartment1.dateListed());
+    }
+
+    /**
+     * Grows the apartments table and checks that a typical location and rent search keeps being
+     * answered from the search indexes rather than by scanning the whole table.
+     */
+    @Test
+    public void testSearchUsesIndexesAsTableGrows() {
+        ApartmentSearchCriteria criteria = new ApartmentSearchCriteria("S7", "C7", 100000, 200000,
+                null, null, null, true);
+        ApartmentRepositoryImpl.SearchQuery searchQuery = underTest.buildSearchQuery(criteria, "*", 0, 51);
+        String insertSql = """
+                INSERT INTO apartments (title, description, number_of_bedrooms, number_of_bathrooms, state, city,
+                square_feet, monthly_rent, date_listed, available, owner_id)
+                SELECT 'Apartment ' || i, 'Generated apartment', i % 4, 1 + i % 3, 'S' || i % 50, 'C' || i % 20,
+                400 + i % 2000, 50000 + (i * 37) % 500000, CURRENT_DATE, i % 3 <> 0, ?
+                FROM generate_series(?, ?) AS i;
+                """;
+
+        int rowCount = 0;
+        for (int targetRowCount : new int[]{10_000, 50_000, 100_000}) {
+            jdbcTemplate.update(insertSql, user1.id(), rowCount + 1, targetRowCount);
+            rowCount = targetRowCount;
+            jdbcTemplate.execute("ANALYZE apartments");
+
+            String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + searchQuery.sql(),
+                    String.class, searchQuery.args().toArray()));
+            assertThat(plan).doesNotContain("Seq Scan");
+            assertThat(plan).contains("location_rent_idx");
+        }
+    }
+
     @Test
     public void testUpdate() {
         Apartment updatedApartment = new Apartment(apartment1.id(), apartment1.title(),
@@ -119,7 +288,7 @@ public class ApartmentRepositoryImplIntegrationTests extends IntegrationTest {
                 675000, null, apartment1.available(),
                 apartment1.ownerId(), apartment1.renterId());
 
-        underTest.update(updatedApartment);
+        assertThat(underTest.update(updatedApartment)).isEqualTo(1);
 
         assertThat(getRowCount()).isEqualTo(3);
 
@@ -147,10 +316,63 @@ public class ApartmentRepositoryImplIntegrationTests extends IntegrationTest {
         assertThat(getRowCount()).isEqualTo(3);
         assertThat(underTest.exists(apartment1.id())).isTrue();
 
-        underTest.delete(apartment1.id());
+        assertThat(underTest.delete(apartment1.id())).isEqualTo(1);
+
+        assertThat(getRowCount()).isEqualTo(2);
+        assertThat(underTest.exists(apartment1.id())).isFalse();
+    }
+
+    @Test
+    public void testPatch() {
+        Apartment patchedApartment = new Apartment(apartment1.id(), apartment1.title(),
+                "Spacious, brand new appliances, new building, best views in the city!",
+                apartment1.numberOfBedrooms(), apartment1.numberOfBathrooms(),
+                apartment1.state(), apartment1.city(), apartment1.squareFeet(),
+                apartment1.monthlyRent(), apartment1.dateListed(), apartment1.available(),
+                apartment1.ownerId(), user2.id(), 0);
+        // a concurrent change to a column the patch does not touch
+        jdbcTemplate.update("UPDATE apartments SET title = 'Main Street Loft' WHERE id = ?", apartment1.id());
+
+        assertThat(underTest.patch(apartment1, patchedApartment)).isEqualTo(1);
+
+        Apartment retrievedApartment = underTest.findOne(apartment1.id()).get();
+        assertThat(retrievedApartment.title()).isEqualTo("Main Street Loft");
+        assertThat(retrievedApartment.description()).isEqualTo(patchedApartment.description());
+        assertThat(retrievedApartment.renterId()).isEqualTo(user2.id());
+        assertThat(retrievedApartment.version()).isEqualTo(1);
+
+        // the patch above moved the apartment past version 0
+        assertThat(underTest.patch(apartment1, patchedApartment)).isEqualTo(0);
+        // nothing changes, so nothing is written
+        assertThat(underTest.patch(retrievedApartment, retrievedApartment)).isEqualTo(1);
+        assertThat(underTest.findOne(apartment1.id()).get().version()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUpdateAndDeleteMissingApartment() {
+        Apartment missingApartment = new Apartment(0, apartment1.title(), apartment1.description(),
+                apartment1.numberOfBedrooms(), apartment1.numberOfBathrooms(),
+                apartment1.state(), apartment1.city(), apartment1.squareFeet(),
+                apartment1.monthlyRent(), null, apartment1.available(),
+                apartment1.ownerId(), apartment1.renterId());
+
+        assertThat(underTest.update(missingApartment)).isZero();
+        assertThat(underTest.delete(0)).isZero();
+        assertThat(getRowCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testDeleteIfVacant() {
+        jdbcTemplate.update("UPDATE apartments SET renter_id = ? WHERE id = ?", user2.id(), apartment2.id());
+
+        assertThat(underTest.deleteIfVacant(apartment2.id())).isEqualTo(ApartmentDeleteResult.OCCUPIED);
+        assertThat(underTest.deleteIfVacant(0)).isEqualTo(ApartmentDeleteResult.NOT_FOUND);
+        assertThat(getRowCount()).isEqualTo(3);
 
+        assertThat(underTest.deleteIfVacant(apartment1.id())).isEqualTo(ApartmentDeleteResult.DELETED);
         assertThat(getRowCount()).isEqualTo(2);
         assertThat(underTest.exists(apartment1.id())).isFalse();
+        assertThat(underTest.exists(apartment2.id())).isTrue();
     }
 
     @Test
@@ -0,0 +1,114 @@
+package com.auger.apartments.apartments;
+
+import com.auger.apartments.IntegrationTest;
+import com.auger.apartments.config.CacheConfig;
+import com.auger.apartments.exceptions.InvalidRequestException;
+import com.auger.apartments.imports.ImportFormat;
+import com.auger.apartments.imports.ImportReport;
+import com.auger.apartments.imports.ImportState;
+import com.auger.apartments.users.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ApartmentServiceImplIntegrationTests extends IntegrationTest {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Cache apartmentsCache;
+    private User user1;
+    private Apartment apartment1;
+
+    @BeforeEach
+    public void addData() {
+        apartmentsCache = cacheManager.getCache(CacheConfig.APARTMENTS_CACHE);
+        apartmentsCache.clear();
+
+        User u1 = new User(0, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
+        user1 = userService.createUser(u1);
+
+        Apartment apt1 = new Apartment(null, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, user1.id(), null);
+        apartment1 = apartmentService.createApartment(apt1);
+    }
+
+    @AfterEach
+    public void clearTables() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "apartments");
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "users");
+    }
+
+    @Test
+    public void testGetApartmentIsServedFromCache() {
+        assertThat(apartmentsCache.get(apartment1.id())).isNull();
+        assertThat(apartmentService.getApartment(apartment1.id())).contains(apartment1);
+        assertThat(apartmentsCache.get(apartment1.id(), Apartment.class)).isEqualTo(apartment1);
+
+        // a write that bypasses the service is not seen until the entry is evicted or expires
+        jdbcTemplate.update("UPDATE apartments SET title = 'Changed' WHERE id = ?", apartment1.id());
+        assertThat(apartmentService.getApartment(apartment1.id())).contains(apartment1);
+    }
+
+    @Test
+    public void testGetApartmentDoesNotCacheMissingApartment() {
+        assertThat(apartmentService.getApartment(-1)).isEmpty();
+        assertThat(apartmentsCache.get(-1)).isNull();
+    }
+
+    @Test
+    public void testUpdateApartmentEvictsCachedApartment() {
+        apartmentService.getApartment(apartment1.id());
+        Apartment updated = new Apartment(apartment1.id(), "Changed", apartment1.description(),
+                apartment1.numberOfBedrooms(), apartment1.numberOfBathrooms(), apartment1.state(),
+                apartment1.city(), apartment1.squareFeet(), apartment1.monthlyRent(),
+                apartment1.dateListed(), apartment1.available(), apartment1.ownerId(), apartment1.renterId());
+        apartmentService.updateApartment(updated);
+
+        assertThat(apartmentsCache.get(apartment1.id())).isNull();
+        assertThat(apartmentService.getApartment(apartment1.id()).orElseThrow().title()).isEqualTo("Changed");
+    }
+
+    @Test
+    public void testDeleteUserEvictsCachedApartments() {
+        apartmentService.getApartment(apartment1.id());
+        userService.deleteUser(user1.id());
+
+        assertThat(apartmentsCache.get(apartment1.id())).isNull();
+        assertThat(apartmentService.getApartment(apartment1.id())).isEmpty();
+    }
+
+    @Test
+    public void testImportApartmentsFailureIsReported() {
+        String csv = "title,description,numberOfBedrooms,numberOfBathrooms,state,city,squareFeet,monthlyRent,available,ownerId\n"
+                + "Beach Apartment,Near the beach,1,1,FL,Miami,800,185000,true," + user1.id() + "\n"
+                + "Broken,\"Unterminated,1,1,FL,Miami,800,185000,true," + user1.id() + "\n";
+
+        assertThatThrownBy(() -> apartmentService.importApartments(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageStartingWith("Unable to read the import");
+
+        List<ImportReport> imports = apartmentService.getApartmentImports();
+        ImportReport report = imports.get(imports.size() - 1);
+        assertThat(report.state()).isEqualTo(ImportState.FAILED);
+        assertThat(report.error()).startsWith("Unable to read the import");
+        assertThat(apartmentService.getApartmentImport(report.id())).contains(report);
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "apartments")).isEqualTo(1);
+    }
+}
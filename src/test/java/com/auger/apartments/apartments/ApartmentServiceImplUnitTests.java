@@ -1,17 +1,41 @@
 package com.auger.apartments.apartments;
 
+import com.auger.apartments.batch.BatchItemResult;
+import com.auger.apartments.batch.BatchLookup;
+import com.auger.apartments.batch.BatchResult;
 import com.auger.apartments.exceptions.ApartmentNotFoundException;
+import com.auger.apartments.exceptions.DatabaseException;
 import com.auger.apartments.exceptions.DeleteApartmentException;
 import com.auger.apartments.exceptions.DuplicateDataException;
+import com.auger.apartments.exceptions.InvalidRequestException;
 import com.auger.apartments.exceptions.UserNotFoundException;
+import com.auger.apartments.exceptions.VersionConflictException;
+import com.auger.apartments.imports.ImportFormat;
+import com.auger.apartments.imports.ImportProgress;
+import com.auger.apartments.imports.ImportReport;
+import com.auger.apartments.imports.ImportState;
+import com.auger.apartments.imports.ImportTracker;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.auger.apartments.patch.MergePatch;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import static com.auger.apartments.TestUtils.assertApartmentsAreEqual;
 import static org.assertj.core.api.AssertionsForClassTypes.*;
@@ -26,9 +50,17 @@ public class ApartmentServiceImplUnitTests {
     @Mock
     ApartmentValidator apartmentValidator;
 
+    @Mock
+    ApartmentImporter apartmentImporter;
+
+    @Spy
+    ImportTracker importTracker = new ImportTracker();
+
     @InjectMocks
     ApartmentServiceImpl underTest;
 
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
     @Test
     public void testCreateApartment() {
         Apartment apartment = new Apartment(1, "Main Street Condo",
@@ -46,6 +78,88 @@ public class ApartmentServiceImplUnitTests {
         assertApartmentsAreEqual(apartment, createdApartment);
     }
 
+    @Test
+    public void testCreateApartments() {
+        Apartment apartment1 = new Apartment(null, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null);
+        Apartment apartment2 = new Apartment(null, "Comfy Studio",
+                "Studio space in downtown Manhattan. Great location", 0,
+                1, "NY", "New York", 400, 280000,
+                null, true, 0, null);
+        Apartment createdApartment1 = new Apartment(1, apartment1.title(), apartment1.description(),
+                apartment1.numberOfBedrooms(), apartment1.numberOfBathrooms(), apartment1.state(),
+                apartment1.city(), apartment1.squareFeet(), apartment1.monthlyRent(), LocalDate.now(),
+                apartment1.available(), apartment1.ownerId(), apartment1.renterId());
+        List<Apartment> apartments = List.of(apartment1, apartment2);
+
+        when(apartmentValidator.validateNewApartments(apartments)).thenReturn(Map.of(1, BatchItemResult.rejected(
+                1, HttpStatus.NOT_FOUND, "User with id 0 does not exist")));
+        when(apartmentRepository.createAll(List.of(apartment1))).thenReturn(List.of(createdApartment1));
+
+        BatchResult<Apartment> result = underTest.createApartments(apartments);
+
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(1);
+        assertThat(result.items().get(0)).isEqualTo(BatchItemResult.created(0, createdApartment1));
+        assertThat(result.items().get(1).status()).isEqualTo(404);
+        assertThat(result.items().get(1).error()).isEqualTo("User with id 0 does not exist");
+        verify(apartmentRepository, times(1)).createAll(List.of(apartment1));
+    }
+
+    @Test
+    public void testCreateApartmentsAllRejected() {
+        Apartment apartment = new Apartment(null, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 0, null);
+
+        when(apartmentValidator.validateNewApartments(List.of(apartment))).thenReturn(Map.of(0,
+                BatchItemResult.rejected(0, HttpStatus.NOT_FOUND, "User with id 0 does not exist")));
+
+        BatchResult<Apartment> result = underTest.createApartments(List.of(apartment));
+
+        assertThat(result.created()).isZero();
+        assertThat(result.rejected()).isEqualTo(1);
+        verify(apartmentRepository, times(0)).createAll(any());
+    }
+
+    @Test
+    public void testCreateApartmentsEmptyBatch() {
+        assertThatThrownBy(() -> underTest.createApartments(List.of()))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("A batch must contain between 1 and 10000 items");
+
+        verifyNoInteractions(apartmentValidator);
+        verifyNoInteractions(apartmentRepository);
+    }
+
+    @Test
+    public void testImportApartments() {
+        InputStream input = new ByteArrayInputStream(new byte[0]);
+
+        ImportReport report = underTest.importApartments(input, ImportFormat.CSV);
+
+        verify(apartmentImporter, times(1)).importApartments(eq(input), any(ImportProgress.class));
+        assertThat(report.format()).isEqualTo(ImportFormat.CSV);
+        assertThat(underTest.getApartmentImport(report.id())).isPresent();
+    }
+
+    @Test
+    public void testImportApartmentsFailure() {
+        InputStream input = new ByteArrayInputStream(new byte[0]);
+        doThrow(new DatabaseException("An error occurred when importing apartments into the database"))
+                .when(apartmentImporter).importApartments(eq(input), any(ImportProgress.class));
+
+        assertThatThrownBy(() -> underTest.importApartments(input, ImportFormat.NDJSON))
+                .isInstanceOf(DatabaseException.class);
+
+        ImportReport report = underTest.getApartmentImports().get(0);
+        assertThat(report.state()).isEqualTo(ImportState.FAILED);
+        assertThat(report.error()).isEqualTo("An error occurred when importing apartments into the database");
+    }
+
     @Test
     public void testCreateApartmentInvalidOwner() {
         Apartment apartment = new Apartment(1, "Main Street Condo",
@@ -125,16 +239,47 @@ public class ApartmentServiceImplUnitTests {
     }
 
     @Test
-    public void testGetAllApartments() {
-        Apartment apartment1 = new Apartment(null, "Main Street Condo",
+    public void testGetApartmentsById() {
+        Apartment apartment1 = new Apartment(1, "Main Street Condo",
                 "A spacious condo with brand new appliances and great views!", 2,
                 1, "NY", "New York", 800, 608900,
                 null, true, 1, null);
-        Apartment apartment2 = new Apartment(null, "Comfy Studio",
+        Apartment apartment3 = new Apartment(3, "Beach Stay",
+                "Secluded home, perfect for a quiet and relaxing getaway.", 2,
+                2, "HI", "Honolulu", 400, 280000,
+                null, true, 3, null);
+
+        when(apartmentRepository.findAll(List.of(3, 2, 1))).thenReturn(List.of(apartment1, apartment3));
+
+        BatchLookup<Apartment> apartments = underTest.getApartments(List.of(3, 2, 3, 1));
+        assertThat(apartments.items()).isEqualTo(List.of(apartment3, apartment1));
+        assertThat(apartments.missingIds()).isEqualTo(List.of(2));
+        verify(apartmentRepository, times(1)).findAll(List.of(3, 2, 1));
+    }
+
+    @Test
+    public void testGetApartmentsByIdInvalidSize() {
+        List<Integer> tooManyIds = IntStream.rangeClosed(1, BatchLookup.MAX_IDS + 1).boxed().toList();
+
+        assertThatThrownBy(() -> underTest.getApartments(List.<Integer>of()))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("Between 1 and 1000 ids must be requested");
+        assertThatThrownBy(() -> underTest.getApartments(tooManyIds))
+                .isInstanceOf(InvalidRequestException.class);
+        verify(apartmentRepository, never()).findAll(any());
+    }
+
+    @Test
+    public void testGetApartments() {
+        Apartment apartment1 = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null);
+        Apartment apartment2 = new Apartment(2, "Comfy Studio",
                 "Studio space in downtown Manhattan. Great location", 0,
                 1, "NY", "New York", 400, 280000,
                 null, true, 2, null);
-        Apartment apartment3 = new Apartment(null, "Beach Stay",
+        Apartment apartment3 = new Apartment(3, "Beach Stay",
                 "Secluded home, perfect for a quiet and relaxing getaway.", 2,
                 2, "HI", "Honolulu", 400, 280000,
                 null, true, 3, null);
@@ -142,17 +287,55 @@ public class ApartmentServiceImplUnitTests {
         List<Apartment> emptyList = List.of();
         List<Apartment> apartmentList = List.of(apartment1, apartment2, apartment3);
 
-        when(apartmentRepository.findAll()).thenReturn(emptyList);
-        List<Apartment> noApartments = underTest.getAllApartments();
-        assertThat(noApartments.size()).isZero();
-        assertThat(noApartments).isEqualTo(emptyList);
-        verify(apartmentRepository, times(1)).findAll();
-
-        when(apartmentRepository.findAll()).thenReturn(apartmentList);
-        List<Apartment> multipleApartments = underTest.getAllApartments();
-        assertThat(multipleApartments.size()).isEqualTo(apartmentList.size());
-        assertThat(multipleApartments).isEqualTo(apartmentList);
-        verify(apartmentRepository, times(2)).findAll();
+        when(apartmentRepository.findPage(0, 3)).thenReturn(emptyList);
+        Page<Apartment> noApartments = underTest.getApartments(new PageRequest(0, 2));
+        assertThat(noApartments.items()).isEqualTo(emptyList);
+        assertThat(noApartments.nextCursor()).isNull();
+        verify(apartmentRepository, times(1)).findPage(0, 3);
+
+        when(apartmentRepository.findPage(0, 3)).thenReturn(apartmentList);
+        Page<Apartment> firstPage = underTest.getApartments(new PageRequest(0, 2));
+        assertThat(firstPage.items()).isEqualTo(List.of(apartment1, apartment2));
+        assertThat(firstPage.nextCursor()).isNotNull();
+        assertThat(PageRequest.of(firstPage.nextCursor(), 2).afterId()).isEqualTo(apartment2.id());
+        verify(apartmentRepository, times(2)).findPage(0, 3);
+
+        when(apartmentRepository.findPage(apartment2.id(), 3)).thenReturn(List.of(apartment3));
+        Page<Apartment> lastPage = underTest.getApartments(PageRequest.of(firstPage.nextCursor(), 2));
+        assertThat(lastPage.items()).isEqualTo(List.of(apartment3));
+        assertThat(lastPage.nextCursor()).isNull();
+        verify(apartmentRepository, times(1)).findPage(apartment2.id(), 3);
+    }
+
+    @Test
+    public void testExportApartments() {
+        Consumer<Apartment> consumer = apartment -> {};
+
+        underTest.exportApartments(consumer);
+
+        verify(apartmentRepository, times(1)).streamAll(consumer);
+    }
+
+    @Test
+    public void testSearchApartments() {
+        Apartment apartment1 = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null);
+        Apartment apartment2 = new Apartment(2, "Comfy Studio",
+                "Studio space in downtown Manhattan. Great location", 0,
+                1, "NY", "New York", 400, 280000,
+                null, true, 2, null);
+        ApartmentSearchCriteria criteria = new ApartmentSearchCriteria("NY", "New York", null, null,
+                null, null, null, true);
+
+        when(apartmentRepository.search(criteria, 0, 2)).thenReturn(List.of(apartment1, apartment2));
+
+        Page<Apartment> apartments = underTest.searchApartments(criteria, new PageRequest(0, 1));
+
+        assertThat(apartments.items()).isEqualTo(List.of(apartment1));
+        assertThat(PageRequest.of(apartments.nextCursor(), 1).afterId()).isEqualTo(apartment1.id());
+        verify(apartmentRepository, times(1)).search(criteria, 0, 2);
     }
 
     @Test
@@ -162,13 +345,11 @@ public class ApartmentServiceImplUnitTests {
                 1, "NY", "New York", 800, 608900,
                 null, true, 1, null);
 
-        when(apartmentRepository.exists(apartment.id())).thenReturn(true);
         doNothing().when(apartmentValidator).validateExistingApartment(apartment);
-        doNothing().when(apartmentRepository).update(apartment);
+        when(apartmentRepository.update(apartment)).thenReturn(1);
 
         assertThatNoException().isThrownBy(() -> underTest.updateApartment(apartment));
 
-        verify(apartmentRepository, times(1)).exists(apartment.id());
         verify(apartmentValidator, times(1)).validateExistingApartment(apartment);
         verify(apartmentRepository, times(1)).update(apartment);
     }
@@ -180,17 +361,108 @@ public class ApartmentServiceImplUnitTests {
                 1, "NY", "New York", 800, 608900,
                 null, true, 1, null);
 
-        when(apartmentRepository.exists(apartment.id())).thenReturn(false);
+        doThrow(new ApartmentNotFoundException(String.format("Apartment with id %s does not exist", apartment.id())))
+                .when(apartmentValidator).validateExistingApartment(apartment);
 
         assertThatThrownBy(() -> underTest.updateApartment(apartment))
                 .isInstanceOf(ApartmentNotFoundException.class)
                 .hasMessage(String.format("Apartment with id %s does not exist", apartment.id()));
 
-        verify(apartmentRepository, times(1)).exists(apartment.id());
-        verifyNoInteractions(apartmentValidator);
+        verify(apartmentValidator, times(1)).validateExistingApartment(apartment);
         verify(apartmentRepository, times(0)).update(apartment);
     }
 
+    @Test
+    public void testUpdateApartmentDeletedAfterValidation() {
+        Apartment apartment = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null);
+
+        doNothing().when(apartmentValidator).validateExistingApartment(apartment);
+        when(apartmentRepository.update(apartment)).thenReturn(0);
+
+        assertThatThrownBy(() -> underTest.updateApartment(apartment))
+                .isInstanceOf(ApartmentNotFoundException.class)
+                .hasMessage(String.format("Apartment with id %s does not exist", apartment.id()));
+
+        verify(apartmentRepository, times(1)).update(apartment);
+    }
+
+    @Test
+    public void testUpdateApartmentVersionConflict() {
+        Apartment apartment = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null).withVersion(3);
+
+        doNothing().when(apartmentValidator).validateExistingApartment(apartment);
+        when(apartmentRepository.update(apartment)).thenReturn(0);
+        when(apartmentRepository.existsInDatabase(apartment.id())).thenReturn(true);
+
+        assertThatThrownBy(() -> underTest.updateApartment(apartment))
+                .isInstanceOf(VersionConflictException.class)
+                .hasMessage(String.format("Apartment with id %s has been updated since version %s",
+                        apartment.id(), apartment.version()));
+
+        verify(apartmentRepository, times(1)).update(apartment);
+        verify(apartmentRepository, never()).exists(apartment.id());
+    }
+
+    @Test
+    public void testPatchApartment() throws Exception {
+        Apartment apartment = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null, 2);
+        Apartment patchedApartment = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 645000,
+                null, true, 1, 3, 2);
+        MergePatch patch = MergePatch.of(objectMapper,
+                objectMapper.readTree("{\"monthlyRent\": 645000, \"renterId\": 3}"));
+
+        when(apartmentRepository.findOne(apartment.id())).thenReturn(Optional.of(apartment));
+        doNothing().when(apartmentValidator).validateApartmentChanges(apartment, patchedApartment);
+        when(apartmentRepository.patch(apartment, patchedApartment)).thenReturn(1);
+
+        assertThatNoException().isThrownBy(() -> underTest.patchApartment(apartment.id(), patch, 2));
+
+        verify(apartmentValidator, times(1)).validateApartmentChanges(apartment, patchedApartment);
+        verify(apartmentRepository, times(1)).patch(apartment, patchedApartment);
+    }
+
+    @Test
+    public void testPatchApartmentVersionConflict() throws Exception {
+        Apartment apartment = new Apartment(1, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 1, null, 2);
+        MergePatch patch = MergePatch.of(objectMapper, objectMapper.readTree("{\"monthlyRent\": 645000}"));
+
+        when(apartmentRepository.findOne(apartment.id())).thenReturn(Optional.of(apartment));
+
+        assertThatThrownBy(() -> underTest.patchApartment(apartment.id(), patch, 1))
+                .isInstanceOf(VersionConflictException.class)
+                .hasMessage(String.format("Apartment with id %s has been updated since version 1", apartment.id()));
+
+        verifyNoInteractions(apartmentValidator);
+        verify(apartmentRepository, never()).patch(any(), any());
+    }
+
+    @Test
+    public void testPatchApartmentInvalidId() throws Exception {
+        MergePatch patch = MergePatch.of(objectMapper, objectMapper.readTree("{\"monthlyRent\": 645000}"));
+
+        when(apartmentRepository.findOne(1)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> underTest.patchApartment(1, patch, null))
+                .isInstanceOf(ApartmentNotFoundException.class)
+                .hasMessage("Apartment with id 1 does not exist");
+
+        verifyNoInteractions(apartmentValidator);
+    }
+
     @Test
     public void testUpdateApartmentNullId() {
         Apartment apartment = new Apartment(null, "Main Street Condo",
@@ -213,7 +485,6 @@ public class ApartmentServiceImplUnitTests {
                 1, "NY", "New York", 800, 608900,
                 null, true, 1, null);
 
-        when(apartmentRepository.exists(apartment.id())).thenReturn(true);
         doThrow(new UserNotFoundException(String.format("User with id %s does not exist", apartment.ownerId())))
                 .when(apartmentValidator).validateExistingApartment(apartment);
 
@@ -221,7 +492,6 @@ public class ApartmentServiceImplUnitTests {
                 .isInstanceOf(UserNotFoundException.class)
                 .hasMessage(String.format("User with id %s does not exist", apartment.ownerId()));
 
-        verify(apartmentRepository, times(1)).exists(apartment.id());
         verify(apartmentValidator, times(1)).validateExistingApartment(apartment);
         verify(apartmentRepository, times(0)).update(apartment);
     }
@@ -233,7 +503,6 @@ public class ApartmentServiceImplUnitTests {
                 1, "NY", "New York", 800, 608900,
                 null, true, 1, 2);
 
-        when(apartmentRepository.exists(apartment.id())).thenReturn(true);
         doThrow(new UserNotFoundException(String.format("User with id %s does not exist", apartment.renterId())))
                 .when(apartmentValidator).validateExistingApartment(apartment);
 
@@ -241,7 +510,6 @@ public class ApartmentServiceImplUnitTests {
                 .isInstanceOf(UserNotFoundException.class)
                 .hasMessage(String.format("User with id %s does not exist", apartment.renterId()));
 
-        verify(apartmentRepository, times(1)).exists(apartment.id());
         verify(apartmentValidator, times(1)).validateExistingApartment(apartment);
         verify(apartmentRepository, times(0)).update(apartment);
     }
@@ -253,7 +521,6 @@ public class ApartmentServiceImplUnitTests {
                 1, "NY", "New York", 800, 608900,
                 null, true, 1, 2);
 
-        when(apartmentRepository.exists(apartment.id())).thenReturn(true);
         doThrow(new DuplicateDataException(String.format("""
                     A user with id %s is renting a different apartment.
                     A user can only rent one apartment at a time.
@@ -267,7 +534,6 @@ public class ApartmentServiceImplUnitTests {
                     A user can only rent one apartment at a time.
                     """, apartment.renterId()));
 
-        verify(apartmentRepository, times(1)).exists(apartment.id());
         verify(apartmentValidator, times(1)).validateExistingApartment(apartment);
         verify(apartmentRepository, times(0)).update(apartment);
     }
@@ -293,50 +559,38 @@ public class ApartmentServiceImplUnitTests {
     public void testDeleteApartment() {
         int unoccupiedApartmentId = 1;
 
-        when(apartmentRepository.exists(unoccupiedApartmentId)).thenReturn(true);
-        doNothing().when(apartmentValidator).validateApartmentDeletion(unoccupiedApartmentId);
-        doNothing().when(apartmentRepository).delete(unoccupiedApartmentId);
+        when(apartmentRepository.deleteIfVacant(unoccupiedApartmentId)).thenReturn(ApartmentDeleteResult.DELETED);
 
         assertThatNoException().isThrownBy(() -> underTest.deleteApartment(unoccupiedApartmentId));
 
-        verify(apartmentRepository, times(1)).exists(unoccupiedApartmentId);
-        verify(apartmentValidator, times(1)).validateApartmentDeletion(unoccupiedApartmentId);
-        verify(apartmentRepository, times(1)).delete(unoccupiedApartmentId);
+        verify(apartmentRepository, times(1)).deleteIfVacant(unoccupiedApartmentId);
+        verifyNoInteractions(apartmentValidator);
     }
 
     @Test
     public void testDeleteApartmentInvalidId() {
         int invalidApartmentId = 2;
 
-        when(apartmentRepository.exists(invalidApartmentId)).thenReturn(false);
+        when(apartmentRepository.deleteIfVacant(invalidApartmentId)).thenReturn(ApartmentDeleteResult.NOT_FOUND);
 
         assertThatThrownBy(() -> underTest.deleteApartment(invalidApartmentId))
                 .isInstanceOf(ApartmentNotFoundException.class)
                 .hasMessage(String.format("Apartment with id %s does not exist", invalidApartmentId));
 
-        verify(apartmentRepository, times(1)).exists(invalidApartmentId);
-        verify(apartmentValidator, times(0)).validateApartmentDeletion(invalidApartmentId);
-        verify(apartmentRepository, times(0)).delete(invalidApartmentId);
+        verify(apartmentRepository, times(1)).deleteIfVacant(invalidApartmentId);
     }
 
     @Test
     public void testDeleteApartmentOccupiedApartment() {
         int occupiedApartment = 3;
 
-        when(apartmentRepository.exists(occupiedApartment)).thenReturn(true);
-        doThrow(new DeleteApartmentException(String.format("""
-                    Unable to delete apartment with id %s because it is occupied
-                    """, occupiedApartment)))
-                .when(apartmentValidator).validateApartmentDeletion(occupiedApartment);
+        when(apartmentRepository.deleteIfVacant(occupiedApartment)).thenReturn(ApartmentDeleteResult.OCCUPIED);
 
         assertThatThrownBy(() -> underTest.deleteApartment(occupiedApartment))
                 .isInstanceOf(DeleteApartmentException.class)
-                .hasMessage(String.format("""
-                    Unable to delete apartment with id %s because it is occupied
-                    """, occupiedApartment));
+                .hasMessage(String.format(
+                        "Unable to delete apartment with id %s because it is occupied", occupiedApartment));
 
-        verify(apartmentRepository, times(1)).exists(occupiedApartment);
-        verify(apartmentValidator, times(1)).validateApartmentDeletion(occupiedApartment);
-        verify(apartmentRepository, times(0)).delete(occupiedApartment);
+        verify(apartmentRepository, times(1)).deleteIfVacant(occupiedApartment);
     }
 }
@@ -1,7 +1,8 @@
 package com.auger.apartments.apartments;
 
 import com.auger.apartments.IntegrationTest;
-import com.auger.apartments.exceptions.DeleteApartmentException;
+import com.auger.apartments.batch.BatchItemResult;
+import com.auger.apartments.exceptions.ApartmentNotFoundException;
 import com.auger.apartments.exceptions.DuplicateDataException;
 import com.auger.apartments.exceptions.UserNotFoundException;
 import com.auger.apartments.users.User;
@@ -12,7 +13,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.jdbc.JdbcTestUtils;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatNoException;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
@@ -118,6 +122,35 @@ public class ApartmentValidatorIntegrationTests extends IntegrationTest {
         assertThatNoException().isThrownBy(() -> underTest.validateNewApartment(apartment));
     }
 
+    @Test
+    public void testValidateNewApartments() {
+        Apartment valid = new Apartment(null, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, user3.id(), user1.id());
+        Apartment invalidOwner = new Apartment(null, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 0, null);
+        Apartment takenRenter = new Apartment(null, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, user1.id(), user2.id());
+        Apartment renterTakenInBatch = new Apartment(null, "Comfy Studio",
+                "Studio space in downtown Manhattan. Great location", 0,
+                1, "NY", "New York", 400, 280000,
+                null, true, user3.id(), user1.id());
+
+        Map<Integer, BatchItemResult<Apartment>> rejections = underTest.validateNewApartments(
+                List.of(valid, invalidOwner, takenRenter, renterTakenInBatch));
+
+        assertThat(rejections).containsOnlyKeys(1, 2, 3);
+        assertThat(rejections.get(1).status()).isEqualTo(404);
+        assertThat(rejections.get(1).error()).isEqualTo("User with id 0 does not exist");
+        assertThat(rejections.get(2).status()).isEqualTo(409);
+        assertThat(rejections.get(3).status()).isEqualTo(409);
+    }
+
     @Test
     public void testValidateNewApartmentDuplicateRenterId() {
         Apartment apartment = new Apartment(null, "Main Street Condo",
@@ -161,6 +194,30 @@ public class ApartmentValidatorIntegrationTests extends IntegrationTest {
                     """, duplicateRenterIdApartment.renterId()));
     }
 
+    @Test
+    public void testValidateApartmentChanges() {
+        Apartment apartmentWithNewRenter = new Apartment(apartment3.id(), apartment3.title(),
+                "Newly renovated!", apartment3.numberOfBedrooms(), apartment3.numberOfBathrooms(),
+                apartment3.state(), apartment3.city(), apartment3.squareFeet(), apartment3.monthlyRent(),
+                null, false, apartment3.ownerId(), user2.id());
+        Apartment apartmentWithMissingOwner = new Apartment(apartment1.id(), apartment1.title(),
+                apartment1.description(), apartment1.numberOfBedrooms(), apartment1.numberOfBathrooms(),
+                apartment1.state(), apartment1.city(), apartment1.squareFeet(), apartment1.monthlyRent(),
+                null, true, 0, apartment1.renterId());
+
+        // the renter of apartment 1 is unchanged, so it is not checked against the renters of other apartments
+        assertThatNoException().isThrownBy(() -> underTest.validateApartmentChanges(apartment1, apartment1));
+        assertThatThrownBy(() -> underTest.validateApartmentChanges(apartment3, apartmentWithNewRenter))
+                .isInstanceOf(DuplicateDataException.class)
+                .hasMessage(String.format("""
+                    A user with id %s is renting a different apartment.
+                    A user can only rent one apartment at a time.
+                    """, user2.id()));
+        assertThatThrownBy(() -> underTest.validateApartmentChanges(apartment1, apartmentWithMissingOwner))
+                .isInstanceOf(UserNotFoundException.class)
+                .hasMessage("User with id 0 does not exist");
+    }
+
     @Test
     public void testVerifyOwnerExists() {
         int invalidOwnerId = 0;
@@ -227,12 +284,13 @@ public class ApartmentValidatorIntegrationTests extends IntegrationTest {
     }
 
     @Test
-    public void testValidateApartmentDeletion() {
-        assertThatNoException().isThrownBy(() -> underTest.validateApartmentDeletion(apartment3.id()));
-
-        assertThatThrownBy(() -> underTest.validateApartmentDeletion(apartment2.id()))
-                .isInstanceOf(DeleteApartmentException.class)
-                .hasMessage(String.format(
-                        "Unable to delete apartment with id %s because it is occupied", apartment2.id()));
+    public void testValidateExistingApartmentInvalidId() {
+        Apartment updatedApartment = new Apartment(0, "Main Street Condo",
+                "Great views!!!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, 0, 0);
+        assertThatThrownBy(() -> underTest.validateExistingApartment(updatedApartment))
+                .isInstanceOf(ApartmentNotFoundException.class)
+                .hasMessage(String.format("Apartment with id %s does not exist", updatedApartment.id()));
     }
 }
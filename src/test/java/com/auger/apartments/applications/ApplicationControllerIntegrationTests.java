@@ -3,13 +3,17 @@ package com.auger.apartments.applications;
 import com.auger.apartments.ControllerIntegrationTest;
 import com.auger.apartments.apartments.Apartment;
 import com.auger.apartments.users.User;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.patch.MergePatch;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.jdbc.JdbcTestUtils;
 
@@ -132,20 +136,20 @@ public class ApplicationControllerIntegrationTests extends ControllerIntegration
     }
 
     @Test
-    public void testGetAllApplications() {
+    public void testGetApplications() {
         Map<Integer, Application> applicationMap = new HashMap<>();
         applicationMap.put(application1.id(), application1);
         applicationMap.put(application2.id(), application2);
         applicationMap.put(application3.id(), application3);
 
-        ResponseEntity<List<Application>> getAllResponse = testRestTemplate
+        ResponseEntity<Page<Application>> getAllResponse = testRestTemplate
                 .exchange("/applications", HttpMethod.GET, null,
-                        new ParameterizedTypeReference<List<Application>>() {});
+                        new ParameterizedTypeReference<Page<Application>>() {});
 
         assertThat(getAllResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(getAllResponse.getBody().size()).isEqualTo(applicationMap.size());
+        assertThat(getAllResponse.getBody().items().size()).isEqualTo(applicationMap.size());
 
-        for (Application application : getAllResponse.getBody()) {
+        for (Application application : getAllResponse.getBody().items()) {
             Application createdApplication = applicationMap.get(application.id());
             assertApplicationsAreEqual(application, createdApplication);
             applicationMap.remove(application.id());
@@ -170,6 +174,22 @@ public class ApplicationControllerIntegrationTests extends ControllerIntegration
         assertApplicationsAreEqual(expectedApplication, retrievedApplication);
     }
 
+    @Test
+    public void testPatchApplicationAttributeThatIsNotPatchable() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf(MergePatch.MEDIA_TYPE));
+        HttpEntity<String> requestEntity = new HttpEntity<>(String.format("{\"userId\": %s}", user3.id()), headers);
+        ResponseEntity<String> patchResponse = testRestTemplate
+                .exchange("/applications/{id}", HttpMethod.PATCH, requestEntity, String.class, application1.id());
+
+        assertThat(patchResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(patchResponse.getBody())
+                .isEqualTo("userId cannot be patched. Attributes that can be patched are active, successful");
+        Application retrievedApplication = testRestTemplate
+                .getForEntity("/applications/{id}", Application.class, application1.id()).getBody();
+        assertApplicationsAreEqual(application1, retrievedApplication);
+    }
+
     @Test
     public void testUpdateApplicationInvalidId() {
         Application updatedApplication = new Application(0, null,
@@ -2,11 +2,14 @@ package com.auger.apartments.applications;
 
 import com.auger.apartments.exceptions.ApplicationNotFoundException;
 import com.auger.apartments.exceptions.UserNotFoundException;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -14,12 +17,15 @@ import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.auger.apartments.TestUtils.assertApplicationsAreEqual;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ApplicationController.class)
@@ -114,6 +120,26 @@ public class ApplicationControllerUnitTests {
         verify(applicationService, times(1)).getApplication(application.id());
     }
 
+    @Test
+    public void testGetApplicationNotModified() throws Exception {
+        Application application =
+                new Application(1, null, true, false, 1, 2).withVersion(3);
+
+        when(applicationService.getApplication(application.id())).thenReturn(Optional.of(application));
+
+        String eTag = mockMvc.perform(get("/applications/{id}", application.id()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/applications/{id}", application.id()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+    }
+
     @Test
     public void testGetApplicationInvalidId() throws Exception {
         int invalidApplicationId = 1;
@@ -130,7 +156,7 @@ public class ApplicationControllerUnitTests {
     }
 
     @Test
-    public void testGetAllApplications() throws Exception {
+    public void testGetApplications() throws Exception {
         Application application1 =
                 new Application(1, null, true, false, 1, 2);
         Application application2 =
@@ -139,37 +165,71 @@ public class ApplicationControllerUnitTests {
                 new Application(3, null, true, false, 3, 4);
 
         List<Application> applicationList = List.of(application1, application2, application3);
-        when(applicationService.getAllApplications()).thenReturn(applicationList);
+        when(applicationService.getApplications(new PageRequest(0, 50))).thenReturn(new Page<>(applicationList, null));
 
         MvcResult result = mockMvc.perform(get("/applications"))
                 .andExpect(status().isOk())
                 .andReturn();
 
         String responseString = result.getResponse().getContentAsString();
-        CollectionType collectionType = objectMapper.getTypeFactory()
-                .constructCollectionType(List.class, Application.class);
-        List<Application> allApplications = objectMapper.readValue(responseString, collectionType);
+        JavaType pageType = objectMapper.getTypeFactory()
+                .constructParametricType(Page.class, Application.class);
+        Page<Application> allApplications = objectMapper.readValue(responseString, pageType);
 
-        assertThat(allApplications).isEqualTo(applicationList);
-        verify(applicationService, times(1)).getAllApplications();
+        assertThat(allApplications.items()).isEqualTo(applicationList);
+        assertThat(allApplications.nextCursor()).isNull();
+        verify(applicationService, times(1)).getApplications(new PageRequest(0, 50));
     }
 
     @Test
-    public void testGetAllApplicationsEmptyResponse() throws Exception {
+    public void testGetApplicationsEmptyResponse() throws Exception {
         List<Application> empytList = List.of();
-        when(applicationService.getAllApplications()).thenReturn(empytList);
+        when(applicationService.getApplications(new PageRequest(0, 50))).thenReturn(new Page<>(empytList, null));
 
         MvcResult result = mockMvc.perform(get("/applications"))
                 .andExpect(status().isOk())
                 .andReturn();
 
         String responseString = result.getResponse().getContentAsString();
-        CollectionType collectionType = objectMapper.getTypeFactory()
-                .constructCollectionType(List.class, Application.class);
-        List<Application> emptyListResponse = objectMapper.readValue(responseString, collectionType);
+        JavaType pageType = objectMapper.getTypeFactory()
+                .constructParametricType(Page.class, Application.class);
+        Page<Application> emptyListResponse = objectMapper.readValue(responseString, pageType);
+
+        assertThat(emptyListResponse.items()).isEqualTo(empytList);
+        assertThat(emptyListResponse.nextCursor()).isNull();
+        verify(applicationService, times(1)).getApplications(new PageRequest(0, 50));
+    }
 
-        assertThat(emptyListResponse).isEqualTo(empytList);
-        verify(applicationService, times(1)).getAllApplications();
+    @Test
+    public void testExportApplications() throws Exception {
+        Application application1 =
+                new Application(1, null, true, false, 1, 2);
+        Application application2 =
+                new Application(2, null, true, false, 2, 3);
+        Application application3 =
+                new Application(3, null, true, false, 3, 4);
+
+        doAnswer(invocation -> {
+            Consumer<Application> consumer = invocation.getArgument(0);
+            consumer.accept(application1);
+            consumer.accept(application2);
+            consumer.accept(application3);
+            return null;
+        }).when(applicationService).exportApplications(any());
+
+        MvcResult result = mockMvc.perform(get("/applications").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String expectedResponse = objectMapper.writeValueAsString(application1) + "\n"
+                + objectMapper.writeValueAsString(application2) + "\n"
+                + objectMapper.writeValueAsString(application3) + "\n";
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(expectedResponse));
+        verify(applicationService, times(1)).exportApplications(any());
     }
 
     @Test
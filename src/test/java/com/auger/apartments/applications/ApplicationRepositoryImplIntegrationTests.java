@@ -9,13 +9,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.jdbc.JdbcTestUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static com.auger.apartments.TestUtils.assertApartmentsAreEqual;
 import static com.auger.apartments.TestUtils.assertApplicationsAreEqual;
+import static com.auger.apartments.TestUtils.assertUsersAreEqual;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 public class ApplicationRepositoryImplIntegrationTests extends IntegrationTest {
@@ -91,6 +96,19 @@ public class ApplicationRepositoryImplIntegrationTests extends IntegrationTest {
         assertApplicationsAreEqual(createdApplication, retrievedApplication);
     }
 
+    @Test
+    public void testCreateAllReturnsStoredValues() {
+        // a new application is always active and not successful, whatever the request says
+        List<Application> createdApplications = underTest.createAll(List.of(
+                new Application(null, null, false, true, user3.id(), apartment2.id())));
+
+        assertThat(createdApplications.size()).isEqualTo(1);
+        Application createdApplication = createdApplications.get(0);
+        assertThat(createdApplication.active()).isTrue();
+        assertThat(createdApplication.successful()).isFalse();
+        assertApplicationsAreEqual(createdApplication, underTest.findOne(createdApplication.id()).get());
+    }
+
     @Test
     public void testFindOneInvalidId() {
         Optional<Application> optionalApplication = underTest.findOne(0);
@@ -98,13 +116,14 @@ public class ApplicationRepositoryImplIntegrationTests extends IntegrationTest {
     }
 
     @Test
-    public void testFindAll() {
+    public void testStreamAll() {
         Map<Integer, Application> applicationMap = new HashMap<>();
         applicationMap.put(application1.id(), application1);
         applicationMap.put(application2.id(), application2);
         applicationMap.put(application3.id(), application3);
 
-        List<Application> applications = underTest.findAll();
+        List<Application> applications = new ArrayList<>();
+        underTest.streamAll(applications::add);
 
         assertThat(getRowCount()).isEqualTo(applicationMap.size());
         assertThat(applications.size()).isEqualTo(applicationMap.size());
@@ -117,12 +136,105 @@ public class ApplicationRepositoryImplIntegrationTests extends IntegrationTest {
         assertThat(applicationMap.size()).isZero();
     }
 
+    @Test
+    public void testExportCsv() throws Exception {
+        jdbcTemplate.update("UPDATE applications SET active = false, date_submitted = ? WHERE id = ?",
+                LocalDate.of(2024, 1, 1), application2.id());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        underTest.exportCsv(new ApplicationExportCriteria(false, null, null, LocalDate.of(2024, 1, 1)), null)
+                .writeTo(outputStream);
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(String.format(
+                "id,dateSubmitted,active,successful,userId,apartmentId\n%s,2024-01-01,f,f,%s,%s\n",
+                application2.id(), user2.id(), apartment2.id()));
+
+        outputStream.reset();
+        underTest.exportCsv(new ApplicationExportCriteria(true, false, LocalDate.now(), null), List.of("id"))
+                .writeTo(outputStream);
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8).lines().count()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFindPage() {
+        List<Application> firstPage = underTest.findPage(0, 2);
+        assertThat(firstPage.size()).isEqualTo(2);
+        assertApplicationsAreEqual(firstPage.get(0), application1);
+        assertApplicationsAreEqual(firstPage.get(1), application2);
+
+        List<Application> secondPage = underTest.findPage(firstPage.get(1).id(), 2);
+        assertThat(secondPage.size()).isEqualTo(1);
+        assertApplicationsAreEqual(secondPage.get(0), application3);
+
+        List<Application> emptyPage = underTest.findPage(application3.id(), 2);
+        assertThat(emptyPage.size()).isZero();
+    }
+
+    @Test
+    public void testFindPageByApartmentWithUsers() {
+        List<ApplicationWithUser> firstPage = underTest.findPageByApartmentWithUsers(apartment1.id(), 0, 1);
+        assertThat(firstPage.size()).isEqualTo(1);
+        assertApplicationsAreEqual(firstPage.get(0).application(), application1);
+        assertUsersAreEqual(firstPage.get(0).user(), user2);
+        assertThat(firstPage.get(0).user().version()).isEqualTo(user2.version());
+
+        List<ApplicationWithUser> secondPage = underTest.findPageByApartmentWithUsers(apartment1.id(),
+                application1.id(), 2);
+        assertThat(secondPage.size()).isEqualTo(1);
+        assertApplicationsAreEqual(secondPage.get(0).application(), application3);
+        assertUsersAreEqual(secondPage.get(0).user(), user3);
+
+        List<Application> applications = underTest.findPageByApartment(apartment1.id(), 0, 10);
+        assertThat(applications.size()).isEqualTo(2);
+        assertApplicationsAreEqual(applications.get(0), application1);
+        assertApplicationsAreEqual(applications.get(1), application3);
+    }
+
+    @Test
+    public void testFindPageByUserWithApartments() {
+        List<ApplicationWithApartment> applications = underTest.findPageByUserWithApartments(user2.id(), 0, 10);
+        assertThat(applications.size()).isEqualTo(2);
+        assertApplicationsAreEqual(applications.get(0).application(), application1);
+        assertApartmentsAreEqual(applications.get(0).apartment(), apartment1);
+        assertApplicationsAreEqual(applications.get(1).application(), application2);
+        assertApartmentsAreEqual(applications.get(1).apartment(), apartment2);
+        assertThat(applications.get(1).apartment().version()).isEqualTo(apartment2.version());
+
+        assertThat(underTest.findPageByUserWithApartments(user1.id(), 0, 10).size()).isZero();
+        assertThat(underTest.findPageByUser(user3.id(), 0, 10).size()).isEqualTo(1);
+    }
+
+    /**
+     * Grows the applications table and checks that the applications of one apartment are read from the index on
+     * apartment_id rather than by scanning the whole table.
+     */
+    @Test
+    public void testFindPageByApartmentUsesIndex() {
+        jdbcTemplate.update("""
+                INSERT INTO applications (date_submitted, active, successful, user_id, apartment_id)
+                SELECT CURRENT_DATE, true, false, ?, ?
+                FROM generate_series(1, 5000);
+                """, user3.id(), apartment2.id());
+        jdbcTemplate.execute("ANALYZE applications");
+
+        String plan = String.join("\n", jdbcTemplate.queryForList("""
+                EXPLAIN SELECT applications.*, users.first_name
+                FROM applications
+                JOIN users ON users.id = applications.user_id
+                WHERE applications.apartment_id = ? AND applications.id > ?
+                ORDER BY applications.id
+                LIMIT ?;
+                """, String.class, apartment1.id(), 0, 51));
+        assertThat(plan).contains("applications_apartment_id_idx");
+    }
+
     @Test
     public void testUpdate() {
         Application updatedApplication = new Application(application1.id(), null, false,
                 true, application1.userId(), application1.apartmentId());
 
-        underTest.update(updatedApplication);
+        assertThat(underTest.update(updatedApplication)).isEqualTo(1);
 
         assertThat(getRowCount()).isEqualTo(3);
 
@@ -135,6 +247,22 @@ public class ApplicationRepositoryImplIntegrationTests extends IntegrationTest {
         assertApplicationsAreEqual(expectedApplication, retrievedApplication);
     }
 
+    @Test
+    public void testUpdateVersion() {
+        assertThat(underTest.findOne(application1.id()).get().version()).isEqualTo(0);
+
+        Application updatedApplication = new Application(application1.id(), null, false,
+                true, application1.userId(), application1.apartmentId(), 0);
+        assertThat(underTest.update(updatedApplication)).isEqualTo(1);
+        assertThat(underTest.findOne(application1.id()).get().version()).isEqualTo(1);
+
+        // the update above moved the application past version 0
+        assertThat(underTest.update(updatedApplication)).isEqualTo(0);
+        assertThat(underTest.update(updatedApplication.withVersion(1))).isEqualTo(1);
+        assertThat(underTest.update(updatedApplication.withVersion(null))).isEqualTo(1);
+        assertThat(underTest.findOne(application1.id()).get().version()).isEqualTo(3);
+    }
+
     @Test
     public void testExists() {
         assertThat(underTest.exists(0)).isFalse();
@@ -146,7 +274,7 @@ public class ApplicationRepositoryImplIntegrationTests extends IntegrationTest {
         assertThat(getRowCount()).isEqualTo(3);
         assertThat(underTest.exists(application1.id())).isTrue();
 
-        underTest.delete(application1.id());
+        assertThat(underTest.delete(application1.id())).isEqualTo(1);
 
         assertThat(getRowCount()).isEqualTo(2);
         assertThat(underTest.exists(application1.id())).isFalse();
@@ -1,16 +1,26 @@
 package com.auger.apartments.applications;
 
+import com.auger.apartments.batch.BatchItemResult;
+import com.auger.apartments.batch.BatchResult;
 import com.auger.apartments.exceptions.ApartmentNotFoundException;
 import com.auger.apartments.exceptions.ApplicationNotFoundException;
+import com.auger.apartments.exceptions.InvalidRequestException;
 import com.auger.apartments.exceptions.UserNotFoundException;
+import com.auger.apartments.exceptions.VersionConflictException;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.auger.apartments.TestUtils.assertApplicationsAreEqual;
 import static org.assertj.core.api.AssertionsForClassTypes.*;
@@ -43,6 +53,36 @@ public class ApplicationServiceImplUnitTests {
         assertApplicationsAreEqual(application, createdApplication);
     }
 
+    @Test
+    public void testCreateApplications() {
+        Application application1 = new Application(null, null, true, false, 1, 2);
+        Application application2 = new Application(null, null, true, false, 1, 0);
+        Application createdApplication1 = new Application(1, null, true, false, 1, 2);
+        List<Application> applications = List.of(application1, application2);
+
+        when(applicationValidator.validateNewApplications(applications)).thenReturn(Map.of(1, BatchItemResult.rejected(
+                1, HttpStatus.NOT_FOUND, "Apartment with id 0 does not exist")));
+        when(applicationRepository.createAll(List.of(application1))).thenReturn(List.of(createdApplication1));
+
+        BatchResult<Application> result = underTest.createApplications(applications);
+
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(1);
+        assertThat(result.items().get(0)).isEqualTo(BatchItemResult.created(0, createdApplication1));
+        assertThat(result.items().get(1).status()).isEqualTo(404);
+        verify(applicationRepository, times(1)).createAll(List.of(application1));
+    }
+
+    @Test
+    public void testCreateApplicationsNullItem() {
+        List<Application> applications = Arrays.asList(new Application(null, null, true, false, 1, 2), null);
+
+        assertThatThrownBy(() -> underTest.createApplications(applications))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("Item 1 of the batch is null");
+        verifyNoInteractions(applicationValidator, applicationRepository);
+    }
+
     @Test
     public void testCreateApplicationInvalidUser() {
         Application application =
@@ -94,7 +134,7 @@ public class ApplicationServiceImplUnitTests {
     }
 
     @Test
-    public void testGetAllApplications() {
+    public void testGetApplications() {
         Application application1 =
                 new Application(1, null, true, false, 1, 2);
         Application application2 =
@@ -105,17 +145,66 @@ public class ApplicationServiceImplUnitTests {
         List<Application> emptyList = List.of();
         List<Application> applicationList = List.of(application1, application2, application3);
 
-        when(applicationRepository.findAll()).thenReturn(emptyList);
-        List<Application> noApplications = underTest.getAllApplications();
-        assertThat(noApplications.size()).isZero();
-        assertThat(noApplications).isEqualTo(emptyList);
-        verify(applicationRepository, times(1)).findAll();
+        when(applicationRepository.findPage(0, 3)).thenReturn(emptyList);
+        Page<Application> noApplications = underTest.getApplications(new PageRequest(0, 2));
+        assertThat(noApplications.items()).isEqualTo(emptyList);
+        assertThat(noApplications.nextCursor()).isNull();
+        verify(applicationRepository, times(1)).findPage(0, 3);
+
+        when(applicationRepository.findPage(0, 3)).thenReturn(applicationList);
+        Page<Application> firstPage = underTest.getApplications(new PageRequest(0, 2));
+        assertThat(firstPage.items()).isEqualTo(List.of(application1, application2));
+        assertThat(firstPage.nextCursor()).isNotNull();
+        assertThat(PageRequest.of(firstPage.nextCursor(), 2).afterId()).isEqualTo(application2.id());
+        verify(applicationRepository, times(2)).findPage(0, 3);
+
+        when(applicationRepository.findPage(application2.id(), 3)).thenReturn(List.of(application3));
+        Page<Application> lastPage = underTest.getApplications(PageRequest.of(firstPage.nextCursor(), 2));
+        assertThat(lastPage.items()).isEqualTo(List.of(application3));
+        assertThat(lastPage.nextCursor()).isNull();
+        verify(applicationRepository, times(1)).findPage(application2.id(), 3);
+    }
+
+    @Test
+    public void testGetApartmentApplicationsWithUsers() {
+        Application application = new Application(1, null, true, false, 1, 2);
+        ApplicationWithUser applicationWithUser = new ApplicationWithUser(application, null);
+
+        when(applicationRepository.findPageByApartmentWithUsers(2, 0, 2)).thenReturn(List.of(applicationWithUser));
+
+        Page<ApplicationWithUser> page = underTest.getApartmentApplicationsWithUsers(2, new PageRequest(0, 1));
+        assertThat(page.items()).isEqualTo(List.of(applicationWithUser));
+        assertThat(page.nextCursor()).isNull();
+        verifyNoInteractions(applicationValidator);
+    }
+
+    @Test
+    public void testGetApartmentApplicationsInvalidApartment() {
+        when(applicationRepository.findPageByApartmentWithUsers(2, 0, 51)).thenReturn(List.of());
+        doThrow(new ApartmentNotFoundException("Apartment with id 2 does not exist"))
+                .when(applicationValidator).verifyApartmentExists(2);
+
+        assertThatThrownBy(() -> underTest.getApartmentApplicationsWithUsers(2, new PageRequest(0, 50)))
+                .isInstanceOf(ApartmentNotFoundException.class)
+                .hasMessage("Apartment with id 2 does not exist");
+    }
+
+    @Test
+    public void testGetUserApplicationsEmpty() {
+        when(applicationRepository.findPageByUser(1, 0, 51)).thenReturn(List.of());
 
-        when(applicationRepository.findAll()).thenReturn(applicationList);
-        List<Application> multipleApplications = underTest.getAllApplications();
-        assertThat(multipleApplications.size()).isEqualTo(applicationList.size());
-        assertThat(multipleApplications).isEqualTo(applicationList);
-        verify(applicationRepository, times(2)).findAll();
+        Page<Application> page = underTest.getUserApplications(1, new PageRequest(0, 50));
+        assertThat(page.items()).isEqualTo(List.of());
+        verify(applicationValidator, times(1)).verifyUserExists(1);
+    }
+
+    @Test
+    public void testExportApplications() {
+        Consumer<Application> consumer = application -> {};
+
+        underTest.exportApplications(consumer);
+
+        verify(applicationRepository, times(1)).streamAll(consumer);
     }
 
     @Test
@@ -123,12 +212,10 @@ public class ApplicationServiceImplUnitTests {
         Application application =
                 new Application(1, null, true, false, 1, 2);
 
-        when(applicationRepository.exists(application.id())).thenReturn(true);
-        doNothing().when(applicationRepository).update(application);
+        when(applicationRepository.update(application)).thenReturn(1);
 
         assertThatNoException().isThrownBy(() -> underTest.updateApplication(application));
 
-        verify(applicationRepository, times(1)).exists(application.id());
         verify(applicationRepository, times(1)).update(application);
     }
 
@@ -137,14 +224,30 @@ public class ApplicationServiceImplUnitTests {
         Application application =
                 new Application(0, null, true, false, 1, 2);
 
-        when(applicationRepository.exists(application.id())).thenReturn(false);
+        when(applicationRepository.update(application)).thenReturn(0);
 
         assertThatThrownBy(() -> underTest.updateApplication(application))
                 .isInstanceOf(ApplicationNotFoundException.class)
                 .hasMessage(String.format("Application with id %s does not exist", application.id()));
 
-        verify(applicationRepository, times(1)).exists(application.id());
-        verify(applicationRepository, times(0)).update(application);
+        verify(applicationRepository, times(1)).update(application);
+    }
+
+    @Test
+    public void testUpdateApplicationVersionConflict() {
+        Application application =
+                new Application(1, null, true, false, 1, 2).withVersion(3);
+
+        when(applicationRepository.update(application)).thenReturn(0);
+        when(applicationRepository.existsInDatabase(application.id())).thenReturn(true);
+
+        assertThatThrownBy(() -> underTest.updateApplication(application))
+                .isInstanceOf(VersionConflictException.class)
+                .hasMessage(String.format("Application with id %s has been updated since version %s",
+                        application.id(), application.version()));
+
+        verify(applicationRepository, times(1)).update(application);
+        verify(applicationRepository, never()).exists(application.id());
     }
 
     @Test
@@ -180,11 +283,9 @@ public class ApplicationServiceImplUnitTests {
     public void testDeleteApplication() {
         int validApplicationId = 1;
 
-        when(applicationRepository.exists(validApplicationId)).thenReturn(true);
-        doNothing().when(applicationRepository).delete(validApplicationId);
+        when(applicationRepository.delete(validApplicationId)).thenReturn(1);
 
         assertThatNoException().isThrownBy(() -> underTest.deleteApplication(validApplicationId));
-        verify(applicationRepository, times(1)).exists(validApplicationId);
         verify(applicationRepository, times(1)).delete(validApplicationId);
     }
 
@@ -192,12 +293,11 @@ public class ApplicationServiceImplUnitTests {
     public void testDeleteApplicationInvalidId() {
         int invalidApplicationId = 2;
 
-        when(applicationRepository.exists(invalidApplicationId)).thenReturn(false);
+        when(applicationRepository.delete(invalidApplicationId)).thenReturn(0);
 
         assertThatThrownBy(() -> underTest.deleteApplication(invalidApplicationId))
                 .isInstanceOf(ApplicationNotFoundException.class)
                 .hasMessage(String.format("Application with id %s does not exist", invalidApplicationId));
-        verify(applicationRepository, times(1)).exists(invalidApplicationId);
-        verify(applicationRepository, times(0)).delete(invalidApplicationId);
+        verify(applicationRepository, times(1)).delete(invalidApplicationId);
     }
 }
@@ -0,0 +1,68 @@
+package com.auger.apartments.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WaitLimitingDataSourceUnitTests {
+
+    @Mock
+    private DataSource targetDataSource;
+
+    private WaitLimitingDataSource underTest;
+
+    @BeforeEach
+    public void setUp() {
+        underTest = new WaitLimitingDataSource(targetDataSource, 1, 1);
+    }
+
+    @Test
+    public void testGetConnectionBeyondLimit() throws SQLException {
+        when(targetDataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+
+        underTest.getConnection();
+        underTest.getConnection();
+
+        assertThat(underTest.availablePermits()).isEqualTo(0);
+        assertThatThrownBy(() -> underTest.getConnection())
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessage("Every database connection is in use and 1 requests are already waiting for one");
+    }
+
+    @Test
+    public void testCloseReleasesPermitOnce() throws SQLException {
+        Connection target = mock(Connection.class);
+        when(targetDataSource.getConnection()).thenReturn(target);
+
+        Connection connection = underTest.getConnection();
+        connection.close();
+        connection.close();
+
+        verify(target, times(2)).close();
+        assertThat(underTest.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFailedGetConnectionReleasesPermit() throws SQLException {
+        when(targetDataSource.getConnection()).thenThrow(new SQLTransientConnectionException("Timed out"));
+
+        assertThatThrownBy(() -> underTest.getConnection()).isInstanceOf(SQLTransientConnectionException.class);
+
+        assertThat(underTest.availablePermits()).isEqualTo(2);
+    }
+}
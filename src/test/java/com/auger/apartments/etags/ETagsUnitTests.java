@@ -0,0 +1,93 @@
+package com.auger.apartments.etags;
+
+import com.auger.apartments.exceptions.InvalidRequestException;
+import com.auger.apartments.exceptions.VersionConflictException;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.users.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ETagsUnitTests {
+
+    private final User user = new User(1, "John", "Rogers", "john@gmail.com", "1234567894",
+            LocalDate.of(1999, 4, 28), LocalDate.of(2024, 1, 1));
+
+    @Test
+    public void testSameContentSameTag() {
+        User copy = new User(1, "John", "Rogers", "john@gmail.com", "1234567894",
+                LocalDate.of(1999, 4, 28), LocalDate.of(2024, 1, 1));
+
+        assertThat(ETags.of(user)).isEqualTo(ETags.of(copy));
+        assertThat(ETags.of(user)).startsWith("\"").endsWith("\"").doesNotStartWith("W/");
+    }
+
+    @Test
+    public void testChangedFieldChangesTag() {
+        User renamed = new User(1, "Jon", "Rogers", "john@gmail.com", "1234567894",
+                LocalDate.of(1999, 4, 28), LocalDate.of(2024, 1, 1));
+
+        assertThat(ETags.of(user)).isNotEqualTo(ETags.of(renamed));
+    }
+
+    @Test
+    public void testFieldBoundariesAreDistinguished() {
+        User first = new User(1, "Ann", "Elise", "a@gmail.com", "1234567894",
+                LocalDate.of(1999, 4, 28), LocalDate.of(2024, 1, 1));
+        User second = new User(1, "AnnE", "lise", "a@gmail.com", "1234567894",
+                LocalDate.of(1999, 4, 28), LocalDate.of(2024, 1, 1));
+
+        assertThat(ETags.of(first)).isNotEqualTo(ETags.of(second));
+    }
+
+    @Test
+    public void testPages() {
+        Page<User> page = new Page<>(List.of(user), null);
+        Page<User> pageWithCursor = new Page<>(List.of(user), "aWQ6MQ");
+        Page<User> emptyPage = new Page<>(List.of(), null);
+
+        assertThat(ETags.of(page)).isEqualTo(ETags.of(new Page<>(List.of(user), null)));
+        assertThat(ETags.of(page)).isNotEqualTo(ETags.of(pageWithCursor));
+        assertThat(ETags.of(page)).isNotEqualTo(ETags.of(emptyPage));
+    }
+
+    @Test
+    public void testSelectedFields() {
+        Map<String, Object> firstName = Map.of("id", 1, "firstName", "John");
+        Map<String, Object> lastName = Map.of("id", 1, "lastName", "John");
+
+        assertThat(ETags.of(firstName)).isEqualTo(ETags.of(Map.of("id", 1, "firstName", "John")));
+        assertThat(ETags.of(firstName)).isNotEqualTo(ETags.of(lastName));
+        assertThat(ETags.of(firstName)).isNotEqualTo(ETags.of(Map.of("id", 1, "firstName", "Bob")));
+    }
+
+    @Test
+    public void testVersions() {
+        assertThat(ETags.ofVersion(3)).isEqualTo("\"3\"");
+        assertThat(ETags.versionHeaders(3).getETag()).isEqualTo("\"3\"");
+        assertThat(ETags.versionHeaders(null).getETag()).isNull();
+    }
+
+    @Test
+    public void testExpectedVersion() {
+        assertThat(ETags.expectedVersion(null, 2)).isEqualTo(2);
+        assertThat(ETags.expectedVersion(null, null)).isNull();
+        assertThat(ETags.expectedVersion("\"3\"", 2)).isEqualTo(3);
+        assertThat(ETags.expectedVersion("*", 2)).isNull();
+    }
+
+    @Test
+    public void testExpectedVersionCannotMatch() {
+        assertThatThrownBy(() -> ETags.expectedVersion("W/\"3\"", null))
+                .isInstanceOf(VersionConflictException.class);
+        assertThatThrownBy(() -> ETags.expectedVersion(ETags.of(user), null))
+                .isInstanceOf(VersionConflictException.class);
+        assertThatThrownBy(() -> ETags.expectedVersion("\"3\", \"4\"", null))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+}
@@ -0,0 +1,106 @@
+package com.auger.apartments.existence;
+
+import com.auger.apartments.IntegrationTest;
+import com.auger.apartments.apartments.Apartment;
+import com.auger.apartments.users.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class ExistenceIndexesIntegrationTests extends IntegrationTest {
+
+    private static final Duration NOTIFICATION_TIMEOUT = Duration.ofSeconds(5);
+
+    @Autowired
+    ExistenceIndexes underTest;
+
+    private User user1;
+    private Apartment apartment1;
+
+    @BeforeEach
+    public void addData() {
+        User u1 = new User(0, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
+        user1 = userRepository.create(u1);
+
+        Apartment apt1 = new Apartment(null, "Main Street Condo",
+                "A spacious condo with brand new appliances and great views!", 2,
+                1, "NY", "New York", 800, 608900,
+                null, true, user1.id(), null);
+        apartment1 = apartmentRepository.create(apt1);
+    }
+
+    @AfterEach
+    public void clearTables() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "apartments");
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "users");
+    }
+
+    @Test
+    public void testCreateAddsIdToIndex() {
+        assertThat(underTest.forTable("users").contains(user1.id())).isTrue();
+        assertThat(underTest.forTable("apartments").contains(apartment1.id())).isTrue();
+    }
+
+    @Test
+    public void testRowCreatedElsewhereIsFoundInDatabase() {
+        // simulates an insert made by another node, which this node's index never saw
+        jdbcTemplate.update("""
+                INSERT INTO users (first_name, last_name, email, phone_number, birth_date, date_joined)
+                VALUES ('Bob', 'Daly', 'bob@gmail.com', '8456320985', '1994-10-11', CURRENT_DATE);
+                """);
+        int id = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'bob@gmail.com'", Integer.class);
+        assertThat(underTest.forTable("users").contains(id)).isFalse();
+
+        assertThat(userRepository.exists(id)).isTrue();
+        assertThat(underTest.forTable("users").contains(id)).isTrue();
+    }
+
+    @Test
+    public void testRowDeletedElsewhereIsRemovedFromIndex() {
+        // simulates a delete made by another node
+        jdbcTemplate.update("DELETE FROM apartments WHERE id = ?", apartment1.id());
+
+        assertThat(eventually(() -> !apartmentRepository.exists(apartment1.id()))).isTrue();
+    }
+
+    @Test
+    public void testCascadedDeleteIsRemovedFromIndex() {
+        userRepository.delete(user1.id());
+
+        assertThat(userRepository.exists(user1.id())).isFalse();
+        assertThat(eventually(() -> !apartmentRepository.exists(apartment1.id()))).isTrue();
+    }
+
+    @Test
+    public void testHandleDeletionIgnoresUnknownTables() {
+        underTest.handleDeletion("unknown:1");
+        underTest.handleDeletion("users:" + user1.id());
+
+        assertThat(underTest.forTable("users").contains(user1.id())).isFalse();
+    }
+
+    private static boolean eventually(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + NOTIFICATION_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return condition.getAsBoolean();
+    }
+}
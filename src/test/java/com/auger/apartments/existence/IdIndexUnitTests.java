@@ -0,0 +1,79 @@
+package com.auger.apartments.existence;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class IdIndexUnitTests {
+
+    private final IdIndex underTest = new IdIndex("users");
+
+    @Test
+    public void testAddAndContains() {
+        assertThat(underTest.contains(1)).isFalse();
+
+        underTest.add(1);
+        underTest.add(1_000_000);
+
+        assertThat(underTest.contains(1)).isTrue();
+        assertThat(underTest.contains(1_000_000)).isTrue();
+        assertThat(underTest.contains(2)).isFalse();
+        assertThat(underTest.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testRemove() {
+        underTest.add(5);
+        underTest.remove(5);
+        underTest.remove(6);
+
+        assertThat(underTest.contains(5)).isFalse();
+        assertThat(underTest.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testClear() {
+        underTest.add(5);
+        underTest.add(7);
+        underTest.clear();
+
+        assertThat(underTest.contains(5)).isFalse();
+        assertThat(underTest.contains(7)).isFalse();
+    }
+
+    @Test
+    public void testAddIfUnchanged() {
+        long removals = underTest.removals();
+
+        assertThat(underTest.addIfUnchanged(5, removals)).isTrue();
+        assertThat(underTest.contains(5)).isTrue();
+    }
+
+    @Test
+    public void testAddIfUnchangedAfterRemoval() {
+        // an exists query finds the row, then the row is deleted before the id is added
+        long removals = underTest.removals();
+        underTest.remove(5);
+
+        assertThat(underTest.addIfUnchanged(5, removals)).isFalse();
+        assertThat(underTest.contains(5)).isFalse();
+    }
+
+    @Test
+    public void testAddIfUnchangedAfterClear() {
+        long removals = underTest.removals();
+        underTest.clear();
+
+        assertThat(underTest.addIfUnchanged(5, removals)).isFalse();
+        assertThat(underTest.contains(5)).isFalse();
+    }
+
+    @Test
+    public void testNegativeIdsAreIgnored() {
+        underTest.add(-1);
+        underTest.remove(-1);
+
+        assertThat(underTest.contains(-1)).isFalse();
+        assertThat(underTest.size()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,64 @@
+package com.auger.apartments.export;
+
+import com.auger.apartments.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+public class CsvCopyUnitTests {
+
+    private static final Map<String, String> COLUMNS = columns();
+
+    private static Map<String, String> columns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("id", "id");
+        columns.put("city", "city");
+        columns.put("monthlyRent", "monthly_rent");
+        return columns;
+    }
+
+    @Test
+    public void testSqlWithEveryColumn() throws Exception {
+        CsvCopy underTest = CsvCopy.of(null, "apartments", COLUMNS, null);
+
+        assertThat(underTest.sql(true)).isEqualTo(
+                "COPY (SELECT id AS \"id\", city AS \"city\", monthly_rent AS \"monthlyRent\" FROM apartments)"
+                        + " TO STDOUT (FORMAT csv, HEADER)");
+    }
+
+    @Test
+    public void testSqlWithSelectedColumnsAndFilters() throws Exception {
+        CsvCopy underTest = CsvCopy.of(null, "apartments", COLUMNS, List.of("monthlyRent", "id"))
+                .where("city = ?", "New York")
+                .where("available = ?", null)
+                .where("date_listed >= ?::date", LocalDate.of(2025, 1, 10));
+
+        assertThat(underTest.sql(true)).isEqualTo(
+                "COPY (SELECT monthly_rent AS \"monthlyRent\", id AS \"id\" FROM apartments"
+                        + " WHERE city = 'New York' AND date_listed >= '2025-01-10'::date)"
+                        + " TO STDOUT (FORMAT csv, HEADER)");
+    }
+
+    @Test
+    public void testSqlEscapesFilterValues() throws Exception {
+        CsvCopy underTest = CsvCopy.of(null, "apartments", COLUMNS, List.of("id"))
+                .where("city = ?", "x' OR '1'='1");
+
+        assertThat(underTest.sql(true)).isEqualTo(
+                "COPY (SELECT id AS \"id\" FROM apartments WHERE city = 'x'' OR ''1''=''1')"
+                        + " TO STDOUT (FORMAT csv, HEADER)");
+    }
+
+    @Test
+    public void testUnknownColumn() {
+        assertThatThrownBy(() -> CsvCopy.of(null, "apartments", COLUMNS, List.of("id", "password")))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("Unable to export column password. Columns that can be exported are id, city, monthlyRent");
+    }
+}
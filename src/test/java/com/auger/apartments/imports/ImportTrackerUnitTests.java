@@ -0,0 +1,81 @@
+package com.auger.apartments.imports;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ImportTrackerUnitTests {
+
+    private final ImportTracker underTest = new ImportTracker();
+
+    @Test
+    public void testStartAndFind() {
+        ImportProgress progress = underTest.start("apartments", ImportFormat.CSV);
+        progress.rowRead();
+        progress.rowRead();
+        progress.reject(2, "Monthly rent must be greater than zero");
+
+        ImportReport report = underTest.find("apartments", progress.id()).orElseThrow();
+
+        assertThat(report.state()).isEqualTo(ImportState.RUNNING);
+        assertThat(report.rowsRead()).isEqualTo(2);
+        assertThat(report.rowsRejected()).isEqualTo(1);
+        assertThat(report.rejections()).containsExactly(
+                new ImportRejection(2, "Monthly rent must be greater than zero"));
+        assertThat(report.finishedAt()).isNull();
+        assertThat(underTest.find("users", progress.id())).isEmpty();
+        assertThat(underTest.find("apartments", UUID.randomUUID())).isEmpty();
+    }
+
+    @Test
+    public void testCompleteAndFail() {
+        ImportProgress completed = underTest.start("apartments", ImportFormat.NDJSON);
+        ImportProgress failed = underTest.start("apartments", ImportFormat.CSV);
+        underTest.start("users", ImportFormat.CSV);
+
+        completed.complete(10);
+        failed.fail("An error occurred when importing apartments into the database");
+
+        assertThat(underTest.findAll("apartments"))
+                .extracting(ImportReport::state)
+                .containsExactly(ImportState.COMPLETED, ImportState.FAILED);
+        ImportReport completedReport = underTest.find("apartments", completed.id()).orElseThrow();
+        assertThat(completedReport.rowsImported()).isEqualTo(10);
+        assertThat(completedReport.finishedAt()).isNotNull();
+        assertThat(underTest.find("apartments", failed.id()).orElseThrow().error())
+                .isEqualTo("An error occurred when importing apartments into the database");
+    }
+
+    @Test
+    public void testRejectionsAreCountedButOnlyTheFirstAreKept() {
+        ImportProgress progress = underTest.start("apartments", ImportFormat.CSV);
+        for (int row = ImportProgress.MAX_REPORTED_REJECTIONS + 10; row > 0; row--) {
+            progress.reject(row, "User with id 0 does not exist");
+        }
+
+        ImportReport report = progress.report();
+
+        assertThat(report.rowsRejected()).isEqualTo(ImportProgress.MAX_REPORTED_REJECTIONS + 10);
+        assertThat(report.rejections()).hasSize(ImportProgress.MAX_REPORTED_REJECTIONS);
+        assertThat(report.rejections().get(0).row()).isEqualTo(11);
+    }
+
+    @Test
+    public void testOldestFinishedImportIsForgotten() {
+        ImportProgress running = underTest.start("apartments", ImportFormat.CSV);
+        ImportProgress oldestFinished = underTest.start("apartments", ImportFormat.CSV);
+        oldestFinished.complete(0);
+        for (int i = 2; i < ImportTracker.MAX_RETAINED_IMPORTS; i++) {
+            underTest.start("apartments", ImportFormat.CSV).complete(0);
+        }
+
+        ImportProgress latest = underTest.start("apartments", ImportFormat.CSV);
+
+        assertThat(underTest.findAll("apartments")).hasSize(ImportTracker.MAX_RETAINED_IMPORTS);
+        assertThat(underTest.find("apartments", running.id())).isPresent();
+        assertThat(underTest.find("apartments", oldestFinished.id())).isEmpty();
+        assertThat(underTest.find("apartments", latest.id())).isPresent();
+    }
+}
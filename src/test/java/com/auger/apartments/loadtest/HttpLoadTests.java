@@ -0,0 +1,47 @@
+package com.auger.apartments.loadtest;
+
+import com.auger.apartments.IntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link LoadTestHarness} against the test database with the settings read by {@link LoadTestConfig}.
+ * <p>
+ * Excluded from the default build. Run it with {@code ./mvnw test -Ploadtest -Dtest=HttpLoadTests}.
+ */
+@Tag("load")
+public class HttpLoadTests extends IntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpLoadTests.class);
+
+    @Value("${spring.datasource.jdbc-url}")
+    private String jdbcUrl;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @AfterEach
+    public void clearTables() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "applications", "apartments", "users");
+    }
+
+    @Test
+    public void testLoad() {
+        LoadReport report = LoadTestHarness.run(LoadTestConfig.fromSystemProperties(), jdbcUrl, username, password,
+                false);
+        logger.info("Load test results: {}", report);
+
+        assertThat(report.total().completed()).isPositive();
+        assertThat(report.total().errors()).isZero();
+    }
+}
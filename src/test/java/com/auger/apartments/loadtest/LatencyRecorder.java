@@ -0,0 +1,106 @@
+package com.auger.apartments.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the outcome and latency of every request of a run, by request type
+ */
+public class LatencyRecorder {
+
+    private final Map<RequestType, Samples> samples = new EnumMap<>(RequestType.class);
+
+    public LatencyRecorder() {
+        for (RequestType type : RequestType.values()) {
+            samples.put(type, new Samples());
+        }
+    }
+
+    /**
+     * @param latencyNanos time from when the request was scheduled to start until its response was received
+     */
+    public void record(RequestType type, int status, long latencyNanos) {
+        Samples typeSamples = samples.get(type);
+        synchronized (typeSamples) {
+            if (status == 503) {
+                typeSamples.unavailable++;
+            } else if (status >= 400) {
+                typeSamples.errors++;
+            } else {
+                typeSamples.add(latencyNanos);
+            }
+        }
+    }
+
+    public void failed(RequestType type) {
+        record(type, 599, 0);
+    }
+
+    public void dropped(RequestType type) {
+        Samples typeSamples = samples.get(type);
+        synchronized (typeSamples) {
+            typeSamples.dropped++;
+        }
+    }
+
+    public LoadReport report(Duration duration) {
+        List<LoadReport.Row> rows = new ArrayList<>();
+        Samples total = new Samples();
+        for (Map.Entry<RequestType, Samples> entry : samples.entrySet()) {
+            Samples typeSamples = entry.getValue();
+            synchronized (typeSamples) {
+                if (typeSamples.size + typeSamples.errors + typeSamples.unavailable + typeSamples.dropped == 0) {
+                    continue;
+                }
+                rows.add(typeSamples.summarize(entry.getKey().name(), duration));
+                total.addAll(typeSamples);
+            }
+        }
+        rows.add(total.summarize("TOTAL", duration));
+        return new LoadReport(duration, rows);
+    }
+
+    private static class Samples {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+        private long unavailable;
+        private long dropped;
+
+        private void add(long latencyNanos) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+        }
+
+        private void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.latencies[i]);
+            }
+            errors += other.errors;
+            unavailable += other.unavailable;
+            dropped += other.dropped;
+        }
+
+        private LoadReport.Row summarize(String name, Duration duration) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return new LoadReport.Row(name, size, errors, unavailable, dropped,
+                    size / (duration.toNanos() / 1e9),
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), size == 0 ? 0 : sorted[size - 1]);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+        }
+    }
+}
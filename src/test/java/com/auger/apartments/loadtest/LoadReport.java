@@ -0,0 +1,44 @@
+package com.auger.apartments.loadtest;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Throughput and latency percentiles of a run, one row per request type followed by a TOTAL row
+ */
+public record LoadReport(Duration duration, List<Row> rows) {
+
+    /**
+     * Latencies are in nanoseconds and measured from when each request was scheduled to start, so time spent
+     * waiting behind slow requests is included.
+     *
+     * @param completed requests that received a successful response
+     * @param errors requests that failed or received an error response other than 503
+     * @param unavailable requests that received 503 Service Unavailable
+     * @param dropped requests that were never sent because too many were outstanding
+     * @param throughput completed requests per second
+     */
+    public record Row(String name, long completed, long errors, long unavailable, long dropped, double throughput,
+                      long p50, long p90, long p99, long p999, long max) {}
+
+    public Row total() {
+        return rows.getLast();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format("%n%-20s %10s %8s %8s %8s %10s %9s %9s %9s %9s %9s%n",
+                "request", "completed", "errors", "503s", "dropped", "req/s", "p50 ms", "p90 ms", "p99 ms",
+                "p99.9 ms", "max ms"));
+        for (Row row : rows) {
+            table.append(String.format("%-20s %10d %8d %8d %8d %10.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    row.name(), row.completed(), row.errors(), row.unavailable(), row.dropped(), row.throughput(),
+                    millis(row.p50()), millis(row.p90()), millis(row.p99()), millis(row.p999()), millis(row.max())));
+        }
+        return table.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.auger.apartments.loadtest;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, read from loadtest.* system properties.
+ *
+ * @param users number of users to seed
+ * @param apartments number of apartments to seed
+ * @param applications number of applications to seed
+ * @param rate requests started per second, whether or not earlier requests have completed
+ * @param duration how long requests are measured for
+ * @param warmup how long requests are sent for before measuring
+ * @param mix relative weight of each type of request
+ * @param seed seed of the data and the request sequence, so runs with the same settings are repeatable
+ * @param maxInFlight requests that may be outstanding at once. Requests beyond that are counted as dropped.
+ * @param virtualThreads whether the application handles requests on virtual threads
+ */
+public record LoadTestConfig(int users,
+                             int apartments,
+                             int applications,
+                             int rate,
+                             Duration duration,
+                             Duration warmup,
+                             Map<RequestType, Integer> mix,
+                             long seed,
+                             int maxInFlight,
+                             boolean virtualThreads) {
+
+    public static final String DEFAULT_MIX =
+            "SEARCH_APARTMENTS=40,GET_APARTMENT=20,GET_USER=10,GET_APARTMENTS=10,"
+            + "CREATE_APPLICATION=10,UPDATE_APPLICATION=5,CREATE_USER=5";
+
+    public LoadTestConfig {
+        if (users <= 0 || apartments <= 0 || applications < 0) {
+            throw new IllegalArgumentException("At least one user and one apartment must be seeded");
+        } else if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be greater than zero");
+        } else if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("The request mix must have a positive weight");
+        } else if (applications == 0 && mix.getOrDefault(RequestType.UPDATE_APPLICATION, 0) > 0) {
+            throw new IllegalArgumentException("Applications must be seeded to update applications");
+        }
+        mix = Collections.unmodifiableMap(new EnumMap<>(mix));
+    }
+
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.users", 10_000),
+                Integer.getInteger("loadtest.apartments", 10_000),
+                Integer.getInteger("loadtest.applications", 20_000),
+                Integer.getInteger("loadtest.rate", 200),
+                Duration.ofSeconds(Long.getLong("loadtest.seconds", 30)),
+                Duration.ofSeconds(Long.getLong("loadtest.warmupSeconds", 5)),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                Long.getLong("loadtest.seed", 42),
+                Integer.getInteger("loadtest.maxInFlight", 5_000),
+                Boolean.getBoolean("loadtest.virtualThreads")
+        );
+    }
+
+    /**
+     * @param mix comma separated request types and weights, for example GET_USER=3,CREATE_USER=1
+     */
+    static Map<RequestType, Integer> parseMix(String mix) {
+        Map<RequestType, Integer> weights = new EnumMap<>(RequestType.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(String.format("Invalid request mix entry %s", entry));
+            }
+            weights.put(RequestType.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,87 @@
+package com.auger.apartments.loadtest;
+
+import com.auger.apartments.ApartmentsApplication;
+import com.auger.apartments.apartments.ApartmentRepository;
+import com.auger.apartments.applications.ApplicationRepository;
+import com.auger.apartments.users.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how much load one instance of the application handles.
+ * <p>
+ * Starts the application on a random port against the given database, seeds it with {@link SyntheticData},
+ * sends requests at a constant rate with {@link OpenLoadGenerator}, first to warm up and then to measure,
+ * and reports throughput and latency percentiles for each type of request.
+ * <p>
+ * Run it against the Docker Compose database, started with {@code docker compose up -d postgres}, with
+ * {@code ./mvnw -Ploadtest test-compile exec:java}. Its tables are dropped and recreated. The database can be changed
+ * with -Dloadtest.jdbc-url, -Dloadtest.username and -Dloadtest.password, and the run with the properties read by
+ * {@link LoadTestConfig}.
+ */
+public class LoadTestHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestHarness.class);
+
+    public static void main(String[] args) {
+        LoadReport report = run(LoadTestConfig.fromSystemProperties(),
+                System.getProperty("loadtest.jdbc-url", "jdbc:postgresql://localhost:5432/apartments-app"),
+                System.getProperty("loadtest.username", "username"),
+                System.getProperty("loadtest.password", "password"),
+                true);
+        logger.info("Load test results: {}", report);
+    }
+
+    /**
+     * @param initializeSchema whether to drop and recreate the tables before seeding, otherwise the tables must
+     * exist and be empty
+     */
+    public static LoadReport run(LoadTestConfig config, String jdbcUrl, String username, String password,
+                                 boolean initializeSchema) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ApartmentsApplication.class).run(
+                "--server.port=0",
+                "--spring.sql.init.mode=" + (initializeSchema ? "always" : "never"),
+                "--spring.threads.virtual.enabled=" + config.virtualThreads(),
+                "--spring.datasource.jdbc-url=" + jdbcUrl,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--spring.docker.compose.enabled=false",
+                "--logging.level.com.auger.apartments.users=warn",
+                "--logging.level.com.auger.apartments.apartments=warn",
+                "--logging.level.com.auger.apartments.applications=warn"
+        )) {
+            long seedingStart = System.nanoTime();
+            SyntheticData.Seeded data = new SyntheticData(context.getBean(UserRepository.class),
+                    context.getBean(ApartmentRepository.class), context.getBean(ApplicationRepository.class))
+                    .seed(config);
+            logger.info("Seeded {} users, {} apartments and {} applications in {} ms", config.users(),
+                    config.apartments(), config.applications(), (System.nanoTime() - seedingStart) / 1_000_000);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            RequestType.Target target = new RequestType.Target(URI.create("http://localhost:" + port), data,
+                    new AtomicLong(config.users()));
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+                 HttpClient client = HttpClient.newBuilder()
+                         .version(HttpClient.Version.HTTP_1_1)
+                         .executor(executor)
+                         .connectTimeout(Duration.ofSeconds(10))
+                         .build()) {
+                OpenLoadGenerator generator = new OpenLoadGenerator(client, target, config);
+                logger.info("Warming up at {} requests per second for {}", config.rate(), config.warmup());
+                generator.run(config.warmup(), config.seed() + 1);
+                logger.info("Measuring at {} requests per second for {}", config.rate(), config.duration());
+                return generator.run(config.duration(), config.seed() + 2).report(config.duration());
+            }
+        }
+    }
+}
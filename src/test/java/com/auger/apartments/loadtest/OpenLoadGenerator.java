@@ -0,0 +1,83 @@
+package com.auger.apartments.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a constant arrival rate, whether or not earlier requests have completed.
+ * <p>
+ * Request n is scheduled to start n / rate seconds after the run starts, and its latency is measured from that
+ * time rather than from when it was actually sent. A server that falls behind therefore shows up as growing
+ * latency instead of a lower request rate, which a fixed number of clients waiting for each response would hide.
+ * Each request is sent on its own virtual thread. When maxInFlight requests are outstanding, further requests
+ * are dropped and counted rather than queued.
+ */
+public class OpenLoadGenerator {
+
+    private final HttpClient client;
+    private final RequestType.Target target;
+    private final LoadTestConfig config;
+    private final RequestType[] weightedTypes;
+
+    public OpenLoadGenerator(HttpClient client, RequestType.Target target, LoadTestConfig config) {
+        this.client = client;
+        this.target = target;
+        this.config = config;
+        int totalWeight = config.mix().values().stream().mapToInt(Integer::intValue).sum();
+        this.weightedTypes = new RequestType[totalWeight];
+        int i = 0;
+        for (Map.Entry<RequestType, Integer> entry : config.mix().entrySet()) {
+            for (int j = 0; j < entry.getValue(); j++) {
+                weightedTypes[i++] = entry.getKey();
+            }
+        }
+    }
+
+    /**
+     * Sends requests for the given duration and waits for the outstanding requests to complete
+     *
+     * @param seed seed of the sequence of requests
+     */
+    public LatencyRecorder run(Duration duration, long seed) {
+        LatencyRecorder recorder = new LatencyRecorder();
+        Random random = new Random(seed);
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        long interval = 1_000_000_000L / config.rate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long n = 0; start + n * interval < end; n++) {
+                long scheduled = start + n * interval;
+                RequestType type = weightedTypes[random.nextInt(weightedTypes.length)];
+                HttpRequest request = type.build(target, random);
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (!inFlight.tryAcquire()) {
+                    recorder.dropped(type);
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        recorder.record(type, response.statusCode(), System.nanoTime() - scheduled);
+                    } catch (Exception ex) {
+                        recorder.failed(type);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return recorder;
+    }
+}
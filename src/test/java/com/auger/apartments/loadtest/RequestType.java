@@ -0,0 +1,101 @@
+package com.auger.apartments.loadtest;
+
+import com.auger.apartments.users.User;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The requests a load test can send, each built against the seeded data
+ */
+public enum RequestType {
+
+    GET_USER {
+        @Override
+        HttpRequest build(Target target, Random random) {
+            return get(target, "/users/" + pick(random, target.data().userIds()));
+        }
+    },
+    GET_APARTMENT {
+        @Override
+        HttpRequest build(Target target, Random random) {
+            return get(target, "/apartments/" + pick(random, target.data().apartmentIds()));
+        }
+    },
+    GET_APARTMENTS {
+        @Override
+        HttpRequest build(Target target, Random random) {
+            String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    ("id:" + pick(random, target.data().apartmentIds())).getBytes(StandardCharsets.UTF_8)
+            );
+            return get(target, "/apartments?limit=20&after=" + cursor);
+        }
+    },
+    SEARCH_APARTMENTS {
+        @Override
+        HttpRequest build(Target target, Random random) {
+            String[] location = SyntheticData.LOCATIONS.get(random.nextInt(SyntheticData.LOCATIONS.size()));
+            int minRent = SyntheticData.MIN_RENT + random.nextInt(SyntheticData.RENT_STEPS) * SyntheticData.RENT_STEP;
+            return get(target, String.format("/apartments/search?state=%s&city=%s&minRent=%s&maxRent=%s&limit=20",
+                    location[0], URLEncoder.encode(location[1], StandardCharsets.UTF_8), minRent, minRent + 20_000));
+        }
+    },
+    CREATE_USER {
+        @Override
+        HttpRequest build(Target target, Random random) {
+            User user = SyntheticData.user(target.nextUser().getAndIncrement());
+            String body = String.format("""
+                    {"firstName":"%s","lastName":"%s","email":"%s","phoneNumber":"%s","birthDate":"%s"}""",
+                    user.firstName(), user.lastName(), user.email(), user.phoneNumber(), user.birthDate());
+            return send(target, "/users", "POST", body);
+        }
+    },
+    CREATE_APPLICATION {
+        @Override
+        HttpRequest build(Target target, Random random) {
+            String body = String.format("""
+                    {"active":true,"successful":false,"userId":%s,"apartmentId":%s}""",
+                    pick(random, target.data().userIds()), pick(random, target.data().apartmentIds()));
+            return send(target, "/applications", "POST", body);
+        }
+    },
+    UPDATE_APPLICATION {
+        @Override
+        HttpRequest build(Target target, Random random) {
+            String body = String.format("""
+                    {"id":%s,"active":%s,"successful":false,"userId":%s,"apartmentId":%s}""",
+                    pick(random, target.data().applicationIds()), random.nextBoolean(),
+                    pick(random, target.data().userIds()), pick(random, target.data().apartmentIds()));
+            return send(target, "/applications", "PUT", body);
+        }
+    };
+
+    /**
+     * @param baseUri of the application under test
+     * @param data seeded rows the requests refer to
+     * @param nextUser number of the next user to create, past the seeded users
+     */
+    public record Target(URI baseUri, SyntheticData.Seeded data, AtomicLong nextUser) {}
+
+    abstract HttpRequest build(Target target, Random random);
+
+    private static int pick(Random random, int[] ids) {
+        return ids[random.nextInt(ids.length)];
+    }
+
+    private static HttpRequest get(Target target, String path) {
+        return HttpRequest.newBuilder(target.baseUri().resolve(path)).GET().build();
+    }
+
+    private static HttpRequest send(Target target, String path, String method, String body) {
+        return HttpRequest.newBuilder(target.baseUri().resolve(path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
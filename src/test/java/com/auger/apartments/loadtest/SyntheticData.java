@@ -0,0 +1,114 @@
+package com.auger.apartments.loadtest;
+
+import com.auger.apartments.apartments.Apartment;
+import com.auger.apartments.apartments.ApartmentRepository;
+import com.auger.apartments.applications.Application;
+import com.auger.apartments.applications.ApplicationRepository;
+import com.auger.apartments.users.User;
+import com.auger.apartments.users.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds users, apartments and applications through the repositories' batch inserts.
+ * <p>
+ * Every owner, renter and applicant is a seeded user, and apartment i is rented by user i at most, for one in four
+ * apartments, so no user rents more than one apartment.
+ */
+public class SyntheticData {
+
+    static final List<String[]> LOCATIONS = List.of(
+            new String[]{"NY", "New York"},
+            new String[]{"NY", "Buffalo"},
+            new String[]{"NJ", "Newark"},
+            new String[]{"CA", "Los Angeles"},
+            new String[]{"TX", "Austin"}
+    );
+    static final int MIN_RENT = 100_000;
+    static final int RENT_STEPS = 200;
+    static final int RENT_STEP = 1_000;
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final UserRepository userRepository;
+    private final ApartmentRepository apartmentRepository;
+    private final ApplicationRepository applicationRepository;
+
+    public SyntheticData(UserRepository userRepository, ApartmentRepository apartmentRepository,
+                         ApplicationRepository applicationRepository) {
+        this.userRepository = userRepository;
+        this.apartmentRepository = apartmentRepository;
+        this.applicationRepository = applicationRepository;
+    }
+
+    /**
+     * The ids of the seeded rows
+     */
+    public record Seeded(int[] userIds, int[] apartmentIds, int[] applicationIds) {}
+
+    public Seeded seed(LoadTestConfig config) {
+        Random random = new Random(config.seed());
+
+        int[] userIds = new int[config.users()];
+        List<User> users = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < config.users(); i++) {
+            users.add(user(i));
+            if (users.size() == BATCH_SIZE || i == config.users() - 1) {
+                List<User> created = userRepository.createAll(users);
+                for (int j = 0; j < created.size(); j++) {
+                    userIds[i - created.size() + 1 + j] = created.get(j).id();
+                }
+                users.clear();
+            }
+        }
+
+        int[] apartmentIds = new int[config.apartments()];
+        List<Apartment> apartments = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < config.apartments(); i++) {
+            Integer renterId = i % 4 == 3 && i < userIds.length ? userIds[i] : null;
+            apartments.add(apartment(random, userIds[random.nextInt(userIds.length)], renterId));
+            if (apartments.size() == BATCH_SIZE || i == config.apartments() - 1) {
+                List<Apartment> created = apartmentRepository.createAll(apartments);
+                for (int j = 0; j < created.size(); j++) {
+                    apartmentIds[i - created.size() + 1 + j] = created.get(j).id();
+                }
+                apartments.clear();
+            }
+        }
+
+        int[] applicationIds = new int[config.applications()];
+        List<Application> applications = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < config.applications(); i++) {
+            applications.add(new Application(null, null, true, false, userIds[random.nextInt(userIds.length)],
+                    apartmentIds[random.nextInt(apartmentIds.length)]));
+            if (applications.size() == BATCH_SIZE || i == config.applications() - 1) {
+                List<Application> created = applicationRepository.createAll(applications);
+                for (int j = 0; j < created.size(); j++) {
+                    applicationIds[i - created.size() + 1 + j] = created.get(j).id();
+                }
+                applications.clear();
+            }
+        }
+        return new Seeded(userIds, apartmentIds, applicationIds);
+    }
+
+    /**
+     * @param n distinct for every user, including users created by the load test, to keep emails and phone numbers
+     * unique
+     */
+    static User user(long n) {
+        return new User(null, "Load", "Test " + n, "load.test." + n + "@gmail.com", String.format("%010d", n),
+                LocalDate.of(1970, 1, 1).plusDays(n % 10_000), null);
+    }
+
+    private static Apartment apartment(Random random, int ownerId, Integer renterId) {
+        String[] location = LOCATIONS.get(random.nextInt(LOCATIONS.size()));
+        return new Apartment(null, "Load test apartment", "Seeded for a load test", random.nextInt(5),
+                1 + random.nextInt(3), location[0], location[1], 400 + random.nextInt(2000),
+                MIN_RENT + random.nextInt(RENT_STEPS) * RENT_STEP, null, renterId == null && random.nextInt(4) != 0,
+                ownerId, renterId);
+    }
+}
@@ -0,0 +1,85 @@
+package com.auger.apartments.metrics;
+
+import com.auger.apartments.IntegrationTest;
+import com.auger.apartments.exceptions.DuplicateDataException;
+import com.auger.apartments.pools.Pool;
+import com.auger.apartments.users.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class QueryTimingAspectIntegrationTests extends IntegrationTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void clearTables() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "applications", "apartments", "users");
+    }
+
+    @Test
+    public void testRepositoryMethodsAreTimed() {
+        long before = count("UserRepository", "create", "success");
+
+        userRepository.create(new User(null, "John", "Doe", "john.doe@gmail.com", "1234567890",
+                LocalDate.of(1990, 1, 1), null));
+
+        assertThat(count("UserRepository", "create", "success")).isEqualTo(before + 1);
+    }
+
+    @Test
+    public void testRejectedOutcome() {
+        userRepository.create(new User(null, "John", "Doe", "john.doe@gmail.com", "1234567890",
+                LocalDate.of(1990, 1, 1), null));
+        long before = count("UserRepository", "create", "rejected");
+
+        assertThatThrownBy(() -> userRepository.create(new User(null, "Jane", "Doe", "john.doe@gmail.com",
+                "0987654321", LocalDate.of(1990, 1, 1), null))).isInstanceOf(DuplicateDataException.class);
+
+        Timer timer = meterRegistry.find(QueryTimingAspect.TIMER_NAME)
+                .tags("component", "UserRepository", "operation", "create", "outcome", "rejected")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.getId().getTag("exception")).isEqualTo("DuplicateDataException");
+        assertThat(timer.count()).isEqualTo(before + 1);
+    }
+
+    @Test
+    public void testHikariPoolMetricsAreBound() {
+        userRepository.findPage(0, 10);
+
+        assertThat(meterRegistry.find("hikaricp.connections.active").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.idle").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.pending").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").timer()).isNotNull();
+    }
+
+    @Test
+    public void testEveryPoolPublishesMetrics() {
+        userRepository.findPage(0, 10);
+        userRepository.streamAll(user -> {});
+
+        for (Pool pool : Pool.values()) {
+            assertThat(meterRegistry.find("hikaricp.connections.pending").tag("pool", pool.poolName()).gauge())
+                    .isNotNull();
+            assertThat(meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool.poolName()).timer())
+                    .isNotNull();
+        }
+    }
+
+    private long count(String component, String operation, String outcome) {
+        Timer timer = meterRegistry.find(QueryTimingAspect.TIMER_NAME)
+                .tags("component", component, "operation", operation, "outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
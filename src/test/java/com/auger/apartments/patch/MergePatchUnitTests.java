@@ -0,0 +1,107 @@
+package com.auger.apartments.patch;
+
+import com.auger.apartments.apartments.Apartment;
+import com.auger.apartments.apartments.ApartmentRepository;
+import com.auger.apartments.exceptions.InvalidRequestException;
+import com.auger.apartments.users.User;
+import com.auger.apartments.users.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MergePatchUnitTests {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final Apartment apartment = new Apartment(1, "Main Street Condo",
+            "A spacious condo with brand new appliances and great views!", 2,
+            1, "NY", "New York", 800, 608900,
+            LocalDate.of(2025, 1, 10), true, 1, 2, 4);
+
+    private MergePatch patch(String json) throws Exception {
+        return MergePatch.of(objectMapper, objectMapper.readTree(json));
+    }
+
+    @Test
+    public void testApplyTo() throws Exception {
+        Apartment patchedApartment = patch("""
+                {"monthlyRent": 645000, "renterId": null, "description": "Great location and insane views!"}
+                """).applyTo(apartment, ApartmentRepository.PATCHABLE_ATTRIBUTES);
+
+        Apartment expectedApartment = new Apartment(1, "Main Street Condo",
+                "Great location and insane views!", 2,
+                1, "NY", "New York", 800, 645000,
+                LocalDate.of(2025, 1, 10), true, 1, null, 4);
+        assertThat(patchedApartment).isEqualTo(expectedApartment);
+        assertThat(patch("{}").applyTo(apartment, ApartmentRepository.PATCHABLE_ATTRIBUTES)).isEqualTo(apartment);
+    }
+
+    @Test
+    public void testVersion() throws Exception {
+        assertThat(patch("{\"version\": 3}").version()).isEqualTo(3);
+        assertThat(patch("{\"version\": null}").version()).isNull();
+        assertThat(patch("{\"title\": \"Condo\"}").version()).isNull();
+        assertThatThrownBy(() -> patch("{\"version\": \"3\"}").version())
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("Version must be an integer");
+    }
+
+    @Test
+    public void testNotAnObject() {
+        assertThatThrownBy(() -> patch("[{\"title\": \"Condo\"}]"))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("A merge patch must be a JSON object");
+    }
+
+    @Test
+    public void testUnknownAttribute() {
+        assertThatThrownBy(() -> patch("{\"rent\": 645000}")
+                .applyTo(apartment, ApartmentRepository.PATCHABLE_ATTRIBUTES))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("rent is not an attribute of apartment");
+    }
+
+    @Test
+    public void testAttributeThatIsNotPatchable() throws Exception {
+        assertThatThrownBy(() -> patch("{\"dateListed\": \"2025-02-01\"}")
+                .applyTo(apartment, ApartmentRepository.PATCHABLE_ATTRIBUTES))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageStartingWith("dateListed cannot be patched. Attributes that can be patched are title, ");
+        assertThatThrownBy(() -> patch("{\"id\": 2}").applyTo(apartment, ApartmentRepository.PATCHABLE_ATTRIBUTES))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageStartingWith("id cannot be patched.");
+        assertThat(patch("{\"version\": 4, \"title\": \"Condo\"}")
+                .applyTo(apartment, ApartmentRepository.PATCHABLE_ATTRIBUTES).title()).isEqualTo("Condo");
+    }
+
+    @Test
+    public void testClearPrimitiveAttribute() {
+        assertThatThrownBy(() -> patch("{\"numberOfBedrooms\": null}")
+                .applyTo(apartment, ApartmentRepository.PATCHABLE_ATTRIBUTES))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("numberOfBedrooms cannot be null");
+    }
+
+    @Test
+    public void testInvalidPatchedResource() {
+        User user = new User(1, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), LocalDate.of(2024, 1, 1));
+
+        assertThatThrownBy(() -> patch("{\"phoneNumber\": \"123-456-7890\"}")
+                .applyTo(user, UserRepository.PATCHABLE_ATTRIBUTES))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("Phone number must be in the format 1234567890");
+        assertThatThrownBy(() -> patch("{\"email\": null}").applyTo(user, UserRepository.PATCHABLE_ATTRIBUTES))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("A valid email must be provided");
+        assertThatThrownBy(() -> patch("{\"numberOfBathrooms\": 0}")
+                .applyTo(apartment, ApartmentRepository.PATCHABLE_ATTRIBUTES))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("Number of bathrooms must be greater than zero");
+    }
+}
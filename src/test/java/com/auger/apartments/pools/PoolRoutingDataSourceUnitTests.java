@@ -0,0 +1,118 @@
+package com.auger.apartments.pools;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PoolRoutingDataSourceUnitTests {
+
+    @Mock
+    private DataSource interactiveWrite;
+
+    @Mock
+    private HikariDataSource interactiveReadPool;
+
+    @Mock
+    private HikariDataSource batchPool;
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    private final Connection writeConnection = mock(Connection.class);
+    private final PoolRouting poolRouting = new PoolRouting();
+
+    private PoolRoutingDataSource underTest;
+
+    @BeforeEach
+    public void setUp() {
+        when(interactiveReadPool.getMaximumPoolSize()).thenReturn(2);
+        when(batchPool.getMaximumPoolSize()).thenReturn(1);
+        underTest = new PoolRoutingDataSource(interactiveWrite, interactiveReadPool, batchPool, 2);
+    }
+
+    @Test
+    public void testQueriesOutsideUsePoolUseInteractiveWrite() throws SQLException {
+        when(interactiveWrite.getConnection()).thenReturn(writeConnection);
+
+        assertThat(underTest.getConnection()).isSameAs(writeConnection);
+        verify(interactiveReadPool, never()).getConnection();
+        verify(batchPool, never()).getConnection();
+    }
+
+    @Test
+    public void testInteractiveRead() throws Throwable {
+        when(interactiveReadPool.getConnection()).thenReturn(mock(Connection.class));
+        when(joinPoint.proceed()).thenAnswer(invocation -> underTest.getConnection());
+
+        // pool connections are wrapped by the wait limit, so check which pool handed it out
+        poolRouting.route(joinPoint, usePool("interactiveRead"));
+
+        verify(interactiveReadPool).getConnection();
+        verifyNoInteractions(interactiveWrite);
+        verify(batchPool, never()).getConnection();
+        assertThat(PoolRouting.currentPool()).isEqualTo(Pool.INTERACTIVE_WRITE);
+    }
+
+    @Test
+    public void testNestedUsePoolRestoresOuterPool() throws Throwable {
+        when(batchPool.getConnection()).thenReturn(mock(Connection.class));
+        ProceedingJoinPoint inner = mock(ProceedingJoinPoint.class);
+        when(inner.proceed()).thenAnswer(invocation -> PoolRouting.currentPool());
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            assertThat(poolRouting.route(inner, usePool("interactiveRead"))).isEqualTo(Pool.INTERACTIVE_READ);
+            return underTest.getConnection();
+        });
+
+        poolRouting.route(joinPoint, usePool("batch"));
+
+        verify(batchPool).getConnection();
+        verifyNoInteractions(interactiveWrite);
+        verify(interactiveReadPool, never()).getConnection();
+    }
+
+    @Test
+    public void testUsing() throws SQLException {
+        when(batchPool.getConnection()).thenReturn(mock(Connection.class));
+
+        PoolRouting.using(Pool.BATCH, underTest).getConnection();
+
+        verify(batchPool).getConnection();
+        verifyNoInteractions(interactiveWrite);
+        verify(interactiveReadPool, never()).getConnection();
+        assertThat(PoolRouting.currentPool()).isEqualTo(Pool.INTERACTIVE_WRITE);
+    }
+
+    @Test
+    public void testCloseClosesOwnedPools() {
+        underTest.close();
+
+        verify(interactiveReadPool).close();
+        verify(batchPool).close();
+    }
+
+    private static UsePool usePool(String method) throws NoSuchMethodException {
+        return PoolRoutingDataSourceUnitTests.class.getDeclaredMethod(method).getAnnotation(UsePool.class);
+    }
+
+    @UsePool(Pool.INTERACTIVE_READ)
+    private static void interactiveRead() {}
+
+    @UsePool(Pool.BATCH)
+    private static void batch() {}
+}
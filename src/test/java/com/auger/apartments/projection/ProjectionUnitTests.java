@@ -0,0 +1,66 @@
+package com.auger.apartments.projection;
+
+import com.auger.apartments.apartments.Apartment;
+import com.auger.apartments.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ProjectionUnitTests {
+
+    private final Map<String, String> columns = new LinkedHashMap<>();
+
+    {
+        columns.put("id", "id");
+        columns.put("title", "title");
+        columns.put("monthlyRent", "monthly_rent");
+        columns.put("dateListed", "date_listed");
+    }
+
+    private final Apartment apartment = new Apartment(1, "Main Street Condo",
+            "A spacious condo with brand new appliances and great views!", 2,
+            1, "NY", "New York", 800, 608900,
+            LocalDate.of(2025, 1, 10), true, 1, 2, 4);
+
+    @Test
+    public void testSelectList() {
+        assertThat(Projection.of(columns, List.of("monthlyRent", "title")).selectList())
+                .isEqualTo("id, monthly_rent, title");
+        assertThat(Projection.of(columns, List.of("id", "dateListed")).selectList())
+                .isEqualTo("id, date_listed");
+        assertThat(Projection.of(columns, List.of()).selectList()).isEqualTo("id");
+    }
+
+    @Test
+    public void testUnknownField() {
+        assertThatThrownBy(() -> Projection.of(columns, List.of("title", "rent")))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("Unable to select field rent. Fields that can be selected are id, title, monthlyRent, "
+                        + "dateListed");
+    }
+
+    @Test
+    public void testSelect() {
+        Map<String, Object> selected = Projection.select(apartment, List.of("monthlyRent", "dateListed", "version"));
+
+        assertThat(selected).containsExactly(
+                Map.entry("id", 1),
+                Map.entry("monthlyRent", 608900),
+                Map.entry("dateListed", LocalDate.of(2025, 1, 10)),
+                Map.entry("version", 4));
+        assertThat(Projection.id(selected)).isEqualTo(1);
+    }
+
+    @Test
+    public void testSelectUnknownField() {
+        assertThatThrownBy(() -> Projection.select(apartment, List.of("rent")))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageStartingWith("Unable to select field rent. Fields that can be selected are id, title, ");
+    }
+}
@@ -0,0 +1,88 @@
+package com.auger.apartments.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReadYourWritesFilterUnitTests {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    private final ReadYourWritesFilter underTest = new ReadYourWritesFilter(Duration.ofSeconds(5),
+            Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+
+    /**
+     * @return whether a replica read made while handling the request would use the replica
+     */
+    private boolean readsFromReplica(MockHttpServletRequest request) throws Exception {
+        AtomicBoolean replicaRead = new AtomicBoolean();
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        try {
+            when(joinPoint.proceed()).thenAnswer(invocation -> {
+                replicaRead.set(ReplicaRouting.isReplicaRead());
+                return null;
+            });
+        } catch (Throwable ex) {
+            throw new AssertionError(ex);
+        }
+        FilterChain chain = (req, res) -> {
+            try {
+                new ReplicaRouting().readFromReplica(joinPoint);
+            } catch (Throwable ex) {
+                throw new AssertionError(ex);
+            }
+        };
+        underTest.doFilter(request, new MockHttpServletResponse(), chain);
+        return replicaRead.get();
+    }
+
+    @Test
+    public void testWriteSetsCookie() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        underTest.doFilter(new MockHttpServletRequest("PATCH", "/apartments/1"), response, (req, res) -> {});
+
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertThat(cookie).isNotNull();
+        assertThat(cookie.getValue()).isEqualTo(Long.toString(NOW));
+        assertThat(cookie.getMaxAge()).isEqualTo(6);
+        assertThat(new MockHttpServletResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME)).isNull();
+    }
+
+    @Test
+    public void testReadDoesNotSetCookie() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        underTest.doFilter(new MockHttpServletRequest("GET", "/apartments"), response, (req, res) -> {});
+
+        assertThat(response.getCookie(ReadYourWritesFilter.COOKIE_NAME)).isNull();
+    }
+
+    @Test
+    public void testRecentWritePinsToPrimary() throws Exception {
+        MockHttpServletRequest recentWrite = new MockHttpServletRequest("GET", "/apartments");
+        recentWrite.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, Long.toString(NOW - 4_000)));
+        MockHttpServletRequest oldWrite = new MockHttpServletRequest("GET", "/apartments");
+        oldWrite.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, Long.toString(NOW - 5_000)));
+        MockHttpServletRequest invalidCookie = new MockHttpServletRequest("GET", "/apartments");
+        invalidCookie.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, "yesterday"));
+
+        assertThat(readsFromReplica(recentWrite)).isFalse();
+        assertThat(readsFromReplica(oldWrite)).isTrue();
+        assertThat(readsFromReplica(invalidCookie)).isTrue();
+        assertThat(readsFromReplica(new MockHttpServletRequest("GET", "/apartments"))).isTrue();
+    }
+}
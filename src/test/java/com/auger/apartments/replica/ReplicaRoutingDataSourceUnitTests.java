@@ -0,0 +1,94 @@
+package com.auger.apartments.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReplicaRoutingDataSourceUnitTests {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private HikariDataSource replicaPool;
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ReplicaRouting replicaRouting = new ReplicaRouting();
+
+    private ReplicaRoutingDataSource underTest;
+
+    @BeforeEach
+    public void setUp() {
+        when(replicaPool.getMaximumPoolSize()).thenReturn(2);
+        underTest = new ReplicaRoutingDataSource(primary, replicaPool, 2);
+    }
+
+    @Test
+    public void testReplicaRead() throws Throwable {
+        when(replicaPool.getConnection()).thenReturn(replicaConnection);
+        when(joinPoint.proceed()).thenAnswer(invocation -> underTest.getConnection());
+
+        // the replica connection is wrapped by the wait limit, so check which pool handed it out
+        replicaRouting.readFromReplica(joinPoint);
+
+        verify(replicaPool).getConnection();
+        verifyNoInteractions(primary);
+        assertThat(ReplicaRouting.isReplicaRead()).isFalse();
+    }
+
+    @Test
+    public void testQueriesOutsideReplicaReadUsePrimary() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertThat(underTest.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    public void testValidatorInsideReplicaReadUsesPrimary() throws Throwable {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ProceedingJoinPoint validator = mock(ProceedingJoinPoint.class);
+        when(validator.proceed()).thenAnswer(invocation -> underTest.getConnection());
+        when(joinPoint.proceed()).thenAnswer(invocation -> replicaRouting.readFromPrimary(validator));
+
+        assertThat(replicaRouting.readFromReplica(joinPoint)).isSameAs(primaryConnection);
+    }
+
+    @Test
+    public void testPinnedToPrimary() throws Throwable {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(joinPoint.proceed()).thenAnswer(invocation -> underTest.getConnection());
+
+        ReplicaRouting.pinToPrimary();
+        try {
+            assertThat(replicaRouting.readFromReplica(joinPoint)).isSameAs(primaryConnection);
+        } finally {
+            ReplicaRouting.unpin();
+        }
+    }
+
+    @Test
+    public void testCloseClosesReplicaPool() {
+        underTest.close();
+
+        verify(replicaPool).close();
+    }
+}
@@ -3,13 +3,17 @@ package com.auger.apartments.users;
 import com.auger.apartments.ControllerIntegrationTest;
 import com.auger.apartments.apartments.Apartment;
 import com.auger.apartments.applications.Application;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.patch.MergePatch;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.jdbc.JdbcTestUtils;
 
@@ -100,20 +104,20 @@ public class UserControllerIntegrationTests extends ControllerIntegrationTest {
     }
 
     @Test
-    public void testGetAllUsers() {
+    public void testGetUsers() {
         Map<Integer, User> userMap = new HashMap<>();
         userMap.put(user1.id(), user1);
         userMap.put(user2.id(), user2);
         userMap.put(user3.id(), user3);
 
-        ResponseEntity<List<User>> users = testRestTemplate
+        ResponseEntity<Page<User>> users = testRestTemplate
                 .exchange("/users", HttpMethod.GET, null,
-                        new ParameterizedTypeReference<List<User>>() {});
+                        new ParameterizedTypeReference<Page<User>>() {});
 
         assertThat(users.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(users.getBody().size()).isEqualTo(userMap.size());
+        assertThat(users.getBody().items().size()).isEqualTo(userMap.size());
 
-        for (User user : users.getBody()) {
+        for (User user : users.getBody().items()) {
             User originalUser = userMap.get(user.id());
             assertUsersAreEqual(user, originalUser);
             userMap.remove(user.id());
@@ -121,6 +125,23 @@ public class UserControllerIntegrationTests extends ControllerIntegrationTest {
         assertThat(userMap.size()).isZero();
     }
 
+    @Test
+    public void testGetUsersByIdInvalid() {
+        ResponseEntity<String> emptyResponse = testRestTemplate.getForEntity("/users?ids=", String.class);
+
+        assertThat(emptyResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(emptyResponse.getBody()).isEqualTo("Between 1 and 1000 ids must be requested");
+
+        ResponseEntity<String> invalidIdResponse = testRestTemplate.getForEntity("/users?ids=1,a", String.class);
+
+        assertThat(invalidIdResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        ResponseEntity<String> missingIdResponse = testRestTemplate.getForEntity("/users?ids=1,,2", String.class);
+
+        assertThat(missingIdResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(missingIdResponse.getBody()).isEqualTo("Every id must be an integer");
+    }
+
     @Test
     public void testUpdateUser() {
         User updatedUser = new User(user1.id(), user1.firstName(), user1.lastName(), "johnnie@gmail.com",
@@ -192,6 +213,35 @@ public class UserControllerIntegrationTests extends ControllerIntegrationTest {
         assertThat(updateResponse.getBody()).isEqualTo("A user with that phone number already exists");
     }
 
+    @Test
+    public void testPatchUser() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf(MergePatch.MEDIA_TYPE));
+        HttpEntity<String> requestEntity = new HttpEntity<>("{\"lastName\": \"Dalton\"}", headers);
+        ResponseEntity<String> patchResponse = testRestTemplate
+                .exchange("/users/{id}", HttpMethod.PATCH, requestEntity, String.class, user2.id());
+
+        assertThat(patchResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        User retrievedUser = testRestTemplate.getForObject("/users/{id}", User.class, user2.id());
+        User expectedUser = new User(user2.id(), user2.firstName(), "Dalton", user2.email(),
+                user2.phoneNumber(), user2.birthDate(), user2.dateJoined());
+        assertUsersAreEqual(expectedUser, retrievedUser);
+        assertThat(retrievedUser.version()).isEqualTo(user2.version() + 1);
+    }
+
+    @Test
+    public void testPatchUserDuplicateEmail() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf(MergePatch.MEDIA_TYPE));
+        HttpEntity<String> requestEntity = new HttpEntity<>("{\"email\": \"john@gmail.com\"}", headers);
+        ResponseEntity<String> patchResponse = testRestTemplate
+                .exchange("/users/{id}", HttpMethod.PATCH, requestEntity, String.class, user2.id());
+
+        assertThat(patchResponse.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(patchResponse.getBody()).isEqualTo("A user with that email already exists");
+    }
+
     @Test
     public void testDeleteUser() {
         ResponseEntity<Void> deleteResponse = testRestTemplate
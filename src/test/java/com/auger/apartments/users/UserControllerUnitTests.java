@@ -1,13 +1,24 @@
 package com.auger.apartments.users;
 
+import com.auger.apartments.apartments.Apartment;
+import com.auger.apartments.applications.Application;
+import com.auger.apartments.applications.ApplicationService;
+import com.auger.apartments.applications.ApplicationWithApartment;
+import com.auger.apartments.batch.BatchItemResult;
+import com.auger.apartments.batch.BatchResult;
 import com.auger.apartments.exceptions.DeleteApartmentException;
 import com.auger.apartments.exceptions.DuplicateDataException;
+import com.auger.apartments.exceptions.InvalidRequestException;
 import com.auger.apartments.exceptions.UserNotFoundException;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -16,12 +27,16 @@ import org.springframework.test.web.servlet.MvcResult;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.auger.apartments.TestUtils.assertUsersAreEqual;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
@@ -36,6 +51,9 @@ public class UserControllerUnitTests {
     @MockitoBean
     UserService userService;
 
+    @MockitoBean
+    ApplicationService applicationService;
+
     @Test
     public void testCreateUser() throws Exception {
         User user = new User(1, "John", "Rogers", "john@gmail.com",
@@ -96,6 +114,68 @@ public class UserControllerUnitTests {
         verify(userService, times(1)).createUser(user);
     }
 
+    @Test
+    public void testCreateUsers() throws Exception {
+        User user1 = new User(null, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), null);
+        User user2 = new User(null, "Bob", "Daly", "bob@gmail.com",
+                "8456320985", LocalDate.of(1994, 10, 11), null);
+        List<User> users = List.of(user1, user2);
+        BatchResult<User> batchResult = new BatchResult<>(2, 0, List.of(
+                BatchItemResult.created(0, new User(1, user1.firstName(), user1.lastName(), user1.email(),
+                        user1.phoneNumber(), user1.birthDate(), LocalDate.now())),
+                BatchItemResult.created(1, new User(2, user2.firstName(), user2.lastName(), user2.email(),
+                        user2.phoneNumber(), user2.birthDate(), LocalDate.now()))
+        ));
+
+        when(userService.createUsers(users)).thenReturn(batchResult);
+
+        mockMvc.perform(post("/users/batch")
+                .content(objectMapper.writeValueAsString(users))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.items[1].item.id").value(2));
+
+        verify(userService, times(1)).createUsers(users);
+    }
+
+    @Test
+    public void testCreateUsersPartiallyRejected() throws Exception {
+        User user1 = new User(null, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), null);
+        User user2 = new User(null, "Bob", "Daly", "john@gmail.com",
+                "8456320985", LocalDate.of(1994, 10, 11), null);
+        List<User> users = List.of(user1, user2);
+        BatchResult<User> batchResult = new BatchResult<>(1, 1, List.of(
+                BatchItemResult.created(0, new User(1, user1.firstName(), user1.lastName(), user1.email(),
+                        user1.phoneNumber(), user1.birthDate(), LocalDate.now())),
+                BatchItemResult.rejected(1, HttpStatus.CONFLICT, "A user with that email already exists")
+        ));
+
+        when(userService.createUsers(users)).thenReturn(batchResult);
+
+        mockMvc.perform(post("/users/batch")
+                .content(objectMapper.writeValueAsString(users))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[1].status").value(409))
+                .andExpect(jsonPath("$.items[1].error").value("A user with that email already exists"));
+    }
+
+    @Test
+    public void testCreateUsersEmptyBatch() throws Exception {
+        doThrow(new InvalidRequestException("A batch must contain between 1 and 10000 items"))
+                .when(userService).createUsers(List.of());
+
+        mockMvc.perform(post("/users/batch")
+                .content("[]")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("A batch must contain between 1 and 10000 items"));
+    }
+
     @Test
     public void testGetUser() throws Exception {
         User user = new User(1, "John", "Rogers", "john@gmail.com",
@@ -114,6 +194,26 @@ public class UserControllerUnitTests {
         verify(userService, times(1)).getUser(user.id());
     }
 
+    @Test
+    public void testGetUserNotModified() throws Exception {
+        User user = new User(1, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now()).withVersion(3);
+
+        when(userService.getUser(user.id())).thenReturn(Optional.of(user));
+
+        String eTag = mockMvc.perform(get("/users/{id}", user.id()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/users/{id}", user.id()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+    }
+
     @Test
     public void testGetUserInvalidId() throws Exception {
         int userId = 1;
@@ -128,7 +228,7 @@ public class UserControllerUnitTests {
     }
 
     @Test
-    public void testGetAllUsers() throws Exception {
+    public void testGetUsers() throws Exception {
         User user1 = new User(1, "John", "Rogers", "john@gmail.com",
                 "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
         User user2 = new User(2, "Bob", "Daly", "bob@gmail.com",
@@ -137,36 +237,100 @@ public class UserControllerUnitTests {
                 "9876420341", LocalDate.of(1990, 2, 17), LocalDate.now());
 
         List<User> userList = List.of(user1, user2, user3);
-        when(userService.getAllUsers()).thenReturn(userList);
+        when(userService.getUsers(new PageRequest(0, 50))).thenReturn(new Page<>(userList, null));
 
         MvcResult result = mockMvc.perform(get("/users"))
                 .andExpect(status().isOk())
                 .andReturn();
 
         String responseString = result.getResponse().getContentAsString();
-        CollectionType collectionType = objectMapper.getTypeFactory().constructCollectionType(List.class, User.class);
-        List<User> allUsers = objectMapper.readValue(responseString, collectionType);
+        JavaType pageType = objectMapper.getTypeFactory().constructParametricType(Page.class, User.class);
+        Page<User> allUsers = objectMapper.readValue(responseString, pageType);
 
-        assertThat(allUsers).isEqualTo(userList);
-        verify(userService, times(1)).getAllUsers();
+        assertThat(allUsers.items()).isEqualTo(userList);
+        assertThat(allUsers.nextCursor()).isNull();
+        verify(userService, times(1)).getUsers(new PageRequest(0, 50));
     }
 
     @Test
-    public void testGetAllUsersEmptyResponse() throws Exception {
+    public void testGetUserApplicationsWithApartments() throws Exception {
+        Application application = new Application(4, LocalDate.of(2025, 2, 1), true, false, 1, 2);
+        Apartment apartment = new Apartment(2, "Comfy Studio",
+                "Studio space in downtown Manhattan. Great location", 0,
+                1, "NY", "New York", 400, 280000,
+                LocalDate.of(2025, 1, 10), true, 3, null);
+
+        when(applicationService.getUserApplicationsWithApartments(1, new PageRequest(0, 50)))
+                .thenReturn(new Page<>(List.of(new ApplicationWithApartment(application, apartment)), null));
+
+        mockMvc.perform(get("/users/{id}/applications", 1).param("embed", "apartment"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(4))
+                .andExpect(jsonPath("$.items[0].userId").value(1))
+                .andExpect(jsonPath("$.items[0].application").doesNotExist())
+                .andExpect(jsonPath("$.items[0].apartment.id").value(2))
+                .andExpect(jsonPath("$.items[0].apartment.title").value("Comfy Studio"));
+        verify(applicationService, never()).getUserApplications(anyInt(), any());
+    }
+
+    @Test
+    public void testGetUserApplicationsUnknownEmbed() throws Exception {
+        mockMvc.perform(get("/users/{id}/applications", 1).param("embed", "owner"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(
+                        "Unable to embed owner. The applications of a user can embed apartment"));
+        verifyNoInteractions(applicationService);
+    }
+
+    @Test
+    public void testGetUsersEmptyResponse() throws Exception {
         List<User> emptyList = List.of();
 
-        when(userService.getAllUsers()).thenReturn(emptyList);
+        when(userService.getUsers(new PageRequest(0, 50))).thenReturn(new Page<>(emptyList, null));
 
         MvcResult result = mockMvc.perform(get("/users"))
                 .andExpect(status().isOk())
                 .andReturn();
 
         String responseString = result.getResponse().getContentAsString();
-        CollectionType collectionType = objectMapper.getTypeFactory().constructCollectionType(List.class, User.class);
-        List<User> emptyListResponse = objectMapper.readValue(responseString, collectionType);
+        JavaType pageType = objectMapper.getTypeFactory().constructParametricType(Page.class, User.class);
+        Page<User> emptyListResponse = objectMapper.readValue(responseString, pageType);
+
+        assertThat(emptyListResponse.items()).isEqualTo(emptyList);
+        assertThat(emptyListResponse.nextCursor()).isNull();
+        verify(userService, times(1)).getUsers(new PageRequest(0, 50));
+    }
+
+    @Test
+    public void testExportUsers() throws Exception {
+        User user1 = new User(1, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
+        User user2 = new User(2, "Bob", "Daly", "bob@gmail.com",
+                "6015234567", LocalDate.of(1982, 7, 14), LocalDate.now());
+        User user3 = new User(3, "Beth", "Smith", "beth@gmail.com",
+                "9876420341", LocalDate.of(1990, 2, 17), LocalDate.now());
+
+        doAnswer(invocation -> {
+            Consumer<User> consumer = invocation.getArgument(0);
+            consumer.accept(user1);
+            consumer.accept(user2);
+            consumer.accept(user3);
+            return null;
+        }).when(userService).exportUsers(any());
+
+        MvcResult result = mockMvc.perform(get("/users").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String expectedResponse = objectMapper.writeValueAsString(user1) + "\n"
+                + objectMapper.writeValueAsString(user2) + "\n"
+                + objectMapper.writeValueAsString(user3) + "\n";
 
-        assertThat(emptyListResponse).isEqualTo(emptyList);
-        verify(userService, times(1)).getAllUsers();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(expectedResponse));
+        verify(userService, times(1)).exportUsers(any());
     }
 
     @Test
@@ -3,6 +3,7 @@ package com.auger.apartments.users;
 import com.auger.apartments.IntegrationTest;
 import com.auger.apartments.apartments.Apartment;
 import com.auger.apartments.applications.Application;
+import com.auger.apartments.exceptions.DuplicateDataException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,13 +11,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.jdbc.JdbcTestUtils;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.auger.apartments.TestUtils.assertUsersAreEqual;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatNoException;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
 public class UserRepositoryImplIntegrationTests extends IntegrationTest {
 
@@ -68,13 +78,14 @@ public class UserRepositoryImplIntegrationTests extends IntegrationTest {
     }
 
     @Test
-    public void testFindAll() {
+    public void testStreamAll() {
         Map<Integer, User> userMap = new HashMap<>();
         userMap.put(user1.id(), user1);
         userMap.put(user2.id(), user2);
         userMap.put(user3.id(), user3);
 
-        List<User> users = underTest.findAll();
+        List<User> users = new ArrayList<>();
+        underTest.streamAll(users::add);
 
         assertThat(getRowCount()).isEqualTo(userMap.size());
         assertThat(users.size()).isEqualTo(userMap.size());
@@ -87,12 +98,27 @@ public class UserRepositoryImplIntegrationTests extends IntegrationTest {
         assertThat(userMap.size()).isZero();
     }
 
+    @Test
+    public void testFindPage() {
+        List<User> firstPage = underTest.findPage(0, 2);
+        assertThat(firstPage.size()).isEqualTo(2);
+        assertUsersAreEqual(firstPage.get(0), user1);
+        assertUsersAreEqual(firstPage.get(1), user2);
+
+        List<User> secondPage = underTest.findPage(firstPage.get(1).id(), 2);
+        assertThat(secondPage.size()).isEqualTo(1);
+        assertUsersAreEqual(secondPage.get(0), user3);
+
+        List<User> emptyPage = underTest.findPage(user3.id(), 2);
+        assertThat(emptyPage.size()).isZero();
+    }
+
     @Test
     public void testUpdate() {
         User updatedUser = new User(user1.id(), "Kai", "Asakura", "kai@gmail.com",
                 "7865436549", LocalDate.of(2003, 1, 18), null);
 
-        underTest.update(updatedUser);
+        assertThat(underTest.update(updatedUser)).isEqualTo(1);
 
         assertThat(getRowCount()).isEqualTo(3);
 
@@ -105,18 +131,146 @@ public class UserRepositoryImplIntegrationTests extends IntegrationTest {
         assertUsersAreEqual(retrievedUser, expectedUser);
     }
 
+    @Test
+    public void testCreateAll() {
+        User u4 = new User(null, "Conrad", "Wiggins", "conrad@gmail.com",
+                "7865436549", LocalDate.of(2003, 1, 18), null);
+        User u5 = new User(null, "Alice", "Moore", "alice@gmail.com",
+                "6543217890", LocalDate.of(1990, 6, 2), null);
+
+        List<User> createdUsers = underTest.createAll(List.of(u4, u5));
+
+        assertThat(createdUsers.size()).isEqualTo(2);
+        assertThat(getRowCount()).isEqualTo(5);
+        for (User createdUser : createdUsers) {
+            assertThat(createdUser.dateJoined()).isEqualTo(LocalDate.now());
+            assertUsersAreEqual(underTest.findOne(createdUser.id()).orElseThrow(), createdUser);
+        }
+        assertThat(createdUsers.get(0).email()).isEqualTo("conrad@gmail.com");
+        assertThat(createdUsers.get(1).email()).isEqualTo("alice@gmail.com");
+    }
+
+    @Test
+    public void testCreateAllDuplicateEmail() {
+        User u4 = new User(null, "Conrad", "Wiggins", "conrad@gmail.com",
+                "7865436549", LocalDate.of(2003, 1, 18), null);
+        User u5 = new User(null, "Johnny", "Rogers", user1.email(),
+                "6543217890", LocalDate.of(1990, 6, 2), null);
+
+        assertThatThrownBy(() -> underTest.createAll(List.of(u4, u5)))
+                .isInstanceOf(DuplicateDataException.class)
+                .hasMessage("A user with that email already exists");
+        assertThat(getRowCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testCreateDuplicateEmail() {
+        User duplicateEmailUser = new User(null, "Johnny", "Rogers", user1.email(),
+                "2438905436", LocalDate.of(1999, 4, 28), null);
+
+        assertThatThrownBy(() -> underTest.create(duplicateEmailUser))
+                .isInstanceOf(DuplicateDataException.class)
+                .hasMessage("A user with that email already exists");
+        assertThat(getRowCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testCreateDuplicatePhoneNumber() {
+        User duplicatePhoneNumberUser = new User(null, "Johnny", "Rogers", "johnny@gmail.com",
+                user1.phoneNumber(), LocalDate.of(1999, 4, 28), null);
+
+        assertThatThrownBy(() -> underTest.create(duplicatePhoneNumberUser))
+                .isInstanceOf(DuplicateDataException.class)
+                .hasMessage("A user with that phone number already exists");
+        assertThat(getRowCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testCreateConcurrentDuplicateEmails() throws Exception {
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<User>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            User user = new User(null, "Sam", "Smith", "sam@gmail.com",
+                    String.format("555%07d", i), LocalDate.of(1990, 1, 1), null);
+            futures.add(executor.submit(() -> {
+                start.await();
+                return underTest.create(user);
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        int duplicates = 0;
+        for (Future<User> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+                created++;
+            } catch (ExecutionException ex) {
+                assertThat(ex.getCause()).isInstanceOf(DuplicateDataException.class)
+                        .hasMessage("A user with that email already exists");
+                duplicates++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(created).isEqualTo(1);
+        assertThat(duplicates).isEqualTo(threads - 1);
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "users", "email = 'sam@gmail.com'"))
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void testUpdateKeepingOwnEmailAndPhoneNumber() {
+        User updatedUser = new User(user2.id(), "Jen", "Lilly", user2.email(),
+                user2.phoneNumber(), LocalDate.of(1975, 8, 3), null);
+
+        assertThatNoException().isThrownBy(() -> underTest.update(updatedUser));
+        assertThat(underTest.findOne(user2.id()).orElseThrow().firstName()).isEqualTo("Jen");
+    }
+
+    @Test
+    public void testUpdateDuplicateEmail() {
+        User duplicateEmailUser = new User(user2.id(), "Jennifer", "Lilly", user1.email(),
+                user2.phoneNumber(), LocalDate.of(1975, 8, 3), null);
+
+        assertThatThrownBy(() -> underTest.update(duplicateEmailUser))
+                .isInstanceOf(DuplicateDataException.class)
+                .hasMessage("A user with that email already exists");
+    }
+
+    @Test
+    public void testUpdateDuplicatePhoneNumber() {
+        User duplicatePhoneNumberUser = new User(user2.id(), "Jennifer", "Lilly", user2.email(),
+                user1.phoneNumber(), LocalDate.of(1975, 8, 3), null);
+
+        assertThatThrownBy(() -> underTest.update(duplicatePhoneNumberUser))
+                .isInstanceOf(DuplicateDataException.class)
+                .hasMessage("A user with that phone number already exists");
+    }
+
     @Test
     public void testExists() {
         assertThat(underTest.exists(0)).isFalse();
         assertThat(underTest.exists(user1.id())).isTrue();
     }
 
+    @Test
+    public void testExistsInDatabaseIgnoresIndex() {
+        // deleted behind the repository's back, so the index may not have heard of it yet
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user1.id());
+
+        assertThat(underTest.existsInDatabase(user1.id())).isFalse();
+        assertThat(underTest.existsInDatabase(user2.id())).isTrue();
+    }
+
     @Test
     public void testDelete() {
         assertThat(getRowCount()).isEqualTo(3);
         assertThat(underTest.exists(user1.id())).isTrue();
 
-        underTest.delete(user1.id());
+        assertThat(underTest.delete(user1.id())).isEqualTo(1);
 
         assertThat(getRowCount()).isEqualTo(2);
         assertThat(underTest.exists(user1.id())).isFalse();
@@ -1,17 +1,25 @@
 package com.auger.apartments.users;
 
+import com.auger.apartments.batch.BatchItemResult;
+import com.auger.apartments.batch.BatchResult;
 import com.auger.apartments.exceptions.DeleteApartmentException;
 import com.auger.apartments.exceptions.DuplicateDataException;
 import com.auger.apartments.exceptions.UserNotFoundException;
+import com.auger.apartments.exceptions.VersionConflictException;
+import com.auger.apartments.pagination.Page;
+import com.auger.apartments.pagination.PageRequest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.auger.apartments.TestUtils.assertUsersAreEqual;
 import static org.assertj.core.api.AssertionsForClassTypes.*;
@@ -34,28 +42,49 @@ public class UserServiceImplUnitTests {
         User user = new User(1, "John", "Rogers", "john@gmail.com",
                 "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
 
-        doNothing().when(userValidator).validateNewUser(user);
         when(userRepository.create(user)).thenReturn(user);
 
         User createdUser = underTest.createUser(user);
 
-        verify(userValidator, times(1)).validateNewUser(user);
         verify(userRepository, times(1)).create(user);
+        verifyNoInteractions(userValidator);
         assertUsersAreEqual(user, createdUser);
     }
 
+    @Test
+    public void testCreateUsers() {
+        User user1 = new User(null, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), null);
+        User user2 = new User(null, "Bob", "Daly", "john@gmail.com",
+                "8456320985", LocalDate.of(1994, 10, 11), null);
+        User createdUser1 = new User(1, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
+        List<User> users = List.of(user1, user2);
+
+        when(userValidator.validateNewUsers(users)).thenReturn(Map.of(1, BatchItemResult.rejected(
+                1, HttpStatus.CONFLICT, "A user with that email already exists")));
+        when(userRepository.createAll(List.of(user1))).thenReturn(List.of(createdUser1));
+
+        BatchResult<User> result = underTest.createUsers(users);
+
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(1);
+        assertThat(result.items().get(0)).isEqualTo(BatchItemResult.created(0, createdUser1));
+        assertThat(result.items().get(1).status()).isEqualTo(409);
+        verify(userRepository, times(1)).createAll(List.of(user1));
+    }
+
     @Test
     public void testCreateUserDuplicateEmail() {
         User user = new User(1, "John", "Rogers", "john@gmail.com",
                 "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
 
-        doThrow(new DuplicateDataException("A user with that email already exists"))
-                .when(userValidator).validateNewUser(user);
+        when(userRepository.create(user))
+                .thenThrow(new DuplicateDataException("A user with that email already exists"));
 
         assertThatThrownBy(() -> underTest.createUser(user)).isInstanceOf(DuplicateDataException.class)
                 .hasMessage("A user with that email already exists");
-        verify(userValidator, times(1)).validateNewUser(user);
-        verifyNoInteractions(userRepository);
+        verify(userRepository, times(1)).create(user);
     }
 
     @Test
@@ -63,13 +92,12 @@ public class UserServiceImplUnitTests {
         User user = new User(1, "John", "Rogers", "john@gmail.com",
                 "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
 
-        doThrow(new DuplicateDataException("A user with that phone number already exists"))
-                .when(userValidator).validateNewUser(user);
+        when(userRepository.create(user))
+                .thenThrow(new DuplicateDataException("A user with that phone number already exists"));
 
         assertThatThrownBy(() -> underTest.createUser(user)).isInstanceOf(DuplicateDataException.class)
                 .hasMessage("A user with that phone number already exists");
-        verify(userValidator, times(1)).validateNewUser(user);
-        verifyNoInteractions(userRepository);
+        verify(userRepository, times(1)).create(user);
     }
 
     @Test
@@ -92,7 +120,7 @@ public class UserServiceImplUnitTests {
     }
 
     @Test
-    public void testGetAllUsers() {
+    public void testGetUsers() {
         User user1 = new User(1, "John", "Rogers", "john@gmail.com",
                 "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
         User user2 = new User(2, "Bob", "Daly", "bob@gmail.com",
@@ -103,17 +131,33 @@ public class UserServiceImplUnitTests {
         List<User> emptyList = List.of();
         List<User> userList = List.of(user1, user2, user3);
 
-        when(userRepository.findAll()).thenReturn(emptyList);
-        List<User> noUsers = underTest.getAllUsers();
-        assertThat(noUsers.size()).isZero();
-        assertThat(noUsers).isEqualTo(emptyList);
-        verify(userRepository, times(1)).findAll();
-
-        when(userRepository.findAll()).thenReturn(userList);
-        List<User> multipleUsers = underTest.getAllUsers();
-        assertThat(multipleUsers.size()).isEqualTo(userList.size());
-        assertThat(multipleUsers).isEqualTo(userList);
-        verify(userRepository, times(2)).findAll();
+        when(userRepository.findPage(0, 3)).thenReturn(emptyList);
+        Page<User> noUsers = underTest.getUsers(new PageRequest(0, 2));
+        assertThat(noUsers.items()).isEqualTo(emptyList);
+        assertThat(noUsers.nextCursor()).isNull();
+        verify(userRepository, times(1)).findPage(0, 3);
+
+        when(userRepository.findPage(0, 3)).thenReturn(userList);
+        Page<User> firstPage = underTest.getUsers(new PageRequest(0, 2));
+        assertThat(firstPage.items()).isEqualTo(List.of(user1, user2));
+        assertThat(firstPage.nextCursor()).isNotNull();
+        assertThat(PageRequest.of(firstPage.nextCursor(), 2).afterId()).isEqualTo(user2.id());
+        verify(userRepository, times(2)).findPage(0, 3);
+
+        when(userRepository.findPage(user2.id(), 3)).thenReturn(List.of(user3));
+        Page<User> lastPage = underTest.getUsers(PageRequest.of(firstPage.nextCursor(), 2));
+        assertThat(lastPage.items()).isEqualTo(List.of(user3));
+        assertThat(lastPage.nextCursor()).isNull();
+        verify(userRepository, times(1)).findPage(user2.id(), 3);
+    }
+
+    @Test
+    public void testExportUsers() {
+        Consumer<User> consumer = user -> {};
+
+        underTest.exportUsers(consumer);
+
+        verify(userRepository, times(1)).streamAll(consumer);
     }
 
     @Test
@@ -121,15 +165,12 @@ public class UserServiceImplUnitTests {
         User user = new User(1, "John", "Rogers", "john@gmail.com",
                 "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
 
-        when(userRepository.exists(user.id())).thenReturn(true);
-        doNothing().when(userValidator).validateExistingUser(user);
-        doNothing().when(userRepository).update(user);
+        when(userRepository.update(user)).thenReturn(1);
 
         underTest.updateUser(user);
 
-        verify(userRepository, times(1)).exists(user.id());
-        verify(userValidator, times(1)).validateExistingUser(user);
         verify(userRepository, times(1)).update(user);
+        verifyNoInteractions(userValidator);
         assertThatNoException().isThrownBy(() -> underTest.updateUser(user));
     }
 
@@ -138,15 +179,12 @@ public class UserServiceImplUnitTests {
         User user = new User(1, "John", "Rogers", "john@gmail.com",
                 "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
 
-        when(userRepository.exists(user.id())).thenReturn(true);
         doThrow(new DuplicateDataException("A user with that email already exists"))
-                .when(userValidator).validateExistingUser(user);
+                .when(userRepository).update(user);
 
         assertThatThrownBy(() -> underTest.updateUser(user)).isInstanceOf(DuplicateDataException.class)
                 .hasMessage("A user with that email already exists");
-        verify(userRepository, times(1)).exists(user.id());
-        verify(userValidator, times(1)).validateExistingUser(user);
-        verify(userRepository, times(0)).update(user);
+        verify(userRepository, times(1)).update(user);
     }
 
     @Test
@@ -154,15 +192,12 @@ public class UserServiceImplUnitTests {
         User user = new User(1, "John", "Rogers", "john@gmail.com",
                 "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
 
-        when(userRepository.exists(user.id())).thenReturn(true);
         doThrow(new DuplicateDataException("A user with that phone number already exists"))
-                .when(userValidator).validateExistingUser(user);
+                .when(userRepository).update(user);
 
         assertThatThrownBy(() -> underTest.updateUser(user)).isInstanceOf(DuplicateDataException.class)
                 .hasMessage("A user with that phone number already exists");
-        verify(userRepository, times(1)).exists(user.id());
-        verify(userValidator, times(1)).validateExistingUser(user);
-        verify(userRepository, times(0)).update(user);
+        verify(userRepository, times(1)).update(user);
     }
 
     @Test
@@ -170,15 +205,44 @@ public class UserServiceImplUnitTests {
         User user = new User(1, "John", "Rogers", "john@gmail.com",
                 "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
 
-        when(userRepository.exists(user.id())).thenReturn(false);
+        when(userRepository.update(user)).thenReturn(0);
 
         assertThatThrownBy(() -> underTest.updateUser(user))
                 .isInstanceOf(UserNotFoundException.class)
                 .hasMessage(String.format("User with id %s does not exist", user.id()));
 
-        verify(userRepository, times(1)).exists(user.id());
         verifyNoInteractions(userValidator);
-        verify(userRepository, times(0)).update(user);
+        verify(userRepository, times(1)).update(user);
+    }
+
+    @Test
+    public void testUpdateUserVersionConflict() {
+        User user = new User(1, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now()).withVersion(3);
+
+        when(userRepository.update(user)).thenReturn(0);
+        when(userRepository.existsInDatabase(user.id())).thenReturn(true);
+
+        assertThatThrownBy(() -> underTest.updateUser(user))
+                .isInstanceOf(VersionConflictException.class)
+                .hasMessage(String.format("User with id %s has been updated since version %s", user.id(),
+                        user.version()));
+
+        verify(userRepository, times(1)).update(user);
+        verify(userRepository, never()).exists(user.id());
+    }
+
+    @Test
+    public void testUpdateUserInvalidIdWithVersion() {
+        User user = new User(1, "John", "Rogers", "john@gmail.com",
+                "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now()).withVersion(3);
+
+        when(userRepository.update(user)).thenReturn(0);
+        when(userRepository.existsInDatabase(user.id())).thenReturn(false);
+
+        assertThatThrownBy(() -> underTest.updateUser(user))
+                .isInstanceOf(UserNotFoundException.class)
+                .hasMessage(String.format("User with id %s does not exist", user.id()));
     }
 
     @Test
@@ -215,13 +279,11 @@ public class UserServiceImplUnitTests {
     public void testDeleteUser() {
         int userId = 1;
 
-        when(userRepository.exists(userId)).thenReturn(true);
         doNothing().when(userValidator).validateUserDeletion(userId);
-        doNothing().when(userRepository).delete(userId);
+        when(userRepository.delete(userId)).thenReturn(1);
 
         assertThatNoException().isThrownBy(() -> underTest.deleteUser(userId));
 
-        verify(userRepository, times(1)).exists(userId);
         verify(userValidator, times(1)).validateUserDeletion(userId);
         verify(userRepository, times(1)).delete(userId);
     }
@@ -230,23 +292,20 @@ public class UserServiceImplUnitTests {
     public void testDeleteUserInvalidId() {
         int invalidUserId = 2;
 
-        when(userRepository.exists(invalidUserId)).thenReturn(false);
+        when(userRepository.delete(invalidUserId)).thenReturn(0);
 
         assertThatThrownBy(() -> underTest.deleteUser(invalidUserId))
                 .isInstanceOf(UserNotFoundException.class)
                 .hasMessage(String.format("User with id %s does not exist", invalidUserId));
 
-        verify(userRepository, times(1)).exists(invalidUserId);
-        verifyNoInteractions(userValidator);
-        verify(userRepository, times(0)).delete(invalidUserId);
+        verify(userValidator, times(1)).validateUserDeletion(invalidUserId);
+        verify(userRepository, times(1)).delete(invalidUserId);
     }
 
     @Test
     public void testDeleteUserIsRenter() {
         int userRenterId = 3;
 
-        when(userRepository.exists(userRenterId)).thenReturn(true);
-
         doThrow(new DeleteApartmentException(
                 String.format("Unable to delete user with id %s because they are renting an apartment", userRenterId)
                 )).when(userValidator).validateUserDeletion(userRenterId);
@@ -256,7 +315,6 @@ public class UserServiceImplUnitTests {
                 .hasMessage(String.format(
                         "Unable to delete user with id %s because they are renting an apartment", userRenterId));
 
-        verify(userRepository, times(1)).exists(userRenterId);
         verify(userValidator, times(1)).validateUserDeletion(userRenterId);
         verify(userRepository, times(0)).delete(userRenterId);
     }
@@ -265,8 +323,6 @@ public class UserServiceImplUnitTests {
     public void testDeleteUserOwnsOccupiedApartment() {
         int userOwnerId = 4;
 
-        when(userRepository.exists(userOwnerId)).thenReturn(true);
-
         doThrow(new DeleteApartmentException(String.format(
                         "Unable to delete user with id %s because they own at least one occupied apartment",
                 userOwnerId))).when(userValidator).validateUserDeletion(userOwnerId);
@@ -277,7 +333,6 @@ public class UserServiceImplUnitTests {
                         "Unable to delete user with id %s because they own at least one occupied apartment",
                         userOwnerId));
 
-        verify(userRepository, times(1)).exists(userOwnerId);
         verify(userValidator, times(1)).validateUserDeletion(userOwnerId);
         verify(userRepository, times(0)).delete(userOwnerId);
     }
@@ -2,8 +2,8 @@ package com.auger.apartments.users;
 
 import com.auger.apartments.IntegrationTest;
 import com.auger.apartments.apartments.Apartment;
+import com.auger.apartments.batch.BatchItemResult;
 import com.auger.apartments.exceptions.DeleteUserException;
-import com.auger.apartments.exceptions.DuplicateDataException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,7 +11,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.jdbc.JdbcTestUtils;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatNoException;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
@@ -39,113 +42,24 @@ public class UserValidatorIntegrationTests extends IntegrationTest {
     }
 
     @Test
-    public void testVerifyUniqueEmailForNewUser() {
-        String validEmail = "email@email.com";
-
-        assertThatNoException().isThrownBy(() -> underTest.verifyUniqueEmailForNewUser(validEmail));
-        assertThatThrownBy(() -> underTest.verifyUniqueEmailForNewUser(user1.email()))
-                .isInstanceOf(DuplicateDataException.class).hasMessage("A user with that email already exists");
-    }
-
-    @Test
-    public void testVerifyUniquePhoneNumberForNewUser() {
-        String validPhoneNumber = "7536251730";
-
-        assertThatNoException().isThrownBy(() -> underTest.verifyUniquePhoneNumberForNewUser(validPhoneNumber));
-        assertThatThrownBy(() -> underTest.verifyUniquePhoneNumberForNewUser(user1.phoneNumber()))
-                .isInstanceOf(DuplicateDataException.class)
-                .hasMessage("A user with that phone number already exists");
-    }
-
-    @Test
-    public void testVerifyUniqueEmailForExistingUser() {
-        User sameUser = new User(user2.id(), "Bob", "Daly", "bob@gmail.com",
-                "7453928318", LocalDate.of(2000, 1, 1), LocalDate.now());
-        assertThatNoException().isThrownBy(
-                () -> underTest.verifyUniqueEmailForExistingUser(sameUser.id(), sameUser.email())
-        );
-
-        User duplicateEmailUser = new User(user2.id(), "Bob", "Daly",
-                "john@gmail.com", "7453928318", LocalDate.of(2000, 1, 1),
-                LocalDate.now());
-        assertThatThrownBy(() -> underTest.verifyUniqueEmailForExistingUser(
-                duplicateEmailUser.id(), duplicateEmailUser.email())
-        )
-                .isInstanceOf(DuplicateDataException.class)
-                .hasMessage("A user with that email already exists");
-    }
-
-    @Test
-    public void testVerifyUniquePhoneNumberForExistingUser() {
-        User sameUser = new User(user2.id(), "Bob", "Daly", "bob@gmail.com",
-                "7453928318", LocalDate.of(2000, 1, 1), LocalDate.now());
-        assertThatNoException().isThrownBy(() -> underTest.verifyUniquePhoneNumberForExistingUser(
-                sameUser.id(), sameUser.phoneNumber())
-        );
-
-        User duplicatePhoneNumberUser = new User(user2.id(), "Bob", "Daly",
-                "bob@gmail.com", "1234567894", LocalDate.of(2000, 1, 1),
-                LocalDate.now());
-        assertThatThrownBy(() -> underTest.verifyUniquePhoneNumberForExistingUser(
-                duplicatePhoneNumberUser.id(), duplicatePhoneNumberUser.phoneNumber())
-        )
-                .isInstanceOf(DuplicateDataException.class)
-                .hasMessage("A user with that phone number already exists");
-    }
-
-    @Test
-    public void testValidateNewUser() {
-        User user = new User(0, "John", "Rogers", "johnny@gmail.com",
-                "2438905436", LocalDate.of(1999, 4, 28), LocalDate.now());
-
-        assertThatNoException().isThrownBy(() -> underTest.validateNewUser(user));
-    }
-
-    @Test
-    public void testValidateNewUserDuplicateEmail() {
-        assertThatThrownBy(() -> underTest.validateNewUser(user1))
-                .isInstanceOf(DuplicateDataException.class)
-                .hasMessage("A user with that email already exists");
-    }
-
-    @Test
-    public void testValidateNewUserDuplicatePhoneNumber() {
-        User duplicatePhoneNumberUser = new User(0, "John", "Rogers", "johnny@gmail.com",
-                "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
-
-        assertThatThrownBy(() -> underTest.validateNewUser(duplicatePhoneNumberUser))
-                .isInstanceOf(DuplicateDataException.class)
-                .hasMessage("A user with that phone number already exists");
-    }
-
-    @Test
-    public void testValidateExistingUser() {
-        User updatedUser = new User(user1.id(), "John", "Rogers", "johnny@gmail.com",
-                "1234567894", LocalDate.of(1999, 4, 28), LocalDate.now());
-
-        assertThatNoException().isThrownBy(() -> underTest.validateExistingUser(updatedUser));
-    }
-
-    @Test
-    public void testValidateExistingUserDuplicateEmail() {
-        User duplicateEmailUser = new User(user2.id(), "Bob", "Daly",
-                "john@gmail.com", "7453928318", LocalDate.of(2000, 1, 1),
-                LocalDate.now());
-
-        assertThatThrownBy(() -> underTest.validateExistingUser(duplicateEmailUser))
-                .isInstanceOf(DuplicateDataException.class)
-                .hasMessage("A user with that email already exists");
-    }
-
-    @Test
-    public void testValidateExistingUserDuplicatePhoneNumber() {
-        User duplicatePhoneNumberUser = new User(user2.id(), "Bob", "Daly",
-                "bob@gmail.com", "1234567894", LocalDate.of(2000, 1, 1),
-                LocalDate.now());
-
-        assertThatThrownBy(() -> underTest.validateExistingUser(duplicatePhoneNumberUser))
-                .isInstanceOf(DuplicateDataException.class)
-                .hasMessage("A user with that phone number already exists");
+    public void testValidateNewUsers() {
+        User valid = new User(null, "Conrad", "Wiggins", "conrad@gmail.com",
+                "7865436549", LocalDate.of(2003, 1, 18), null);
+        User takenEmail = new User(null, "Johnny", "Rogers", user1.email(),
+                "2438905436", LocalDate.of(1999, 4, 28), null);
+        User takenPhoneNumber = new User(null, "Johnny", "Rogers", "johnny@gmail.com",
+                user2.phoneNumber(), LocalDate.of(1999, 4, 28), null);
+        User emailTakenInBatch = new User(null, "Connie", "Wiggins", "conrad@gmail.com",
+                "1111111111", LocalDate.of(2003, 1, 18), null);
+
+        Map<Integer, BatchItemResult<User>> rejections = underTest.validateNewUsers(
+                List.of(valid, takenEmail, takenPhoneNumber, emailTakenInBatch));
+
+        assertThat(rejections).containsOnlyKeys(1, 2, 3);
+        assertThat(rejections.get(1).error()).isEqualTo("A user with that email already exists");
+        assertThat(rejections.get(2).error()).isEqualTo("A user with that phone number already exists");
+        assertThat(rejections.get(3).error()).isEqualTo("A user with that email already exists");
+        assertThat(rejections.get(3).status()).isEqualTo(409);
     }
 
     @Test